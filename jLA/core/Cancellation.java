@@ -0,0 +1,118 @@
+/**
+ * Cooperative cancellation of long-running computations.
+ * <p>
+ * Factorizations and iterative solvers call {@link #checkpoint()} regularly
+ * (e.g., once per column eliminated, or once per iteration).  If the thread
+ * running the computation has been interrupted, the checkpoint abandons the
+ * computation by throwing a CancellationException, so a cancelled
+ * factorization stops within one column of work rather than running to
+ * completion.  The interrupt status of the thread is left set, so callers can
+ * still see that the thread was interrupted.
+ * <p>
+ * Work split across the common fork/join pool runs on worker threads, which
+ * never see an interrupt of the thread waiting for them.  Such computations
+ * are started with {@link #invoke(ForkJoinTask, AtomicBoolean)}, which waits
+ * for them interruptibly and raises a shared flag when the waiting thread is
+ * interrupted, and their tasks call {@link #checkpoint(AtomicBoolean)}.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ */
+
+package jLA.core;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public final class Cancellation
+{
+   private Cancellation() {}
+
+
+   /**
+    * Abandons the current computation if its thread has been interrupted
+    *
+    * @throws	CancellationException	If the current thread is interrupted
+    *
+    * @since	1.1.0
+    */
+   public static void checkpoint()
+   {
+      if(Thread.currentThread().isInterrupted())
+      {
+         throw new CancellationException("Computation cancelled by interrupt.");
+      }
+   }
+
+
+   /**
+    * Abandons the current computation if its thread has been interrupted, or
+    * if the computation it belongs to has been cancelled
+    *
+    * @param	cancelled	The flag raised when the computation is
+    *				cancelled
+    *
+    * @throws	CancellationException	If the computation is cancelled
+    *
+    * @since	1.1.0
+    */
+   public static void checkpoint(AtomicBoolean cancelled)
+   {
+      if(cancelled.get())
+      {
+         throw new CancellationException("Computation cancelled by interrupt.");
+      }
+      checkpoint();
+   }
+
+
+   /**
+    * Runs a task on the common fork/join pool and waits for its result
+    * <p>
+    * If the calling thread is interrupted while it waits, the flag is raised
+    * so that the tasks stop at their next checkpoint, and once they have
+    * stopped the computation is abandoned.  As with {@link #checkpoint()}
+    * the interrupt status of the calling thread is left set.
+    *
+    * @param	task		The root task of the computation
+    * @param	cancelled	The flag checked by the tasks
+    *
+    * @return		The result of the task
+    *
+    * @throws	CancellationException	If the calling thread is interrupted
+    *
+    * @since	1.1.0
+    */
+   public static <T> T invoke(ForkJoinTask<T> task, AtomicBoolean cancelled)
+   {
+      ForkJoinPool.commonPool().execute(task);
+
+      try
+      {
+         return task.get();
+      }
+      catch(InterruptedException e)
+      {
+         cancelled.set(true);
+         task.quietlyJoin();
+         Thread.currentThread().interrupt();
+         throw new CancellationException("Computation cancelled by interrupt.");
+      }
+      catch(ExecutionException e)
+      {
+         Throwable cause = e.getCause();
+         if(cause instanceof RuntimeException)
+         {
+            throw (RuntimeException) cause;
+         }
+         if(cause instanceof Error)
+         {
+            throw (Error) cause;
+         }
+         throw new IllegalStateException(cause);
+      }
+   }
+}
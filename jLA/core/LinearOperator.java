@@ -0,0 +1,105 @@
+/**
+ * An interface for anything which can multiply a vector by a matrix.
+ * <p>
+ * Iterative solvers never need the entries of a matrix, only the result of
+ * multiplying it by a vector.  Matrices which are only available as a
+ * procedure (a stencil, or a product of factors) can be used with those
+ * solvers by implementing this interface, without ever being formed.
+ * <p>
+ * Vectors are plain arrays, so the solvers can reuse them between
+ * iterations rather than allocating new matrices.
+ * <p>
+ * Least squares solvers also multiply by the transpose of the operator, so
+ * they take a {@link TransposableOperator} instead.
+ * <p>
+ * Block methods, such as randomized decompositions, multiply by several
+ * vectors at once.  The block product is stored as an array of rows, and by
+ * default multiplies one column at a time;  operators which can multiply a
+ * block while reading their entries once should override it.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ */
+
+package jLA.core;
+
+public interface LinearOperator
+{
+   /**
+    * Gets the dimension of the operator
+    *
+    * @return		A 2 element array consisting of the number of rows
+    *			and number of columns
+    *
+    * @since	1.1.0
+    */
+   public int[] getSize();
+
+
+   /**
+    * Multiplies a vector by this operator, i.e., computes y = Ax
+    *
+    * @param	x	The vector to multiply, with one entry per column
+    * @param	y	Overwritten with the product, with one entry per row
+    *
+    * @since	1.1.0
+    */
+   public void apply(double[] x, double[] y);
+
+
+   /**
+    * Multiplies a vector by this operator using several threads
+    * <p>
+    * Operators which can split their work between threads should override
+    * this method.  By default it is the same as {@link #apply(double[], double[])}.
+    *
+    * @param	x	The vector to multiply, with one entry per column
+    * @param	y	Overwritten with the product, with one entry per row
+    *
+    * @since	1.1.0
+    */
+   public default void applyParallel(double[] x, double[] y)
+   {
+      apply(x, y);
+   }
+
+
+   /**
+    * Multiplies a block of vectors by this operator, i.e., computes Y = AX
+    *
+    * @param	X		The vectors to multiply, as an n x k array of rows
+    * @param	Y		Overwritten with the product, as an m x k array of
+    *				rows
+    * @param	parallel	Whether to use several threads
+    *
+    * @since	1.1.0
+    */
+   public default void applyBlock(double[][] X, double[][] Y, boolean parallel)
+   {
+      int k = (X.length > 0) ? X[0].length : 0;
+      double[] x = new double[X.length];
+      double[] y = new double[Y.length];
+
+      for(int c=0; c<k; c++)
+      {
+         for(int j=0; j<x.length; j++)
+         {
+            x[j] = X[j][c];
+         }
+
+         if(parallel)
+         {
+            applyParallel(x, y);
+         }
+         else
+         {
+            apply(x, y);
+         }
+
+         for(int i=0; i<y.length; i++)
+         {
+            Y[i][c] = y[i];
+         }
+      }
+   }
+}
@@ -9,9 +9,12 @@
  * "Scientific Computing: An Introductory Survey".  This package should
  * not be used for any purpose where efficiency or accuracy is desired.  Learn
  * MatLAB or Octave instead if that is important.
+ * <p>
+ * Matrices are also {@link TransposableOperator}s, so they can be used with
+ * the iterative and least squares solvers.
  * 
  * @author	Dana Hughes	dana.hughes@colorado.edu
- * @version	1.0.0
+ * @version	1.1.0
  */
 
 package jLA.core;
@@ -19,9 +22,15 @@ package jLA.core;
 import jLA.core.MatrixSizeMismatchException;
 import jLA.core.NotSquareMatrixException;
 import java.lang.Math;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
-public class Matrix
+public class Matrix implements TransposableOperator
 {
+   // Smallest number of rows handed to a thread by applyParallel
+   private static final int PARALLEL_ROWS = 256;
+
    private int rows, cols;
    private double[][] matrix;
 
@@ -184,19 +193,20 @@ public class Matrix
     */
    public boolean isLowerTriangular()
    {
-      // Assume true until shown otherwise
-      boolean isLower = true;
-
-      // Check that the upper portion are all zeros
+      // Check that the upper portion are all zeros, stopping at the first
+      // non-zero found
       for(int i=0; i<this.rows; i++)
       {
          for(int j=i+1; j<this.cols; j++)
          {
-            isLower = isLower && (this.get(i,j) == 0);
+            if(this.get(i,j) != 0)
+            {
+               return false;
+            }
          }
       }
 
-      return isLower;
+      return true;
    }
 
 
@@ -209,19 +219,52 @@ public class Matrix
     */
    public boolean isUpperTriangular()
    {
-      // Assume true until shown otherwise
-      boolean isUpper = true;
+      // Check that the lower portion are all zeros, stopping at the first
+      // non-zero found
+      for(int i=0; i<this.rows; i++)
+      {
+         for(int j=0; j<i && j<this.cols; j++)
+         {
+            if(this.get(i,j) != 0)
+            {
+               return false;
+            }
+         }
+      }
+
+      return true;
+   }
+
+
+   /**
+    * Indicates if this matrix is symmetric
+    * <p>
+    * The comparison is exact, and stops at the first pair of entries which
+    * differ.
+    *
+    * @return		true if the matrix is square and equal to its transpose
+    *
+    * @since	1.1.0
+    */
+   public boolean isSymmetric()
+   {
+      if(this.rows != this.cols)
+      {
+         return false;
+      }
 
-      // Check that the lower portion are all zeros
       for(int i=0; i<this.rows; i++)
       {
          for(int j=0; j<i; j++)
          {
-            isUpper = isUpper && (this.get(i,j) == 0);
+            if(this.get(i,j) != this.get(j,i))
+            {
+               return false;
+            }
          }
       }
 
-      return isUpper;
+      return true;
    }
 
 
@@ -341,6 +384,7 @@ public class Matrix
       // Sweet!!!  O(n^3)!!!
       for(int i=0; i<this.rows; i++)
       {
+         Cancellation.checkpoint();
          for(int j=0; j<b.cols; j++)
          {
             for(int k=0; k<this.cols; k++)
@@ -381,6 +425,129 @@ public class Matrix
    }
 
 
+   /**
+    * Multiplies a vector by this matrix, i.e., computes y = Ax
+    *
+    * @param	x	The vector to multiply, with one entry per column
+    * @param	y	Overwritten with the product, with one entry per row
+    *
+    * @since	1.1.0
+    */
+   public void apply(double[] x, double[] y)
+   {
+      applyRows(x, y, 0, this.rows);
+   }
+
+
+   /**
+    * Multiplies a vector by this matrix using several threads
+    * <p>
+    * The rows of the matrix are split between threads of the common
+    * fork/join pool.
+    *
+    * @param	x	The vector to multiply, with one entry per column
+    * @param	y	Overwritten with the product, with one entry per row
+    *
+    * @since	1.1.0
+    */
+   public void applyParallel(double[] x, double[] y)
+   {
+      if(this.rows <= PARALLEL_ROWS)
+      {
+         applyRows(x, y, 0, this.rows);
+      }
+      else
+      {
+         ForkJoinPool.commonPool().invoke(new RowTask(x, y, 0, this.rows));
+      }
+   }
+
+
+   /**
+    * Multiplies a vector by the transpose of this matrix, i.e., computes
+    * x = A^T y
+    * <p>
+    * The rows of the matrix are read in order, each adding a multiple of
+    * itself to x, so the transpose is never formed.
+    *
+    * @param	y	The vector to multiply, with one entry per row
+    * @param	x	Overwritten with the product, with one entry per column
+    *
+    * @since	1.1.0
+    */
+   public void applyTranspose(double[] y, double[] x)
+   {
+      Arrays.fill(x, 0, this.cols, 0.0);
+
+      for(int i=0; i<this.rows; i++)
+      {
+         double yi = y[i];
+         if(yi != 0)
+         {
+            double[] row = this.matrix[i];
+            for(int j=0; j<this.cols; j++)
+            {
+               x[j] += row[j] * yi;
+            }
+         }
+      }
+   }
+
+
+   /**
+    * Multiplies a block of vectors by this matrix, i.e., computes Y = AX
+    * <p>
+    * Each row of A is read once for the whole block, and rows of Y are
+    * split between threads of the common fork/join pool when requested.
+    *
+    * @param	X		The vectors to multiply, as an n x k array of rows
+    * @param	Y		Overwritten with the product, as an m x k array of
+    *				rows
+    * @param	parallel	Whether to use several threads
+    *
+    * @since	1.1.0
+    */
+   public void applyBlock(double[][] X, double[][] Y, boolean parallel)
+   {
+      if(parallel && this.rows > PARALLEL_ROWS)
+      {
+         ForkJoinPool.commonPool().invoke(new BlockTask(X, Y, false, 0, this.rows));
+      }
+      else
+      {
+         applyBlockRows(X, Y, 0, this.rows);
+      }
+   }
+
+
+   /**
+    * Multiplies a block of vectors by the transpose of this matrix, i.e.,
+    * computes X = A^T Y
+    * <p>
+    * Each row of A is read once for the whole block, and columns of A (rows
+    * of X) are split between threads of the common fork/join pool when
+    * requested.
+    *
+    * @param	Y		The vectors to multiply, as an m x k array of rows
+    * @param	X		Overwritten with the product, as an n x k array of
+    *				rows
+    * @param	parallel	Whether to use several threads
+    *
+    * @since	1.1.0
+    */
+   public void applyTransposeBlock(double[][] Y, double[][] X, boolean parallel)
+   {
+      if(parallel && this.cols > PARALLEL_ROWS)
+      {
+         ForkJoinPool.commonPool().invoke(new BlockTask(Y, X, true, 0, this.cols));
+      }
+      else
+      {
+         applyTransposeBlockColumns(Y, X, 0, this.cols);
+      }
+   }
+
+
    /**
     * Determines the inverse of this matrix
     *
@@ -541,4 +708,159 @@ public class Matrix
 
       return norm;
    }
+
+
+   /**
+    * Computes the rows first to last-1 of y = Ax
+    *
+    * @since	1.1.0
+    */
+   private void applyRows(double[] x, double[] y, int first, int last)
+   {
+      for(int i=first; i<last; i++)
+      {
+         double[] row = this.matrix[i];
+         double sum = 0;
+         for(int j=0; j<this.cols; j++)
+         {
+            sum += row[j] * x[j];
+         }
+         y[i] = sum;
+      }
+   }
+
+
+   /**
+    * Computes the rows first to last-1 of Y = AX
+    *
+    * @since	1.1.0
+    */
+   private void applyBlockRows(double[][] X, double[][] Y, int first, int last)
+   {
+      for(int i=first; i<last; i++)
+      {
+         double[] row = this.matrix[i];
+         double[] yi = Y[i];
+         Arrays.fill(yi, 0.0);
+
+         for(int j=0; j<this.cols; j++)
+         {
+            double aij = row[j];
+            if(aij != 0)
+            {
+               double[] xj = X[j];
+               for(int c=0; c<yi.length; c++)
+               {
+                  yi[c] += aij * xj[c];
+               }
+            }
+         }
+      }
+   }
+
+
+   /**
+    * Computes the rows first to last-1 of X = A^T Y
+    *
+    * @since	1.1.0
+    */
+   private void applyTransposeBlockColumns(double[][] Y, double[][] X, int first, int last)
+   {
+      for(int j=first; j<last; j++)
+      {
+         Arrays.fill(X[j], 0.0);
+      }
+
+      for(int i=0; i<this.rows; i++)
+      {
+         double[] row = this.matrix[i];
+         double[] yi = Y[i];
+
+         for(int j=first; j<last; j++)
+         {
+            double aij = row[j];
+            if(aij != 0)
+            {
+               double[] xj = X[j];
+               for(int c=0; c<yi.length; c++)
+               {
+                  xj[c] += aij * yi[c];
+               }
+            }
+         }
+      }
+   }
+
+
+   /**
+    * Splits the rows of a product between fork/join tasks.
+    *
+    * @since	1.1.0
+    */
+   private class RowTask extends RecursiveAction
+   {
+      private double[] x, y;
+      private int first, last;
+
+      RowTask(double[] x, double[] y, int first, int last)
+      {
+         this.x = x;
+         this.y = y;
+         this.first = first;
+         this.last = last;
+      }
+
+      protected void compute()
+      {
+         if(last - first <= PARALLEL_ROWS)
+         {
+            applyRows(x, y, first, last);
+         }
+         else
+         {
+            int middle = (first + last) >>> 1;
+            invokeAll(new RowTask(x, y, first, middle), new RowTask(x, y, middle, last));
+         }
+      }
+   }
+
+
+   /**
+    * Splits the rows of a block product, or the columns of a transposed
+    * block product, between fork/join tasks.
+    *
+    * @since	1.1.0
+    */
+   private class BlockTask extends RecursiveAction
+   {
+      private double[][] in, out;
+      private boolean transpose;
+      private int first, last;
+
+      BlockTask(double[][] in, double[][] out, boolean transpose, int first, int last)
+      {
+         this.in = in;
+         this.out = out;
+         this.transpose = transpose;
+         this.first = first;
+         this.last = last;
+      }
+
+      protected void compute()
+      {
+         if(last - first > PARALLEL_ROWS)
+         {
+            int middle = (first + last) >>> 1;
+            invokeAll(new BlockTask(in, out, transpose, first, middle), new BlockTask(in, out, transpose, middle, last));
+         }
+         else if(transpose)
+         {
+            applyTransposeBlockColumns(in, out, first, last);
+         }
+         else
+         {
+            applyBlockRows(in, out, first, last);
+         }
+      }
+   }
 }
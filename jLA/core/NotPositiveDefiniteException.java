@@ -0,0 +1,60 @@
+/**
+ * An exception for attempting operations requiring positive definite matrices.
+ * <p>
+ * Examples include performing Cholesky factorization.
+ *
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ */
+package jLA.core;
+
+public class NotPositiveDefiniteException extends Exception
+{
+   /**
+    * Creates a new exception with no message.
+    *
+    * @since	1.1.0
+    */
+   public NotPositiveDefiniteException() {}
+
+
+   /**
+    * Creates a new exception with a message.
+    *
+    * @param	message	A reason for throwing this exception
+    *
+    * @since	1.1.0
+    */
+   public NotPositiveDefiniteException(String message)
+   {
+      super(message);
+   }
+
+
+   /**
+    * Creates a new exception with a cause.
+    *
+    * @param	cause	The cause of this if it was due to another exception
+    *
+    * @since	1.1.0
+    */
+   public NotPositiveDefiniteException(Throwable cause)
+   {
+      super(cause);
+   }
+
+
+   /**
+    * Creates a new exception with a message and a cause.
+    *
+    * @param	message	A reason for throwing this exception
+    * @param	cause	The cause of this if it was due to another exception
+    *
+    * @since	1.1.0
+    */
+   public NotPositiveDefiniteException(String message, Throwable cause)
+   {
+      super(message, cause);
+   }
+}
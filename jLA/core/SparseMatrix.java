@@ -0,0 +1,946 @@
+/**
+ * A sparse matrix class for working with large, mostly-zero matrices.
+ * <p>
+ * Only the non-zero entries of the matrix are stored.  Entries are kept
+ * column by column, with the row indices of each column in increasing order,
+ * which is the layout the sparse factorizations walk through.  Reading or
+ * writing a single entry costs a binary search within its column, so clients
+ * building large matrices should fill each column in increasing row order
+ * (appending is cheap), or use {@link #setColumn(int, int[], double[], int)}.
+ * <p>
+ * The row index and value arrays returned by {@link #getColumnRowIndices(int)}
+ * and {@link #getColumnValues(int)} are the internal storage of the matrix.
+ * They may be longer than the number of entries in the column, and must not be
+ * modified by clients.
+ * <p>
+ * Sparse matrices are also {@link TransposableOperator}s, so they can be used
+ * with the iterative and least squares solvers.  Multiplying by a vector
+ * costs O(nnz).
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ */
+
+package jLA.core;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import jLA.core.Matrix;
+import jLA.core.MatrixSizeMismatchException;
+
+public class SparseMatrix implements TransposableOperator
+{
+   // Smallest number of rows handed to a thread by applyParallel, and of
+   // columns by applyTransposeParallel
+   private static final int PARALLEL_ROWS = 1024;
+
+   private int rows, cols;
+   private int[][] rowIndices;
+   private double[][] values;
+   private int[] counts;
+
+   // The transpose, whose columns are the rows of this matrix, kept for
+   // applyParallel so each thread can compute its own rows of the product
+   private volatile SparseMatrix rowCopy = null;
+
+
+   /**
+    * Generates a sparse identity matrix of the given size.
+    *
+    * @param	n	The number of rows / columns of the matrix
+    *
+    * @return		An identity matrix of rank n
+    *
+    * @since	1.1.0
+    */
+   public static SparseMatrix identity(int n)
+   {
+      SparseMatrix identity = new SparseMatrix(n,n);
+      for(int i=0; i<n; i++)
+      {
+         identity.set(i,i,1.0);
+      }
+
+      return identity;
+   }
+
+
+   /**
+    * Creates a sparse matrix holding the non-zero entries of a dense matrix.
+    *
+    * @param	A	The dense matrix to convert
+    *
+    * @return		A sparse matrix equal to A
+    *
+    * @since	1.1.0
+    */
+   public static SparseMatrix fromMatrix(Matrix A)
+   {
+      int m = A.getSize()[0];
+      int n = A.getSize()[1];
+
+      SparseMatrix S = new SparseMatrix(m,n);
+
+      for(int j=0; j<n; j++)
+      {
+         for(int i=0; i<m; i++)
+         {
+            double value = A.get(i,j);
+            if(value != 0)
+            {
+               S.set(i,j,value);
+            }
+         }
+      }
+
+      return S;
+   }
+
+
+   /**
+    * Creates a new sparse matrix.
+    * <p>
+    * The matrix is initialized with no stored entries, i.e., every entry is 0.
+    *
+    * @param	m	The number of rows in the matrix
+    * @param	n	The number of columns in the matrix
+    *
+    * @since	1.1.0
+    */
+   public SparseMatrix(int m, int n)
+   {
+      this.rows = m;
+      this.cols = n;
+      this.rowIndices = new int[n][];
+      this.values = new double[n][];
+      this.counts = new int[n];
+
+      for(int j=0; j<n; j++)
+      {
+         this.rowIndices[j] = new int[0];
+         this.values[j] = new double[0];
+      }
+   }
+
+
+   /**
+    * Provides a String representation of the matrix.
+    * <p>
+    * Each stored entry is listed on its own line as (row, column) value.
+    *
+    * @return		A string representation of the matrix
+    *
+    * @since	1.1.0
+    */
+   public String toString()
+   {
+      StringBuilder str = new StringBuilder();
+
+      for(int j=0; j<this.cols; j++)
+      {
+         for(int p=0; p<this.counts[j]; p++)
+         {
+            str.append("(" + this.rowIndices[j][p] + ", " + j + ")\t" + this.values[j][p] + "\n");
+         }
+      }
+
+      return str.toString();
+   }
+
+
+   /**
+    * Gets the value of the matrix at location (i,j)
+    *
+    * @param	i	The row of the desired element
+    * @param	j	The column of the desired element
+    *
+    * @return		The element at row i, column j
+    *
+    * @since	1.1.0
+    */
+   public double get(int i, int j)
+   {
+      int p = Arrays.binarySearch(this.rowIndices[j], 0, this.counts[j], i);
+
+      return (p >= 0) ? this.values[j][p] : 0.0;
+   }
+
+
+   /**
+    * Sets the value of the matrix at location (i,j)
+    * <p>
+    * Setting an entry to zero removes it from the stored entries.
+    *
+    * @param	i	The row of the desired element to be set
+    * @param	j	The column of the desired element to be set
+    * @param	value	The new value of the element
+    *
+    * @since	1.1.0
+    */
+   public void set(int i, int j, double value)
+   {
+      this.rowCopy = null;
+      int count = this.counts[j];
+
+      // Fast path - appending below the last entry in the column
+      if(value != 0 && (count == 0 || this.rowIndices[j][count-1] < i))
+      {
+         ensureColumnCapacity(j, count+1);
+         this.rowIndices[j][count] = i;
+         this.values[j][count] = value;
+         this.counts[j] = count+1;
+         return;
+      }
+
+      int p = Arrays.binarySearch(this.rowIndices[j], 0, count, i);
+
+      if(p >= 0)
+      {
+         if(value != 0)
+         {
+            this.values[j][p] = value;
+         }
+         else
+         {
+            // Remove the entry, shifting the rest of the column up
+            System.arraycopy(this.rowIndices[j], p+1, this.rowIndices[j], p, count-p-1);
+            System.arraycopy(this.values[j], p+1, this.values[j], p, count-p-1);
+            this.counts[j] = count-1;
+         }
+      }
+      else if(value != 0)
+      {
+         // Insert the entry, shifting the rest of the column down
+         p = -(p+1);
+         ensureColumnCapacity(j, count+1);
+         System.arraycopy(this.rowIndices[j], p, this.rowIndices[j], p+1, count-p);
+         System.arraycopy(this.values[j], p, this.values[j], p+1, count-p);
+         this.rowIndices[j][p] = i;
+         this.values[j][p] = value;
+         this.counts[j] = count+1;
+      }
+   }
+
+
+   /**
+    * Replaces the entries of column j.
+    * <p>
+    * The row indices do not need to be sorted, but must not be repeated.  The
+    * provided arrays are copied, so clients may reuse them afterwards.
+    *
+    * @param	j		The column to replace
+    * @param	rowIndex	The row indices of the entries in the column
+    * @param	value		The values of the entries in the column
+    * @param	count		How many entries of the arrays to use
+    *
+    * @since	1.1.0
+    */
+   public void setColumn(int j, int[] rowIndex, double[] value, int count)
+   {
+      this.rowCopy = null;
+
+      int[] newRows = new int[count];
+      double[] newValues = new double[count];
+
+      // Sort the row indices, carrying the position of each value along in
+      // the low bits of the sort key
+      long[] keys = new long[count];
+      for(int p=0; p<count; p++)
+      {
+         keys[p] = ((long) rowIndex[p] << 32) | p;
+      }
+      Arrays.sort(keys);
+
+      for(int p=0; p<count; p++)
+      {
+         int from = (int) (keys[p] & 0xffffffffL);
+         newRows[p] = rowIndex[from];
+         newValues[p] = value[from];
+      }
+
+      this.rowIndices[j] = newRows;
+      this.values[j] = newValues;
+      this.counts[j] = count;
+   }
+
+
+   /**
+    * Gets the dimension of the matrix
+    *
+    * @return		A 2 element array consisting of the number of rows
+    *			and number of columns
+    *
+    * @since	1.1.0
+    */
+   public int[] getSize()
+   {
+      int[] size = new int[2];
+      size[0] = this.rows;
+      size[1] = this.cols;
+      return size;
+   }
+
+
+   /**
+    * Gets the number of stored entries in the matrix
+    *
+    * @return		The number of non-zero entries
+    *
+    * @since	1.1.0
+    */
+   public int nonZeroCount()
+   {
+      int nnz = 0;
+      for(int j=0; j<this.cols; j++)
+      {
+         nnz += this.counts[j];
+      }
+
+      return nnz;
+   }
+
+
+   /**
+    * Gets the number of stored entries in column j
+    *
+    * @param	j	The column of interest
+    *
+    * @return		The number of non-zero entries in column j
+    *
+    * @since	1.1.0
+    */
+   public int getColumnNonZeroCount(int j)
+   {
+      return this.counts[j];
+   }
+
+
+   /**
+    * Gets the row indices of the stored entries in column j
+    * <p>
+    * Only the first {@link #getColumnNonZeroCount(int)} indices are valid.
+    *
+    * @param	j	The column of interest
+    *
+    * @return		The (internal) array of row indices for column j
+    *
+    * @since	1.1.0
+    */
+   public int[] getColumnRowIndices(int j)
+   {
+      return this.rowIndices[j];
+   }
+
+
+   /**
+    * Gets the values of the stored entries in column j
+    * <p>
+    * Only the first {@link #getColumnNonZeroCount(int)} values are valid.
+    *
+    * @param	j	The column of interest
+    *
+    * @return		The (internal) array of values for column j
+    *
+    * @since	1.1.0
+    */
+   public double[] getColumnValues(int j)
+   {
+      return this.values[j];
+   }
+
+
+   /**
+    * Returns a copy of this matrix
+    *
+    * @return		A copy of this matrix
+    *
+    * @since	1.1.0
+    */
+   public SparseMatrix copy()
+   {
+      SparseMatrix theCopy = new SparseMatrix(this.rows, this.cols);
+
+      for(int j=0; j<this.cols; j++)
+      {
+         theCopy.rowIndices[j] = Arrays.copyOf(this.rowIndices[j], this.counts[j]);
+         theCopy.values[j] = Arrays.copyOf(this.values[j], this.counts[j]);
+         theCopy.counts[j] = this.counts[j];
+      }
+
+      return theCopy;
+   }
+
+
+   /**
+    * Converts this matrix to a dense matrix
+    *
+    * @return		A dense matrix equal to this matrix
+    *
+    * @since	1.1.0
+    */
+   public Matrix toMatrix()
+   {
+      Matrix dense = new Matrix(this.rows, this.cols);
+
+      for(int j=0; j<this.cols; j++)
+      {
+         for(int p=0; p<this.counts[j]; p++)
+         {
+            dense.set(this.rowIndices[j][p], j, this.values[j][p]);
+         }
+      }
+
+      return dense;
+   }
+
+
+   /**
+    * Indicates if this matrix is square
+    *
+    * @return		true if the matrix is square
+    *
+    * @since	1.1.0
+    */
+   public boolean isSquare()
+   {
+      return rows == cols;
+   }
+
+
+   /**
+    * Gives the transpose of this matrix
+    * <p>
+    * This method does not mutate this object, but rather creates a new
+    * matrix.  The transpose is built in O(nnz) time, and its columns are the
+    * rows of this matrix.
+    *
+    * @return		The transpose of this matrix
+    *
+    * @since	1.1.0
+    */
+   public SparseMatrix transpose()
+   {
+      SparseMatrix transposed = new SparseMatrix(this.cols, this.rows);
+
+      // Count the entries in each row, which become the transposed columns
+      int[] rowCounts = new int[this.rows];
+      for(int j=0; j<this.cols; j++)
+      {
+         for(int p=0; p<this.counts[j]; p++)
+         {
+            rowCounts[this.rowIndices[j][p]]++;
+         }
+      }
+
+      for(int i=0; i<this.rows; i++)
+      {
+         transposed.rowIndices[i] = new int[rowCounts[i]];
+         transposed.values[i] = new double[rowCounts[i]];
+      }
+
+      // Walking the columns in order keeps each transposed column sorted
+      for(int j=0; j<this.cols; j++)
+      {
+         for(int p=0; p<this.counts[j]; p++)
+         {
+            int i = this.rowIndices[j][p];
+            int q = transposed.counts[i]++;
+            transposed.rowIndices[i][q] = j;
+            transposed.values[i][q] = this.values[j][p];
+         }
+      }
+
+      return transposed;
+   }
+
+
+   /**
+    * Multiplies this matrix by a dense matrix
+    * <p>
+    * The b matrix is multiplied to the right of this matrix, i.e., this
+    * method returns this*b.  The work is proportional to the number of
+    * non-zeros in this matrix times the number of columns in b.
+    *
+    * @param	b	The dense matrix to multiply to this matrix
+    *
+    * @return		The product of this matrix and the matrix b
+    *
+    * @throws	MatrixSizeMismatchException	If the sizes are incompatible
+    *
+    * @since	1.1.0
+    */
+   public Matrix multiply(Matrix b) throws MatrixSizeMismatchException
+   {
+      if(this.cols != b.getSize()[0])
+      {
+         String msg = "Cannot multiply " + this.rows + "x" + this.cols + " matrix and " + b.getSize()[0] + "x" + b.getSize()[1] +" matrix.";
+         throw new MatrixSizeMismatchException(msg);
+      }
+
+      int k = b.getSize()[1];
+      Matrix product = new Matrix(this.rows, k);
+
+      for(int c=0; c<k; c++)
+      {
+         for(int j=0; j<this.cols; j++)
+         {
+            double bj = b.get(j,c);
+            if(bj != 0)
+            {
+               for(int p=0; p<this.counts[j]; p++)
+               {
+                  int i = this.rowIndices[j][p];
+                  product.set(i, c, product.get(i,c) + this.values[j][p] * bj);
+               }
+            }
+         }
+      }
+
+      return product;
+   }
+
+
+   /**
+    * Multiplies this matrix by another sparse matrix
+    * <p>
+    * The b matrix is multiplied to the right of this matrix, i.e., this
+    * method returns this*b.  Each column of the product is accumulated from
+    * the columns of this matrix selected by the entries of the same column of
+    * b, so the work is proportional to the number of multiplications
+    * performed, rather than to the size of the matrices.
+    *
+    * @param	b	The sparse matrix to multiply to this matrix
+    *
+    * @return		The product of this matrix and the matrix b
+    *
+    * @throws	MatrixSizeMismatchException	If the sizes are incompatible
+    *
+    * @since	1.1.0
+    */
+   public SparseMatrix multiply(SparseMatrix b) throws MatrixSizeMismatchException
+   {
+      if(this.cols != b.rows)
+      {
+         String msg = "Cannot multiply " + this.rows + "x" + this.cols + " matrix and " + b.rows + "x" + b.cols +" matrix.";
+         throw new MatrixSizeMismatchException(msg);
+      }
+
+      SparseMatrix product = new SparseMatrix(this.rows, b.cols);
+
+      double[] work = new double[this.rows];
+      int[] mark = new int[this.rows];
+      int[] pattern = new int[this.rows];
+      Arrays.fill(mark, -1);
+
+      for(int j=0; j<b.cols; j++)
+      {
+         int count = 0;
+
+         for(int q=0; q<b.counts[j]; q++)
+         {
+            int k = b.rowIndices[j][q];
+            double bkj = b.values[j][q];
+
+            for(int p=0; p<this.counts[k]; p++)
+            {
+               int i = this.rowIndices[k][p];
+               if(mark[i] != j)
+               {
+                  mark[i] = j;
+                  pattern[count++] = i;
+                  work[i] = 0;
+               }
+               work[i] += this.values[k][p] * bkj;
+            }
+         }
+
+         Arrays.sort(pattern, 0, count);
+
+         // Entries which cancelled to zero are not stored
+         int stored = 0;
+         for(int p=0; p<count; p++)
+         {
+            if(work[pattern[p]] != 0)
+            {
+               stored++;
+            }
+         }
+
+         int[] rowIndex = new int[stored];
+         double[] value = new double[stored];
+         stored = 0;
+         for(int p=0; p<count; p++)
+         {
+            int i = pattern[p];
+            if(work[i] != 0)
+            {
+               rowIndex[stored] = i;
+               value[stored] = work[i];
+               stored++;
+            }
+         }
+
+         product.rowIndices[j] = rowIndex;
+         product.values[j] = value;
+         product.counts[j] = stored;
+      }
+
+      return product;
+   }
+
+
+   /**
+    * Multiplies a vector by this matrix, i.e., computes y = Ax
+    *
+    * @param	x	The vector to multiply, with one entry per column
+    * @param	y	Overwritten with the product, with one entry per row
+    *
+    * @since	1.1.0
+    */
+   public void apply(double[] x, double[] y)
+   {
+      Arrays.fill(y, 0, this.rows, 0.0);
+
+      for(int j=0; j<this.cols; j++)
+      {
+         double xj = x[j];
+         if(xj != 0)
+         {
+            int[] rowIndex = this.rowIndices[j];
+            double[] value = this.values[j];
+            for(int p=0; p<this.counts[j]; p++)
+            {
+               y[rowIndex[p]] += value[p] * xj;
+            }
+         }
+      }
+   }
+
+
+   /**
+    * Multiplies a vector by this matrix using several threads
+    * <p>
+    * The columns of this matrix cannot be split between threads without
+    * them writing to the same entries of y, so the first call builds (and
+    * keeps) a row-wise copy of the matrix, and the rows are split between
+    * threads of the common fork/join pool.  Changing the matrix discards the
+    * copy.
+    *
+    * @param	x	The vector to multiply, with one entry per column
+    * @param	y	Overwritten with the product, with one entry per row
+    *
+    * @since	1.1.0
+    */
+   public void applyParallel(double[] x, double[] y)
+   {
+      SparseMatrix byRows = this.rowCopy;
+      if(byRows == null)
+      {
+         byRows = transpose();
+         this.rowCopy = byRows;
+      }
+
+      ForkJoinPool.commonPool().invoke(new RowTask(byRows, x, y, 0, this.rows));
+   }
+
+
+   /**
+    * Multiplies a vector by the transpose of this matrix, i.e., computes
+    * x = A^T y
+    * <p>
+    * Entry j of the product only needs column j of this matrix, so the
+    * transpose is never formed.
+    *
+    * @param	y	The vector to multiply, with one entry per row
+    * @param	x	Overwritten with the product, with one entry per column
+    *
+    * @since	1.1.0
+    */
+   public void applyTranspose(double[] y, double[] x)
+   {
+      applyTransposeColumns(y, x, 0, this.cols);
+   }
+
+
+   /**
+    * Multiplies a vector by the transpose of this matrix using several
+    * threads
+    * <p>
+    * Each entry of the product comes from one column, so the columns are
+    * split between threads of the common fork/join pool.
+    *
+    * @param	y	The vector to multiply, with one entry per row
+    * @param	x	Overwritten with the product, with one entry per column
+    *
+    * @since	1.1.0
+    */
+   public void applyTransposeParallel(double[] y, double[] x)
+   {
+      ForkJoinPool.commonPool().invoke(new TransposeTask(this, y, x, 0, this.cols));
+   }
+
+
+   /**
+    * Multiplies a block of vectors by this matrix, i.e., computes Y = AX
+    * <p>
+    * Each non-zero is read once for the whole block.  When parallel, the
+    * rows of Y are split between threads using the row-wise copy of the
+    * matrix, as in {@link #applyParallel(double[], double[])}.
+    *
+    * @param	X		The vectors to multiply, as an n x k array of rows
+    * @param	Y		Overwritten with the product, as an m x k array of
+    *				rows
+    * @param	parallel	Whether to use several threads
+    *
+    * @since	1.1.0
+    */
+   public void applyBlock(double[][] X, double[][] Y, boolean parallel)
+   {
+      if(parallel)
+      {
+         SparseMatrix byRows = this.rowCopy;
+         if(byRows == null)
+         {
+            byRows = transpose();
+            this.rowCopy = byRows;
+         }
+
+         // Row i of this matrix is column i of byRows
+         ForkJoinPool.commonPool().invoke(new BlockTask(byRows, X, Y, 0, this.rows));
+         return;
+      }
+
+      for(int i=0; i<this.rows; i++)
+      {
+         Arrays.fill(Y[i], 0.0);
+      }
+
+      for(int j=0; j<this.cols; j++)
+      {
+         double[] xj = X[j];
+         int[] rowIndex = this.rowIndices[j];
+         double[] value = this.values[j];
+         for(int p=0; p<this.counts[j]; p++)
+         {
+            double[] yi = Y[rowIndex[p]];
+            double aij = value[p];
+            for(int c=0; c<yi.length; c++)
+            {
+               yi[c] += aij * xj[c];
+            }
+         }
+      }
+   }
+
+
+   /**
+    * Multiplies a block of vectors by the transpose of this matrix, i.e.,
+    * computes X = A^T Y
+    * <p>
+    * Row j of X only needs column j of this matrix, so the columns are split
+    * between threads when parallel.
+    *
+    * @param	Y		The vectors to multiply, as an m x k array of rows
+    * @param	X		Overwritten with the product, as an n x k array of
+    *				rows
+    * @param	parallel	Whether to use several threads
+    *
+    * @since	1.1.0
+    */
+   public void applyTransposeBlock(double[][] Y, double[][] X, boolean parallel)
+   {
+      if(parallel)
+      {
+         ForkJoinPool.commonPool().invoke(new BlockTask(this, Y, X, 0, this.cols));
+      }
+      else
+      {
+         gatherColumns(Y, X, 0, this.cols);
+      }
+   }
+
+
+   /**
+    * Computes rows first to last-1 of X = A^T Y, i.e., row j of X is the sum
+    * of the rows of Y given by the non-zeros of column j
+    *
+    * @since	1.1.0
+    */
+   private void gatherColumns(double[][] Y, double[][] X, int first, int last)
+   {
+      for(int j=first; j<last; j++)
+      {
+         double[] xj = X[j];
+         Arrays.fill(xj, 0.0);
+
+         int[] rowIndex = this.rowIndices[j];
+         double[] value = this.values[j];
+         for(int p=0; p<this.counts[j]; p++)
+         {
+            double[] yi = Y[rowIndex[p]];
+            double aij = value[p];
+            for(int c=0; c<xj.length; c++)
+            {
+               xj[c] += aij * yi[c];
+            }
+         }
+      }
+   }
+
+
+   /**
+    * Computes entries first to last-1 of x = A^T y
+    *
+    * @since	1.1.0
+    */
+   private void applyTransposeColumns(double[] y, double[] x, int first, int last)
+   {
+      for(int j=first; j<last; j++)
+      {
+         int[] rowIndex = this.rowIndices[j];
+         double[] value = this.values[j];
+         double sum = 0;
+         for(int p=0; p<this.counts[j]; p++)
+         {
+            sum += value[p] * y[rowIndex[p]];
+         }
+         x[j] = sum;
+      }
+   }
+
+
+   /**
+    * Makes sure column j can hold at least the given number of entries
+    *
+    * @param	j		The column to grow
+    * @param	capacity	The number of entries the column must hold
+    *
+    * @since	1.1.0
+    */
+   private void ensureColumnCapacity(int j, int capacity)
+   {
+      if(this.rowIndices[j].length < capacity)
+      {
+         int newCapacity = Math.max(capacity, 2*this.rowIndices[j].length);
+         this.rowIndices[j] = Arrays.copyOf(this.rowIndices[j], newCapacity);
+         this.values[j] = Arrays.copyOf(this.values[j], newCapacity);
+      }
+   }
+
+
+   /**
+    * Splits the rows of a product between fork/join tasks.
+    *
+    * @since	1.1.0
+    */
+   private static class RowTask extends RecursiveAction
+   {
+      private SparseMatrix byRows;
+      private double[] x, y;
+      private int first, last;
+
+      RowTask(SparseMatrix byRows, double[] x, double[] y, int first, int last)
+      {
+         this.byRows = byRows;
+         this.x = x;
+         this.y = y;
+         this.first = first;
+         this.last = last;
+      }
+
+      protected void compute()
+      {
+         if(last - first > PARALLEL_ROWS)
+         {
+            int middle = (first + last) >>> 1;
+            invokeAll(new RowTask(byRows, x, y, first, middle), new RowTask(byRows, x, y, middle, last));
+            return;
+         }
+
+         // Row i of the matrix is column i of its transpose
+         for(int i=first; i<last; i++)
+         {
+            int[] colIndex = byRows.rowIndices[i];
+            double[] value = byRows.values[i];
+            double sum = 0;
+            for(int p=0; p<byRows.counts[i]; p++)
+            {
+               sum += value[p] * x[colIndex[p]];
+            }
+            y[i] = sum;
+         }
+      }
+   }
+
+
+   /**
+    * Splits the columns of a transposed product between fork/join tasks.
+    *
+    * @since	1.1.0
+    */
+   private static class TransposeTask extends RecursiveAction
+   {
+      private SparseMatrix A;
+      private double[] y, x;
+      private int first, last;
+
+      TransposeTask(SparseMatrix A, double[] y, double[] x, int first, int last)
+      {
+         this.A = A;
+         this.y = y;
+         this.x = x;
+         this.first = first;
+         this.last = last;
+      }
+
+      protected void compute()
+      {
+         if(last - first > PARALLEL_ROWS)
+         {
+            int middle = (first + last) >>> 1;
+            invokeAll(new TransposeTask(A, y, x, first, middle), new TransposeTask(A, y, x, middle, last));
+            return;
+         }
+
+         A.applyTransposeColumns(y, x, first, last);
+      }
+   }
+
+
+   /**
+    * Splits the columns of a gather between fork/join tasks.  Gathering
+    * with the columns of the row-wise copy gives a block product, and with
+    * the columns of the matrix itself a transposed block product.
+    *
+    * @since	1.1.0
+    */
+   private static class BlockTask extends RecursiveAction
+   {
+      private SparseMatrix A;
+      private double[][] in, out;
+      private int first, last;
+
+      BlockTask(SparseMatrix A, double[][] in, double[][] out, int first, int last)
+      {
+         this.A = A;
+         this.in = in;
+         this.out = out;
+         this.first = first;
+         this.last = last;
+      }
+
+      protected void compute()
+      {
+         if(last - first > PARALLEL_ROWS)
+         {
+            int middle = (first + last) >>> 1;
+            invokeAll(new BlockTask(A, in, out, first, middle), new BlockTask(A, in, out, middle, last));
+            return;
+         }
+
+         A.gatherColumns(in, out, first, last);
+      }
+   }
+}
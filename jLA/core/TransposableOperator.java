@@ -0,0 +1,91 @@
+/**
+ * An interface for a linear operator which can also multiply a vector by its
+ * transpose.
+ * <p>
+ * Least squares solvers and randomized decompositions multiply by both A and
+ * A^T, so they take operators of this type;  passing them an operator which
+ * cannot be transposed is an error at compile time rather than part-way
+ * through a solve.
+ * <p>
+ * As with {@link LinearOperator#applyBlock(double[][], double[][], boolean)},
+ * the block product multiplies one column at a time by default.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		LinearOperator
+ */
+
+package jLA.core;
+
+public interface TransposableOperator extends LinearOperator
+{
+   /**
+    * Multiplies a vector by the transpose of this operator, i.e., computes
+    * x = A^T y
+    *
+    * @param	y	The vector to multiply, with one entry per row
+    * @param	x	Overwritten with the product, with one entry per column
+    *
+    * @since	1.1.0
+    */
+   public void applyTranspose(double[] y, double[] x);
+
+
+   /**
+    * Multiplies a vector by the transpose of this operator using several
+    * threads
+    * <p>
+    * By default it is the same as {@link #applyTranspose(double[], double[])}.
+    *
+    * @param	y	The vector to multiply, with one entry per row
+    * @param	x	Overwritten with the product, with one entry per column
+    *
+    * @since	1.1.0
+    */
+   public default void applyTransposeParallel(double[] y, double[] x)
+   {
+      applyTranspose(y, x);
+   }
+
+
+   /**
+    * Multiplies a block of vectors by the transpose of this operator, i.e.,
+    * computes X = A^T Y
+    *
+    * @param	Y		The vectors to multiply, as an m x k array of rows
+    * @param	X		Overwritten with the product, as an n x k array of
+    *				rows
+    * @param	parallel	Whether to use several threads
+    *
+    * @since	1.1.0
+    */
+   public default void applyTransposeBlock(double[][] Y, double[][] X, boolean parallel)
+   {
+      int k = (Y.length > 0) ? Y[0].length : 0;
+      double[] y = new double[Y.length];
+      double[] x = new double[X.length];
+
+      for(int c=0; c<k; c++)
+      {
+         for(int i=0; i<y.length; i++)
+         {
+            y[i] = Y[i][c];
+         }
+
+         if(parallel)
+         {
+            applyTransposeParallel(y, x);
+         }
+         else
+         {
+            applyTranspose(y, x);
+         }
+
+         for(int j=0; j<x.length; j++)
+         {
+            X[j][c] = x[j];
+         }
+      }
+   }
+}
@@ -0,0 +1,245 @@
+/**
+ * The eigenvalues and eigenvectors of a dense symmetric matrix, computed with
+ * the cyclic Jacobi method.
+ * <p>
+ * Each Jacobi rotation zeros one off-diagonal pair of the matrix, and sweeps
+ * of rotations over every pair are repeated until the off-diagonal part is
+ * negligible.  Convergence is quadratic once the off-diagonal entries are
+ * small, and the eigenvalues are found to high relative accuracy.  The method
+ * costs O(n^3) per sweep, so it is intended for small matrices, such as the
+ * projected matrices of {@link LanczosEigenSolver}.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		LanczosEigenSolver
+ */
+
+package jLA.eigenvalues;
+
+import java.util.Arrays;
+
+import jLA.core.Cancellation;
+import jLA.core.Matrix;
+import jLA.core.NotSquareMatrixException;
+
+public class JacobiEigenSolver
+{
+   private static final int MAX_SWEEPS = 60;
+
+   private double[] eigenvalues;
+   private double[][] eigenvectors;
+
+   /**
+    * Computes the eigenvalues and eigenvectors of a symmetric matrix
+    * <p>
+    * Only the lower triangle of A is used.
+    *
+    * @param	A	The symmetric matrix to decompose
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    *
+    * @since	1.1.0
+    */
+   public JacobiEigenSolver(Matrix A) throws NotSquareMatrixException
+   {
+      int n = A.getSize()[0];
+
+      if(n != A.getSize()[1])
+      {
+         throw new NotSquareMatrixException("Cannot find eigenvalues of " + n + "x" + A.getSize()[1] + " matrix.");
+      }
+
+      double[][] a = new double[n][n];
+      for(int i=0; i<n; i++)
+      {
+         for(int j=0; j<=i; j++)
+         {
+            a[i][j] = A.get(i,j);
+            a[j][i] = a[i][j];
+         }
+      }
+
+      this.eigenvectors = new double[n][n];
+      this.eigenvalues = decompose(a, this.eigenvectors);
+   }
+
+
+   /**
+    * Gets the eigenvalues
+    *
+    * @return		The eigenvalues, in increasing order
+    *
+    * @since	1.1.0
+    */
+   public double[] getEigenvalues()
+   {
+      return this.eigenvalues.clone();
+   }
+
+
+   /**
+    * Gets the eigenvectors
+    *
+    * @return		The orthogonal matrix whose i'th column is the
+    *			eigenvector of the i'th eigenvalue
+    *
+    * @since	1.1.0
+    */
+   public Matrix getEigenvectors()
+   {
+      int n = this.eigenvalues.length;
+      Matrix V = new Matrix(n, n);
+
+      for(int i=0; i<n; i++)
+      {
+         for(int j=0; j<n; j++)
+         {
+            V.set(i, j, this.eigenvectors[i][j]);
+         }
+      }
+
+      return V;
+   }
+
+
+   /**
+    * Decomposes a symmetric array of rows in place.
+    * <p>
+    * On exit a has been reduced to (nearly) diagonal form, and column c of V
+    * holds the eigenvector of the c'th eigenvalue.
+    *
+    * @param	a	The n x n symmetric array of rows, which is overwritten
+    * @param	V	Overwritten with the n x n eigenvectors
+    *
+    * @return		The eigenvalues, in increasing order
+    *
+    * @since	1.1.0
+    */
+   static double[] decompose(double[][] a, double[][] V)
+   {
+      int n = a.length;
+
+      for(int i=0; i<n; i++)
+      {
+         Arrays.fill(V[i], 0.0);
+         V[i][i] = 1;
+      }
+
+      double normSquared = 0;
+      for(int i=0; i<n; i++)
+      {
+         for(int j=0; j<n; j++)
+         {
+            normSquared += a[i][j] * a[i][j];
+         }
+      }
+      double threshold = 1e-32 * normSquared;
+
+      for(int sweep=0; sweep<MAX_SWEEPS; sweep++)
+      {
+         Cancellation.checkpoint();
+
+         double offSquared = 0;
+         for(int i=1; i<n; i++)
+         {
+            for(int j=0; j<i; j++)
+            {
+               offSquared += a[i][j] * a[i][j];
+            }
+         }
+         if(offSquared <= threshold)
+         {
+            break;
+         }
+
+         for(int p=0; p<n-1; p++)
+         {
+            for(int q=p+1; q<n; q++)
+            {
+               double apq = a[p][q];
+               if(apq == 0)
+               {
+                  continue;
+               }
+
+               // Choose the smaller rotation angle which zeros a_pq
+               double zeta = (a[q][q] - a[p][p]) / (2 * apq);
+               double t = 1.0 / (Math.abs(zeta) + Math.sqrt(1 + zeta*zeta));
+               if(zeta < 0)
+               {
+                  t = -t;
+               }
+               double c = 1.0 / Math.sqrt(1 + t*t);
+               double s = t * c;
+
+               // a = J^T a J, applied to the columns then the rows
+               for(int k=0; k<n; k++)
+               {
+                  double[] row = a[k];
+                  double akp = row[p];
+                  double akq = row[q];
+                  row[p] = c*akp - s*akq;
+                  row[q] = s*akp + c*akq;
+               }
+
+               double[] rowP = a[p];
+               double[] rowQ = a[q];
+               for(int k=0; k<n; k++)
+               {
+                  double apk = rowP[k];
+                  double aqk = rowQ[k];
+                  rowP[k] = c*apk - s*aqk;
+                  rowQ[k] = s*apk + c*aqk;
+               }
+               rowP[q] = 0;
+               rowQ[p] = 0;
+
+               for(int k=0; k<n; k++)
+               {
+                  double[] row = V[k];
+                  double vkp = row[p];
+                  double vkq = row[q];
+                  row[p] = c*vkp - s*vkq;
+                  row[q] = s*vkp + c*vkq;
+               }
+            }
+         }
+      }
+
+      // Sort the eigenvalues, and their eigenvectors, into increasing order
+      double[] lambda = new double[n];
+      for(int i=0; i<n; i++)
+      {
+         lambda[i] = a[i][i];
+      }
+
+      for(int i=0; i<n-1; i++)
+      {
+         int smallest = i;
+         for(int j=i+1; j<n; j++)
+         {
+            if(lambda[j] < lambda[smallest])
+            {
+               smallest = j;
+            }
+         }
+
+         if(smallest != i)
+         {
+            double temp = lambda[i];
+            lambda[i] = lambda[smallest];
+            lambda[smallest] = temp;
+
+            for(int k=0; k<n; k++)
+            {
+               temp = V[k][i];
+               V[k][i] = V[k][smallest];
+               V[k][smallest] = temp;
+            }
+         }
+      }
+
+      return lambda;
+   }
+}
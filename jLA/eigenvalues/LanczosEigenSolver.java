@@ -0,0 +1,650 @@
+/**
+ * A thick-restart Lanczos solver for a few eigenvalues of a large symmetric
+ * operator.
+ * <p>
+ * The Lanczos process builds an orthonormal basis V of the Krylov space of
+ * the operator A, one product by A per basis vector, in which the projection
+ * T = V^T A V is tridiagonal.  The eigenvalues of the small matrix T (the
+ * Ritz values) approximate the extreme eigenvalues of A, and the residual of
+ * each Ritz pair is known from the last entry of its eigenvector of T without
+ * touching A.
+ * <p>
+ * Memory is bounded by the basis size, which is chosen before solving.  When
+ * the basis is full, the thick restart of Wu and Simon (2000) keeps the best
+ * Ritz vectors and the last Lanczos vector, and the process continues from
+ * them;  the kept part of T is diagonal, bordered by
+ * the couplings to the last vector, and the rest is tridiagonal again.  This
+ * is mathematically equivalent to the implicitly restarted Lanczos method
+ * with exact shifts, and is simpler and more stable.
+ * <p>
+ * In floating point the Lanczos vectors lose their orthogonality as Ritz
+ * values converge, which produces spurious copies of the eigenvalues.  Since
+ * the basis is small, each new vector is reorthogonalized against the whole
+ * basis, with a second Gram-Schmidt pass only when the first cancels most of
+ * the vector.
+ * <p>
+ * Eigenvalues in the interior of the spectrum, or the smallest eigenvalues
+ * of an ill-conditioned operator, converge slowly.  A
+ * {@link ShiftInvertOperator} maps the eigenvalues nearest a shift to the
+ * largest eigenvalues of (A - sigma I)^-1, which converge in a few restarts;
+ * a solver constructed from one reports the eigenvalues of A.
+ * <p>
+ * The products by A, which dominate the cost for large sparse operators, can
+ * be split between threads.  Every basis vector is a cancellation checkpoint.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		ShiftInvertOperator
+ * @see		JacobiEigenSolver
+ */
+
+package jLA.eigenvalues;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import jLA.core.Cancellation;
+import jLA.core.LinearOperator;
+import jLA.core.Matrix;
+import jLA.core.NotSquareMatrixException;
+
+public class LanczosEigenSolver
+{
+   /**
+    * Which eigenvalues to find
+    */
+   public enum Target
+   {
+      LARGEST,
+      SMALLEST,
+      LARGEST_MAGNITUDE
+   }
+
+   public static final double DEFAULT_TOLERANCE = 1e-10;
+   public static final int DEFAULT_MAX_RESTARTS = 1000;
+   public static final long DEFAULT_SEED = 0x5DEECE66DL;
+
+   private static final double EPSILON = Math.ulp(1.0);
+
+   private LinearOperator A;
+   private ShiftInvertOperator shiftInvert = null;
+   private Target target;
+   private int n, count, basisSize;
+
+   private double tolerance = DEFAULT_TOLERANCE;
+   private int maxRestarts = DEFAULT_MAX_RESTARTS;
+   private long seed = DEFAULT_SEED;
+   private boolean parallel = false;
+
+   // The results of the most recent solve
+   private double[] eigenvalues = null;
+   private double[][] eigenvectors = null;
+   private double[] residuals = null;
+   private int restarts = 0;
+   private int products = 0;
+   private boolean converged = false;
+
+   /**
+    * Constructs the solver for the provided operator
+    *
+    * @param	A	The symmetric operator whose eigenvalues are found
+    * @param	count	The number of eigenvalues to find
+    * @param	target	Which eigenvalues to find
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	IllegalArgumentException	If count is not between 1 and
+    *						the size of A
+    *
+    * @since	1.1.0
+    */
+   public LanczosEigenSolver(LinearOperator A, int count, Target target) throws NotSquareMatrixException
+   {
+      int[] size = A.getSize();
+
+      if(size[0] != size[1])
+      {
+         throw new NotSquareMatrixException("Cannot find eigenvalues of " + size[0] + "x" + size[1] + " operator.");
+      }
+      if(count < 1 || count > size[0])
+      {
+         throw new IllegalArgumentException("Cannot find " + count + " eigenvalues of " + size[0] + "x" + size[1] + " operator.");
+      }
+
+      this.A = A;
+      this.n = size[0];
+      this.count = count;
+      this.target = target;
+      this.basisSize = Math.min(Math.max(2*count + 1, 20), this.n);
+   }
+
+
+   /**
+    * Constructs the solver for the eigenvalues nearest a shift
+    * <p>
+    * The eigenvalues reported are those of A, not of the operator.
+    *
+    * @param	shiftInvert	The operator (A - sigma I)^-1
+    * @param	count		The number of eigenvalues to find
+    *
+    * @throws	IllegalArgumentException	If count is not between 1 and
+    *						the size of A
+    *
+    * @since	1.1.0
+    */
+   public LanczosEigenSolver(ShiftInvertOperator shiftInvert, int count)
+   {
+      this.n = shiftInvert.getSize()[0];
+
+      if(count < 1 || count > this.n)
+      {
+         throw new IllegalArgumentException("Cannot find " + count + " eigenvalues of " + this.n + "x" + this.n + " operator.");
+      }
+
+      this.A = shiftInvert;
+      this.shiftInvert = shiftInvert;
+      this.count = count;
+      this.target = Target.LARGEST_MAGNITUDE;
+      this.basisSize = Math.min(Math.max(2*count + 1, 20), this.n);
+   }
+
+
+   /**
+    * Sets the largest number of basis vectors kept in memory
+    *
+    * @param	basisSize	The basis size, which is reduced to the size of
+    *				the operator if it is larger
+    *
+    * @throws	IllegalArgumentException	If the basis size is not larger
+    *						than the number of eigenvalues
+    *
+    * @since	1.1.0
+    */
+   public void setBasisSize(int basisSize)
+   {
+      basisSize = Math.min(basisSize, this.n);
+
+      if(basisSize <= this.count && basisSize < this.n)
+      {
+         throw new IllegalArgumentException("Cannot find " + this.count + " eigenvalues with " + basisSize + " basis vectors.");
+      }
+
+      this.basisSize = basisSize;
+   }
+
+
+   /**
+    * Sets the relative residual at which an eigenpair has converged
+    *
+    * @param	tolerance	The largest acceptable ||A x - lambda x|| /
+    *				|lambda|
+    *
+    * @since	1.1.0
+    */
+   public void setTolerance(double tolerance)
+   {
+      this.tolerance = tolerance;
+   }
+
+
+   /**
+    * Sets the largest number of restarts performed by one solve
+    *
+    * @param	maxRestarts	The restart limit
+    *
+    * @since	1.1.0
+    */
+   public void setMaxRestarts(int maxRestarts)
+   {
+      this.maxRestarts = maxRestarts;
+   }
+
+
+   /**
+    * Sets the seed of the random starting vector
+    *
+    * @param	seed	The seed
+    *
+    * @since	1.1.0
+    */
+   public void setSeed(long seed)
+   {
+      this.seed = seed;
+   }
+
+
+   /**
+    * Sets whether the operator is applied using several threads
+    *
+    * @param	parallel	True to use
+    *				{@link LinearOperator#applyParallel(double[], double[])}
+    *
+    * @since	1.1.0
+    */
+   public void setParallel(boolean parallel)
+   {
+      this.parallel = parallel;
+   }
+
+
+   /**
+    * Finds the eigenvalues and eigenvectors
+    *
+    * @return		True if every eigenpair converged
+    *
+    * @since	1.1.0
+    */
+   public boolean solve()
+   {
+      int n = this.n;
+      int m = this.basisSize;
+
+      Random random = new Random(this.seed);
+
+      // The basis, one vector per row, with room for the residual vector,
+      // and space to form the Ritz vectors when restarting
+      double[][] V = new double[m+1][n];
+      double[][] W = new double[m][];
+      double[][] T = new double[m][m];
+      double[][] S = new double[m][m];
+      double[][] Y = new double[m][m];
+      double[] w = new double[n];
+
+      randomVector(random, V, 0);
+
+      this.restarts = 0;
+      this.products = 0;
+      this.converged = false;
+
+      int kept = 0;
+      double normT = 0;
+
+      while(true)
+      {
+         double lastBeta = 0;
+
+         // Extend the basis to m vectors
+         for(int j=kept; j<m; j++)
+         {
+            Cancellation.checkpoint();
+
+            double[] v = V[j];
+            if(this.parallel)
+            {
+               this.A.applyParallel(v, w);
+            }
+            else
+            {
+               this.A.apply(v, w);
+            }
+            this.products++;
+
+            double alpha = dot(w, v);
+            axpy(-alpha, v, w);
+            if(j == kept)
+            {
+               // The first vector after a restart is coupled to every kept
+               // Ritz vector
+               for(int i=0; i<kept; i++)
+               {
+                  axpy(-T[i][kept], V[i], w);
+               }
+            }
+            else
+            {
+               axpy(-T[j-1][j], V[j-1], w);
+            }
+            T[j][j] = alpha;
+
+            double beta = reorthogonalize(V, j+1, w);
+            normT = Math.max(normT, Math.abs(alpha) + beta);
+
+            if(j+1 == n)
+            {
+               // The basis spans the whole space, so the Ritz pairs are exact
+               beta = 0;
+            }
+            else if(beta <= EPSILON * normT)
+            {
+               // An invariant subspace has been found, so continue with any
+               // vector orthogonal to it
+               beta = 0;
+               randomVector(random, V, j+1);
+            }
+            else
+            {
+               double[] next = V[j+1];
+               for(int i=0; i<n; i++)
+               {
+                  next[i] = w[i] / beta;
+               }
+            }
+
+            if(j+1 < m)
+            {
+               T[j][j+1] = beta;
+               T[j+1][j] = beta;
+            }
+            else
+            {
+               lastBeta = beta;
+            }
+         }
+
+         // Rayleigh-Ritz:  T = Y diag(theta) Y^T
+         for(int i=0; i<m; i++)
+         {
+            System.arraycopy(T[i], 0, S[i], 0, m);
+         }
+         double[] theta = JacobiEigenSolver.decompose(S, Y);
+         int[] order = order(theta);
+
+         double[] residual = new double[m];
+         int wanted = 0;
+         for(int c=0; c<m; c++)
+         {
+            residual[c] = Math.abs(lastBeta * Y[m-1][order[c]]);
+         }
+         while(wanted < this.count && residual[wanted] <= this.tolerance * Math.max(Math.abs(theta[order[wanted]]), EPSILON * normT))
+         {
+            wanted++;
+         }
+
+         if(wanted == this.count || this.restarts >= this.maxRestarts || m == n)
+         {
+            this.converged = (wanted == this.count) || (m == n);
+            finish(V, Y, theta, order, residual);
+            return this.converged;
+         }
+
+         // Restart with the best Ritz vectors and the residual vector
+         int keep = this.count + (m - this.count) / 2;
+         for(int c=0; c<keep; c++)
+         {
+            W[c] = combine(V, Y, order[c], m, W[c]);
+         }
+         for(int c=0; c<keep; c++)
+         {
+            double[] temp = V[c];
+            V[c] = W[c];
+            W[c] = temp;
+         }
+         double[] temp = V[keep];
+         V[keep] = V[m];
+         V[m] = temp;
+
+         for(int i=0; i<m; i++)
+         {
+            Arrays.fill(T[i], 0.0);
+         }
+         for(int c=0; c<keep; c++)
+         {
+            T[c][c] = theta[order[c]];
+            T[c][keep] = lastBeta * Y[m-1][order[c]];
+            T[keep][c] = T[c][keep];
+         }
+
+         kept = keep;
+         this.restarts++;
+      }
+   }
+
+
+   /**
+    * Gets the eigenvalues found by the most recent solve
+    *
+    * @return		The eigenvalues, ordered by the target, or nearest the
+    *			shift first for a shift-invert operator
+    *
+    * @since	1.1.0
+    */
+   public double[] getEigenvalues()
+   {
+      return this.eigenvalues.clone();
+   }
+
+
+   /**
+    * Gets the eigenvectors found by the most recent solve
+    *
+    * @return		The matrix with orthonormal columns whose i'th column
+    *			is the eigenvector of the i'th eigenvalue
+    *
+    * @since	1.1.0
+    */
+   public Matrix getEigenvectors()
+   {
+      Matrix X = new Matrix(this.n, this.count);
+
+      for(int c=0; c<this.count; c++)
+      {
+         double[] x = this.eigenvectors[c];
+         for(int i=0; i<this.n; i++)
+         {
+            X.set(i, c, x[i]);
+         }
+      }
+
+      return X;
+   }
+
+
+   /**
+    * Gets the residual norms of the eigenpairs found by the most recent solve
+    * <p>
+    * The residuals are ||A x - theta x|| for the operator A;  with a
+    * shift-invert operator they are the residuals of the inverse.
+    *
+    * @return		The residual norm of each eigenpair
+    *
+    * @since	1.1.0
+    */
+   public double[] getResidualNorms()
+   {
+      return this.residuals.clone();
+   }
+
+
+   /**
+    * Gets the number of restarts performed by the most recent solve
+    *
+    * @return		The number of restarts
+    *
+    * @since	1.1.0
+    */
+   public int getRestartCount()
+   {
+      return this.restarts;
+   }
+
+
+   /**
+    * Gets the number of products by the operator in the most recent solve
+    *
+    * @return		The number of products
+    *
+    * @since	1.1.0
+    */
+   public int getProductCount()
+   {
+      return this.products;
+   }
+
+
+   /**
+    * Gets whether the most recent solve converged
+    *
+    * @return		True if every eigenpair converged
+    *
+    * @since	1.1.0
+    */
+   public boolean hasConverged()
+   {
+      return this.converged;
+   }
+
+
+   /**
+    * Stores the wanted Ritz pairs as the results
+    *
+    * @since	1.1.0
+    */
+   private void finish(double[][] V, double[][] Y, double[] theta, int[] order, double[] residual)
+   {
+      this.eigenvalues = new double[this.count];
+      this.eigenvectors = new double[this.count][];
+      this.residuals = new double[this.count];
+
+      for(int c=0; c<this.count; c++)
+      {
+         double value = theta[order[c]];
+         this.eigenvalues[c] = (this.shiftInvert == null) ? value : this.shiftInvert.toEigenvalue(value);
+         this.eigenvectors[c] = combine(V, Y, order[c], this.basisSize, null);
+         this.residuals[c] = residual[c];
+      }
+   }
+
+
+   /**
+    * Orders the Ritz values from most to least wanted
+    *
+    * @since	1.1.0
+    */
+   private int[] order(double[] theta)
+   {
+      int m = theta.length;
+      int[] order = new int[m];
+
+      // The Ritz values are in increasing order
+      for(int c=0; c<m; c++)
+      {
+         order[c] = (this.target == Target.SMALLEST) ? c : m-1-c;
+      }
+
+      if(this.target == Target.LARGEST_MAGNITUDE)
+      {
+         for(int i=1; i<m; i++)
+         {
+            int index = order[i];
+            int j = i;
+            while(j > 0 && Math.abs(theta[order[j-1]]) < Math.abs(theta[index]))
+            {
+               order[j] = order[j-1];
+               j--;
+            }
+            order[j] = index;
+         }
+      }
+
+      return order;
+   }
+
+
+   /**
+    * Computes the Ritz vector V y for column c of Y
+    *
+    * @since	1.1.0
+    */
+   private double[] combine(double[][] V, double[][] Y, int c, int m, double[] x)
+   {
+      if(x == null)
+      {
+         x = new double[this.n];
+      }
+      else
+      {
+         Arrays.fill(x, 0.0);
+      }
+
+      for(int i=0; i<m; i++)
+      {
+         axpy(Y[i][c], V[i], x);
+      }
+
+      return x;
+   }
+
+
+   /**
+    * Orthogonalizes w against the first k basis vectors
+    *
+    * @return		The norm of w after orthogonalization
+    *
+    * @since	1.1.0
+    */
+   private double reorthogonalize(double[][] V, int k, double[] w)
+   {
+      double before = Math.sqrt(dot(w, w));
+
+      for(int pass=0; pass<2; pass++)
+      {
+         for(int i=0; i<k; i++)
+         {
+            axpy(-dot(w, V[i]), V[i], w);
+         }
+
+         double after = Math.sqrt(dot(w, w));
+
+         // A second pass is needed only when the first cancelled most of w
+         if(after > 0.7071 * before)
+         {
+            return after;
+         }
+         before = after;
+      }
+
+      return before;
+   }
+
+
+   /**
+    * Replaces basis vector k with a random unit vector orthogonal to the
+    * vectors before it
+    *
+    * @since	1.1.0
+    */
+   private void randomVector(Random random, double[][] V, int k)
+   {
+      double[] v = V[k];
+      for(int i=0; i<this.n; i++)
+      {
+         v[i] = random.nextGaussian();
+      }
+
+      double norm = reorthogonalize(V, k, v);
+      for(int i=0; i<this.n; i++)
+      {
+         v[i] /= norm;
+      }
+   }
+
+
+   /**
+    * Computes the dot product x^T y
+    *
+    * @since	1.1.0
+    */
+   private static double dot(double[] x, double[] y)
+   {
+      double sum = 0;
+      for(int i=0; i<x.length; i++)
+      {
+         sum += x[i] * y[i];
+      }
+      return sum;
+   }
+
+
+   /**
+    * Computes y += a x
+    *
+    * @since	1.1.0
+    */
+   private static void axpy(double a, double[] x, double[] y)
+   {
+      for(int i=0; i<x.length; i++)
+      {
+         y[i] += a * x[i];
+      }
+   }
+}
@@ -0,0 +1,194 @@
+/**
+ * The shift-invert operator (A - sigma I)^-1 of a symmetric matrix A.
+ * <p>
+ * The eigenvalues lambda of A nearest the shift sigma become the eigenvalues
+ * theta = 1 / (lambda - sigma) of largest magnitude of the operator, which
+ * are well separated and found quickly by {@link LanczosEigenSolver}, even
+ * when lambda lies in the interior of the spectrum.  The eigenvectors are
+ * unchanged.
+ * <p>
+ * Applying the operator solves a system with A - sigma I, so the operator is
+ * built from an existing factorization of A - sigma I, which is reused for
+ * every application.  The caller forms and factors A - sigma I, choosing a
+ * Cholesky factorization when sigma lies below the spectrum, and an LU or
+ * LDL^T factorization otherwise.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		LanczosEigenSolver
+ */
+
+package jLA.eigenvalues;
+
+import jLA.core.LinearOperator;
+import jLA.factorization.LDLFactorization;
+import jLA.solver.LDLSolver;
+import jLA.solver.SparseCholeskySolver;
+import jLA.solver.SparseLUSolver;
+import jLA.solver.TransposableSolver;
+
+public class ShiftInvertOperator implements LinearOperator
+{
+   /**
+    * A factorization which solves systems in place
+    */
+   private interface Factorization
+   {
+      void solve(double[] b);
+   }
+
+   private Factorization factorization;
+   private int n;
+   private double shift;
+
+   /**
+    * Constructs the operator from a dense factorization of A - sigma I, such
+    * as an {@link jLA.solver.LUSolverPartialPivot} or a
+    * {@link jLA.solver.CholeskySolver}
+    *
+    * @param	solver	The factorization of A - sigma I
+    * @param	shift	The shift sigma
+    *
+    * @since	1.1.0
+    */
+   public ShiftInvertOperator(final TransposableSolver solver, double shift)
+   {
+      this.n = solver.getSize();
+      this.shift = shift;
+      this.factorization = new Factorization()
+      {
+         public void solve(double[] b)
+         {
+            solver.solve(b);
+         }
+      };
+   }
+
+
+   /**
+    * Constructs the operator from a sparse Cholesky factorization of
+    * A - sigma I, for a shift below the spectrum of A
+    *
+    * @param	solver	The factorization of A - sigma I
+    * @param	shift	The shift sigma
+    *
+    * @since	1.1.0
+    */
+   public ShiftInvertOperator(final SparseCholeskySolver solver, double shift)
+   {
+      this.n = solver.getFactorization().getSymbolic().getSize();
+      this.shift = shift;
+      this.factorization = new Factorization()
+      {
+         public void solve(double[] b)
+         {
+            solver.solve(b);
+         }
+      };
+   }
+
+
+   /**
+    * Constructs the operator from a sparse LU factorization of A - sigma I
+    *
+    * @param	solver	The factorization of A - sigma I
+    * @param	shift	The shift sigma
+    *
+    * @since	1.1.0
+    */
+   public ShiftInvertOperator(final SparseLUSolver solver, double shift)
+   {
+      this.n = solver.getFactorization().getRowPermutation().length;
+      this.shift = shift;
+      this.factorization = new Factorization()
+      {
+         public void solve(double[] b)
+         {
+            solver.solve(b);
+         }
+      };
+   }
+
+
+   /**
+    * Constructs the operator from a symmetric indefinite factorization of
+    * A - sigma I
+    *
+    * @param	LDL	The factorization of A - sigma I
+    * @param	shift	The shift sigma
+    *
+    * @since	1.1.0
+    */
+   public ShiftInvertOperator(LDLFactorization LDL, double shift)
+   {
+      final LDLSolver solver = new LDLSolver(LDL);
+
+      this.n = LDL.getSize();
+      this.shift = shift;
+      this.factorization = new Factorization()
+      {
+         public void solve(double[] b)
+         {
+            solver.solve(b);
+         }
+      };
+   }
+
+
+   /**
+    * Gets the shift
+    *
+    * @return		The shift sigma
+    *
+    * @since	1.1.0
+    */
+   public double getShift()
+   {
+      return this.shift;
+   }
+
+
+   /**
+    * Converts an eigenvalue of the operator to an eigenvalue of A
+    *
+    * @param	theta	An eigenvalue of (A - sigma I)^-1
+    *
+    * @return		The eigenvalue sigma + 1 / theta of A
+    *
+    * @since	1.1.0
+    */
+   public double toEigenvalue(double theta)
+   {
+      return this.shift + 1.0 / theta;
+   }
+
+
+   /**
+    * Gets the dimension of the operator
+    *
+    * @return		A 2 element array consisting of the number of rows
+    *			and number of columns
+    *
+    * @since	1.1.0
+    */
+   public int[] getSize()
+   {
+      return new int[] {this.n, this.n};
+   }
+
+
+   /**
+    * Multiplies a vector by the operator, i.e., solves (A - sigma I) y = x
+    *
+    * @param	x	The vector to multiply
+    * @param	y	Overwritten with the product
+    *
+    * @since	1.1.0
+    */
+   public void apply(double[] x, double[] y)
+   {
+      System.arraycopy(x, 0, y, 0, this.n);
+      this.factorization.solve(y);
+   }
+}
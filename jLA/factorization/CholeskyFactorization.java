@@ -2,11 +2,13 @@
  * Functionality to perform Cholesky factorization of a matrix  
  * 
  * @author	Dana Hughes	dana.hughes@colorado.edu
- * @version	1.0.2
+ * @version	1.1.0
  */
 package jLA.factorization;
 
+import jLA.core.Cancellation;
 import jLA.core.Matrix;
+import jLA.core.NotPositiveDefiniteException;
 import java.lang.Math;
 
 public class CholeskyFactorization
@@ -23,9 +25,11 @@ public class CholeskyFactorization
    * 
    * @return		The lower diagonal matrix of this factorization
    *
+   * @throws	NotPositiveDefiniteException	If a pivot is not positive
+   *
    * @since	1.0.0
    */
-   public static Matrix factor(Matrix A)
+   public static Matrix factor(Matrix A) throws NotPositiveDefiniteException
    {
       // Ensure that A is symmetric and positive definite
 
@@ -36,6 +40,11 @@ public class CholeskyFactorization
       // Perform the algorithm
       for(int k=0; k<N; k++)
       {
+         // A matrix is positive definite exactly when every pivot is
+         if(!(C.get(k,k) > 0))
+         {
+            throw new NotPositiveDefiniteException("Pivot " + k + " is not positive.");
+         }
          C.set(k, k, Math.sqrt(C.get(k,k)));
 
          for(int i=k+1; i<N; i++)
@@ -44,6 +53,7 @@ public class CholeskyFactorization
          }
          for(int j=k+1; j<N; j++)
          {
+            Cancellation.checkpoint();
             for(int i=k+1; i<N; i++)
             {
                C.set(i,j, C.get(i,j) - C.get(i,k)*C.get(j,k));
@@ -0,0 +1,177 @@
+/**
+ * A product of elementary elimination matrices stored implicitly.
+ * <p>
+ * Gaussian elimination reduces a matrix A to an upper triangular matrix
+ * U = M_{n-1} ... M_2 M_1 A.  This class keeps the sequence of transforms
+ * M_1, M_2, ... as a list of {@link ElementaryEliminationTransform} objects and
+ * applies them one after the other, so the product is never formed.  Applying
+ * the whole product to a vector costs O(n^2) operations at worst, rather than
+ * the O(n^3) needed to form it.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		ElementaryEliminationTransform
+ */
+
+package jLA.factorization;
+
+import java.util.ArrayList;
+
+import jLA.core.Matrix;
+import jLA.core.MatrixSizeMismatchException;
+
+public class ElementaryEliminationProduct
+{
+   private int n;
+
+   // The transforms, in the order they are applied
+   private ArrayList<ElementaryEliminationTransform> transforms;
+
+
+   /**
+    * Creates an empty product, i.e., the identity.
+    *
+    * @param	n	The number of rows / columns of the product
+    *
+    * @since	1.1.0
+    */
+   public ElementaryEliminationProduct(int n)
+   {
+      this.n = n;
+      this.transforms = new ArrayList<ElementaryEliminationTransform>();
+   }
+
+
+   /**
+    * Multiplies a transform onto the left of this product
+    * <p>
+    * The transform will be applied after all of the transforms already in
+    * the product, i.e., this product becomes M * (this product).
+    *
+    * @param	M	The transform to add
+    *
+    * @throws	MatrixSizeMismatchException	If the sizes do not match
+    *
+    * @since	1.1.0
+    */
+   public void append(ElementaryEliminationTransform M) throws MatrixSizeMismatchException
+   {
+      if(M.getSize() != this.n)
+      {
+         String msg = "Cannot multiply " + M.getSize() + "x" + M.getSize() + " matrix and " + this.n + "x" + this.n +" matrix.";
+         throw new MatrixSizeMismatchException(msg);
+      }
+
+      this.transforms.add(M);
+   }
+
+
+   /**
+    * Gets the number of transforms in this product
+    *
+    * @return		The number of transforms
+    *
+    * @since	1.1.0
+    */
+   public int getTransformCount()
+   {
+      return this.transforms.size();
+   }
+
+
+   /**
+    * Gets one of the transforms in this product
+    *
+    * @param	i	The index of the transform, in the order they are
+    *			applied
+    *
+    * @return		The i-th transform
+    *
+    * @since	1.1.0
+    */
+   public ElementaryEliminationTransform getTransform(int i)
+   {
+      return this.transforms.get(i);
+   }
+
+
+   /**
+    * Applies this product to a matrix
+    * <p>
+    * This method does not mutate b, but rather creates a new matrix.
+    *
+    * @param	b	The matrix (or vector) to transform
+    *
+    * @return		The product of the transforms and b
+    *
+    * @throws	MatrixSizeMismatchException	If b has the wrong number of rows
+    *
+    * @since	1.1.0
+    */
+   public Matrix apply(Matrix b) throws MatrixSizeMismatchException
+   {
+      Matrix result = b.copy();
+
+      for(int i=0; i<this.transforms.size(); i++)
+      {
+         this.transforms.get(i).applyInPlace(result);
+      }
+
+      return result;
+   }
+
+
+   /**
+    * Applies the inverse of this product to a matrix
+    * <p>
+    * This method does not mutate b, but rather creates a new matrix.  The
+    * inverses of the transforms are applied in reverse order.
+    *
+    * @param	b	The matrix (or vector) to transform
+    *
+    * @return		The product of the inverse of the transforms and b
+    *
+    * @throws	MatrixSizeMismatchException	If b has the wrong number of rows
+    *
+    * @since	1.1.0
+    */
+   public Matrix applyInverse(Matrix b) throws MatrixSizeMismatchException
+   {
+      Matrix result = b.copy();
+
+      for(int i=this.transforms.size()-1; i>=0; i--)
+      {
+         this.transforms.get(i).applyInverseInPlace(result);
+      }
+
+      return result;
+   }
+
+
+   /**
+    * Forms the dense product of the transforms
+    * <p>
+    * This is mostly useful for display, since the dense matrix costs O(n^2)
+    * storage.
+    *
+    * @return		The product of the transforms
+    *
+    * @since	1.1.0
+    */
+   public Matrix toMatrix()
+   {
+      Matrix product = null;
+
+      try
+      {
+         product = apply(Matrix.identity(this.n));
+      }
+      catch(MatrixSizeMismatchException e)
+      {
+         // The identity always has the right size
+      }
+
+      return product;
+   }
+}
@@ -0,0 +1,250 @@
+/**
+ * An elementary elimination matrix stored implicitly.
+ * <p>
+ * An elementary elimination matrix M_k is the identity matrix with the
+ * negated multipliers m_i placed below the diagonal in column k, i.e.,
+ * M_k = I - m e_k^T.  Storing it as a dense n x n matrix wastes O(n^2) memory,
+ * and applying it with a matrix multiply wastes O(n^3) work, when only the
+ * multipliers are needed.  This class stores just the pivot index and the
+ * multipliers, and applies M_k to a vector in O(n) operations, or to a matrix
+ * in O(n * cols) operations.
+ * <p>
+ * The inverse of M_k is I + m e_k^T, so it is just as cheap to apply.
+ * Transforms can be composed with {@link #multiply(ElementaryEliminationTransform)}
+ * without ever forming their product.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		GaussTransformation
+ * @see		ElementaryEliminationProduct
+ */
+
+package jLA.factorization;
+
+import jLA.core.Matrix;
+import jLA.core.MatrixSizeMismatchException;
+
+public class ElementaryEliminationTransform
+{
+   private int k;
+   private double[] multipliers;
+
+
+   /**
+    * Creates an elementary elimination transform.
+    * <p>
+    * Only the entries of the multipliers below row k are used.
+    *
+    * @param	k		The pivot row / column of the transform
+    * @param	multipliers	The multipliers m_i, one for each row
+    *
+    * @since	1.1.0
+    */
+   public ElementaryEliminationTransform(int k, double[] multipliers)
+   {
+      this.k = k;
+      this.multipliers = new double[multipliers.length];
+
+      for(int i=k+1; i<multipliers.length; i++)
+      {
+         this.multipliers[i] = multipliers[i];
+      }
+   }
+
+
+   /**
+    * Gets the pivot of this transform
+    *
+    * @return		The row / column k of the transform M_k
+    *
+    * @since	1.1.0
+    */
+   public int getPivot()
+   {
+      return this.k;
+   }
+
+
+   /**
+    * Gets the size of this transform
+    *
+    * @return		The number of rows / columns of the transform
+    *
+    * @since	1.1.0
+    */
+   public int getSize()
+   {
+      return this.multipliers.length;
+   }
+
+
+   /**
+    * Gets a multiplier of this transform
+    *
+    * @param	i	The row of the multiplier
+    *
+    * @return		The multiplier m_i, which is zero on or above row k
+    *
+    * @since	1.1.0
+    */
+   public double getMultiplier(int i)
+   {
+      return this.multipliers[i];
+   }
+
+
+   /**
+    * Applies this transform to a matrix
+    * <p>
+    * This method does not mutate b, but rather creates a new matrix.  Each
+    * row i below k has m_i times row k subtracted from it.
+    *
+    * @param	b	The matrix (or vector) to transform
+    *
+    * @return		The product M_k b
+    *
+    * @throws	MatrixSizeMismatchException	If b has the wrong number of rows
+    *
+    * @since	1.1.0
+    */
+   public Matrix apply(Matrix b) throws MatrixSizeMismatchException
+   {
+      Matrix result = b.copy();
+      applyInPlace(result, -1.0);
+      return result;
+   }
+
+
+   /**
+    * Applies the inverse of this transform to a matrix
+    * <p>
+    * This method does not mutate b, but rather creates a new matrix.  Each
+    * row i below k has m_i times row k added to it.
+    *
+    * @param	b	The matrix (or vector) to transform
+    *
+    * @return		The product M_k^{-1} b
+    *
+    * @throws	MatrixSizeMismatchException	If b has the wrong number of rows
+    *
+    * @since	1.1.0
+    */
+   public Matrix applyInverse(Matrix b) throws MatrixSizeMismatchException
+   {
+      Matrix result = b.copy();
+      applyInPlace(result, 1.0);
+      return result;
+   }
+
+
+   /**
+    * Applies this transform to a matrix, overwriting it
+    *
+    * @param	b	The matrix (or vector) to transform
+    *
+    * @throws	MatrixSizeMismatchException	If b has the wrong number of rows
+    *
+    * @since	1.1.0
+    */
+   public void applyInPlace(Matrix b) throws MatrixSizeMismatchException
+   {
+      applyInPlace(b, -1.0);
+   }
+
+
+   /**
+    * Applies the inverse of this transform to a matrix, overwriting it
+    *
+    * @param	b	The matrix (or vector) to transform
+    *
+    * @throws	MatrixSizeMismatchException	If b has the wrong number of rows
+    *
+    * @since	1.1.0
+    */
+   public void applyInverseInPlace(Matrix b) throws MatrixSizeMismatchException
+   {
+      applyInPlace(b, 1.0);
+   }
+
+
+   /**
+    * Composes this transform with another
+    * <p>
+    * The product applies the other transform first, i.e., it represents
+    * this * other.  Neither transform is modified.
+    *
+    * @param	other	The transform to multiply to the right of this one
+    *
+    * @return		The (implicit) product of the two transforms
+    *
+    * @throws	MatrixSizeMismatchException	If the sizes do not match
+    *
+    * @since	1.1.0
+    */
+   public ElementaryEliminationProduct multiply(ElementaryEliminationTransform other) throws MatrixSizeMismatchException
+   {
+      ElementaryEliminationProduct product = new ElementaryEliminationProduct(this.getSize());
+      product.append(other);
+      product.append(this);
+      return product;
+   }
+
+
+   /**
+    * Forms the dense elementary elimination matrix
+    * <p>
+    * This is mostly useful for display, since the dense matrix costs O(n^2)
+    * storage.
+    *
+    * @return		The matrix M_k
+    *
+    * @since	1.1.0
+    */
+   public Matrix toMatrix()
+   {
+      int n = this.multipliers.length;
+      Matrix M = Matrix.identity(n);
+
+      for(int i=this.k+1; i<n; i++)
+      {
+         M.set(i, this.k, -this.multipliers[i]);
+      }
+
+      return M;
+   }
+
+
+   /**
+    * Adds sign * m_i times row k to every row i below k
+    *
+    * @param	b	The matrix to update
+    * @param	sign	-1 to apply the transform, 1 to apply its inverse
+    *
+    * @throws	MatrixSizeMismatchException	If b has the wrong number of rows
+    *
+    * @since	1.1.0
+    */
+   private void applyInPlace(Matrix b, double sign) throws MatrixSizeMismatchException
+   {
+      int n = this.multipliers.length;
+
+      if(b.getSize()[0] != n)
+      {
+         String msg = "Cannot multiply " + n + "x" + n + " matrix and " + b.getSize()[0] + "x" + b.getSize()[1] +" matrix.";
+         throw new MatrixSizeMismatchException(msg);
+      }
+
+      for(int j=0; j<b.getSize()[1]; j++)
+      {
+         double bkj = b.get(this.k, j);
+         if(bkj != 0)
+         {
+            for(int i=this.k+1; i<n; i++)
+            {
+               b.set(i, j, b.get(i,j) + sign * this.multipliers[i] * bkj);
+            }
+         }
+      }
+   }
+}
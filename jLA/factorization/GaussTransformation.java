@@ -5,11 +5,16 @@
  * calculating the solution to a system of linear equations.  This is not used
  * in practice, and has generally be replaced by the functionality in the
  * LUFactorization class.
+ * <p>
+ * The elimination matrices can either be formed densely, or kept implicitly
+ * as an {@link ElementaryEliminationTransform}, which only stores the
+ * multipliers and can be applied in O(n) operations per column.
  * 
  * @author	Dana Hughes	dana.hughes@colorado.edu
- * @version	1.0.0
+ * @version	1.1.0
  *
  * @see		LUFactorization
+ * @see		ElementaryEliminationTransform
  */
 
 package jLA.factorization;
@@ -51,4 +56,34 @@ public class GaussTransformation
 
       return M;
    }
+
+
+   /**
+    * Creates an implicit elementary elimination transform.
+    * <p>
+    * This is the same operator as the one produced by
+    * {@link #createElementaryEliminationMatrix(Matrix, int)}, but only the
+    * multipliers are stored, so it takes O(n) storage instead of O(n^2).
+    *
+    * @param	b	The solution vector to be zeroed out
+    * @param	k	The row number below which entries should be zeroed
+    *
+    * @return		The elementary elimination transform which zeros out
+    *			rows in the solution below row k
+    *
+    * @since	1.1.0
+    */
+   public static ElementaryEliminationTransform createElementaryEliminationTransform(Matrix b, int k)
+   {
+      int n = b.getSize()[0];
+      double[] multipliers = new double[n];
+
+      // The multipliers scale the pivot to each entry below it
+      for(int i=k+1; i<n; i++)
+      {
+         multipliers[i] = b.get(i,0)/b.get(k,0);
+      }
+
+      return new ElementaryEliminationTransform(k, multipliers);
+   }
 }
@@ -0,0 +1,291 @@
+/**
+ * Functionality to perform the singular value decomposition of a matrix with
+ * one-sided Jacobi rotations.
+ * <p>
+ * The singular value decomposition factors an m x n matrix A as A = U S V^T,
+ * where U and V have orthonormal columns and S is diagonal, holding the
+ * singular values in decreasing order.  The one-sided Jacobi method of
+ * Hestenes applies plane rotations to pairs of columns of A until every pair
+ * is orthogonal;  the accumulated rotations give V, the norms of the columns
+ * give S, and the normalised columns give U.  Each sweep over the pairs takes
+ * O(m n^2) operations, and a few sweeps usually suffice.  The method is slower
+ * than bidiagonalization for large matrices, but simple, and it computes even
+ * the small singular values to high relative accuracy.  It is intended for
+ * small and moderate matrices, such as the projected matrices of
+ * {@link RandomizedSVD}.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		RandomizedSVD
+ */
+
+package jLA.factorization;
+
+import java.util.Arrays;
+
+import jLA.core.Cancellation;
+import jLA.core.Matrix;
+
+public class JacobiSVD
+{
+   // Largest number of sweeps over the pairs of columns
+   private static final int MAX_SWEEPS = 60;
+
+   private Matrix U, V;
+   private double[] singularValues;
+
+   /**
+    * Computes the thin singular value decomposition of a matrix
+    *
+    * @param	A	The m x n matrix to decompose
+    *
+    * @since	1.1.0
+    */
+   public JacobiSVD(Matrix A)
+   {
+      int m = A.getSize()[0];
+      int n = A.getSize()[1];
+
+      // Decompose the transpose of a wide matrix, so that the columns being
+      // rotated are the long dimension
+      boolean wide = m < n;
+      int p = wide ? n : m;
+      int q = wide ? m : n;
+
+      double[][] W = new double[p][q];
+      for(int i=0; i<m; i++)
+      {
+         for(int j=0; j<n; j++)
+         {
+            if(wide)
+            {
+               W[j][i] = A.get(i,j);
+            }
+            else
+            {
+               W[i][j] = A.get(i,j);
+            }
+         }
+      }
+
+      double[][] V = new double[q][q];
+      this.singularValues = decompose(W, V);
+
+      // A^T = W S V^T gives A = V S W^T
+      this.U = toMatrix(wide ? V : W);
+      this.V = toMatrix(wide ? W : V);
+   }
+
+
+   /**
+    * Gets the left singular vectors
+    *
+    * @return		The m x min(m,n) matrix U, with orthonormal columns
+    *
+    * @since	1.1.0
+    */
+   public Matrix getU()
+   {
+      return this.U;
+   }
+
+
+   /**
+    * Gets the right singular vectors
+    *
+    * @return		The n x min(m,n) matrix V, with orthonormal columns
+    *
+    * @since	1.1.0
+    */
+   public Matrix getV()
+   {
+      return this.V;
+   }
+
+
+   /**
+    * Gets the singular values
+    *
+    * @return		The min(m,n) singular values, in decreasing order
+    *
+    * @since	1.1.0
+    */
+   public double[] getSingularValues()
+   {
+      return this.singularValues.clone();
+   }
+
+
+   /**
+    * Decomposes an array of rows in place
+    * <p>
+    * On exit W holds the left singular vectors, except that columns for
+    * zero singular values are left as zero, and V holds the right singular
+    * vectors.
+    *
+    * @param	W	The p x q array of rows to decompose, overwritten by U
+    * @param	V	Overwritten by the q x q matrix V
+    *
+    * @return		The q singular values, in decreasing order
+    *
+    * @since	1.1.0
+    */
+   static double[] decompose(double[][] W, double[][] V)
+   {
+      int p = W.length;
+      int q = V.length;
+      double epsilon = Math.ulp(1.0);
+
+      for(int j=0; j<q; j++)
+      {
+         Arrays.fill(V[j], 0.0);
+         V[j][j] = 1;
+      }
+
+      boolean rotated = true;
+      for(int sweep=0; sweep<MAX_SWEEPS && rotated; sweep++)
+      {
+         Cancellation.checkpoint();
+         rotated = false;
+
+         for(int j=0; j<q-1; j++)
+         {
+            for(int k=j+1; k<q; k++)
+            {
+               double alpha = 0;
+               double beta = 0;
+               double gamma = 0;
+               for(int i=0; i<p; i++)
+               {
+                  double wj = W[i][j];
+                  double wk = W[i][k];
+                  alpha += wj * wj;
+                  beta += wk * wk;
+                  gamma += wj * wk;
+               }
+
+               if(Math.abs(gamma) <= epsilon * Math.sqrt(alpha * beta))
+               {
+                  continue;
+               }
+               rotated = true;
+
+               // The rotation which diagonalizes [alpha gamma; gamma beta]
+               double zeta = (beta - alpha) / (2 * gamma);
+               double t = Math.signum(zeta) / (Math.abs(zeta) + Math.sqrt(1 + zeta*zeta));
+               if(zeta == 0)
+               {
+                  t = 1;
+               }
+               double c = 1 / Math.sqrt(1 + t*t);
+               double s = c * t;
+
+               rotate(W, j, k, c, s);
+               rotate(V, j, k, c, s);
+            }
+         }
+      }
+
+      // The singular values are the norms of the columns
+      double[] sigma = new double[q];
+      for(int j=0; j<q; j++)
+      {
+         double sum = 0;
+         for(int i=0; i<p; i++)
+         {
+            sum += W[i][j] * W[i][j];
+         }
+         sigma[j] = Math.sqrt(sum);
+
+         if(sigma[j] > 0)
+         {
+            for(int i=0; i<p; i++)
+            {
+               W[i][j] /= sigma[j];
+            }
+         }
+      }
+
+      // Sort into decreasing order with a selection sort of the columns
+      for(int j=0; j<q; j++)
+      {
+         int largest = j;
+         for(int k=j+1; k<q; k++)
+         {
+            if(sigma[k] > sigma[largest])
+            {
+               largest = k;
+            }
+         }
+
+         if(largest != j)
+         {
+            double tmp = sigma[j];
+            sigma[j] = sigma[largest];
+            sigma[largest] = tmp;
+            swapColumns(W, j, largest);
+            swapColumns(V, j, largest);
+         }
+      }
+
+      return sigma;
+   }
+
+
+   /**
+    * Rotates columns j and k of an array of rows
+    *
+    * @since	1.1.0
+    */
+   private static void rotate(double[][] W, int j, int k, double c, double s)
+   {
+      for(int i=0; i<W.length; i++)
+      {
+         double[] row = W[i];
+         double wj = row[j];
+         double wk = row[k];
+         row[j] = c * wj - s * wk;
+         row[k] = s * wj + c * wk;
+      }
+   }
+
+
+   /**
+    * Swaps columns j and k of an array of rows
+    *
+    * @since	1.1.0
+    */
+   private static void swapColumns(double[][] W, int j, int k)
+   {
+      for(int i=0; i<W.length; i++)
+      {
+         double tmp = W[i][j];
+         W[i][j] = W[i][k];
+         W[i][k] = tmp;
+      }
+   }
+
+
+   /**
+    * Copies an array of rows into a matrix
+    *
+    * @since	1.1.0
+    */
+   static Matrix toMatrix(double[][] a)
+   {
+      int m = a.length;
+      int n = (m > 0) ? a[0].length : 0;
+
+      Matrix A = new Matrix(m, n);
+      for(int i=0; i<m; i++)
+      {
+         for(int j=0; j<n; j++)
+         {
+            A.set(i, j, a[i][j]);
+         }
+      }
+
+      return A;
+   }
+}
@@ -0,0 +1,366 @@
+/**
+ * Functionality to perform LDL^T factorization of a symmetric matrix
+ * <p>
+ * A symmetric matrix which is not positive definite cannot be factored by
+ * Cholesky factorization, but using general LU factorization ignores the
+ * symmetry, doubling both the storage and the work.  This factorization
+ * writes P A P^T = L D L^T, where L is unit lower triangular and D is block
+ * diagonal with 1x1 and 2x2 blocks.  The pivots are chosen with the
+ * Bunch-Kaufman strategy, which bounds the growth of the entries of L while
+ * looking at no more than two columns per step.
+ * <p>
+ * Only the lower triangle of A is stored and used, and L overwrites it.  The
+ * factors are stored in the same form as LAPACK's dsytrf:  entry k of the
+ * pivot array is the row interchanged with row k for a 1x1 block, and both
+ * entries of a 2x2 block hold -(p+1), where p is the row interchanged with the
+ * second row of the block.
+ * <p>
+ * Multipliers which are exactly zero are skipped when updating the rest of the
+ * matrix, so rows and columns of A which are mostly zero (such as an identity
+ * block) are cheap to eliminate.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		CholeskyFactorization
+ */
+
+package jLA.factorization;
+
+import jLA.core.Cancellation;
+import jLA.core.Matrix;
+import jLA.core.NotSquareMatrixException;
+import jLA.core.SingularMatrixException;
+
+public class LDLFactorization
+{
+   // Bunch-Kaufman constant, which balances the growth of 1x1 and 2x2 pivots
+   private static final double ALPHA = (1.0 + Math.sqrt(17.0)) / 8.0;
+
+   // Row i holds the entries (i,0) to (i,i) of the lower triangle
+   private double[][] lower = null;
+   private int[] pivots = null;
+
+
+   /**
+    * Factors the lower triangle of the provided matrix.
+    *
+    * @param	A	The symmetric matrix to factor
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	SingularMatrixException		If A is singular
+    *
+    * @since	1.1.0
+    */
+   public LDLFactorization(Matrix A) throws NotSquareMatrixException, SingularMatrixException
+   {
+      if(!A.isSquare())
+      {
+         throw new NotSquareMatrixException();
+      }
+
+      int n = A.getSize()[0];
+      double[][] lower = new double[n][];
+      for(int i=0; i<n; i++)
+      {
+         lower[i] = new double[i+1];
+         for(int j=0; j<=i; j++)
+         {
+            lower[i][j] = A.get(i,j);
+         }
+      }
+
+      this.lower = lower;
+      factor();
+   }
+
+
+   /**
+    * Factors a matrix given as its lower triangle.
+    * <p>
+    * Row i of the array must hold the entries (i,0) to (i,i) of the matrix.
+    * The array is overwritten with the factors, which avoids ever storing the
+    * upper triangle.
+    *
+    * @param	lower	The lower triangle of the symmetric matrix to factor
+    *
+    * @throws	SingularMatrixException		If the matrix is singular
+    *
+    * @since	1.1.0
+    */
+   public LDLFactorization(double[][] lower) throws SingularMatrixException
+   {
+      this.lower = lower;
+      factor();
+   }
+
+
+   /**
+    * Gets the size of the factored matrix
+    *
+    * @return		The number of rows (and columns) of the matrix
+    *
+    * @since	1.1.0
+    */
+   public int getSize()
+   {
+      return this.lower.length;
+   }
+
+
+   /**
+    * Gets the factors L and D
+    * <p>
+    * Row i holds the entries (i,0) to (i,i).  The blocks of D are on the
+    * diagonal (and, for 2x2 blocks, the first subdiagonal), and the
+    * multipliers of L are below them.  The array must not be modified.
+    *
+    * @return		The factors, stored in the lower triangle
+    *
+    * @since	1.1.0
+    */
+   public double[][] getFactors()
+   {
+      return this.lower;
+   }
+
+
+   /**
+    * Gets the pivot information
+    *
+    * @return		The interchanges and block structure of D, as
+    *			described for this class
+    *
+    * @since	1.1.0
+    */
+   public int[] getPivots()
+   {
+      return this.pivots;
+   }
+
+
+   /**
+    * Gets the block diagonal matrix D
+    *
+    * @return		The matrix D of this factorization
+    *
+    * @since	1.1.0
+    */
+   public Matrix getD()
+   {
+      int n = this.lower.length;
+      Matrix D = new Matrix(n,n);
+
+      for(int k=0; k<n; k++)
+      {
+         D.set(k, k, this.lower[k][k]);
+         if(this.pivots[k] < 0 && k+1 < n && this.pivots[k+1] == this.pivots[k])
+         {
+            D.set(k+1, k, this.lower[k+1][k]);
+            D.set(k, k+1, this.lower[k+1][k]);
+            D.set(k+1, k+1, this.lower[k+1][k+1]);
+            k++;
+         }
+      }
+
+      return D;
+   }
+
+
+   /**
+    * Performs the Bunch-Kaufman factorization in place.
+    *
+    * @throws	SingularMatrixException		If no pivot can be found
+    *
+    * @since	1.1.0
+    */
+   private void factor() throws SingularMatrixException
+   {
+      double[][] a = this.lower;
+      int n = a.length;
+      this.pivots = new int[n];
+
+      // Copies of the pivot columns, and the rows where they are non-zero
+      double[] col0 = new double[n];
+      double[] col1 = new double[n];
+      int[] nonZero = new int[n];
+
+      int k = 0;
+      while(k < n)
+      {
+         Cancellation.checkpoint();
+
+         int kstep = 1;
+         int kp = k;
+
+         double absakk = Math.abs(a[k][k]);
+
+         // Largest off-diagonal entry in column k
+         int imax = k;
+         double colmax = 0;
+         for(int i=k+1; i<n; i++)
+         {
+            if(Math.abs(a[i][k]) > colmax)
+            {
+               colmax = Math.abs(a[i][k]);
+               imax = i;
+            }
+         }
+
+         if(Math.max(absakk, colmax) == 0)
+         {
+            throw new SingularMatrixException("Column " + k + " is zero.");
+         }
+
+         if(absakk < ALPHA*colmax)
+         {
+            // Largest off-diagonal entry in row / column imax
+            double rowmax = 0;
+            for(int j=k; j<imax; j++)
+            {
+               rowmax = Math.max(rowmax, Math.abs(a[imax][j]));
+            }
+            for(int i=imax+1; i<n; i++)
+            {
+               rowmax = Math.max(rowmax, Math.abs(a[i][imax]));
+            }
+
+            if(absakk >= ALPHA*colmax*(colmax/rowmax))
+            {
+               // Use the diagonal entry after all
+               kp = k;
+            }
+            else if(Math.abs(a[imax][imax]) >= ALPHA*rowmax)
+            {
+               // Interchange imax and k, and use a 1x1 pivot
+               kp = imax;
+            }
+            else
+            {
+               // Interchange imax and k+1, and use a 2x2 pivot
+               kp = imax;
+               kstep = 2;
+            }
+         }
+
+         int kk = k + kstep - 1;
+         if(kp != kk)
+         {
+            interchange(k, kk, kp, kstep);
+         }
+
+         if(kstep == 1)
+         {
+            // Rank-1 update of the trailing matrix with column k
+            double d = a[k][k];
+            int count = 0;
+            for(int i=k+1; i<n; i++)
+            {
+               col0[i] = a[i][k];
+               if(col0[i] != 0)
+               {
+                  nonZero[count++] = i;
+               }
+            }
+
+            for(int p=0; p<count; p++)
+            {
+               int i = nonZero[p];
+               double f = col0[i] / d;
+               double[] row = a[i];
+               for(int q=0; q<=p; q++)
+               {
+                  int j = nonZero[q];
+                  row[j] -= f * col0[j];
+               }
+               row[k] = f;
+            }
+
+            this.pivots[k] = kp;
+         }
+         else
+         {
+            // Rank-2 update of the trailing matrix with columns k and k+1,
+            // using the inverse of the 2x2 block D
+            double d21 = a[k+1][k];
+            double d11 = a[k+1][k+1] / d21;
+            double d22 = a[k][k] / d21;
+            double t = 1.0 / (d11*d22 - 1.0);
+            d21 = t / d21;
+
+            int count = 0;
+            for(int i=k+2; i<n; i++)
+            {
+               col0[i] = a[i][k];
+               col1[i] = a[i][k+1];
+               if(col0[i] != 0 || col1[i] != 0)
+               {
+                  nonZero[count++] = i;
+               }
+            }
+
+            for(int p=0; p<count; p++)
+            {
+               int i = nonZero[p];
+               double wk = d21 * (d11*col0[i] - col1[i]);
+               double wkp1 = d21 * (d22*col1[i] - col0[i]);
+               double[] row = a[i];
+               for(int q=0; q<=p; q++)
+               {
+                  int j = nonZero[q];
+                  row[j] -= col0[j]*wk + col1[j]*wkp1;
+               }
+               row[k] = wk;
+               row[k+1] = wkp1;
+            }
+
+            this.pivots[k] = -(kp+1);
+            this.pivots[k+1] = -(kp+1);
+         }
+
+         k += kstep;
+      }
+   }
+
+
+   /**
+    * Interchanges rows and columns kk and kp of the trailing matrix.
+    *
+    * @param	k	The first column of the trailing matrix
+    * @param	kk	The row / column to interchange
+    * @param	kp	The row / column to interchange it with, kp > kk
+    * @param	kstep	The size of the pivot block
+    *
+    * @since	1.1.0
+    */
+   private void interchange(int k, int kk, int kp, int kstep)
+   {
+      double[][] a = this.lower;
+      int n = a.length;
+      double tmp;
+
+      for(int i=kp+1; i<n; i++)
+      {
+         tmp = a[i][kk];
+         a[i][kk] = a[i][kp];
+         a[i][kp] = tmp;
+      }
+      for(int j=kk+1; j<kp; j++)
+      {
+         tmp = a[j][kk];
+         a[j][kk] = a[kp][j];
+         a[kp][j] = tmp;
+      }
+
+      tmp = a[kk][kk];
+      a[kk][kk] = a[kp][kp];
+      a[kp][kp] = tmp;
+
+      if(kstep == 2)
+      {
+         tmp = a[k+1][k];
+         a[k+1][k] = a[kp][k];
+         a[kp][k] = tmp;
+      }
+   }
+}
@@ -15,6 +15,7 @@ package jLA.factorization;
 import java.util.LinkedList;
 import java.util.Iterator;
 
+import jLA.core.Cancellation;
 import jLA.core.Matrix;
 import jLA.core.MatrixSizeMismatchException;
 
@@ -59,6 +60,7 @@ public class LUFactorization
          // Set the U matrix values
          for(int j=k+1; j<N; j++)
          {
+            Cancellation.checkpoint();
             for(int i=k+1; i<N; i++)
             {
                U.set(i,j, U.get(i,j) - L.get(i,k)*U.get(k,j));
@@ -112,15 +114,15 @@ public class LUFactorization
       // Perform the LU factorization
       for(int k=0; k<N-1; k++)
       {
-         // Find the index p of the biggest value
+         // Find the index p of the value of largest magnitude
          int p = k;
-         double max_val = U.get(p,k);
+         double max_val = Math.abs(U.get(p,k));
          for(int i=k; i<N; i++)
          {
-            if(U.get(i,k) > max_val)
+            if(Math.abs(U.get(i,k)) > max_val)
             {
                p=i;
-               max_val = U.get(p,k);
+               max_val = Math.abs(U.get(p,k));
             }
          }
 
@@ -159,6 +161,7 @@ public class LUFactorization
             // Set the U matrix values
             for(int j=k+1; j<N; j++)
             {
+               Cancellation.checkpoint();
                for(int i=k+1; i<N; i++)
                {
                   U.set(i,j, U.get(i,j) - L.get(i,k)*U.get(k,j));
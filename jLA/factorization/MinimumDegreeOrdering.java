@@ -0,0 +1,351 @@
+/**
+ * Computes fill-reducing orderings for sparse factorizations.
+ * <p>
+ * Eliminating a variable during factorization connects all of its remaining
+ * neighbors, creating fill-in.  A minimum degree ordering greedily eliminates
+ * the variable with the fewest neighbors at each step, which keeps the
+ * factors sparse in practice.
+ * <p>
+ * The elimination graph is kept as a quotient graph:  each eliminated variable
+ * (and each row of the input for column orderings) is an element, a clique of
+ * the variables it connects.  Eliminating a variable merges the elements it
+ * belongs to into one new element, so the graph never grows beyond the size of
+ * the input.  Degrees are approximated by summing the parts of each element
+ * not already counted, in the same way as AMD and COLAMD, which gives an upper
+ * bound on the true degree at a fraction of the cost.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ */
+
+package jLA.factorization;
+
+import java.util.Arrays;
+
+import jLA.core.SparseMatrix;
+
+public class MinimumDegreeOrdering
+{
+   /**
+    * Computes a column ordering for the LU factorization of A.
+    * <p>
+    * The ordering approximately minimizes the fill in the Cholesky factor of
+    * A^T A, which bounds the fill in the LU factors of A for any choice of row
+    * pivots.  A^T A is never formed; each row of A is used as a clique of the
+    * columns it touches.  Rows which are very dense are ignored, since they
+    * would otherwise connect every column to every other.
+    *
+    * @param	A	The (possibly unsymmetric) matrix to be factored
+    *
+    * @return		The column ordering, where entry k is the column of A
+    *			which should be eliminated k-th
+    *
+    * @since	1.1.0
+    */
+   public static int[] columnOrdering(SparseMatrix A)
+   {
+      int m = A.getSize()[0];
+      int n = A.getSize()[1];
+
+      // The rows of A are the columns of its transpose
+      SparseMatrix At = A.transpose();
+
+      int denseRow = Math.max(16, (int) (10*Math.sqrt(n)));
+
+      int[][] cliques = new int[m][];
+      int numCliques = 0;
+      for(int i=0; i<m; i++)
+      {
+         int count = At.getColumnNonZeroCount(i);
+         if(count > 1 && count <= denseRow)
+         {
+            cliques[numCliques++] = Arrays.copyOf(At.getColumnRowIndices(i), count);
+         }
+      }
+
+      return order(n, cliques, numCliques);
+   }
+
+
+   /**
+    * Computes a symmetric ordering for the Cholesky factorization of A.
+    * <p>
+    * Only the pattern of A + A^T is used, so either one triangle or both
+    * triangles of a symmetric matrix may be stored.
+    *
+    * @param	A	The square matrix to be factored
+    *
+    * @return		The ordering, where entry k is the row / column of A
+    *			which should be eliminated k-th
+    *
+    * @since	1.1.0
+    */
+   public static int[] symmetricOrdering(SparseMatrix A)
+   {
+      int n = A.getSize()[0];
+      SparseMatrix At = A.transpose();
+
+      // Each off-diagonal entry of A + A^T is a clique of two variables.  Only
+      // the strictly lower triangle is used so each edge is seen once.
+      int numCliques = 0;
+      int[][] cliques = new int[A.nonZeroCount() + At.nonZeroCount()][];
+
+      for(int j=0; j<n; j++)
+      {
+         int[] aRows = A.getColumnRowIndices(j);
+         int[] tRows = At.getColumnRowIndices(j);
+         int aCount = A.getColumnNonZeroCount(j);
+         int tCount = At.getColumnNonZeroCount(j);
+
+         // Merge the two sorted columns, skipping repeated rows
+         int p = 0, q = 0;
+         while(p < aCount || q < tCount)
+         {
+            int i;
+            if(q >= tCount || (p < aCount && aRows[p] < tRows[q]))
+            {
+               i = aRows[p++];
+            }
+            else if(p >= aCount || tRows[q] < aRows[p])
+            {
+               i = tRows[q++];
+            }
+            else
+            {
+               i = aRows[p++];
+               q++;
+            }
+
+            if(i > j)
+            {
+               cliques[numCliques++] = new int[] {j, i};
+            }
+         }
+      }
+
+      return order(n, cliques, numCliques);
+   }
+
+
+   /**
+    * Runs the minimum degree algorithm on a quotient graph.
+    *
+    * @param	n		The number of variables
+    * @param	cliques		The initial elements, as lists of variables
+    * @param	numCliques	How many of the initial elements to use
+    *
+    * @return		The elimination order of the variables
+    *
+    * @since	1.1.0
+    */
+   private static int[] order(int n, int[][] cliques, int numCliques)
+   {
+      int maxElements = numCliques + n;
+
+      // Variables belonging to each element, and elements adjacent to each
+      // variable
+      int[][] elementVars = new int[maxElements][];
+      boolean[] elementAlive = new boolean[maxElements];
+      int[][] varElements = new int[n][];
+      int[] varElementCount = new int[n];
+
+      for(int e=0; e<numCliques; e++)
+      {
+         elementVars[e] = cliques[e];
+         elementAlive[e] = true;
+         for(int v : cliques[e])
+         {
+            varElementCount[v]++;
+         }
+      }
+      for(int v=0; v<n; v++)
+      {
+         varElements[v] = new int[Math.max(varElementCount[v], 1)];
+         varElementCount[v] = 0;
+      }
+      for(int e=0; e<numCliques; e++)
+      {
+         for(int v : cliques[e])
+         {
+            varElements[v][varElementCount[v]++] = e;
+         }
+      }
+
+      // Initial (approximate) degrees, kept in bucket lists by degree
+      int[] degree = new int[n];
+      int[] head = new int[n];
+      int[] next = new int[n];
+      int[] prev = new int[n];
+      Arrays.fill(head, -1);
+
+      for(int v=0; v<n; v++)
+      {
+         long d = 0;
+         for(int q=0; q<varElementCount[v]; q++)
+         {
+            d += elementVars[varElements[v][q]].length - 1;
+         }
+         degree[v] = (int) Math.min(d, n-1);
+         insert(v, degree[v], head, next, prev);
+      }
+
+      boolean[] eliminated = new boolean[n];
+      int[] mark = new int[n];
+      int[] w = new int[maxElements];
+      int[] wMark = new int[maxElements];
+      int[] newElement = new int[n];
+      int stamp = 0;
+      int numElements = numCliques;
+      int minDegree = 0;
+
+      int[] ordering = new int[n];
+
+      for(int k=0; k<n; k++)
+      {
+         // Pick the variable of minimum degree
+         while(head[minDegree] == -1)
+         {
+            minDegree++;
+         }
+         int pivot = head[minDegree];
+         remove(pivot, degree[pivot], head, next, prev);
+         eliminated[pivot] = true;
+         ordering[k] = pivot;
+         stamp++;
+
+         // The new element is the union of the elements adjacent to the pivot
+         int size = 0;
+         for(int q=0; q<varElementCount[pivot]; q++)
+         {
+            int e = varElements[pivot][q];
+            if(elementAlive[e])
+            {
+               for(int v : elementVars[e])
+               {
+                  if(!eliminated[v] && mark[v] != stamp)
+                  {
+                     mark[v] = stamp;
+                     newElement[size++] = v;
+                  }
+               }
+               elementAlive[e] = false;
+            }
+         }
+         varElements[pivot] = null;
+
+         int ne = numElements++;
+         elementVars[ne] = Arrays.copyOf(newElement, size);
+         elementAlive[ne] = true;
+
+         // Drop the absorbed elements from the neighbors, and add the new one
+         for(int t=0; t<size; t++)
+         {
+            int v = newElement[t];
+            remove(v, degree[v], head, next, prev);
+
+            int count = 0;
+            for(int q=0; q<varElementCount[v]; q++)
+            {
+               int e = varElements[v][q];
+               if(elementAlive[e])
+               {
+                  varElements[v][count++] = e;
+               }
+            }
+            if(count == varElements[v].length)
+            {
+               varElements[v] = Arrays.copyOf(varElements[v], 2*count + 1);
+            }
+            varElements[v][count++] = ne;
+            varElementCount[v] = count;
+         }
+
+         // w(e) is the number of variables of element e outside the new element
+         for(int t=0; t<size; t++)
+         {
+            int v = newElement[t];
+            for(int q=0; q<varElementCount[v]; q++)
+            {
+               int e = varElements[v][q];
+               if(e != ne && elementAlive[e])
+               {
+                  if(wMark[e] != stamp)
+                  {
+                     wMark[e] = stamp;
+                     w[e] = elementVars[e].length;
+                  }
+                  w[e]--;
+               }
+            }
+         }
+
+         // Update the approximate degrees of the new element's variables
+         int remaining = n - k - 1;
+         for(int t=0; t<size; t++)
+         {
+            int v = newElement[t];
+            long d = size - 1;
+            for(int q=0; q<varElementCount[v]; q++)
+            {
+               int e = varElements[v][q];
+               if(e != ne && elementAlive[e])
+               {
+                  if(w[e] == 0)
+                  {
+                     // Element lies entirely within the new one - absorb it
+                     elementAlive[e] = false;
+                  }
+                  else
+                  {
+                     d += w[e];
+                  }
+               }
+            }
+            degree[v] = (int) Math.min(d, Math.max(remaining-1, 0));
+            insert(v, degree[v], head, next, prev);
+            minDegree = Math.min(minDegree, degree[v]);
+         }
+      }
+
+      return ordering;
+   }
+
+
+   /**
+    * Adds a variable to the bucket list of the given degree
+    *
+    * @since	1.1.0
+    */
+   private static void insert(int v, int d, int[] head, int[] next, int[] prev)
+   {
+      next[v] = head[d];
+      prev[v] = -1;
+      if(head[d] != -1)
+      {
+         prev[head[d]] = v;
+      }
+      head[d] = v;
+   }
+
+
+   /**
+    * Removes a variable from the bucket list of the given degree
+    *
+    * @since	1.1.0
+    */
+   private static void remove(int v, int d, int[] head, int[] next, int[] prev)
+   {
+      if(prev[v] != -1)
+      {
+         next[prev[v]] = next[v];
+      }
+      else
+      {
+         head[d] = next[v];
+      }
+      if(next[v] != -1)
+      {
+         prev[next[v]] = prev[v];
+      }
+   }
+}
@@ -0,0 +1,308 @@
+/**
+ * Functionality to perform QR factorization of a matrix with Householder
+ * reflections.
+ * <p>
+ * An m x n matrix A with m >= n is factored as A = QR, where Q is m x n with
+ * orthonormal columns and R is n x n upper triangular.  Each reflection zeros
+ * a column below the diagonal;  the reflections are stored in place of the
+ * zeros, as in the LAPACK routines xGEQRF and xORGQR, and Q is formed from
+ * them only when it is needed.  The factorization works on arrays of rows,
+ * and every update reads the rows in order.
+ * <p>
+ * Solvers which only need R, such as the tall-skinny QR reduction, use
+ * {@link #triangularize(double[][])}, which runs the same reflections and
+ * discards them.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ */
+
+package jLA.factorization;
+
+import java.util.Arrays;
+
+import jLA.core.Cancellation;
+import jLA.core.Matrix;
+
+public class QRFactorization
+{
+   /**
+    * Perform QR factorization on a matrix.
+    *
+    * @param	A	The m x n matrix to be factored, with m >= n
+    *
+    * @return		An array containing the m x n matrix Q, with orthonormal
+    *			columns, and the n x n upper triangular matrix R
+    *
+    * @throws	IllegalArgumentException	If A has fewer rows than columns
+    *
+    * @since	1.1.0
+    */
+   public static Matrix[] factor(Matrix A)
+   {
+      int m = A.getSize()[0];
+      int n = A.getSize()[1];
+
+      checkShape(m, n);
+
+      double[][] a = new double[m][n];
+      for(int i=0; i<m; i++)
+      {
+         for(int j=0; j<n; j++)
+         {
+            a[i][j] = A.get(i,j);
+         }
+      }
+
+      double[] tau = new double[n];
+      householder(a, tau);
+
+      Matrix R = new Matrix(n, n);
+      for(int i=0; i<n; i++)
+      {
+         for(int j=i; j<n; j++)
+         {
+            R.set(i, j, a[i][j]);
+         }
+      }
+
+      formQ(a, tau);
+
+      Matrix Q = new Matrix(m, n);
+      for(int i=0; i<m; i++)
+      {
+         for(int j=0; j<n; j++)
+         {
+            Q.set(i, j, a[i][j]);
+         }
+      }
+
+      return new Matrix[] {Q, R};
+   }
+
+
+   /**
+    * Replaces the columns of a tall array with an orthonormal basis of their
+    * span.
+    * <p>
+    * The result is the factor Q of a QR factorization, so the first j columns
+    * of the result span the first j columns of the input.  Columns which are
+    * linearly dependent on the ones before them are still replaced by
+    * orthonormal columns.
+    *
+    * @param	a	The m x n array of rows, with m >= n, overwritten by Q
+    *
+    * @throws	IllegalArgumentException	If a has fewer rows than columns
+    *
+    * @since	1.1.0
+    */
+   public static void orthonormalize(double[][] a)
+   {
+      int n = (a.length > 0) ? a[0].length : 0;
+      checkShape(a.length, n);
+      double[] tau = new double[n];
+
+      householder(a, tau);
+      formQ(a, tau);
+   }
+
+
+   /**
+    * Reduces an array of rows to upper triangular form in place, keeping only
+    * the factor R.
+    * <p>
+    * The rows may be fewer than the columns, in which case R is trapezoidal.
+    * The entries below the diagonal of the returned rows are set to zero;
+    * the remaining rows are left holding the discarded reflections.
+    *
+    * @param	a	The rows to triangularize, all of the same length
+    *
+    * @return		The first min(rows, columns) rows, holding R
+    *
+    * @since	1.1.0
+    */
+   public static double[][] triangularize(double[][] a)
+   {
+      int m = a.length;
+      int n = (m > 0) ? a[0].length : 0;
+      int steps = Math.min(m, n);
+
+      householder(a, new double[n]);
+
+      double[][] triangle = new double[steps][];
+      for(int i=0; i<steps; i++)
+      {
+         Arrays.fill(a[i], 0, i, 0.0);
+         triangle[i] = a[i];
+      }
+
+      return triangle;
+   }
+
+
+   /**
+    * Factors an array of rows in place.
+    * <p>
+    * On exit the upper triangle holds R, and below the diagonal column c
+    * holds the reflection vector v of the c'th reflection I - tau v v^T,
+    * whose first entry v_c = 1 is not stored.  With fewer rows than columns
+    * only the first m columns are reduced.
+    *
+    * @param	a	The m x n array of rows
+    * @param	tau	Overwritten with the n reflection coefficients, which
+    *			are zero past the last reduced column
+    *
+    * @since	1.1.0
+    */
+   static void householder(double[][] a, double[] tau)
+   {
+      int m = a.length;
+      int n = tau.length;
+      int steps = Math.min(m, n);
+
+      double[] w = new double[n];
+      Arrays.fill(tau, 0.0);
+
+      for(int c=0; c<steps; c++)
+      {
+         Cancellation.checkpoint();
+
+         // Scale by the largest entry so the norm cannot overflow
+         double largest = 0;
+         for(int i=c; i<m; i++)
+         {
+            largest = Math.max(largest, Math.abs(a[i][c]));
+         }
+         if(largest == 0)
+         {
+            tau[c] = 0;
+            continue;
+         }
+
+         double sumSquares = 0;
+         for(int i=c; i<m; i++)
+         {
+            double value = a[i][c] / largest;
+            sumSquares += value * value;
+         }
+         double norm = largest * Math.sqrt(sumSquares);
+
+         double acc = a[c][c];
+         double beta = (acc > 0) ? -norm : norm;
+         tau[c] = (beta - acc) / beta;
+
+         // Scale v so that v_c = 1
+         double scale = 1.0 / (acc - beta);
+         for(int i=c+1; i<m; i++)
+         {
+            a[i][c] *= scale;
+         }
+         a[c][c] = beta;
+
+         reflect(a, c, tau[c], c+1, w);
+      }
+   }
+
+
+   /**
+    * Overwrites a factored array of rows with the first n columns of Q.
+    *
+    * @param	a	The m x n array of rows holding the reflections
+    * @param	tau	The reflection coefficients
+    *
+    * @since	1.1.0
+    */
+   static void formQ(double[][] a, double[] tau)
+   {
+      int m = a.length;
+      int n = tau.length;
+      double[] w = new double[n];
+
+      // Apply the reflections in reverse to the columns of the identity,
+      // building column c of Q once the reflections after it are applied
+      for(int c=n-1; c>=0; c--)
+      {
+         reflect(a, c, tau[c], c+1, w);
+
+         for(int i=c+1; i<m; i++)
+         {
+            a[i][c] = -tau[c] * a[i][c];
+         }
+         a[c][c] = 1 - tau[c];
+         for(int i=0; i<c; i++)
+         {
+            a[i][c] = 0;
+         }
+      }
+   }
+
+
+   /**
+    * Checks that a matrix to be factored has at least as many rows as columns
+    *
+    * @since	1.1.0
+    */
+   private static void checkShape(int m, int n)
+   {
+      if(m < n)
+      {
+         throw new IllegalArgumentException("Cannot factor " + m + "x" + n + " matrix with fewer rows than columns.");
+      }
+   }
+
+
+   /**
+    * Applies the reflection stored in column c to columns first to n-1 of
+    * rows c to m-1.
+    *
+    * @since	1.1.0
+    */
+   private static void reflect(double[][] a, int c, double tau, int first, double[] w)
+   {
+      int m = a.length;
+      int n = w.length;
+
+      if(tau == 0 || first >= n)
+      {
+         return;
+      }
+
+      // w = v^T a, with v_c = 1
+      System.arraycopy(a[c], first, w, first, n - first);
+      for(int i=c+1; i<m; i++)
+      {
+         double[] row = a[i];
+         double vi = row[c];
+         if(vi != 0)
+         {
+            for(int j=first; j<n; j++)
+            {
+               w[j] += vi * row[j];
+            }
+         }
+      }
+
+      // a -= tau v w^T
+      for(int j=first; j<n; j++)
+      {
+         w[j] *= tau;
+      }
+      double[] rowC = a[c];
+      for(int j=first; j<n; j++)
+      {
+         rowC[j] -= w[j];
+      }
+      for(int i=c+1; i<m; i++)
+      {
+         double[] row = a[i];
+         double vi = row[c];
+         if(vi != 0)
+         {
+            for(int j=first; j<n; j++)
+            {
+               row[j] -= vi * w[j];
+            }
+         }
+      }
+   }
+}
@@ -0,0 +1,288 @@
+/**
+ * A randomized truncated singular value decomposition.
+ * <p>
+ * The method of Halko, Martinsson and Tropp finds the k largest singular
+ * triplets of an m x n matrix A without a full O(m n^2) decomposition.  A
+ * block of l = k + p Gaussian random vectors is multiplied by A, and the
+ * product orthonormalized into Q, an approximate basis of the range of A.  A
+ * few power iterations, multiplying alternately by A^T and A and
+ * orthonormalizing in between, sharpen the basis when the singular values
+ * decay slowly.  The small l x n matrix B = Q^T A is then decomposed exactly
+ * by {@link JacobiSVD}, as B = U_B S V^T, and A is approximately (Q U_B) S V^T.
+ * <p>
+ * The matrix may be dense, sparse or any {@link TransposableOperator}, and is
+ * only used through block products, which read the entries once per block
+ * and are split between threads when requested.  Each power iteration costs
+ * two block products and O((m + n) l^2) operations to orthonormalize.  The
+ * random vectors come from a seed, so the same seed always gives the same
+ * decomposition.
+ * <p>
+ * The decomposition is itself a linear operator, applying the rank-k
+ * approximation U S V^T in O((m + n) k) operations.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		JacobiSVD
+ * @see		QRFactorization
+ */
+
+package jLA.factorization;
+
+import java.util.Random;
+
+import jLA.core.Cancellation;
+import jLA.core.Matrix;
+import jLA.core.TransposableOperator;
+
+public class RandomizedSVD implements TransposableOperator
+{
+   public static final int DEFAULT_OVERSAMPLING = 10;
+   public static final int DEFAULT_POWER_ITERATIONS = 2;
+   public static final long DEFAULT_SEED = 0x5DEECE66DL;
+
+   private int m, n, k;
+
+   // The singular vectors, as arrays of rows, and the singular values
+   private double[][] U, V;
+   private double[] singularValues;
+
+   /**
+    * Computes the k largest singular triplets of an operator
+    *
+    * @param	A	The m x n operator to decompose
+    * @param	k	The number of singular triplets to find
+    *
+    * @since	1.1.0
+    */
+   public RandomizedSVD(TransposableOperator A, int k)
+   {
+      this(A, k, DEFAULT_OVERSAMPLING, DEFAULT_POWER_ITERATIONS, DEFAULT_SEED, false);
+   }
+
+
+   /**
+    * Computes the k largest singular triplets of an operator
+    *
+    * @param	A		The m x n operator to decompose
+    * @param	k		The number of singular triplets to find
+    * @param	oversampling	The number p of extra random vectors
+    * @param	powerIterations	The number of power iterations
+    * @param	seed		The seed of the random vectors
+    * @param	parallel	Whether to multiply by A using several threads
+    *
+    * @throws	IllegalArgumentException	If k is not between 1 and
+    *						min(m,n)
+    *
+    * @since	1.1.0
+    */
+   public RandomizedSVD(TransposableOperator A, int k, int oversampling, int powerIterations, long seed, boolean parallel)
+   {
+      int m = A.getSize()[0];
+      int n = A.getSize()[1];
+
+      if(k < 1 || k > Math.min(m, n))
+      {
+         throw new IllegalArgumentException("Cannot find " + k + " singular triplets of " + m + "x" + n + " operator.");
+      }
+
+      this.m = m;
+      this.n = n;
+      this.k = k;
+
+      int l = Math.min(k + Math.max(0, oversampling), Math.min(m, n));
+
+      // Sample the range of A with Gaussian vectors
+      Random random = new Random(seed);
+      double[][] Z = new double[n][l];
+      for(int j=0; j<n; j++)
+      {
+         for(int c=0; c<l; c++)
+         {
+            Z[j][c] = random.nextGaussian();
+         }
+      }
+
+      double[][] Q = new double[m][l];
+      A.applyBlock(Z, Q, parallel);
+      QRFactorization.orthonormalize(Q);
+
+      for(int iteration=0; iteration<powerIterations; iteration++)
+      {
+         Cancellation.checkpoint();
+
+         A.applyTransposeBlock(Q, Z, parallel);
+         QRFactorization.orthonormalize(Z);
+         A.applyBlock(Z, Q, parallel);
+         QRFactorization.orthonormalize(Q);
+      }
+
+      // Decompose B^T = A^T Q = W S U_B^T, so that B = U_B S W^T
+      Cancellation.checkpoint();
+      A.applyTransposeBlock(Q, Z, parallel);
+
+      double[][] UB = new double[l][l];
+      double[] sigma = JacobiSVD.decompose(Z, UB);
+
+      // U = Q U_B and V = W, truncated to k columns
+      this.U = new double[m][k];
+      for(int i=0; i<m; i++)
+      {
+         double[] qi = Q[i];
+         double[] ui = this.U[i];
+         for(int t=0; t<l; t++)
+         {
+            double qit = qi[t];
+            double[] ubt = UB[t];
+            for(int c=0; c<k; c++)
+            {
+               ui[c] += qit * ubt[c];
+            }
+         }
+      }
+
+      this.V = new double[n][k];
+      for(int j=0; j<n; j++)
+      {
+         System.arraycopy(Z[j], 0, this.V[j], 0, k);
+      }
+
+      this.singularValues = new double[k];
+      System.arraycopy(sigma, 0, this.singularValues, 0, k);
+   }
+
+
+   /**
+    * Gets the approximate left singular vectors
+    *
+    * @return		The m x k matrix U, with orthonormal columns
+    *
+    * @since	1.1.0
+    */
+   public Matrix getU()
+   {
+      return JacobiSVD.toMatrix(this.U);
+   }
+
+
+   /**
+    * Gets the approximate right singular vectors
+    *
+    * @return		The n x k matrix V, with orthonormal columns
+    *
+    * @since	1.1.0
+    */
+   public Matrix getV()
+   {
+      return JacobiSVD.toMatrix(this.V);
+   }
+
+
+   /**
+    * Gets the approximate singular values
+    *
+    * @return		The k largest singular values, in decreasing order
+    *
+    * @since	1.1.0
+    */
+   public double[] getSingularValues()
+   {
+      return this.singularValues.clone();
+   }
+
+
+   /**
+    * Gets the dimension of the approximation
+    *
+    * @return		A 2 element array consisting of the number of rows
+    *			and number of columns
+    *
+    * @since	1.1.0
+    */
+   public int[] getSize()
+   {
+      return new int[] {this.m, this.n};
+   }
+
+
+   /**
+    * Multiplies a vector by the rank-k approximation, i.e., computes
+    * y = U S V^T x
+    *
+    * @param	x	The vector to multiply, with one entry per column
+    * @param	y	Overwritten with the product, with one entry per row
+    *
+    * @since	1.1.0
+    */
+   public void apply(double[] x, double[] y)
+   {
+      double[] t = project(this.V, x);
+      expand(this.U, t, y);
+   }
+
+
+   /**
+    * Multiplies a vector by the transpose of the rank-k approximation, i.e.,
+    * computes x = V S U^T y
+    *
+    * @param	y	The vector to multiply, with one entry per row
+    * @param	x	Overwritten with the product, with one entry per column
+    *
+    * @since	1.1.0
+    */
+   public void applyTranspose(double[] y, double[] x)
+   {
+      double[] t = project(this.U, y);
+      expand(this.V, t, x);
+   }
+
+
+   /**
+    * Computes S W^T x for singular vectors W
+    *
+    * @since	1.1.0
+    */
+   private double[] project(double[][] W, double[] x)
+   {
+      double[] t = new double[this.k];
+      for(int i=0; i<W.length; i++)
+      {
+         double xi = x[i];
+         if(xi != 0)
+         {
+            double[] wi = W[i];
+            for(int c=0; c<this.k; c++)
+            {
+               t[c] += wi[c] * xi;
+            }
+         }
+      }
+
+      for(int c=0; c<this.k; c++)
+      {
+         t[c] *= this.singularValues[c];
+      }
+
+      return t;
+   }
+
+
+   /**
+    * Computes y = W t for singular vectors W
+    *
+    * @since	1.1.0
+    */
+   private void expand(double[][] W, double[] t, double[] y)
+   {
+      for(int i=0; i<W.length; i++)
+      {
+         double[] wi = W[i];
+         double sum = 0;
+         for(int c=0; c<this.k; c++)
+         {
+            sum += wi[c] * t[c];
+         }
+         y[i] = sum;
+      }
+   }
+}
@@ -0,0 +1,534 @@
+/**
+ * Functionality to perform supernodal Cholesky factorization of a sparse matrix
+ * <p>
+ * This is the sparse counterpart of {@link CholeskyFactorization}.  The matrix
+ * is factored as P A P^T = L L^T, where P is the fill-reducing ordering found
+ * by a {@link SparseCholeskySymbolic} analysis.  The numeric work is done one
+ * supernode at a time:  each supernode gathers the updates from the
+ * supernodes below it in the elimination tree, then factors its own dense
+ * block.  Independent subtrees of the elimination tree are factored in
+ * parallel.  Each column updated or factored is a cancellation checkpoint,
+ * and interrupting the thread which started the factorization also stops the
+ * pool workers.
+ * <p>
+ * A may be stored as its lower triangle, its upper triangle, or in full.  The
+ * entries on or below the diagonal are used, and an entry above the diagonal
+ * is used in place of its mirror image when that is not stored.  When only
+ * the values of A change, {@link #refactor(SparseMatrix)} repeats the numeric
+ * factorization without repeating the symbolic analysis.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		SparseCholeskySymbolic
+ */
+
+package jLA.factorization;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jLA.core.Cancellation;
+import jLA.core.SparseMatrix;
+import jLA.core.MatrixSizeMismatchException;
+import jLA.core.NotPositiveDefiniteException;
+import jLA.core.NotSquareMatrixException;
+
+public class SparseCholeskyFactorization
+{
+   // Subtrees with fewer columns than this are factored sequentially
+   private static final int PARALLEL_SUBTREE_COLUMNS = 256;
+
+   private SparseCholeskySymbolic symbolic = null;
+
+   // Dense column-major block of each supernode, with one row for each entry
+   // of the supernode's row pattern
+   private double[][] blocks = null;
+
+   // The lower triangle of P A P^T, by column, used to assemble the blocks
+   private int[][] lowerRows = null;
+   private double[][] lowerValues = null;
+
+
+   /**
+    * Analyses and factors the provided matrix.
+    *
+    * @param	A	The symmetric positive definite matrix to factor
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	NotPositiveDefiniteException	If A is not positive definite
+    *
+    * @since	1.1.0
+    */
+   public SparseCholeskyFactorization(SparseMatrix A) throws NotSquareMatrixException, NotPositiveDefiniteException
+   {
+      this.symbolic = new SparseCholeskySymbolic(A);
+
+      try
+      {
+         refactor(A);
+      }
+      catch(MatrixSizeMismatchException e)
+      {
+         // The analysis was made from A, so the sizes always match
+      }
+   }
+
+
+   /**
+    * Factors the provided matrix using an existing symbolic analysis.
+    *
+    * @param	symbolic	The analysis of a matrix with the same pattern
+    * @param	A		The symmetric positive definite matrix to factor
+    *
+    * @throws	MatrixSizeMismatchException	If A does not match the analysis
+    * @throws	NotPositiveDefiniteException	If A is not positive definite
+    *
+    * @since	1.1.0
+    */
+   public SparseCholeskyFactorization(SparseCholeskySymbolic symbolic, SparseMatrix A) throws MatrixSizeMismatchException, NotPositiveDefiniteException
+   {
+      this.symbolic = symbolic;
+      refactor(A);
+   }
+
+
+   /**
+    * Repeats the numeric factorization for new values.
+    * <p>
+    * A must have the same pattern as the matrix that was analysed, or a
+    * subset of it.
+    *
+    * @param	A	The symmetric positive definite matrix to factor
+    *
+    * @throws	MatrixSizeMismatchException	If A does not match the analysis
+    * @throws	NotPositiveDefiniteException	If A is not positive definite
+    *
+    * @since	1.1.0
+    */
+   public void refactor(SparseMatrix A) throws MatrixSizeMismatchException, NotPositiveDefiniteException
+   {
+      int n = this.symbolic.n;
+      if(A.getSize()[0] != n || A.getSize()[1] != n)
+      {
+         String msg = "Cannot factor " + A.getSize()[0] + "x" + A.getSize()[1] + " matrix with analysis of " + n + "x" + n + " matrix.";
+         throw new MatrixSizeMismatchException(msg);
+      }
+
+      gatherLowerTriangle(A);
+
+      if(this.blocks == null)
+      {
+         this.blocks = new double[this.symbolic.numSupernodes][];
+      }
+
+      // Factor each tree of the supernodal elimination forest
+      final SparseCholeskySymbolic S = this.symbolic;
+      final AtomicBoolean cancelled = new AtomicBoolean(false);
+      RecursiveAction forest = new RecursiveAction()
+      {
+         protected void compute()
+         {
+            int numRoots = 0;
+            for(int s=0; s<S.numSupernodes; s++)
+            {
+               numRoots += (S.superParent[s] == -1) ? 1 : 0;
+            }
+
+            SubtreeTask[] tasks = new SubtreeTask[numRoots];
+            int t = 0;
+            for(int s=0; s<S.numSupernodes; s++)
+            {
+               if(S.superParent[s] == -1)
+               {
+                  tasks[t++] = new SubtreeTask(s, cancelled);
+               }
+            }
+            invokeAll(tasks);
+         }
+      };
+
+      try
+      {
+         Cancellation.invoke(forest, cancelled);
+      }
+      catch(NotPositiveDefiniteFailure e)
+      {
+         // The fork/join framework may wrap the failure again when it crosses
+         // threads, so look for the original exception among the causes
+         Throwable cause = e;
+         while(!(cause instanceof NotPositiveDefiniteException))
+         {
+            cause = cause.getCause();
+         }
+         throw (NotPositiveDefiniteException) cause;
+      }
+   }
+
+
+   /**
+    * Gets the symbolic analysis used by this factorization
+    *
+    * @return		The symbolic analysis
+    *
+    * @since	1.1.0
+    */
+   public SparseCholeskySymbolic getSymbolic()
+   {
+      return this.symbolic;
+   }
+
+
+   /**
+    * Gets the dense block of a supernode
+    * <p>
+    * The block is stored column-major, with one row for each row returned by
+    * {@link SparseCholeskySymbolic#getSupernodeRows(int)} and one column for
+    * each column of the supernode.  Only the entries on or below the
+    * diagonal of the block are meaningful.  The returned array must not be
+    * modified.
+    *
+    * @param	s	The supernode of interest
+    *
+    * @return		The values of L in the supernode
+    *
+    * @since	1.1.0
+    */
+   public double[] getSupernodeBlock(int s)
+   {
+      return this.blocks[s];
+   }
+
+
+   /**
+    * Gets the Cholesky factor as a sparse matrix
+    * <p>
+    * The factor is of the reordered matrix, i.e., L L^T = P A P^T.
+    *
+    * @return		The lower triangular factor L
+    *
+    * @since	1.1.0
+    */
+   public SparseMatrix getL()
+   {
+      SparseCholeskySymbolic S = this.symbolic;
+      SparseMatrix L = new SparseMatrix(S.n, S.n);
+
+      for(int s=0; s<S.numSupernodes; s++)
+      {
+         int[] rows = S.superRows[s];
+         int width = S.superStart[s+1] - S.superStart[s];
+         int height = rows.length;
+         for(int c=0; c<width; c++)
+         {
+            L.setColumn(S.superStart[s] + c,
+                        Arrays.copyOfRange(rows, c, height),
+                        Arrays.copyOfRange(this.blocks[s], c*height + c, (c+1)*height),
+                        height - c);
+         }
+      }
+
+      return L;
+   }
+
+
+   /**
+    * Collects the lower triangle of P A P^T, by column.
+    * <p>
+    * An entry above the diagonal of A stands for its mirror image when that
+    * is not stored, so upper triangular storage reads the same as lower.
+    *
+    * @param	A	The matrix being factored
+    *
+    * @since	1.1.0
+    */
+   private void gatherLowerTriangle(SparseMatrix A)
+   {
+      int n = this.symbolic.n;
+      int[] pinv = this.symbolic.pinv;
+
+      int[] counts = new int[n];
+      for(int j=0; j<n; j++)
+      {
+         int[] rows = A.getColumnRowIndices(j);
+         for(int p=0; p<A.getColumnNonZeroCount(j); p++)
+         {
+            if(isUsed(A, rows[p], j))
+            {
+               counts[Math.min(pinv[rows[p]], pinv[j])]++;
+            }
+         }
+      }
+
+      this.lowerRows = new int[n][];
+      this.lowerValues = new double[n][];
+      for(int j=0; j<n; j++)
+      {
+         this.lowerRows[j] = new int[counts[j]];
+         this.lowerValues[j] = new double[counts[j]];
+         counts[j] = 0;
+      }
+
+      for(int j=0; j<n; j++)
+      {
+         int[] rows = A.getColumnRowIndices(j);
+         double[] values = A.getColumnValues(j);
+         for(int p=0; p<A.getColumnNonZeroCount(j); p++)
+         {
+            if(isUsed(A, rows[p], j))
+            {
+               int a = pinv[rows[p]];
+               int b = pinv[j];
+               int col = Math.min(a,b);
+               this.lowerRows[col][counts[col]] = Math.max(a,b);
+               this.lowerValues[col][counts[col]] = values[p];
+               counts[col]++;
+            }
+         }
+      }
+   }
+
+
+   /**
+    * Determines whether a stored entry of A is used, i.e., whether it is on
+    * or below the diagonal, or above it with its mirror image not stored.
+    *
+    * @since	1.1.0
+    */
+   private static boolean isUsed(SparseMatrix A, int i, int j)
+   {
+      if(i >= j)
+      {
+         return true;
+      }
+
+      return Arrays.binarySearch(A.getColumnRowIndices(i), 0, A.getColumnNonZeroCount(i), j) < 0;
+   }
+
+
+   /**
+    * Factors a single supernode.
+    * <p>
+    * Every supernode which updates this one has already been factored.  The
+    * block is assembled from A, the updates L_K L_K^T from each descendant K
+    * are subtracted, and the block is then factored with a dense column
+    * Cholesky, which also solves for the rows below the diagonal block.
+    *
+    * @param	J		The supernode to factor
+    * @param	cancelled	The flag raised if the factorization is
+    *				cancelled
+    *
+    * @throws	NotPositiveDefiniteException	If a pivot is not positive
+    *
+    * @since	1.1.0
+    */
+   private void factorSupernode(int J, AtomicBoolean cancelled) throws NotPositiveDefiniteException
+   {
+      SparseCholeskySymbolic S = this.symbolic;
+
+      int first = S.superStart[J];
+      int last = S.superStart[J+1];
+      int width = last - first;
+      int[] rowsJ = S.superRows[J];
+      int height = rowsJ.length;
+
+      double[] block = this.blocks[J];
+      if(block == null || block.length != width*height)
+      {
+         block = new double[width*height];
+      }
+      else
+      {
+         Arrays.fill(block, 0.0);
+      }
+
+      // Assemble the columns of A
+      for(int c=0; c<width; c++)
+      {
+         int[] rows = this.lowerRows[first + c];
+         double[] values = this.lowerValues[first + c];
+         for(int p=0; p<rows.length; p++)
+         {
+            int r = Arrays.binarySearch(rowsJ, rows[p]);
+            if(r < 0)
+            {
+               throw new IllegalArgumentException("Entry is not in the pattern of the symbolic analysis.");
+            }
+            block[c*height + r] += values[p];
+         }
+      }
+
+      // Subtract the updates from each descendant supernode
+      int[] relative = new int[height];
+      double[] column = new double[height];
+      for(int K : S.updaters[J])
+      {
+         int[] rowsK = S.superRows[K];
+         int heightK = rowsK.length;
+         int widthK = S.superStart[K+1] - S.superStart[K];
+         double[] blockK = this.blocks[K];
+
+         // Rows of K from first onwards; those below last touch J's columns
+         int top = lowerBound(rowsK, widthK, heightK, first);
+         int bottom = lowerBound(rowsK, top, heightK, last);
+
+         // Position of each of K's rows within J's pattern
+         int r = 0;
+         for(int u=top; u<heightK; u++)
+         {
+            while(rowsJ[r] != rowsK[u])
+            {
+               r++;
+            }
+            relative[u-top] = r;
+         }
+
+         for(int t=top; t<bottom; t++)
+         {
+            Cancellation.checkpoint(cancelled);
+
+            // column = L_K(t:end, :) * L_K(t, :)^T
+            Arrays.fill(column, t-top, heightK-top, 0.0);
+            for(int c=0; c<widthK; c++)
+            {
+               double ltc = blockK[c*heightK + t];
+               if(ltc != 0)
+               {
+                  int offset = c*heightK;
+                  for(int u=t; u<heightK; u++)
+                  {
+                     column[u-top] += blockK[offset + u] * ltc;
+                  }
+               }
+            }
+
+            int target = (rowsK[t] - first) * height;
+            for(int u=t; u<heightK; u++)
+            {
+               block[target + relative[u-top]] -= column[u-top];
+            }
+         }
+      }
+
+      // Dense Cholesky of the diagonal block, and the rows below it
+      for(int c=0; c<width; c++)
+      {
+         Cancellation.checkpoint(cancelled);
+
+         int offset = c*height;
+         for(int c2=0; c2<c; c2++)
+         {
+            int offset2 = c2*height;
+            double lcc2 = block[offset2 + c];
+            if(lcc2 != 0)
+            {
+               for(int r=c; r<height; r++)
+               {
+                  block[offset + r] -= block[offset2 + r] * lcc2;
+               }
+            }
+         }
+
+         double pivot = block[offset + c];
+         if(!(pivot > 0))
+         {
+            throw new NotPositiveDefiniteException("Non-positive pivot in column " + S.perm[first + c] + ".");
+         }
+         pivot = Math.sqrt(pivot);
+         block[offset + c] = pivot;
+         for(int r=c+1; r<height; r++)
+         {
+            block[offset + r] /= pivot;
+         }
+      }
+
+      this.blocks[J] = block;
+   }
+
+
+   /**
+    * Finds the first position in a sorted range holding a value of at least
+    * the key.
+    *
+    * @since	1.1.0
+    */
+   private static int lowerBound(int[] values, int from, int to, int key)
+   {
+      int p = Arrays.binarySearch(values, from, to, key);
+      return (p >= 0) ? p : -(p+1);
+   }
+
+
+   /**
+    * Factors the supernodes of a subtree, children before parents.
+    *
+    * @since	1.1.0
+    */
+   private class SubtreeTask extends RecursiveAction
+   {
+      private int root;
+
+      // Raised if the calling thread is interrupted while the pool works
+      private AtomicBoolean cancelled;
+
+      SubtreeTask(int root, AtomicBoolean cancelled)
+      {
+         this.root = root;
+         this.cancelled = cancelled;
+      }
+
+      protected void compute()
+      {
+         SparseCholeskySymbolic S = symbolic;
+
+         try
+         {
+            if(S.subtreeColumns[root] < PARALLEL_SUBTREE_COLUMNS)
+            {
+               // Supernodes of a subtree are contiguous and postordered
+               int s = root;
+               int columns = 0;
+               while(columns < S.subtreeColumns[root])
+               {
+                  columns += S.superStart[s+1] - S.superStart[s];
+                  s--;
+               }
+               for(int t=s+1; t<=root; t++)
+               {
+                  factorSupernode(t, this.cancelled);
+               }
+            }
+            else
+            {
+               int[] children = S.superChildren[root];
+               SubtreeTask[] tasks = new SubtreeTask[children.length];
+               for(int c=0; c<children.length; c++)
+               {
+                  tasks[c] = new SubtreeTask(children[c], this.cancelled);
+               }
+               invokeAll(tasks);
+               factorSupernode(root, this.cancelled);
+            }
+         }
+         catch(NotPositiveDefiniteException e)
+         {
+            throw new NotPositiveDefiniteFailure(e);
+         }
+      }
+   }
+
+
+   /**
+    * Carries a NotPositiveDefiniteException out of the fork/join tasks.
+    *
+    * @since	1.1.0
+    */
+   private static class NotPositiveDefiniteFailure extends RuntimeException
+   {
+      NotPositiveDefiniteFailure(NotPositiveDefiniteException cause)
+      {
+         super(cause);
+      }
+   }
+}
@@ -0,0 +1,623 @@
+/**
+ * The symbolic analysis of a sparse Cholesky factorization.
+ * <p>
+ * The sparsity pattern of the Cholesky factor L depends only on the pattern of
+ * A, not on its values.  This class performs all of the work which depends on
+ * the pattern alone:  it computes a fill-reducing ordering, builds the
+ * elimination tree of the reordered matrix, and finds the pattern of L.  The
+ * analysis can then be reused for any number of numeric factorizations of
+ * matrices with the same pattern, e.g., a stiffness matrix whose values change
+ * every time step.
+ * <p>
+ * Columns of L with the same pattern below the diagonal, which are adjacent in
+ * a postordering of the elimination tree, are grouped into supernodes.  The
+ * columns of a supernode are stored together as one dense block, so the
+ * numeric factorization can use dense kernels on them.  Supernodes which are
+ * in different subtrees of the (supernodal) elimination tree do not depend on
+ * each other, and can be factored in parallel.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		SparseCholeskyFactorization
+ */
+
+package jLA.factorization;
+
+import java.util.Arrays;
+
+import jLA.core.SparseMatrix;
+import jLA.core.NotSquareMatrixException;
+
+public class SparseCholeskySymbolic
+{
+   // Size of the matrix, and the ordering (perm[k] is the k-th column of A to
+   // be eliminated, pinv is its inverse)
+   int n;
+   int[] perm;
+   int[] pinv;
+
+   // Elimination tree of the reordered matrix
+   int[] parent;
+
+   // Supernodes:  supernode s holds columns superStart[s] to
+   // superStart[s+1]-1, and superRows[s] is the (sorted) row pattern of its
+   // first column, which starts with the columns of the supernode itself
+   int numSupernodes;
+   int[] superStart;
+   int[][] superRows;
+   int[] columnSupernode;
+
+   // Supernodal elimination tree, and for each supernode the descendant
+   // supernodes which contribute updates to it
+   int[] superParent;
+   int[][] superChildren;
+   int[][] updaters;
+   int[] subtreeColumns;
+
+   long factorNonZeros;
+
+
+   /**
+    * Performs the symbolic analysis of the provided matrix.
+    * <p>
+    * Only the pattern of A is used, and the pattern of A + A^T is analysed, so
+    * either one or both triangles of A may be stored.
+    *
+    * @param	A	The symmetric matrix to analyse
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    *
+    * @since	1.1.0
+    */
+   public SparseCholeskySymbolic(SparseMatrix A) throws NotSquareMatrixException
+   {
+      if(!A.isSquare())
+      {
+         throw new NotSquareMatrixException();
+      }
+
+      this.n = A.getSize()[0];
+
+      // Order for low fill, then postorder the elimination tree so that
+      // supernodes become contiguous columns
+      int[] ordering = MinimumDegreeOrdering.symmetricOrdering(A);
+      int[][] upper = permutedUpperPattern(A, ordering);
+      int[] post = postorder(eliminationTree(upper));
+
+      this.perm = new int[n];
+      this.pinv = new int[n];
+      for(int k=0; k<n; k++)
+      {
+         this.perm[k] = ordering[post[k]];
+         this.pinv[this.perm[k]] = k;
+      }
+
+      upper = permutedUpperPattern(A, this.perm);
+      this.parent = eliminationTree(upper);
+
+      int[] counts = columnCounts(upper);
+      findSupernodes(counts);
+      findSupernodePatterns(upper);
+      findUpdaters();
+   }
+
+
+   /**
+    * Gets the size of the analysed matrix
+    *
+    * @return		The number of rows (and columns) of the matrix
+    *
+    * @since	1.1.0
+    */
+   public int getSize()
+   {
+      return this.n;
+   }
+
+
+   /**
+    * Gets the fill-reducing ordering
+    * <p>
+    * Entry k is the row / column of A which was moved to position k.
+    *
+    * @return		The permutation of A used by the factorization
+    *
+    * @since	1.1.0
+    */
+   public int[] getPermutation()
+   {
+      return this.perm;
+   }
+
+
+   /**
+    * Gets the elimination tree of the reordered matrix
+    * <p>
+    * Entry j is the parent of column j, or -1 if column j is a root.
+    *
+    * @return		The elimination tree
+    *
+    * @since	1.1.0
+    */
+   public int[] getEliminationTree()
+   {
+      return this.parent;
+   }
+
+
+   /**
+    * Gets the number of supernodes found
+    *
+    * @return		The number of supernodes
+    *
+    * @since	1.1.0
+    */
+   public int getSupernodeCount()
+   {
+      return this.numSupernodes;
+   }
+
+
+   /**
+    * Gets the first column of a supernode
+    * <p>
+    * Supernode s holds the (reordered) columns getSupernodeStart(s) up to,
+    * but not including, getSupernodeStart(s+1).
+    *
+    * @param	s	The supernode of interest, from 0 to the number of
+    *			supernodes (inclusive)
+    *
+    * @return		The first column of the supernode
+    *
+    * @since	1.1.0
+    */
+   public int getSupernodeStart(int s)
+   {
+      return this.superStart[s];
+   }
+
+
+   /**
+    * Gets the row pattern of a supernode
+    * <p>
+    * The rows are in increasing order, and the first rows are the columns of
+    * the supernode itself.  The returned array must not be modified.
+    *
+    * @param	s	The supernode of interest
+    *
+    * @return		The (reordered) rows of the supernode's dense block
+    *
+    * @since	1.1.0
+    */
+   public int[] getSupernodeRows(int s)
+   {
+      return this.superRows[s];
+   }
+
+
+   /**
+    * Gets the number of non-zeros in the Cholesky factor L
+    *
+    * @return		The number of non-zeros on or below the diagonal of L
+    *
+    * @since	1.1.0
+    */
+   public long getFactorNonZeroCount()
+   {
+      return this.factorNonZeros;
+   }
+
+
+   /**
+    * Builds the pattern of the strictly upper triangle of P (A + A^T) P^T.
+    *
+    * @param	A		The matrix being analysed
+    * @param	ordering	The ordering to apply
+    *
+    * @return		For each column, the rows above the diagonal
+    *
+    * @since	1.1.0
+    */
+   private int[][] permutedUpperPattern(SparseMatrix A, int[] ordering)
+   {
+      int[] inverse = new int[n];
+      for(int k=0; k<n; k++)
+      {
+         inverse[ordering[k]] = k;
+      }
+
+      // Count, then fill, the entries of each column
+      int[] counts = new int[n];
+      for(int j=0; j<n; j++)
+      {
+         int[] rows = A.getColumnRowIndices(j);
+         for(int p=0; p<A.getColumnNonZeroCount(j); p++)
+         {
+            int a = inverse[rows[p]];
+            int b = inverse[j];
+            if(a != b)
+            {
+               counts[Math.max(a,b)]++;
+            }
+         }
+      }
+
+      int[][] upper = new int[n][];
+      for(int j=0; j<n; j++)
+      {
+         upper[j] = new int[counts[j]];
+         counts[j] = 0;
+      }
+
+      for(int j=0; j<n; j++)
+      {
+         int[] rows = A.getColumnRowIndices(j);
+         for(int p=0; p<A.getColumnNonZeroCount(j); p++)
+         {
+            int a = inverse[rows[p]];
+            int b = inverse[j];
+            if(a != b)
+            {
+               int col = Math.max(a,b);
+               upper[col][counts[col]++] = Math.min(a,b);
+            }
+         }
+      }
+
+      // Remove duplicates, which appear when both triangles of A are stored
+      for(int j=0; j<n; j++)
+      {
+         int[] rows = upper[j];
+         Arrays.sort(rows);
+         int count = 0;
+         for(int p=0; p<rows.length; p++)
+         {
+            if(count == 0 || rows[count-1] != rows[p])
+            {
+               rows[count++] = rows[p];
+            }
+         }
+         upper[j] = Arrays.copyOf(rows, count);
+      }
+
+      return upper;
+   }
+
+
+   /**
+    * Computes the elimination tree using Liu's algorithm.
+    * <p>
+    * The parent of column j is the row of the first off-diagonal non-zero in
+    * column j of L.  Path compression over ancestors keeps this nearly linear
+    * in the number of non-zeros of A.
+    *
+    * @param	upper	The upper triangular pattern of the matrix
+    *
+    * @return		The parent of each column, or -1 for roots
+    *
+    * @since	1.1.0
+    */
+   private int[] eliminationTree(int[][] upper)
+   {
+      int[] etree = new int[n];
+      int[] ancestor = new int[n];
+
+      for(int k=0; k<n; k++)
+      {
+         etree[k] = -1;
+         ancestor[k] = -1;
+
+         for(int i : upper[k])
+         {
+            // Walk from i up to the root of its current subtree
+            while(i != -1 && i < k)
+            {
+               int next = ancestor[i];
+               ancestor[i] = k;
+               if(next == -1)
+               {
+                  etree[i] = k;
+               }
+               i = next;
+            }
+         }
+      }
+
+      return etree;
+   }
+
+
+   /**
+    * Computes a postordering of a forest.
+    *
+    * @param	etree	The parent of each node, or -1 for roots
+    *
+    * @return		The nodes in postorder
+    *
+    * @since	1.1.0
+    */
+   private int[] postorder(int[] etree)
+   {
+      // Linked lists of children, kept in increasing order
+      int[] head = new int[n];
+      int[] next = new int[n];
+      Arrays.fill(head, -1);
+      for(int j=n-1; j>=0; j--)
+      {
+         if(etree[j] != -1)
+         {
+            next[j] = head[etree[j]];
+            head[etree[j]] = j;
+         }
+      }
+
+      int[] post = new int[n];
+      int[] stack = new int[n];
+      int k = 0;
+
+      for(int root=0; root<n; root++)
+      {
+         if(etree[root] != -1)
+         {
+            continue;
+         }
+
+         int top = 0;
+         stack[0] = root;
+         while(top >= 0)
+         {
+            int p = stack[top];
+            int child = head[p];
+            if(child == -1)
+            {
+               top--;
+               post[k++] = p;
+            }
+            else
+            {
+               head[p] = next[child];
+               stack[++top] = child;
+            }
+         }
+      }
+
+      return post;
+   }
+
+
+   /**
+    * Counts the non-zeros in each column of L.
+    * <p>
+    * The pattern of row k of L is the set of nodes reachable by walking up
+    * the elimination tree from each non-zero in column k of the upper
+    * triangle, stopping at k.  Walking every row this way costs O(nnz(L)).
+    *
+    * @param	upper	The upper triangular pattern of the matrix
+    *
+    * @return		The number of non-zeros in each column of L, including
+    *			the diagonal
+    *
+    * @since	1.1.0
+    */
+   private int[] columnCounts(int[][] upper)
+   {
+      int[] counts = new int[n];
+      int[] mark = new int[n];
+      Arrays.fill(mark, -1);
+
+      for(int k=0; k<n; k++)
+      {
+         counts[k]++;
+         mark[k] = k;
+         for(int i : upper[k])
+         {
+            while(mark[i] != k)
+            {
+               mark[i] = k;
+               counts[i]++;
+               i = this.parent[i];
+            }
+         }
+      }
+
+      return counts;
+   }
+
+
+   /**
+    * Groups adjacent columns into fundamental supernodes.
+    * <p>
+    * Column j+1 joins the supernode of column j if it is the only child of
+    * j+1 in the elimination tree and the patterns match, i.e., column j has
+    * exactly one more non-zero than column j+1.
+    *
+    * @param	counts	The non-zeros in each column of L
+    *
+    * @since	1.1.0
+    */
+   private void findSupernodes(int[] counts)
+   {
+      int[] numChildren = new int[n];
+      for(int j=0; j<n; j++)
+      {
+         if(this.parent[j] != -1)
+         {
+            numChildren[this.parent[j]]++;
+         }
+      }
+
+      int[] starts = new int[n+1];
+      this.columnSupernode = new int[n];
+      int s = 0;
+
+      for(int j=0; j<n; j++)
+      {
+         boolean continuesSupernode = j > 0
+                            && this.parent[j-1] == j
+                            && numChildren[j] == 1
+                            && counts[j-1] == counts[j] + 1;
+         if(!continuesSupernode)
+         {
+            starts[s++] = j;
+         }
+         this.columnSupernode[j] = s-1;
+         this.factorNonZeros += counts[j];
+      }
+      starts[s] = n;
+
+      this.numSupernodes = s;
+      this.superStart = Arrays.copyOf(starts, s+1);
+
+      // Supernodal elimination tree
+      this.superParent = new int[s];
+      int[] childCount = new int[s];
+      for(int t=0; t<s; t++)
+      {
+         int last = this.superStart[t+1] - 1;
+         this.superParent[t] = (this.parent[last] == -1) ? -1 : this.columnSupernode[this.parent[last]];
+         if(this.superParent[t] != -1)
+         {
+            childCount[this.superParent[t]]++;
+         }
+      }
+
+      this.superChildren = new int[s][];
+      for(int t=0; t<s; t++)
+      {
+         this.superChildren[t] = new int[childCount[t]];
+         childCount[t] = 0;
+      }
+      this.subtreeColumns = new int[s];
+      for(int t=0; t<s; t++)
+      {
+         // Children always come before their parents in a postorder
+         this.subtreeColumns[t] += this.superStart[t+1] - this.superStart[t];
+         int p = this.superParent[t];
+         if(p != -1)
+         {
+            this.superChildren[p][childCount[p]++] = t;
+            this.subtreeColumns[p] += this.subtreeColumns[t];
+         }
+      }
+   }
+
+
+   /**
+    * Finds the row pattern of the first column of every supernode.
+    *
+    * @param	upper	The upper triangular pattern of the matrix
+    *
+    * @since	1.1.0
+    */
+   private void findSupernodePatterns(int[][] upper)
+   {
+      int[] sizes = new int[this.numSupernodes];
+      this.superRows = new int[this.numSupernodes][];
+
+      // The columns of the supernode come first
+      for(int s=0; s<this.numSupernodes; s++)
+      {
+         int first = this.superStart[s];
+         int width = this.superStart[s+1] - first;
+         this.superRows[s] = new int[16];
+         for(int c=0; c<width; c++)
+         {
+            append(s, sizes, first + c);
+         }
+      }
+
+      // Row k of L holds the nodes reachable from the upper pattern of k.
+      // Rows are visited in increasing order, so each pattern stays sorted.
+      int[] mark = new int[n];
+      Arrays.fill(mark, -1);
+      for(int k=0; k<n; k++)
+      {
+         mark[k] = k;
+         for(int i : upper[k])
+         {
+            while(mark[i] != k)
+            {
+               mark[i] = k;
+               int s = this.columnSupernode[i];
+               if(i == this.superStart[s] && k >= this.superStart[s+1])
+               {
+                  append(s, sizes, k);
+               }
+               i = this.parent[i];
+            }
+         }
+      }
+
+      for(int s=0; s<this.numSupernodes; s++)
+      {
+         this.superRows[s] = Arrays.copyOf(this.superRows[s], sizes[s]);
+      }
+   }
+
+
+   /**
+    * Appends a row to the pattern of a supernode
+    *
+    * @since	1.1.0
+    */
+   private void append(int s, int[] sizes, int row)
+   {
+      if(sizes[s] == this.superRows[s].length)
+      {
+         this.superRows[s] = Arrays.copyOf(this.superRows[s], 2*sizes[s]);
+      }
+      this.superRows[s][sizes[s]++] = row;
+   }
+
+
+   /**
+    * Finds, for each supernode, the supernodes which update it.
+    * <p>
+    * Supernode K updates supernode J when a row of K below its own columns
+    * falls within the columns of J.
+    *
+    * @since	1.1.0
+    */
+   private void findUpdaters()
+   {
+      int[] counts = new int[this.numSupernodes];
+      int[] mark = new int[this.numSupernodes];
+      Arrays.fill(mark, -1);
+
+      for(int pass=0; pass<2; pass++)
+      {
+         for(int K=0; K<this.numSupernodes; K++)
+         {
+            int width = this.superStart[K+1] - this.superStart[K];
+            int[] rows = this.superRows[K];
+            for(int p=width; p<rows.length; p++)
+            {
+               int J = this.columnSupernode[rows[p]];
+               if(mark[J] != K + pass*this.numSupernodes)
+               {
+                  mark[J] = K + pass*this.numSupernodes;
+                  if(pass == 0)
+                  {
+                     counts[J]++;
+                  }
+                  else
+                  {
+                     this.updaters[J][counts[J]++] = K;
+                  }
+               }
+            }
+         }
+
+         if(pass == 0)
+         {
+            this.updaters = new int[this.numSupernodes][];
+            for(int J=0; J<this.numSupernodes; J++)
+            {
+               this.updaters[J] = new int[counts[J]];
+               counts[J] = 0;
+            }
+         }
+      }
+   }
+}
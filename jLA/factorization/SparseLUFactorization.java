@@ -0,0 +1,373 @@
+/**
+ * Converts a sparse matrix into sparse lower and upper triangular matrices.
+ * <p>
+ * The dense {@link LUFactorization} fills in every entry of L and U, which is
+ * hopeless for large sparse systems.  This factorization keeps L and U sparse
+ * by first reordering the columns of A with a fill-reducing ordering, then
+ * computing the factors one column at a time (the left-looking algorithm of
+ * Gilbert and Peierls).  Each column of the factors is found by a sparse
+ * triangular solve with the columns of L computed so far, so the work is
+ * proportional to the number of floating point operations, not to n^2.
+ * <p>
+ * Threshold partial pivoting is used to choose the pivot row in each column.
+ * Any row whose entry is within a factor of the threshold of the largest
+ * entry in the column is acceptable, and the diagonal entry is preferred when
+ * it is acceptable, since it usually creates less fill.  A threshold of 1
+ * gives ordinary partial pivoting.
+ * <p>
+ * The factorization is such that L U = P A Q, where L is unit lower
+ * triangular, U is upper triangular, and P and Q are the row and column
+ * permutations.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		LUFactorization
+ * @see		MinimumDegreeOrdering
+ */
+
+package jLA.factorization;
+
+import java.util.Arrays;
+
+import jLA.core.Cancellation;
+import jLA.core.SparseMatrix;
+import jLA.core.NotSquareMatrixException;
+import jLA.core.SingularMatrixException;
+
+public class SparseLUFactorization
+{
+   /**
+    * The pivot threshold used when none is given
+    */
+   public static final double DEFAULT_PIVOT_THRESHOLD = 0.1;
+
+   private SparseMatrix L = null;
+   private SparseMatrix U = null;
+   private int[] rowPermutation = null;
+   private int[] columnPermutation = null;
+
+
+   /**
+    * Factors the provided matrix using the default pivot threshold.
+    *
+    * @param	A	The sparse matrix to factor
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	SingularMatrixException		If A is singular
+    *
+    * @since	1.1.0
+    */
+   public SparseLUFactorization(SparseMatrix A) throws NotSquareMatrixException, SingularMatrixException
+   {
+      this(A, DEFAULT_PIVOT_THRESHOLD);
+   }
+
+
+   /**
+    * Factors the provided matrix.
+    *
+    * @param	A		The sparse matrix to factor
+    * @param	threshold	The pivot threshold, between 0 and 1
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	SingularMatrixException		If A is singular
+    *
+    * @since	1.1.0
+    */
+   public SparseLUFactorization(SparseMatrix A, double threshold) throws NotSquareMatrixException, SingularMatrixException
+   {
+      if(!A.isSquare())
+      {
+         throw new NotSquareMatrixException();
+      }
+
+      this.columnPermutation = MinimumDegreeOrdering.columnOrdering(A);
+      factor(A, threshold);
+   }
+
+
+   /**
+    * Gets the unit lower triangular factor L
+    *
+    * @return		The factor L
+    *
+    * @since	1.1.0
+    */
+   public SparseMatrix getL()
+   {
+      return this.L;
+   }
+
+
+   /**
+    * Gets the upper triangular factor U
+    *
+    * @return		The factor U
+    *
+    * @since	1.1.0
+    */
+   public SparseMatrix getU()
+   {
+      return this.U;
+   }
+
+
+   /**
+    * Gets the row permutation P
+    * <p>
+    * Entry i is the row of L U which row i of A was moved to.
+    *
+    * @return		The row permutation
+    *
+    * @since	1.1.0
+    */
+   public int[] getRowPermutation()
+   {
+      return this.rowPermutation;
+   }
+
+
+   /**
+    * Gets the column permutation Q
+    * <p>
+    * Entry k is the column of A which was moved to column k of L U.
+    *
+    * @return		The column permutation
+    *
+    * @since	1.1.0
+    */
+   public int[] getColumnPermutation()
+   {
+      return this.columnPermutation;
+   }
+
+
+   /**
+    * Performs the left-looking factorization.
+    *
+    * @param	A		The sparse matrix to factor
+    * @param	threshold	The pivot threshold
+    *
+    * @throws	SingularMatrixException		If no pivot can be found
+    *
+    * @since	1.1.0
+    */
+   private void factor(SparseMatrix A, double threshold) throws SingularMatrixException
+   {
+      int n = A.getSize()[0];
+      int[] q = this.columnPermutation;
+
+      this.L = new SparseMatrix(n,n);
+      this.U = new SparseMatrix(n,n);
+
+      // pinv[i] is the column in which row i was chosen as pivot, or -1
+      int[] pinv = new int[n];
+      Arrays.fill(pinv, -1);
+
+      // Dense work vector and the pattern of the current column
+      double[] x = new double[n];
+      int[] pattern = new int[n];
+      int[] stack = new int[n];
+      int[] childPosition = new int[n];
+      int[] mark = new int[n];
+      Arrays.fill(mark, -1);
+
+      int[] colRows = new int[n];
+      double[] colValues = new double[n];
+
+      for(int k=0; k<n; k++)
+      {
+         Cancellation.checkpoint();
+
+         int col = q[k];
+
+         // Find the pattern of x = L \ A(:,col), in topological order
+         int top = reach(A, col, k, pinv, pattern, stack, childPosition, mark);
+
+         // Scatter A(:,col) into x
+         int[] aRows = A.getColumnRowIndices(col);
+         double[] aValues = A.getColumnValues(col);
+         for(int p=0; p<A.getColumnNonZeroCount(col); p++)
+         {
+            x[aRows[p]] = aValues[p];
+         }
+
+         // Sparse forward substitution with the columns of L found so far
+         for(int t=top; t<n; t++)
+         {
+            int j = pattern[t];
+            int J = pinv[j];
+            if(J < 0)
+            {
+               continue;
+            }
+
+            int[] lRows = this.L.getColumnRowIndices(J);
+            double[] lValues = this.L.getColumnValues(J);
+            double xj = x[j];
+            for(int p=0; p<this.L.getColumnNonZeroCount(J); p++)
+            {
+               x[lRows[p]] -= lValues[p] * xj;
+            }
+         }
+
+         // Pivoted rows belong to U, the rest are candidates for the pivot
+         int uCount = 0;
+         int pivotRow = -1;
+         double largest = -1;
+         for(int t=top; t<n; t++)
+         {
+            int i = pattern[t];
+            if(pinv[i] < 0)
+            {
+               double magnitude = Math.abs(x[i]);
+               if(magnitude > largest)
+               {
+                  largest = magnitude;
+                  pivotRow = i;
+               }
+            }
+            else
+            {
+               colRows[uCount] = pinv[i];
+               colValues[uCount] = x[i];
+               uCount++;
+            }
+         }
+
+         if(pivotRow == -1 || largest <= 0)
+         {
+            throw new SingularMatrixException("No pivot found in column " + col + ".");
+         }
+
+         // Prefer the diagonal entry if it is large enough
+         if(pinv[col] < 0 && Math.abs(x[col]) >= threshold*largest)
+         {
+            pivotRow = col;
+         }
+
+         double pivot = x[pivotRow];
+         colRows[uCount] = k;
+         colValues[uCount] = pivot;
+         uCount++;
+         this.U.setColumn(k, colRows, colValues, uCount);
+
+         // The remaining entries, scaled by the pivot, form column k of L.
+         // Rows are kept in the original numbering until the end.
+         pinv[pivotRow] = k;
+         int lCount = 0;
+         for(int t=top; t<n; t++)
+         {
+            int i = pattern[t];
+            if(pinv[i] < 0)
+            {
+               colRows[lCount] = i;
+               colValues[lCount] = x[i] / pivot;
+               lCount++;
+            }
+            x[i] = 0;
+         }
+         this.L.setColumn(k, colRows, colValues, lCount);
+      }
+
+      // Renumber the rows of L into pivot order, and add the unit diagonal
+      for(int k=0; k<n; k++)
+      {
+         int count = this.L.getColumnNonZeroCount(k);
+         int[] lRows = this.L.getColumnRowIndices(k);
+         double[] lValues = this.L.getColumnValues(k);
+
+         colRows[0] = k;
+         colValues[0] = 1.0;
+         for(int p=0; p<count; p++)
+         {
+            colRows[p+1] = pinv[lRows[p]];
+            colValues[p+1] = lValues[p];
+         }
+         this.L.setColumn(k, colRows, colValues, count+1);
+      }
+
+      this.rowPermutation = pinv;
+   }
+
+
+   /**
+    * Finds the non-zero pattern of the solution of L x = A(:,col).
+    * <p>
+    * An entry x(i) is non-zero if row i can be reached in the graph of L from
+    * a non-zero row of A(:,col).  A depth-first search from each of those rows
+    * gives the reachable rows in topological order, which is the order the
+    * triangular solve must visit them in.
+    *
+    * @param	A		The matrix being factored
+    * @param	col		The column of A being solved for
+    * @param	k		The current step of the factorization, used to mark
+    *				visited rows
+    * @param	pinv		The inverse row permutation so far
+    * @param	pattern		Filled from position top to n-1 with the pattern
+    * @param	stack		Work space for the search
+    * @param	childPosition	Work space for the search
+    * @param	mark		Work space for the search
+    *
+    * @return		The position top in pattern where the pattern starts
+    *
+    * @since	1.1.0
+    */
+   private int reach(SparseMatrix A, int col, int k, int[] pinv, int[] pattern, int[] stack, int[] childPosition, int[] mark)
+   {
+      int n = pattern.length;
+      int top = n;
+
+      int[] aRows = A.getColumnRowIndices(col);
+      for(int p=0; p<A.getColumnNonZeroCount(col); p++)
+      {
+         int start = aRows[p];
+         if(mark[start] == k)
+         {
+            continue;
+         }
+
+         // Non-recursive depth-first search from this row
+         int head = 0;
+         stack[0] = start;
+         while(head >= 0)
+         {
+            int j = stack[head];
+            int J = pinv[j];
+
+            if(mark[j] != k)
+            {
+               mark[j] = k;
+               childPosition[head] = 0;
+            }
+
+            // Descend into the first unvisited child of j, if any
+            boolean done = true;
+            if(J >= 0)
+            {
+               int[] lRows = this.L.getColumnRowIndices(J);
+               int count = this.L.getColumnNonZeroCount(J);
+               while(childPosition[head] < count)
+               {
+                  int i = lRows[childPosition[head]++];
+                  if(mark[i] != k)
+                  {
+                     stack[++head] = i;
+                     done = false;
+                     break;
+                  }
+               }
+            }
+
+            if(done)
+            {
+               head--;
+               pattern[--top] = j;
+            }
+         }
+      }
+
+      return top;
+   }
+}
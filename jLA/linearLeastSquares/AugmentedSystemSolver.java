@@ -5,22 +5,24 @@
  * system of equations.
  *
  * @author	Dana Hughes	dana.hughes@colorado.edu
- * @version	1.0.0
+ * @version	1.1.0
  */
 
 package jLA.linearLeastSquares;
 
-import jLA.solver.LUSolverPartialPivot;
+import jLA.factorization.LDLFactorization;
+import jLA.solver.LDLSolver;
 import jLA.core.Matrix;
 import jLA.core.MatrixSizeMismatchException;
+import jLA.core.SingularMatrixException;
 
 public class AugmentedSystemSolver
 {
    /**
     * Determine the least squares solution of the system of equations Ax = b
     * <p>
-    * This method solves by creating an augmented system and solving using LU
-    * factorization with partial pivoting.
+    * This method solves by creating an augmented system and solving using a
+    * symmetric indefinite (Bunch-Kaufman) LDL^T factorization.
     * <p>
     * Note that A does not need to be square.
     *
@@ -31,55 +33,64 @@ public class AugmentedSystemSolver
     *
     * @throws	MatrixSizeMismatchError
     *			If the number of rows of A and b do not match
+    * @throws	SingularMatrixException
+    *			If the columns of A are linearly dependent
     *
     * @since	1.0.0
     */
-   public static Matrix solve(Matrix A, Matrix b) throws MatrixSizeMismatchException
+   public static Matrix solve(Matrix A, Matrix b) throws MatrixSizeMismatchException, SingularMatrixException
    {
       int m = A.getSize()[0];
       int n = A.getSize()[1];
 
+      if(b.getSize()[0] != m)
+      {
+         String msg = "Cannot solve " + m + "x" + n + " system with " + b.getSize()[0] + "x" + b.getSize()[1] + " right-hand side.";
+         throw new MatrixSizeMismatchException(msg);
+      }
+
       // The augmented system is an (m+n) x (m+n) matrix
       int N = m + n;
 
-      // Create an augmented system of equations
-      Matrix augmentedSystem = new Matrix(N,N);
+      // Create the lower triangle of the augmented system of equations.  The
+      // system is symmetric, so the upper triangle is never stored.
+      double[][] augmentedSystem = new double[N][];
 
       // The upper-left m x m region of this matrix is the identity
       for(int i=0; i<m; i++)
       {
-         augmentedSystem.set(i,i,1);
+         augmentedSystem[i] = new double[i+1];
+         augmentedSystem[i][i] = 1;
       }
 
-      // The upper-right region of this matrix is A
-      // The lower-left region is A^T
-      for(int i=0; i<m; i++)
+      // The lower-left region is A^T, and the lower-right region is zero
+      for(int j=0; j<n; j++)
       {
-         for(int j=0; j<n; j++)
+         augmentedSystem[m+j] = new double[m+j+1];
+         for(int i=0; i<m; i++)
          {
-            augmentedSystem.set(i, m+j, A.get(i,j));
-            augmentedSystem.set(m+j, i, A.get(i,j));
+            augmentedSystem[m+j][i] = A.get(i,j);
          }
       }
 
       // Augment the b vector with zeros
-
-      Matrix bAugmented = new Matrix(N,1);
+      double[] bAugmented = new double[N];
       for(int i=0; i<m; i++)
       {
-         bAugmented.set(i,0,b.get(i,0));
+         bAugmented[i] = b.get(i,0);
       }
 
-      // Create an LU solver to solve the normal system of equations
-      // Note - we can use Cholesky factorization here...
-      LUSolverPartialPivot solver = new LUSolverPartialPivot(augmentedSystem);
-      Matrix solution = solver.solve(bAugmented);
+      // The augmented system is symmetric but indefinite, so use an LDL^T
+      // factorization.  Eliminating the identity block only touches the
+      // columns of A, since the factorization skips zero multipliers.
+      LDLSolver solver = new LDLSolver(new LDLFactorization(augmentedSystem));
+      solver.solve(bAugmented);
 
       // extract the x vector
       Matrix x = new Matrix(n,1);
       for(int i=0; i<n; i++)
       {
-         x.set(i,0,solution.get(m+i,0));
+         x.set(i,0,bAugmented[m+i]);
       }
 
       return x;
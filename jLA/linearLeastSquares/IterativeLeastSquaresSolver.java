@@ -0,0 +1,543 @@
+/**
+ * A base class for iterative solvers of least squares problems.
+ * <p>
+ * The solvers find the x which minimises ||Ax - b||^2 + damp^2 ||x||^2 for an
+ * m x n operator A of any shape, using only products with A and A^T, so A can
+ * be a sparse matrix or any {@link TransposableOperator}.  The damping
+ * (Tikhonov regularization) is 0 by default, giving the ordinary least
+ * squares solution.
+ * <p>
+ * The solvers stop following the tests of Paige and Saunders:  when the
+ * residual r = b - Ax is small enough for Ax = b to be consistent,
+ * ||r|| <= btol ||b|| + atol ||A|| ||x||;  when the normal equations are
+ * solved closely enough, ||A^T r|| <= atol ||A|| ||r||;  when the estimate of
+ * the condition number of A exceeds the condition limit;  or when the
+ * iteration limit is reached.  The tolerances should be about the relative
+ * accuracy of the entries of A and b.
+ * <p>
+ * The norms of A, r, A^T r and x, and the condition number of A, are
+ * estimated from the recurrences as the solver runs, and can be read after
+ * solving along with the reason the solver stopped.  Since these statistics
+ * belong to the most recent solve, a solver should not be shared between
+ * threads.  Every iteration is a cancellation checkpoint.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ */
+
+package jLA.linearLeastSquares;
+
+import java.util.Arrays;
+
+import jLA.core.Cancellation;
+import jLA.core.Matrix;
+import jLA.core.MatrixSizeMismatchException;
+import jLA.core.TransposableOperator;
+
+public abstract class IterativeLeastSquaresSolver
+{
+   /**
+    * The reasons a solver can stop.
+    *
+    * @since	1.1.0
+    */
+   public enum StopReason
+   {
+      /** b or A^T b is zero, so x = 0 is the solution */
+      ZERO_SOLUTION,
+      /** Ax = b is consistent, to within the tolerances */
+      COMPATIBLE,
+      /** The normal equations are solved, to within the tolerances */
+      LEAST_SQUARES,
+      /** The estimated condition number exceeded the limit */
+      CONDITION_LIMIT,
+      /** The iteration limit was reached */
+      ITERATION_LIMIT
+   }
+
+   public static final double DEFAULT_TOLERANCE = 1e-8;
+   public static final double DEFAULT_CONDITION_LIMIT = 1e8;
+
+   protected TransposableOperator A = null;
+   protected int m, n;
+
+   protected double damping = 0;
+   protected double atol = DEFAULT_TOLERANCE;
+   protected double btol = DEFAULT_TOLERANCE;
+   protected double conditionLimit = DEFAULT_CONDITION_LIMIT;
+   protected int maxIterations;
+   protected boolean parallel = false;
+
+   // Statistics of the last solve
+   protected int iterations = 0;
+   protected StopReason stopReason = null;
+   protected double normA = 0;
+   protected double conditionA = 0;
+   protected double normR = 0;
+   protected double normAr = 0;
+   protected double normX = 0;
+
+   /**
+    * Constructs the solver for the provided operator
+    * <p>
+    * The iteration limit is initially 2n, a few times the number of
+    * iterations needed in exact arithmetic.
+    *
+    * @param	A	The m x n operator A in the problem Ax = b
+    *
+    * @since	1.1.0
+    */
+   protected IterativeLeastSquaresSolver(TransposableOperator A)
+   {
+      this.A = A;
+      this.m = A.getSize()[0];
+      this.n = A.getSize()[1];
+      this.maxIterations = Math.max(2 * this.n, 10);
+   }
+
+
+   /**
+    * Sets the damping of the problem
+    *
+    * @param	damping	The weight damp of ||x||^2 in the minimised sum
+    *
+    * @since	1.1.0
+    */
+   public void setDamping(double damping)
+   {
+      this.damping = damping;
+   }
+
+
+   /**
+    * Sets the relative accuracies at which the solver stops
+    *
+    * @param	atol	The relative accuracy of A
+    * @param	btol	The relative accuracy of b
+    *
+    * @since	1.1.0
+    */
+   public void setTolerances(double atol, double btol)
+   {
+      this.atol = atol;
+      this.btol = btol;
+   }
+
+
+   /**
+    * Sets the condition number at which the solver stops
+    * <p>
+    * Stopping at a limit prevents the solution from growing without bound on
+    * nearly rank-deficient problems.
+    *
+    * @param	conditionLimit	The largest acceptable estimate of the
+    *				condition number, or 0 for no limit
+    *
+    * @since	1.1.0
+    */
+   public void setConditionLimit(double conditionLimit)
+   {
+      this.conditionLimit = conditionLimit;
+   }
+
+
+   /**
+    * Sets the largest number of iterations performed by one solve
+    *
+    * @param	maxIterations	The iteration limit
+    *
+    * @since	1.1.0
+    */
+   public void setMaxIterations(int maxIterations)
+   {
+      this.maxIterations = maxIterations;
+   }
+
+
+   /**
+    * Sets whether the operator is applied using several threads
+    *
+    * @param	parallel	True to use the parallel products of the
+    *				operator
+    *
+    * @since	1.1.0
+    */
+   public void setParallel(boolean parallel)
+   {
+      this.parallel = parallel;
+   }
+
+
+   /**
+    * Gets the damping of the problem
+    *
+    * @return		The damping
+    *
+    * @since	1.1.0
+    */
+   public double getDamping()
+   {
+      return this.damping;
+   }
+
+
+   /**
+    * Gets the largest number of iterations performed by one solve
+    *
+    * @return		The iteration limit
+    *
+    * @since	1.1.0
+    */
+   public int getMaxIterations()
+   {
+      return this.maxIterations;
+   }
+
+
+   /**
+    * Gets the number of iterations performed by the last solve
+    *
+    * @return		The number of iterations
+    *
+    * @since	1.1.0
+    */
+   public int getIterationCount()
+   {
+      return this.iterations;
+   }
+
+
+   /**
+    * Gets the reason the last solve stopped
+    *
+    * @return		The reason, or null before the first solve
+    *
+    * @since	1.1.0
+    */
+   public StopReason getStopReason()
+   {
+      return this.stopReason;
+   }
+
+
+   /**
+    * Gets whether the last solve met one of the tolerances
+    *
+    * @return		True if the last solve converged
+    *
+    * @since	1.1.0
+    */
+   public boolean hasConverged()
+   {
+      return this.stopReason == StopReason.ZERO_SOLUTION ||
+             this.stopReason == StopReason.COMPATIBLE ||
+             this.stopReason == StopReason.LEAST_SQUARES;
+   }
+
+
+   /**
+    * Gets the estimate of the Frobenius norm of the (damped) operator
+    *
+    * @return		An estimate of ||[A; damp I]||_F from the last solve
+    *
+    * @since	1.1.0
+    */
+   public double getNormEstimate()
+   {
+      return this.normA;
+   }
+
+
+   /**
+    * Gets the estimate of the condition number of the (damped) operator
+    *
+    * @return		An estimate of the condition number from the last solve
+    *
+    * @since	1.1.0
+    */
+   public double getConditionEstimate()
+   {
+      return this.conditionA;
+   }
+
+
+   /**
+    * Gets the norm of the residual of the last solution
+    *
+    * @return		An estimate of sqrt(||b - Ax||^2 + damp^2 ||x||^2)
+    *
+    * @since	1.1.0
+    */
+   public double getResidualNorm()
+   {
+      return this.normR;
+   }
+
+
+   /**
+    * Gets the norm of the residual of the normal equations
+    *
+    * @return		An estimate of ||A^T (b - Ax) - damp^2 x||
+    *
+    * @since	1.1.0
+    */
+   public double getNormalResidualNorm()
+   {
+      return this.normAr;
+   }
+
+
+   /**
+    * Gets the norm of the last solution
+    *
+    * @return		An estimate of ||x||
+    *
+    * @since	1.1.0
+    */
+   public double getSolutionNorm()
+   {
+      return this.normX;
+   }
+
+
+   /**
+    * Determine the least squares solution of the system of equations Ax = b
+    * <p>
+    * Each column of b is solved for separately, so b may hold several
+    * right-hand sides.  The statistics belong to the last column.
+    *
+    * @param	b	The vector b in the system Ax = b
+    *
+    * @return		The vector x which approximately minimises the residual
+    *
+    * @throws	MatrixSizeMismatchException	If b has the wrong number of rows
+    *
+    * @since	1.1.0
+    */
+   public Matrix solve(Matrix b) throws MatrixSizeMismatchException
+   {
+      if(b.getSize()[0] != this.m)
+      {
+         String msg = "Cannot solve " + this.m + "x" + this.n + " system with " + b.getSize()[0] + "x" + b.getSize()[1] + " right-hand side.";
+         throw new MatrixSizeMismatchException(msg);
+      }
+
+      Matrix x = new Matrix(this.n, b.getSize()[1]);
+      double[] bWork = new double[this.m];
+      double[] xWork = new double[this.n];
+
+      for(int c=0; c<b.getSize()[1]; c++)
+      {
+         for(int i=0; i<this.m; i++)
+         {
+            bWork[i] = b.get(i,c);
+         }
+
+         solve(bWork, xWork);
+
+         for(int i=0; i<this.n; i++)
+         {
+            x.set(i, c, xWork[i]);
+         }
+      }
+
+      return x;
+   }
+
+
+   /**
+    * Determine the least squares solution of Ax = b, starting from x = 0.
+    *
+    * @param	b	The vector b, with m entries, which is not modified
+    * @param	x	Overwritten with the solution, with n entries
+    *
+    * @return		True if the solver converged
+    *
+    * @since	1.1.0
+    */
+   public abstract boolean solve(double[] b, double[] x);
+
+
+   /**
+    * Clears the statistics at the start of a solve
+    *
+    * @since	1.1.0
+    */
+   protected void start()
+   {
+      this.iterations = 0;
+      this.stopReason = null;
+      this.normA = 0;
+      this.conditionA = 0;
+      this.normR = 0;
+      this.normAr = 0;
+      this.normX = 0;
+   }
+
+
+   /**
+    * Records the estimates after an iteration, and checks the stopping
+    * tests
+    *
+    * @param	normB	The norm of b
+    *
+    * @return		The reason to stop, or null to continue
+    *
+    * @since	1.1.0
+    */
+   protected StopReason check(double normB)
+   {
+      Cancellation.checkpoint();
+
+      this.iterations++;
+
+      double test1 = this.normR / normB;
+      double test2 = (this.normA * this.normR == 0) ? Double.POSITIVE_INFINITY : this.normAr / (this.normA * this.normR);
+      double test3 = 1.0 / this.conditionA;
+      double t1 = test1 / (1 + this.normA * this.normX / normB);
+      double rtol = this.btol + this.atol * this.normA * this.normX / normB;
+      double ctol = (this.conditionLimit > 0) ? 1.0 / this.conditionLimit : 0;
+
+      // The tolerance tests come last so they take priority, and each is
+      // backed by a test against machine precision
+      StopReason reason = null;
+      if(this.iterations >= this.maxIterations)
+      {
+         reason = StopReason.ITERATION_LIMIT;
+      }
+      if(1 + test3 <= 1 || test3 <= ctol)
+      {
+         reason = StopReason.CONDITION_LIMIT;
+      }
+      if(1 + test2 <= 1 || test2 <= this.atol)
+      {
+         reason = StopReason.LEAST_SQUARES;
+      }
+      if(1 + t1 <= 1 || test1 <= rtol)
+      {
+         reason = StopReason.COMPATIBLE;
+      }
+
+      this.stopReason = reason;
+      return reason;
+   }
+
+
+   /**
+    * Records a solution found without iterating
+    *
+    * @param	x	The solution, set to zero
+    *
+    * @return		True
+    *
+    * @since	1.1.0
+    */
+   protected boolean zeroSolution(double[] x)
+   {
+      Arrays.fill(x, 0.0);
+      this.stopReason = StopReason.ZERO_SOLUTION;
+      return true;
+   }
+
+
+   /**
+    * Computes y = Ax, in parallel if requested
+    *
+    * @since	1.1.0
+    */
+   protected void applyOperator(double[] x, double[] y)
+   {
+      if(this.parallel)
+      {
+         this.A.applyParallel(x, y);
+      }
+      else
+      {
+         this.A.apply(x, y);
+      }
+   }
+
+
+   /**
+    * Computes x = A^T y, in parallel if requested
+    *
+    * @since	1.1.0
+    */
+   protected void applyTransposeOperator(double[] y, double[] x)
+   {
+      if(this.parallel)
+      {
+         this.A.applyTransposeParallel(y, x);
+      }
+      else
+      {
+         this.A.applyTranspose(y, x);
+      }
+   }
+
+
+   /**
+    * Computes the Euclidean norm of a vector
+    *
+    * @since	1.1.0
+    */
+   protected static double norm(double[] x)
+   {
+      double sum = 0;
+      for(int i=0; i<x.length; i++)
+      {
+         sum += x[i] * x[i];
+      }
+
+      return Math.sqrt(sum);
+   }
+
+
+   /**
+    * Multiplies a vector by a scalar in place
+    *
+    * @since	1.1.0
+    */
+   protected static void scale(double[] x, double a)
+   {
+      for(int i=0; i<x.length; i++)
+      {
+         x[i] *= a;
+      }
+   }
+
+
+   /**
+    * Finds the Givens rotation taking (a, b) to (r, 0)
+    * <p>
+    * The rotation is computed without overflow, and with c, s and r of the
+    * signs used by the algorithms of Paige and Saunders.
+    *
+    * @return		The array {c, s, r}
+    *
+    * @since	1.1.0
+    */
+   protected static double[] rotation(double a, double b)
+   {
+      if(b == 0)
+      {
+         return new double[] {(a < 0) ? -1 : 1, 0, Math.abs(a)};
+      }
+      if(a == 0)
+      {
+         return new double[] {0, Math.signum(b), Math.abs(b)};
+      }
+      if(Math.abs(b) > Math.abs(a))
+      {
+         double tau = a / b;
+         double s = Math.signum(b) / Math.sqrt(1 + tau*tau);
+         return new double[] {s * tau, s, b / s};
+      }
+      else
+      {
+         double tau = b / a;
+         double c = Math.signum(a) / Math.sqrt(1 + tau*tau);
+         return new double[] {c, c * tau, a / c};
+      }
+   }
+}
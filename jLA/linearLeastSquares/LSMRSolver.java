@@ -0,0 +1,226 @@
+/**
+ * An LSMR solver for large, sparse least squares problems.
+ * <p>
+ * LSMR (Fong and Saunders, 2011) uses the same Golub-Kahan bidiagonalization
+ * as {@link LSQRSolver}, with one product by A and one by A^T per iteration,
+ * but chooses each iterate to minimise ||A^T r|| rather than ||r|| over the
+ * Krylov space.  It is mathematically equivalent to MINRES on the normal
+ * equations.  Both ||r|| and ||A^T r|| then decrease monotonically, so LSMR
+ * can safely be stopped early, and usually meets the least squares tolerance
+ * in fewer iterations than LSQR.  Memory use is six vectors, O(m + n).
+ * <p>
+ * The condition estimate is the ratio of the extreme diagonal entries of the
+ * triangular factor of the bidiagonal matrix, which is a lower bound for the
+ * 2-norm condition number of A that improves as the iterations proceed.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		LSQRSolver
+ */
+
+package jLA.linearLeastSquares;
+
+import java.util.Arrays;
+
+import jLA.core.TransposableOperator;
+
+public class LSMRSolver extends IterativeLeastSquaresSolver
+{
+   private double[] u, v, h, hBar, work;
+
+   /**
+    * Constructs the solver for the provided operator
+    *
+    * @param	A	The m x n operator A in the problem Ax = b
+    *
+    * @since	1.1.0
+    */
+   public LSMRSolver(TransposableOperator A)
+   {
+      super(A);
+
+      this.u = new double[this.m];
+      this.v = new double[this.n];
+      this.h = new double[this.n];
+      this.hBar = new double[this.n];
+      this.work = new double[Math.max(this.m, this.n)];
+   }
+
+
+   /**
+    * Determine the least squares solution of Ax = b, starting from x = 0.
+    *
+    * @param	b	The vector b, with m entries, which is not modified
+    * @param	x	Overwritten with the solution, with n entries
+    *
+    * @return		True if the solver converged
+    *
+    * @since	1.1.0
+    */
+   public boolean solve(double[] b, double[] x)
+   {
+      int m = this.m;
+      int n = this.n;
+      double[] u = this.u;
+      double[] v = this.v;
+      double[] h = this.h;
+      double[] hBar = this.hBar;
+      double[] work = this.work;
+
+      start();
+      Arrays.fill(x, 0.0);
+
+      // Start the bidiagonalization: beta u = b, alpha v = A^T u
+      System.arraycopy(b, 0, u, 0, m);
+      double normB = norm(u);
+      double beta = normB;
+      double alpha = 0;
+
+      if(beta > 0)
+      {
+         scale(u, 1.0 / beta);
+         applyTransposeOperator(u, v);
+         alpha = norm(v);
+      }
+      if(alpha > 0)
+      {
+         scale(v, 1.0 / alpha);
+      }
+      if(alpha * beta == 0)
+      {
+         this.normR = beta;
+         return zeroSolution(x);
+      }
+
+      // Variables of the QR factorizations of the bidiagonal matrix
+      double zetaBar = alpha * beta;
+      double alphaBar = alpha;
+      double rho = 1;
+      double rhoBar = 1;
+      double cBar = 1;
+      double sBar = 0;
+
+      System.arraycopy(v, 0, h, 0, n);
+      Arrays.fill(hBar, 0.0);
+
+      // Variables for estimating ||r||
+      double betaDD = beta;
+      double betaD = 0;
+      double rhoDOld = 1;
+      double tauTildeOld = 0;
+      double thetaTilde = 0;
+      double zeta = 0;
+      double d = 0;
+
+      // Variables for estimating ||A|| and cond(A)
+      double normASquared = alpha * alpha;
+      double maxRBar = 0;
+      double minRBar = Double.MAX_VALUE;
+
+      while(true)
+      {
+         // Continue the bidiagonalization
+         applyOperator(v, work);
+         for(int i=0; i<m; i++)
+         {
+            u[i] = work[i] - alpha * u[i];
+         }
+         beta = norm(u);
+
+         if(beta > 0)
+         {
+            scale(u, 1.0 / beta);
+
+            applyTransposeOperator(u, work);
+            for(int j=0; j<n; j++)
+            {
+               v[j] = work[j] - beta * v[j];
+            }
+            alpha = norm(v);
+            if(alpha > 0)
+            {
+               scale(v, 1.0 / alpha);
+            }
+         }
+
+         // Eliminate the damping, then the subdiagonal beta
+         double[] rotation = rotation(alphaBar, this.damping);
+         double cHat = rotation[0];
+         double sHat = rotation[1];
+         double alphaHat = rotation[2];
+
+         double rhoOld = rho;
+         rotation = rotation(alphaHat, beta);
+         double c = rotation[0];
+         double s = rotation[1];
+         rho = rotation[2];
+         double thetaNew = s * alpha;
+         alphaBar = c * alpha;
+
+         // Second rotation, which makes the iterates minimise ||A^T r||
+         double rhoBarOld = rhoBar;
+         double zetaOld = zeta;
+         double thetaBar = sBar * rho;
+         double rhoTemp = cBar * rho;
+         rotation = rotation(cBar * rho, thetaNew);
+         cBar = rotation[0];
+         sBar = rotation[1];
+         rhoBar = rotation[2];
+         zeta = cBar * zetaBar;
+         zetaBar = -sBar * zetaBar;
+
+         // Update x and the search directions h and hBar
+         double hBarScale = thetaBar * rho / (rhoOld * rhoBarOld);
+         double xScale = zeta / (rho * rhoBar);
+         double hScale = thetaNew / rho;
+         for(int j=0; j<n; j++)
+         {
+            hBar[j] = h[j] - hBarScale * hBar[j];
+            x[j] += xScale * hBar[j];
+            h[j] = v[j] - hScale * h[j];
+         }
+
+         // Estimate ||r|| by applying the rotations to the right-hand side
+         double betaAcute = cHat * betaDD;
+         double betaCheck = -sHat * betaDD;
+         double betaHat = c * betaAcute;
+         betaDD = -s * betaAcute;
+
+         double thetaTildeOld = thetaTilde;
+         rotation = rotation(rhoDOld, thetaBar);
+         double cTildeOld = rotation[0];
+         double sTildeOld = rotation[1];
+         double rhoTildeOld = rotation[2];
+         thetaTilde = sTildeOld * rhoBar;
+         rhoDOld = cTildeOld * rhoBar;
+         betaD = -sTildeOld * betaD + cTildeOld * betaHat;
+
+         tauTildeOld = (zetaOld - thetaTildeOld * tauTildeOld) / rhoTildeOld;
+         double tauD = (zeta - thetaTilde * tauTildeOld) / rhoDOld;
+         d += betaCheck * betaCheck;
+         this.normR = Math.sqrt(d + (betaD - tauD)*(betaD - tauD) + betaDD*betaDD);
+
+         // Estimate ||A|| from the bidiagonal matrix, and cond(A) from the
+         // extreme diagonals of its triangular factor
+         normASquared += beta * beta;
+         this.normA = Math.sqrt(normASquared);
+         normASquared += alpha * alpha;
+
+         maxRBar = Math.max(maxRBar, rhoBarOld);
+         if(this.iterations > 0)
+         {
+            minRBar = Math.min(minRBar, rhoBarOld);
+         }
+         this.conditionA = Math.max(maxRBar, rhoTemp) / Math.min(minRBar, rhoTemp);
+
+         this.normAr = Math.abs(zetaBar);
+         this.normX = norm(x);
+
+         if(check(normB) != null)
+         {
+            return hasConverged();
+         }
+      }
+   }
+}
@@ -0,0 +1,199 @@
+/**
+ * An LSQR solver for large, sparse least squares problems.
+ * <p>
+ * LSQR (Paige and Saunders, 1982) applies Golub-Kahan bidiagonalization to A,
+ * building orthonormal bases of the Krylov spaces of A^T A and A A^T with one
+ * product by A and one by A^T per iteration, and solves the bidiagonal least
+ * squares problem with a QR factorization updated by Givens rotations.  It is
+ * mathematically equivalent to conjugate gradients on the normal equations,
+ * but never forms A^T A, so the sparsity of A is kept and the conditioning is
+ * that of A rather than its square.  Memory use is five vectors, O(m + n).
+ * <p>
+ * The norm of the residual ||b - Ax|| decreases monotonically.  The norm of
+ * A^T r does not, so LSQR may stop later than {@link LSMRSolver} when the
+ * least squares tolerance is used.
+ * <p>
+ * The condition estimate is ||A||_F ||D||_F, from the search directions D,
+ * which tends to overestimate the 2-norm condition number of A.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		LSMRSolver
+ */
+
+package jLA.linearLeastSquares;
+
+import java.util.Arrays;
+
+import jLA.core.TransposableOperator;
+
+public class LSQRSolver extends IterativeLeastSquaresSolver
+{
+   private double[] u, v, w, work;
+
+   /**
+    * Constructs the solver for the provided operator
+    *
+    * @param	A	The m x n operator A in the problem Ax = b
+    *
+    * @since	1.1.0
+    */
+   public LSQRSolver(TransposableOperator A)
+   {
+      super(A);
+
+      this.u = new double[this.m];
+      this.v = new double[this.n];
+      this.w = new double[this.n];
+      this.work = new double[Math.max(this.m, this.n)];
+   }
+
+
+   /**
+    * Determine the least squares solution of Ax = b, starting from x = 0.
+    *
+    * @param	b	The vector b, with m entries, which is not modified
+    * @param	x	Overwritten with the solution, with n entries
+    *
+    * @return		True if the solver converged
+    *
+    * @since	1.1.0
+    */
+   public boolean solve(double[] b, double[] x)
+   {
+      int m = this.m;
+      int n = this.n;
+      double[] u = this.u;
+      double[] v = this.v;
+      double[] w = this.w;
+      double[] work = this.work;
+
+      start();
+      Arrays.fill(x, 0.0);
+
+      double dampSquared = this.damping * this.damping;
+
+      // Start the bidiagonalization: beta u = b, alpha v = A^T u
+      System.arraycopy(b, 0, u, 0, m);
+      double normB = norm(u);
+      double beta = normB;
+      double alpha = 0;
+
+      if(beta > 0)
+      {
+         scale(u, 1.0 / beta);
+         applyTransposeOperator(u, v);
+         alpha = norm(v);
+      }
+      if(alpha > 0)
+      {
+         scale(v, 1.0 / alpha);
+      }
+      if(alpha * beta == 0)
+      {
+         this.normR = beta;
+         return zeroSolution(x);
+      }
+
+      System.arraycopy(v, 0, w, 0, n);
+
+      double rhoBar = alpha;
+      double phiBar = beta;
+      double normASquared = 0;
+      double normDSquared = 0;
+      double residualDamped = 0;
+      double normXSquared = 0;
+      double z = 0;
+      double cs2 = -1;
+      double sn2 = 0;
+
+      while(true)
+      {
+         // Continue the bidiagonalization
+         applyOperator(v, work);
+         for(int i=0; i<m; i++)
+         {
+            u[i] = work[i] - alpha * u[i];
+         }
+         beta = norm(u);
+
+         if(beta > 0)
+         {
+            scale(u, 1.0 / beta);
+            normASquared += alpha*alpha + beta*beta + dampSquared;
+
+            applyTransposeOperator(u, work);
+            for(int j=0; j<n; j++)
+            {
+               v[j] = work[j] - beta * v[j];
+            }
+            alpha = norm(v);
+            if(alpha > 0)
+            {
+               scale(v, 1.0 / alpha);
+            }
+         }
+
+         // Eliminate the damping, then the subdiagonal beta
+         double rhoBar1 = rhoBar;
+         double psi = 0;
+         if(this.damping > 0)
+         {
+            rhoBar1 = Math.sqrt(rhoBar*rhoBar + dampSquared);
+            double cs1 = rhoBar / rhoBar1;
+            double sn1 = this.damping / rhoBar1;
+            psi = sn1 * phiBar;
+            phiBar = cs1 * phiBar;
+         }
+
+         double[] rotation = rotation(rhoBar1, beta);
+         double cs = rotation[0];
+         double sn = rotation[1];
+         double rho = rotation[2];
+
+         double theta = sn * alpha;
+         rhoBar = -cs * alpha;
+         double phi = cs * phiBar;
+         phiBar = sn * phiBar;
+         double tau = sn * phi;
+
+         // Update x and the search direction w
+         double t1 = phi / rho;
+         double t2 = -theta / rho;
+         double normD = 0;
+         for(int j=0; j<n; j++)
+         {
+            double wj = w[j];
+            normD += wj * wj;
+            x[j] += t1 * wj;
+            w[j] = v[j] + t2 * wj;
+         }
+         normDSquared += normD / (rho * rho);
+
+         // Estimate ||x|| with a second QR factorization
+         double delta = sn2 * rho;
+         double gammaBar = -cs2 * rho;
+         double rhs = phi - delta * z;
+         double zBar = rhs / gammaBar;
+         double gamma = Math.sqrt(gammaBar*gammaBar + theta*theta);
+         cs2 = gammaBar / gamma;
+         sn2 = theta / gamma;
+         z = rhs / gamma;
+
+         this.normX = Math.sqrt(normXSquared + zBar*zBar);
+         normXSquared += z * z;
+
+         this.normA = Math.sqrt(normASquared);
+         this.conditionA = this.normA * Math.sqrt(normDSquared);
+         residualDamped += psi * psi;
+         this.normR = Math.sqrt(phiBar*phiBar + residualDamped);
+         this.normAr = alpha * Math.abs(tau);
+
+         if(check(normB) != null)
+         {
+            return hasConverged();
+         }
+      }
+   }
+}
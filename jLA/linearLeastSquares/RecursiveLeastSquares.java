@@ -0,0 +1,320 @@
+/**
+ * An incremental least squares solver, for observations which arrive one row
+ * at a time.
+ * <p>
+ * The solver maintains the QR factorization of the rows seen so far, keeping
+ * only the n x n upper triangular factor R and the first n entries of Q^T b.
+ * Each new row a (with observation b) is folded into R with n Givens
+ * rotations, which zero the row one entry at a time, so absorbing a row
+ * takes O(n^2) operations and the memory used does not grow with the number
+ * of rows.  The least squares solution is found from Rx = Q^T b by backward
+ * substitution whenever it is needed, also in O(n^2) operations.
+ * <p>
+ * Working with R rather than with the normal equations A^T A keeps the
+ * conditioning of the problem that of A, not its square.
+ * <p>
+ * With a forgetting factor 0 < lambda < 1, the solver minimises the
+ * exponentially weighted sum of squares sum_i lambda^(t-i) (a_i x - b_i)^2, so
+ * that old observations fade out and the solution tracks a drifting system.
+ * The default factor of 1 weighs all of the rows equally.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ */
+
+package jLA.linearLeastSquares;
+
+import jLA.core.Matrix;
+import jLA.core.MatrixSizeMismatchException;
+import jLA.core.SingularMatrixException;
+
+public class RecursiveLeastSquares
+{
+   private int n;
+   private double forgettingFactor;
+   private double scale;
+
+   // The upper triangle of R, row by row, and the first n entries of Q^T b
+   private double[][] R;
+   private double[] z;
+
+   // The weighted sum of squared residuals of the rows seen so far
+   private double residualSquares = 0;
+   private long rowCount = 0;
+
+   /**
+    * Creates a solver for n unknowns, weighing all rows equally
+    *
+    * @param	n	The number of unknowns, i.e., columns of A
+    *
+    * @since	1.1.0
+    */
+   public RecursiveLeastSquares(int n)
+   {
+      this(n, 1.0);
+   }
+
+
+   /**
+    * Creates a solver for n unknowns, with exponential forgetting
+    *
+    * @param	n			The number of unknowns, i.e., columns of A
+    * @param	forgettingFactor	The weight lambda, in (0, 1], by which
+    *					earlier rows are scaled when a row is added
+    *
+    * @throws	IllegalArgumentException	If the forgetting factor is not
+    *						in (0, 1]
+    *
+    * @since	1.1.0
+    */
+   public RecursiveLeastSquares(int n, double forgettingFactor)
+   {
+      if(!(forgettingFactor > 0 && forgettingFactor <= 1))
+      {
+         throw new IllegalArgumentException("Forgetting factor " + forgettingFactor + " is not in (0, 1].");
+      }
+
+      this.n = n;
+      this.forgettingFactor = forgettingFactor;
+      this.scale = Math.sqrt(forgettingFactor);
+
+      this.R = new double[n][];
+      for(int i=0; i<n; i++)
+      {
+         this.R[i] = new double[n - i];
+      }
+      this.z = new double[n];
+   }
+
+
+   /**
+    * Gets the forgetting factor
+    *
+    * @return		The weight by which earlier rows are scaled per row
+    *
+    * @since	1.1.0
+    */
+   public double getForgettingFactor()
+   {
+      return this.forgettingFactor;
+   }
+
+
+   /**
+    * Gets the number of rows absorbed so far
+    *
+    * @return		The number of rows
+    *
+    * @since	1.1.0
+    */
+   public long getRowCount()
+   {
+      return this.rowCount;
+   }
+
+
+   /**
+    * Absorbs one row of the system Ax = b
+    *
+    * @param	a	The row of A, of length n
+    * @param	b	The entry of b for the row
+    *
+    * @throws	MatrixSizeMismatchException	If the row does not have n
+    *						entries
+    *
+    * @since	1.1.0
+    */
+   public void addRow(double[] a, double b) throws MatrixSizeMismatchException
+   {
+      int n = this.n;
+
+      if(a.length != n)
+      {
+         String msg = "Cannot add row of length " + a.length + " to " + n + "-column system.";
+         throw new MatrixSizeMismatchException(msg);
+      }
+
+      double[] w = a.clone();
+      absorb(w, b);
+   }
+
+
+   /**
+    * Absorbs a block of rows of the system Ax = b
+    * <p>
+    * The rows are absorbed in order, so with forgetting the last row of the
+    * block is the most heavily weighted.
+    *
+    * @param	A	The rows of A
+    * @param	b	The matching entries of b
+    *
+    * @throws	MatrixSizeMismatchException	If A does not have n columns, or
+    *						b does not have a row per row of A
+    *
+    * @since	1.1.0
+    */
+   public void addRows(Matrix A, Matrix b) throws MatrixSizeMismatchException
+   {
+      int m = A.getSize()[0];
+      int n = this.n;
+
+      if(A.getSize()[1] != n || b.getSize()[0] != m)
+      {
+         String msg = "Cannot add " + m + "x" + A.getSize()[1] + " rows with " + b.getSize()[0] + "x" + b.getSize()[1] + " right-hand side to " + n + "-column system.";
+         throw new MatrixSizeMismatchException(msg);
+      }
+
+      double[] w = new double[n];
+      for(int i=0; i<m; i++)
+      {
+         for(int j=0; j<n; j++)
+         {
+            w[j] = A.get(i,j);
+         }
+         absorb(w, b.get(i,0));
+      }
+   }
+
+
+   /**
+    * Determine the least squares solution for the rows absorbed so far
+    *
+    * @return		The vector x which minimises the (weighted) residual
+    *
+    * @throws	SingularMatrixException	If the rows absorbed so far do not
+    *					determine x, i.e., the columns are
+    *					linearly dependent
+    *
+    * @since	1.1.0
+    */
+   public Matrix getSolution() throws SingularMatrixException
+   {
+      int n = this.n;
+      double[] x = this.z.clone();
+
+      // Backward substitution with R
+      for(int i=n-1; i>=0; i--)
+      {
+         double[] row = this.R[i];
+         if(row[0] == 0)
+         {
+            throw new SingularMatrixException("Rows absorbed so far do not determine unknown " + i + ".");
+         }
+
+         double sum = x[i];
+         for(int j=i+1; j<n; j++)
+         {
+            sum -= row[j-i] * x[j];
+         }
+         x[i] = sum / row[0];
+      }
+
+      Matrix solution = new Matrix(n, 1);
+      for(int i=0; i<n; i++)
+      {
+         solution.set(i, 0, x[i]);
+      }
+
+      return solution;
+   }
+
+
+   /**
+    * Gets the norm of the residual of the least squares solution
+    * <p>
+    * The residual is available without computing the solution, since each
+    * row leaves behind the part of its observation that the columns of A
+    * cannot explain.
+    *
+    * @return		The (weighted) 2-norm of Ax - b
+    *
+    * @since	1.1.0
+    */
+   public double getResidualNorm()
+   {
+      return Math.sqrt(this.residualSquares);
+   }
+
+
+   /**
+    * Gets the triangular factor of the rows absorbed so far
+    *
+    * @return		The n x n upper triangular matrix R, with A^T A = R^T R
+    *
+    * @since	1.1.0
+    */
+   public Matrix getR()
+   {
+      Matrix R = new Matrix(this.n, this.n);
+      for(int i=0; i<this.n; i++)
+      {
+         for(int j=i; j<this.n; j++)
+         {
+            R.set(i, j, this.R[i][j-i]);
+         }
+      }
+
+      return R;
+   }
+
+
+   /**
+    * Folds a row into R and Q^T b with Givens rotations
+    *
+    * @param	w	The row, overwritten
+    * @param	b	The entry of b for the row
+    *
+    * @since	1.1.0
+    */
+   private void absorb(double[] w, double b)
+   {
+      int n = this.n;
+
+      // Scaling R by sqrt(lambda) scales every earlier row of A by it
+      if(this.forgettingFactor != 1)
+      {
+         for(int i=0; i<n; i++)
+         {
+            double[] row = this.R[i];
+            for(int j=0; j<row.length; j++)
+            {
+               row[j] *= this.scale;
+            }
+            this.z[i] *= this.scale;
+         }
+         this.residualSquares *= this.forgettingFactor;
+      }
+
+      // Zero the row one entry at a time against the diagonal of R
+      for(int k=0; k<n; k++)
+      {
+         double wk = w[k];
+         if(wk == 0)
+         {
+            continue;
+         }
+
+         double[] row = this.R[k];
+         double r = Math.hypot(row[0], wk);
+         double c = row[0] / r;
+         double s = wk / r;
+
+         row[0] = r;
+         for(int j=k+1; j<n; j++)
+         {
+            double rj = row[j-k];
+            double wj = w[j];
+            row[j-k] = c * rj + s * wj;
+            w[j] = c * wj - s * rj;
+         }
+
+         double zk = this.z[k];
+         this.z[k] = c * zk + s * b;
+         b = c * b - s * zk;
+      }
+
+      // What is left of b is orthogonal to the columns of A
+      this.residualSquares += b * b;
+      this.rowCount++;
+   }
+}
@@ -0,0 +1,491 @@
+/**
+ * A randomized sketch-and-precondition solver for heavily overdetermined
+ * least squares problems.
+ * <p>
+ * For an m x n matrix A with m much larger than n, the solver first
+ * compresses A into a small s x n sketch SA, with s a few times n, using a
+ * sparse random embedding S (CountSketch):  every row of A is added, with a
+ * random sign, to a few randomly chosen rows of the sketch.  This costs one
+ * pass over the non-zeros of A.  With high probability the sketch preserves
+ * the geometry of the column space of A, so the triangular factor R of a QR
+ * factorization of the sketch makes AR^-1 well conditioned whatever the
+ * conditioning of A.  LSQR on AR^-1 then converges to full accuracy in a
+ * number of iterations which depends only on the tolerance, after which
+ * x = R^-1 y.  This is the approach of Blendenpik and LSRN, with a sparse
+ * embedding in place of a fast transform, so that sparse A stay cheap.
+ * <p>
+ * The embedding is derived from a seed by hashing the row indices, so it
+ * needs no memory, and the same seed always gives the same sketch and the
+ * same solution.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		LSQRSolver
+ * @see		TallSkinnyQR
+ */
+
+package jLA.linearLeastSquares;
+
+import jLA.core.Matrix;
+import jLA.core.MatrixSizeMismatchException;
+import jLA.core.SingularMatrixException;
+import jLA.core.SparseMatrix;
+import jLA.core.TransposableOperator;
+import jLA.factorization.QRFactorization;
+
+public class SketchedLeastSquaresSolver
+{
+   /**
+    * The default ratio of the number of rows of the sketch to n
+    *
+    * @since	1.1.0
+    */
+   public static final int DEFAULT_OVERSAMPLING = 4;
+
+   /**
+    * The default seed of the random embedding
+    *
+    * @since	1.1.0
+    */
+   public static final long DEFAULT_SEED = 0x5DEECE66DL;
+
+   // Number of rows of the sketch each row of A is added to
+   private static final int HASHES = 2;
+
+   private int m, n;
+   private TransposableOperator A;
+
+   // Upper triangle of the factor of the sketch, by rows
+   private double[][] R;
+
+   private LSQRSolver lsqr;
+   private double[] y;
+
+   /**
+    * Constructs the solver for the provided matrix
+    *
+    * @param	A	The m x n matrix A in the problem Ax = b
+    *
+    * @throws	SingularMatrixException	If the columns of A are linearly
+    *					dependent
+    *
+    * @since	1.1.0
+    */
+   public SketchedLeastSquaresSolver(Matrix A) throws SingularMatrixException
+   {
+      this(A, DEFAULT_OVERSAMPLING * A.getSize()[1], DEFAULT_SEED);
+   }
+
+
+   /**
+    * Constructs the solver for the provided matrix, with a given sketch
+    *
+    * @param	A		The m x n matrix A in the problem Ax = b
+    * @param	sketchRows	The number of rows of the sketch, at least n
+    * @param	seed		The seed of the random embedding
+    *
+    * @throws	SingularMatrixException	If the columns of A are linearly
+    *					dependent
+    *
+    * @since	1.1.0
+    */
+   public SketchedLeastSquaresSolver(Matrix A, int sketchRows, long seed) throws SingularMatrixException
+   {
+      this.A = A;
+      this.m = A.getSize()[0];
+      this.n = A.getSize()[1];
+
+      double[][] sketch = newSketch(sketchRows);
+      double scale = 1.0 / Math.sqrt(HASHES);
+
+      for(int i=0; i<this.m; i++)
+      {
+         for(int t=0; t<HASHES; t++)
+         {
+            long hash = hash(seed, t, i);
+            double[] target = sketch[bucket(hash, sketch.length)];
+            double sign = (hash & 1) == 0 ? scale : -scale;
+            for(int j=0; j<this.n; j++)
+            {
+               target[j] += sign * A.get(i,j);
+            }
+         }
+      }
+
+      factorSketch(sketch);
+   }
+
+
+   /**
+    * Constructs the solver for the provided sparse matrix
+    *
+    * @param	A	The m x n matrix A in the problem Ax = b
+    *
+    * @throws	SingularMatrixException	If the columns of A are linearly
+    *					dependent
+    *
+    * @since	1.1.0
+    */
+   public SketchedLeastSquaresSolver(SparseMatrix A) throws SingularMatrixException
+   {
+      this(A, DEFAULT_OVERSAMPLING * A.getSize()[1], DEFAULT_SEED);
+   }
+
+
+   /**
+    * Constructs the solver for the provided sparse matrix, with a given
+    * sketch
+    * <p>
+    * Sketching a sparse matrix takes O(nnz) operations.
+    *
+    * @param	A		The m x n matrix A in the problem Ax = b
+    * @param	sketchRows	The number of rows of the sketch, at least n
+    * @param	seed		The seed of the random embedding
+    *
+    * @throws	SingularMatrixException	If the columns of A are linearly
+    *					dependent
+    *
+    * @since	1.1.0
+    */
+   public SketchedLeastSquaresSolver(SparseMatrix A, int sketchRows, long seed) throws SingularMatrixException
+   {
+      this.A = A;
+      this.m = A.getSize()[0];
+      this.n = A.getSize()[1];
+
+      double[][] sketch = newSketch(sketchRows);
+      double scale = 1.0 / Math.sqrt(HASHES);
+
+      for(int j=0; j<this.n; j++)
+      {
+         int[] rowIndex = A.getColumnRowIndices(j);
+         double[] value = A.getColumnValues(j);
+         for(int p=0; p<A.getColumnNonZeroCount(j); p++)
+         {
+            for(int t=0; t<HASHES; t++)
+            {
+               long hash = hash(seed, t, rowIndex[p]);
+               double sign = (hash & 1) == 0 ? scale : -scale;
+               sketch[bucket(hash, sketch.length)][j] += sign * value[p];
+            }
+         }
+      }
+
+      factorSketch(sketch);
+   }
+
+
+   /**
+    * Sets the relative accuracy at which the solver stops
+    *
+    * @param	tolerance	The relative accuracy of A and b
+    *
+    * @since	1.1.0
+    */
+   public void setTolerance(double tolerance)
+   {
+      this.lsqr.setTolerances(tolerance, tolerance);
+   }
+
+
+   /**
+    * Sets the largest number of LSQR iterations performed by one solve
+    *
+    * @param	maxIterations	The iteration limit
+    *
+    * @since	1.1.0
+    */
+   public void setMaxIterations(int maxIterations)
+   {
+      this.lsqr.setMaxIterations(maxIterations);
+   }
+
+
+   /**
+    * Sets whether the matrix is applied using several threads
+    *
+    * @param	parallel	True to use the parallel products of A
+    *
+    * @since	1.1.0
+    */
+   public void setParallel(boolean parallel)
+   {
+      this.lsqr.setParallel(parallel);
+   }
+
+
+   /**
+    * Gets the number of LSQR iterations performed by the last solve
+    *
+    * @return		The number of iterations
+    *
+    * @since	1.1.0
+    */
+   public int getIterationCount()
+   {
+      return this.lsqr.getIterationCount();
+   }
+
+
+   /**
+    * Gets whether the last solve met one of the tolerances
+    *
+    * @return		True if the last solve converged
+    *
+    * @since	1.1.0
+    */
+   public boolean hasConverged()
+   {
+      return this.lsqr.hasConverged();
+   }
+
+
+   /**
+    * Gets the norm of the residual of the last solution
+    *
+    * @return		An estimate of ||b - Ax||
+    *
+    * @since	1.1.0
+    */
+   public double getResidualNorm()
+   {
+      return this.lsqr.getResidualNorm();
+   }
+
+
+   /**
+    * Gets the estimate of the condition number of the preconditioned matrix
+    * <p>
+    * For a good sketch this is a small constant, whatever the condition
+    * number of A.
+    *
+    * @return		An estimate of the condition number of AR^-1
+    *
+    * @since	1.1.0
+    */
+   public double getPreconditionedConditionEstimate()
+   {
+      return this.lsqr.getConditionEstimate();
+   }
+
+
+   /**
+    * Determine the least squares solution of the system of equations Ax = b
+    * <p>
+    * Each column of b is solved for separately, so b may hold several
+    * right-hand sides.
+    *
+    * @param	b	The vector b in the system Ax = b
+    *
+    * @return		The vector x which minimises ||Ax - b||
+    *
+    * @throws	MatrixSizeMismatchException	If b has the wrong number of rows
+    *
+    * @since	1.1.0
+    */
+   public Matrix solve(Matrix b) throws MatrixSizeMismatchException
+   {
+      if(b.getSize()[0] != this.m)
+      {
+         String msg = "Cannot solve " + this.m + "x" + this.n + " system with " + b.getSize()[0] + "x" + b.getSize()[1] + " right-hand side.";
+         throw new MatrixSizeMismatchException(msg);
+      }
+
+      Matrix x = new Matrix(this.n, b.getSize()[1]);
+      double[] bWork = new double[this.m];
+      double[] xWork = new double[this.n];
+
+      for(int c=0; c<b.getSize()[1]; c++)
+      {
+         for(int i=0; i<this.m; i++)
+         {
+            bWork[i] = b.get(i,c);
+         }
+
+         solve(bWork, xWork);
+
+         for(int i=0; i<this.n; i++)
+         {
+            x.set(i, c, xWork[i]);
+         }
+      }
+
+      return x;
+   }
+
+
+   /**
+    * Determine the least squares solution of Ax = b
+    *
+    * @param	b	The vector b, with m entries, which is not modified
+    * @param	x	Overwritten with the solution, with n entries
+    *
+    * @return		True if LSQR converged
+    *
+    * @since	1.1.0
+    */
+   public boolean solve(double[] b, double[] x)
+   {
+      boolean converged = this.lsqr.solve(b, this.y);
+
+      System.arraycopy(this.y, 0, x, 0, this.n);
+      solveR(x);
+
+      return converged;
+   }
+
+
+   /**
+    * Creates an empty sketch
+    *
+    * @since	1.1.0
+    */
+   private double[][] newSketch(int sketchRows)
+   {
+      if(sketchRows < this.n)
+      {
+         throw new IllegalArgumentException("Sketch of " + sketchRows + " rows cannot precondition " + this.n + " columns.");
+      }
+
+      return new double[sketchRows][this.n];
+   }
+
+
+   /**
+    * Factors the sketch, and sets up LSQR on the preconditioned matrix
+    *
+    * @throws	SingularMatrixException	If R is singular
+    *
+    * @since	1.1.0
+    */
+   private void factorSketch(double[][] sketch) throws SingularMatrixException
+   {
+      this.R = QRFactorization.triangularize(sketch);
+
+      for(int i=0; i<this.n; i++)
+      {
+         if(this.R[i][i] == 0)
+         {
+            throw new SingularMatrixException("Column " + i + " of A is linearly dependent on the columns before it.");
+         }
+      }
+
+      this.lsqr = new LSQRSolver(new PreconditionedOperator());
+      this.lsqr.setConditionLimit(0);
+      this.y = new double[this.n];
+   }
+
+
+   /**
+    * Solves Rx = b in place
+    *
+    * @since	1.1.0
+    */
+   private void solveR(double[] b)
+   {
+      for(int i=this.n-1; i>=0; i--)
+      {
+         double[] row = this.R[i];
+         double sum = b[i];
+         for(int j=i+1; j<this.n; j++)
+         {
+            sum -= row[j] * b[j];
+         }
+         b[i] = sum / row[i];
+      }
+   }
+
+
+   /**
+    * Solves R^T x = b in place
+    *
+    * @since	1.1.0
+    */
+   private void solveRTranspose(double[] b)
+   {
+      for(int i=0; i<this.n; i++)
+      {
+         double bi = b[i] / this.R[i][i];
+         b[i] = bi;
+
+         // Column i of R^T is row i of R
+         double[] row = this.R[i];
+         for(int j=i+1; j<this.n; j++)
+         {
+            b[j] -= row[j] * bi;
+         }
+      }
+   }
+
+
+   /**
+    * Hashes a row index into a random 64-bit value
+    * <p>
+    * The finalizer of the SplitMix64 generator mixes the seed, hash number
+    * and row index, so each (row, hash) pair gets an independent value.
+    *
+    * @since	1.1.0
+    */
+   private static long hash(long seed, int t, int i)
+   {
+      long z = seed + (((long) i << 3) + t + 1) * 0x9E3779B97F4A7C15L;
+      z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+      z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+      return z ^ (z >>> 31);
+   }
+
+
+   /**
+    * Picks a row of the sketch from a hash, using its bits other than the
+    * sign bit
+    *
+    * @since	1.1.0
+    */
+   private static int bucket(long hash, int rows)
+   {
+      return (int) ((hash >>> 1) % rows);
+   }
+
+
+   /**
+    * The operator AR^-1, and its transpose R^-T A^T.
+    *
+    * @since	1.1.0
+    */
+   private class PreconditionedOperator implements TransposableOperator
+   {
+      private double[] z = new double[SketchedLeastSquaresSolver.this.n];
+
+      public int[] getSize()
+      {
+         return new int[] {SketchedLeastSquaresSolver.this.m, SketchedLeastSquaresSolver.this.n};
+      }
+
+      public void apply(double[] x, double[] y)
+      {
+         System.arraycopy(x, 0, this.z, 0, this.z.length);
+         solveR(this.z);
+         SketchedLeastSquaresSolver.this.A.apply(this.z, y);
+      }
+
+      public void applyParallel(double[] x, double[] y)
+      {
+         System.arraycopy(x, 0, this.z, 0, this.z.length);
+         solveR(this.z);
+         SketchedLeastSquaresSolver.this.A.applyParallel(this.z, y);
+      }
+
+      public void applyTranspose(double[] y, double[] x)
+      {
+         SketchedLeastSquaresSolver.this.A.applyTranspose(y, x);
+         solveRTranspose(x);
+      }
+
+      public void applyTransposeParallel(double[] y, double[] x)
+      {
+         SketchedLeastSquaresSolver.this.A.applyTransposeParallel(y, x);
+         solveRTranspose(x);
+      }
+   }
+}
@@ -0,0 +1,575 @@
+/**
+ * A least squares solver which accumulates the normal equations from a
+ * stream of rows.
+ * <p>
+ * The normal equations A^T A x = A^T b only need A^T A and A^T b, which are
+ * sums over the rows of A of a_i^T a_i and a_i^T b_i.  This class adds up
+ * those sums as chunks of rows arrive, from an array, an iterator, or a file
+ * of doubles which is memory-mapped a region at a time, so the rows never
+ * need to be held in memory together.  Only the lower triangle of the
+ * symmetric matrix A^T A is accumulated, and memory use is O(n^2) however many
+ * rows are seen.
+ * <p>
+ * When accumulating in parallel, each chunk is added on the common fork/join
+ * pool into one of a set of partial sums, which are merged once the stream
+ * ends.  The calling thread reads the next chunk from the iterator while the
+ * earlier chunks are being added, and at most a few chunks per processor are
+ * in flight at once.  Chunks from an iterator are copied before they are
+ * handed to the pool, so an iterator may refill the same array for every
+ * chunk.  Pages of a mapped file are read by the worker threads as they add
+ * them, so reading and computing overlap in the same way.
+ * <p>
+ * In parallel, a stream is added all or nothing:  if reading or adding any
+ * chunk fails, or the calling thread is interrupted, the partial sums are
+ * discarded and the rows accumulated before the stream are kept unchanged.
+ * Without parallelism each chunk is added to the total as it is read, so a
+ * failure or interrupt part-way through leaves the rows added so far in the
+ * total.
+ * <p>
+ * Each row is given as n entries of A followed by the entry of b, i.e., as a
+ * row of the augmented matrix [A b].  Once the rows have been accumulated, the
+ * system is solved with Cholesky factorization, which requires A to have
+ * linearly independent columns.  Note that the normal equations square the
+ * condition number of A;  {@link TallSkinnyQR} is more accurate for
+ * ill-conditioned problems.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		NormalEquationSolver
+ */
+
+package jLA.linearLeastSquares;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+import jLA.core.Cancellation;
+import jLA.core.Matrix;
+import jLA.core.MatrixSizeMismatchException;
+import jLA.core.NotPositiveDefiniteException;
+import jLA.solver.CholeskySolver;
+
+public class StreamingNormalEquations
+{
+   // Number of rows of a mapped file added by one task
+   private static final int CHUNK_ROWS = 8192;
+
+   // Largest region of a file mapped at once
+   private static final long MAPPED_BYTES = 1L << 28;
+
+   private int n;
+   private boolean parallel;
+
+   // The sums of the rows added so far
+   private Partial total;
+
+   /**
+    * Creates an accumulator for n unknowns, which adds chunks in parallel
+    *
+    * @param	n	The number of unknowns, i.e., columns of A
+    *
+    * @since	1.1.0
+    */
+   public StreamingNormalEquations(int n)
+   {
+      this(n, true);
+   }
+
+
+   /**
+    * Creates an accumulator for n unknowns
+    *
+    * @param	n		The number of unknowns, i.e., columns of A
+    * @param	parallel	Whether to add chunks in parallel
+    *
+    * @since	1.1.0
+    */
+   public StreamingNormalEquations(int n, boolean parallel)
+   {
+      this.n = n;
+      this.parallel = parallel;
+      this.total = new Partial(n);
+   }
+
+
+   /**
+    * Gets the number of rows accumulated so far
+    *
+    * @return		The number of rows
+    *
+    * @since	1.1.0
+    */
+   public long getRowCount()
+   {
+      return this.total.rows;
+   }
+
+
+   /**
+    * Adds a chunk of rows on the calling thread
+    *
+    * @param	rows	The rows of [A b], each with n+1 entries
+    *
+    * @throws	MatrixSizeMismatchException	If a row does not have n+1
+    *						entries
+    *
+    * @since	1.1.0
+    */
+   public void addRows(double[][] rows) throws MatrixSizeMismatchException
+   {
+      checkRows(rows);
+      this.total.add(rows);
+   }
+
+
+   /**
+    * Adds every chunk of rows provided by an iterator
+    * <p>
+    * When adding in parallel each chunk is copied as it is read, so the
+    * iterator may reuse one array for every chunk.
+    *
+    * @param	chunks	The chunks of rows of [A b], each row with n+1 entries
+    *
+    * @throws	MatrixSizeMismatchException	If a row does not have n+1
+    *						entries
+    *
+    * @since	1.1.0
+    */
+   public void accumulate(Iterator<double[][]> chunks) throws MatrixSizeMismatchException
+   {
+      Pipeline pipeline = new Pipeline();
+      boolean complete = false;
+
+      try
+      {
+         while(chunks.hasNext())
+         {
+            double[][] next = chunks.next();
+            checkRows(next);
+
+            // The iterator may refill the same array while a worker adds it
+            if(this.parallel)
+            {
+               double[][] copy = new double[next.length][];
+               for(int i=0; i<next.length; i++)
+               {
+                  copy[i] = next[i].clone();
+               }
+               next = copy;
+            }
+
+            final double[][] rows = next;
+            pipeline.submit(new Chunk()
+            {
+               public void addTo(Partial partial)
+               {
+                  partial.add(rows);
+               }
+            });
+         }
+         complete = true;
+      }
+      finally
+      {
+         pipeline.finish(complete);
+      }
+   }
+
+
+   /**
+    * Adds every row of a file of big-endian doubles
+    *
+    * @param	file	The file, holding the rows of [A b] one after another,
+    *			each as n+1 doubles
+    *
+    * @throws	IOException			If the file cannot be read
+    * @throws	MatrixSizeMismatchException	If the file does not hold a whole
+    *						number of rows
+    *
+    * @since	1.1.0
+    */
+   public void accumulate(Path file) throws IOException, MatrixSizeMismatchException
+   {
+      accumulate(file, ByteOrder.BIG_ENDIAN);
+   }
+
+
+   /**
+    * Adds every row of a file of doubles, which is memory-mapped a region at
+    * a time
+    *
+    * @param	file	The file, holding the rows of [A b] one after another,
+    *			each as n+1 doubles
+    * @param	order	The byte order of the doubles in the file
+    *
+    * @throws	IOException			If the file cannot be read
+    * @throws	MatrixSizeMismatchException	If the file does not hold a whole
+    *						number of rows
+    *
+    * @since	1.1.0
+    */
+   public void accumulate(Path file, ByteOrder order) throws IOException, MatrixSizeMismatchException
+   {
+      final int width = this.n + 1;
+      long rowBytes = 8L * width;
+
+      try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+      {
+         long size = channel.size();
+         if(size % rowBytes != 0)
+         {
+            throw new MatrixSizeMismatchException("File of " + size + " bytes does not hold a whole number of " + width + "-entry rows.");
+         }
+
+         long regionRows = Math.max(1, MAPPED_BYTES / rowBytes);
+         long totalRows = size / rowBytes;
+
+         Pipeline pipeline = new Pipeline();
+         boolean complete = false;
+         try
+         {
+            for(long first=0; first<totalRows; first+=regionRows)
+            {
+               long rows = Math.min(regionRows, totalRows - first);
+               MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, first * rowBytes, rows * rowBytes);
+               final DoubleBuffer doubles = region.order(order).asDoubleBuffer();
+
+               for(int start=0; start<rows; start+=CHUNK_ROWS)
+               {
+                  final int offset = start * width;
+                  final int count = (int) Math.min(CHUNK_ROWS, rows - start);
+
+                  pipeline.submit(new Chunk()
+                  {
+                     public void addTo(Partial partial)
+                     {
+                        partial.add(doubles, offset, count);
+                     }
+                  });
+               }
+            }
+            complete = true;
+         }
+         finally
+         {
+            pipeline.finish(complete);
+         }
+      }
+   }
+
+
+   /**
+    * Gets the accumulated matrix of the normal equations
+    *
+    * @return		The n x n matrix A^T A
+    *
+    * @since	1.1.0
+    */
+   public Matrix getNormalMatrix()
+   {
+      int n = this.n;
+      double[][] lower = this.total.lower;
+
+      Matrix AtA = new Matrix(n, n);
+      for(int i=0; i<n; i++)
+      {
+         for(int j=0; j<=i; j++)
+         {
+            AtA.set(i, j, lower[i][j]);
+            AtA.set(j, i, lower[i][j]);
+         }
+      }
+
+      return AtA;
+   }
+
+
+   /**
+    * Gets the accumulated right-hand side of the normal equations
+    *
+    * @return		The n x 1 vector A^T b
+    *
+    * @since	1.1.0
+    */
+   public Matrix getNormalRightHandSide()
+   {
+      Matrix Atb = new Matrix(this.n, 1);
+      for(int i=0; i<this.n; i++)
+      {
+         Atb.set(i, 0, this.total.rhs[i]);
+      }
+
+      return Atb;
+   }
+
+
+   /**
+    * Determine the least squares solution for the rows accumulated so far
+    *
+    * @return		The vector x which minimises ||Ax - b||
+    *
+    * @throws	NotPositiveDefiniteException	If the columns of A are
+    *						linearly dependent
+    *
+    * @since	1.1.0
+    */
+   public Matrix solve() throws NotPositiveDefiniteException
+   {
+      CholeskySolver solver = new CholeskySolver(getNormalMatrix());
+
+      try
+      {
+         return solver.solve(getNormalRightHandSide());
+      }
+      catch(MatrixSizeMismatchException e)
+      {
+         // A^T b always has a row per column of A
+         throw new IllegalStateException(e);
+      }
+   }
+
+
+   /**
+    * Checks that each row of a chunk has n+1 entries
+    *
+    * @since	1.1.0
+    */
+   private void checkRows(double[][] rows) throws MatrixSizeMismatchException
+   {
+      for(int i=0; i<rows.length; i++)
+      {
+         if(rows[i].length != this.n + 1)
+         {
+            throw new MatrixSizeMismatchException("Row " + i + " of chunk has " + rows[i].length + " entries rather than " + (this.n + 1) + ".");
+         }
+      }
+   }
+
+
+   /**
+    * A chunk of rows waiting to be added.
+    *
+    * @since	1.1.0
+    */
+   private interface Chunk
+   {
+      void addTo(Partial partial);
+   }
+
+
+   /**
+    * Adds chunks to partial sums, in parallel if requested, and merges the
+    * partial sums into the total once every chunk has been added, unless a
+    * chunk failed.
+    *
+    * @since	1.1.0
+    */
+   private class Pipeline
+   {
+      private int slots;
+      private Semaphore available;
+      private ConcurrentLinkedQueue<Partial> idle = new ConcurrentLinkedQueue<Partial>();
+      private AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+      Pipeline()
+      {
+         this.slots = 2 * ForkJoinPool.commonPool().getParallelism();
+         this.available = new Semaphore(this.slots);
+      }
+
+      void submit(final Chunk chunk)
+      {
+         Cancellation.checkpoint();
+         rethrow();
+
+         if(!StreamingNormalEquations.this.parallel)
+         {
+            chunk.addTo(StreamingNormalEquations.this.total);
+            return;
+         }
+
+         // Wait for a slot, so that reading does not run far ahead of adding
+         acquire(1);
+
+         ForkJoinPool.commonPool().execute(new Runnable()
+         {
+            public void run()
+            {
+               Partial partial = Pipeline.this.idle.poll();
+               if(partial == null)
+               {
+                  partial = new Partial(StreamingNormalEquations.this.n);
+               }
+
+               try
+               {
+                  if(Pipeline.this.failure.get() == null)
+                  {
+                     chunk.addTo(partial);
+                  }
+               }
+               catch(Throwable e)
+               {
+                  Pipeline.this.failure.compareAndSet(null, e);
+               }
+               finally
+               {
+                  Pipeline.this.idle.offer(partial);
+                  Pipeline.this.available.release();
+               }
+            }
+         });
+      }
+
+      void finish(boolean complete)
+      {
+         if(!StreamingNormalEquations.this.parallel)
+         {
+            return;
+         }
+
+         // Every slot is free once every chunk has been added
+         acquire(this.slots);
+         this.available.release(this.slots);
+
+         // Discard the partial sums if the stream did not finish, so that
+         // the total never holds an arbitrary subset of its rows
+         if(!complete)
+         {
+            return;
+         }
+         rethrow();
+
+         Partial partial;
+         while((partial = this.idle.poll()) != null)
+         {
+            StreamingNormalEquations.this.total.merge(partial);
+         }
+      }
+
+      private void acquire(int permits)
+      {
+         try
+         {
+            this.available.acquire(permits);
+         }
+         catch(InterruptedException e)
+         {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Accumulation was interrupted.");
+         }
+      }
+
+      private void rethrow()
+      {
+         Throwable e = this.failure.get();
+         if(e instanceof RuntimeException)
+         {
+            throw (RuntimeException) e;
+         }
+         if(e instanceof Error)
+         {
+            throw (Error) e;
+         }
+         if(e != null)
+         {
+            throw new IllegalStateException(e);
+         }
+      }
+   }
+
+
+   /**
+    * Sums of a_i^T a_i and a_i^T b_i over some of the rows.
+    *
+    * @since	1.1.0
+    */
+   private static class Partial
+   {
+      private int n;
+      private double[][] lower;
+      private double[] rhs;
+      private double[] row;
+      private long rows = 0;
+
+      Partial(int n)
+      {
+         this.n = n;
+         this.lower = new double[n][];
+         for(int i=0; i<n; i++)
+         {
+            this.lower[i] = new double[i+1];
+         }
+         this.rhs = new double[n];
+         this.row = new double[n+1];
+      }
+
+      void add(double[][] rows)
+      {
+         for(int r=0; r<rows.length; r++)
+         {
+            addRow(rows[r]);
+         }
+      }
+
+      void add(DoubleBuffer doubles, int offset, int count)
+      {
+         DoubleBuffer view = doubles.duplicate();
+         view.position(offset);
+
+         for(int r=0; r<count; r++)
+         {
+            view.get(this.row);
+            addRow(this.row);
+         }
+      }
+
+      void addRow(double[] a)
+      {
+         int n = this.n;
+         double b = a[n];
+
+         for(int i=0; i<n; i++)
+         {
+            double ai = a[i];
+            if(ai != 0)
+            {
+               double[] li = this.lower[i];
+               for(int j=0; j<=i; j++)
+               {
+                  li[j] += ai * a[j];
+               }
+               this.rhs[i] += ai * b;
+            }
+         }
+         this.rows++;
+      }
+
+      void merge(Partial other)
+      {
+         for(int i=0; i<this.n; i++)
+         {
+            double[] li = this.lower[i];
+            double[] oi = other.lower[i];
+            for(int j=0; j<=i; j++)
+            {
+               li[j] += oi[j];
+            }
+            this.rhs[i] += other.rhs[i];
+         }
+         this.rows += other.rows;
+      }
+   }
+}
@@ -0,0 +1,415 @@
+/**
+ * A communication-avoiding QR factorization of tall, narrow matrices.
+ * <p>
+ * For an m x n matrix with m much larger than n, the tall-skinny QR (TSQR)
+ * algorithm splits the rows into blocks, computes a Householder QR
+ * factorization of each block independently, and then combines the n x n
+ * triangular factors of the blocks pairwise in a binary reduction tree, each
+ * combination being the QR factorization of two stacked triangles.  The
+ * blocks and the pairs at each level of the tree are independent, so they are
+ * factored in parallel on the common fork/join pool, and each worker only
+ * ever touches one block of rows plus a few n x n triangles.  Every step is an
+ * orthogonal transformation, so the result is as stable as a Householder QR
+ * factorization of the whole matrix.
+ * <p>
+ * When a right-hand side b is given it is carried along as an extra column
+ * of A, so that the reduction produces Q^T b alongside R without Q ever being
+ * formed, and the least squares solution is found from Rx = Q^T b.  The
+ * last entry of the reduced extra column is the norm of the residual.
+ * <p>
+ * The rows of A are read from an array of rows, which need not be one
+ * contiguous array, and are never modified.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		RecursiveLeastSquares
+ */
+
+package jLA.linearLeastSquares;
+
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jLA.core.Cancellation;
+import jLA.core.Matrix;
+import jLA.core.MatrixSizeMismatchException;
+import jLA.core.SingularMatrixException;
+import jLA.factorization.QRFactorization;
+
+public class TallSkinnyQR
+{
+   /**
+    * The default number of rows factored by each leaf of the reduction tree
+    *
+    * @since	1.1.0
+    */
+   public static final int DEFAULT_BLOCK_ROWS = 4096;
+
+   private int n;
+   private boolean hasRightHandSide;
+
+   // The reduced triangle, with Q^T b and the residual in column n when a
+   // right-hand side was given
+   private double[][] triangle;
+
+   /**
+    * Factors A, and reduces b along with it
+    *
+    * @param	A	The m x n matrix to factor
+    * @param	b	The vector b in the system Ax = b
+    *
+    * @throws	MatrixSizeMismatchException	If A and b do not have the same
+    *						number of rows
+    *
+    * @since	1.1.0
+    */
+   public TallSkinnyQR(Matrix A, Matrix b) throws MatrixSizeMismatchException
+   {
+      this(toRows(A), toVector(b, A.getSize()[0]), DEFAULT_BLOCK_ROWS, true);
+   }
+
+
+   /**
+    * Factors the rows of A, and reduces b along with them
+    *
+    * @param	A	The rows of the m x n matrix to factor
+    * @param	b	The vector b in the system Ax = b, or null to only
+    *			factor A
+    *
+    * @throws	MatrixSizeMismatchException	If A and b do not have the same
+    *						number of rows
+    *
+    * @since	1.1.0
+    */
+   public TallSkinnyQR(double[][] A, double[] b) throws MatrixSizeMismatchException
+   {
+      this(A, b, DEFAULT_BLOCK_ROWS, true);
+   }
+
+
+   /**
+    * Factors the rows of A, and reduces b along with them
+    *
+    * @param	A		The rows of the m x n matrix to factor
+    * @param	b		The vector b in the system Ax = b, or null to
+    *				only factor A
+    * @param	blockRows	The number of rows factored by each leaf
+    * @param	parallel	Whether to factor the blocks in parallel
+    *
+    * @throws	MatrixSizeMismatchException	If the rows of A are not all the
+    *						same length, or b does not have
+    *						an entry per row of A
+    *
+    * @since	1.1.0
+    */
+   public TallSkinnyQR(double[][] A, double[] b, int blockRows, boolean parallel) throws MatrixSizeMismatchException
+   {
+      int m = A.length;
+      int n = (m > 0) ? A[0].length : 0;
+
+      if(b != null && b.length != m)
+      {
+         String msg = "Cannot solve " + m + "x" + n + " system with " + b.length + "x1 right-hand side.";
+         throw new MatrixSizeMismatchException(msg);
+      }
+      for(int i=0; i<m; i++)
+      {
+         if(A[i].length != n)
+         {
+            throw new MatrixSizeMismatchException("Row " + i + " has " + A[i].length + " entries rather than " + n + ".");
+         }
+      }
+
+      this.n = n;
+      this.hasRightHandSide = (b != null);
+
+      // Each leaf must have at least as many rows as the triangle it makes
+      int width = this.hasRightHandSide ? n+1 : n;
+      blockRows = Math.max(blockRows, 2*width);
+
+      AtomicBoolean cancelled = new AtomicBoolean(false);
+      ReduceTask task = new ReduceTask(A, b, 0, m, width, blockRows, parallel, cancelled);
+      double[][] triangle = parallel ? Cancellation.invoke(task, cancelled) : task.compute();
+
+      // Pad a short result, from fewer rows than columns, with zero rows
+      if(triangle.length < width)
+      {
+         double[][] padded = new double[width][];
+         for(int i=0; i<width; i++)
+         {
+            padded[i] = (i < triangle.length) ? triangle[i] : new double[width];
+         }
+         triangle = padded;
+      }
+
+      // Make the diagonal of R non-negative, so R is the unique factor
+      for(int i=0; i<width; i++)
+      {
+         if(triangle[i][i] < 0)
+         {
+            for(int j=i; j<width; j++)
+            {
+               triangle[i][j] = -triangle[i][j];
+            }
+         }
+      }
+
+      this.triangle = triangle;
+   }
+
+
+   /**
+    * Gets the triangular factor of A
+    *
+    * @return		The n x n upper triangular matrix R, with A = QR
+    *
+    * @since	1.1.0
+    */
+   public Matrix getR()
+   {
+      Matrix R = new Matrix(this.n, this.n);
+      for(int i=0; i<this.n; i++)
+      {
+         for(int j=i; j<this.n; j++)
+         {
+            R.set(i, j, this.triangle[i][j]);
+         }
+      }
+
+      return R;
+   }
+
+
+   /**
+    * Gets the first n entries of Q^T b
+    *
+    * @return		The n x 1 vector Q^T b
+    *
+    * @throws	IllegalStateException	If no right-hand side was given
+    *
+    * @since	1.1.0
+    */
+   public Matrix getQtb()
+   {
+      checkRightHandSide();
+
+      Matrix Qtb = new Matrix(this.n, 1);
+      for(int i=0; i<this.n; i++)
+      {
+         Qtb.set(i, 0, this.triangle[i][this.n]);
+      }
+
+      return Qtb;
+   }
+
+
+   /**
+    * Gets the norm of the residual of the least squares solution
+    *
+    * @return		The 2-norm of Ax - b
+    *
+    * @throws	IllegalStateException	If no right-hand side was given
+    *
+    * @since	1.1.0
+    */
+   public double getResidualNorm()
+   {
+      checkRightHandSide();
+
+      return Math.abs(this.triangle[this.n][this.n]);
+   }
+
+
+   /**
+    * Determine the least squares solution of the system of equations Ax = b
+    *
+    * @return		The vector x which minimises ||Ax - b||
+    *
+    * @throws	SingularMatrixException	If the columns of A are linearly
+    *					dependent
+    * @throws	IllegalStateException	If no right-hand side was given
+    *
+    * @since	1.1.0
+    */
+   public Matrix solve() throws SingularMatrixException
+   {
+      checkRightHandSide();
+
+      int n = this.n;
+      double[] x = new double[n];
+
+      // Backward substitution with R
+      for(int i=n-1; i>=0; i--)
+      {
+         double[] row = this.triangle[i];
+         if(row[i] == 0)
+         {
+            throw new SingularMatrixException("Column " + i + " of A is linearly dependent on the columns before it.");
+         }
+
+         double sum = row[n];
+         for(int j=i+1; j<n; j++)
+         {
+            sum -= row[j] * x[j];
+         }
+         x[i] = sum / row[i];
+      }
+
+      Matrix solution = new Matrix(n, 1);
+      for(int i=0; i<n; i++)
+      {
+         solution.set(i, 0, x[i]);
+      }
+
+      return solution;
+   }
+
+
+   /**
+    * Checks that a right-hand side was reduced
+    *
+    * @since	1.1.0
+    */
+   private void checkRightHandSide()
+   {
+      if(!this.hasRightHandSide)
+      {
+         throw new IllegalStateException("No right-hand side was given.");
+      }
+   }
+
+
+   /**
+    * Copies a matrix into an array of rows
+    *
+    * @since	1.1.0
+    */
+   private static double[][] toRows(Matrix A)
+   {
+      int m = A.getSize()[0];
+      int n = A.getSize()[1];
+
+      double[][] rows = new double[m][n];
+      for(int i=0; i<m; i++)
+      {
+         for(int j=0; j<n; j++)
+         {
+            rows[i][j] = A.get(i,j);
+         }
+      }
+
+      return rows;
+   }
+
+
+   /**
+    * Copies the first column of b into an array
+    *
+    * @since	1.1.0
+    */
+   private static double[] toVector(Matrix b, int m) throws MatrixSizeMismatchException
+   {
+      if(b.getSize()[0] != m)
+      {
+         String msg = "Cannot solve system with " + m + " rows with " + b.getSize()[0] + "x" + b.getSize()[1] + " right-hand side.";
+         throw new MatrixSizeMismatchException(msg);
+      }
+
+      double[] vector = new double[m];
+      for(int i=0; i<m; i++)
+      {
+         vector[i] = b.get(i,0);
+      }
+
+      return vector;
+   }
+
+
+   /**
+    * Reduces a range of rows to a triangle, splitting it in half until the
+    * ranges are a single block.
+    *
+    * @since	1.1.0
+    */
+   private static class ReduceTask extends RecursiveTask<double[][]>
+   {
+      private double[][] A;
+      private double[] b;
+      private int first, last, width, blockRows;
+      private boolean parallel;
+
+      // Raised if the calling thread is interrupted while the pool works
+      private AtomicBoolean cancelled;
+
+      ReduceTask(double[][] A, double[] b, int first, int last, int width, int blockRows, boolean parallel, AtomicBoolean cancelled)
+      {
+         this.A = A;
+         this.b = b;
+         this.first = first;
+         this.last = last;
+         this.width = width;
+         this.blockRows = blockRows;
+         this.parallel = parallel;
+         this.cancelled = cancelled;
+      }
+
+      protected double[][] compute()
+      {
+         if(this.last - this.first <= this.blockRows)
+         {
+            return factorBlock();
+         }
+
+         // Split on a block boundary, so the leaves are whole blocks
+         int blocks = (this.last - this.first + this.blockRows - 1) / this.blockRows;
+         int middle = this.first + (blocks / 2) * this.blockRows;
+
+         ReduceTask top = new ReduceTask(this.A, this.b, this.first, middle, this.width, this.blockRows, this.parallel, this.cancelled);
+         ReduceTask bottom = new ReduceTask(this.A, this.b, middle, this.last, this.width, this.blockRows, this.parallel, this.cancelled);
+
+         double[][] upper, lower;
+         if(this.parallel)
+         {
+            bottom.fork();
+            upper = top.compute();
+            lower = bottom.join();
+         }
+         else
+         {
+            upper = top.compute();
+            lower = bottom.compute();
+         }
+
+         Cancellation.checkpoint(this.cancelled);
+
+         // Factor the two triangles stacked on each other
+         double[][] stacked = new double[upper.length + lower.length][];
+         System.arraycopy(upper, 0, stacked, 0, upper.length);
+         System.arraycopy(lower, 0, stacked, upper.length, lower.length);
+
+         return QRFactorization.triangularize(stacked);
+      }
+
+      private double[][] factorBlock()
+      {
+         Cancellation.checkpoint(this.cancelled);
+
+         int n = this.A.length > 0 ? this.A[0].length : 0;
+
+         // Copy the block, with b as an extra column
+         double[][] block = new double[this.last - this.first][this.width];
+         for(int i=this.first; i<this.last; i++)
+         {
+            double[] row = block[i - this.first];
+            System.arraycopy(this.A[i], 0, row, 0, n);
+            if(this.b != null)
+            {
+               row[n] = this.b[i];
+            }
+         }
+
+         return QRFactorization.triangularize(block);
+      }
+   }
+}
@@ -0,0 +1,134 @@
+/**
+ * An interface for a family of scalar functions evaluated many at a time.
+ * <p>
+ * Batched root finders solve many independent equations f_i(x) = 0 at once.
+ * Rather than one call per problem, the function is evaluated for a whole
+ * batch of problems in one call, with the points and results in plain
+ * arrays, so the loop over the batch can be compiled to vector instructions
+ * and any parameters of the problems read in order.
+ * <p>
+ * Functions whose derivatives are also available, as Newton's method needs,
+ * implement {@link DifferentiableBatchedFunction}.  Functions which are the
+ * same for every problem can be adapted from a {@link DoubleUnaryOperator} or
+ * a {@link jLA.core.Function}.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		BatchedRootFinder
+ * @see		DifferentiableBatchedFunction
+ */
+
+package jLA.nonlinearEquations;
+
+import java.util.function.DoubleUnaryOperator;
+
+import jLA.core.Function;
+
+public interface BatchedFunction
+{
+   /**
+    * Evaluates the functions of a batch of problems
+    *
+    * @param	problems	The index of each problem in the batch
+    * @param	x		The point at which to evaluate each problem
+    * @param	f		Overwritten with f_i(x) for each problem
+    * @param	count		The number of problems in the batch, which may
+    *				be less than the lengths of the arrays
+    *
+    * @since	1.1.0
+    */
+   public void evaluate(int[] problems, double[] x, double[] f, int count);
+
+
+   /**
+    * Adapts a function which is the same for every problem
+    *
+    * @param	f	The function
+    *
+    * @return		The function as a batched function
+    *
+    * @since	1.1.0
+    */
+   public static BatchedFunction of(final DoubleUnaryOperator f)
+   {
+      return new BatchedFunction()
+      {
+         public void evaluate(int[] problems, double[] x, double[] fx, int count)
+         {
+            for(int k=0; k<count; k++)
+            {
+               fx[k] = f.applyAsDouble(x[k]);
+            }
+         }
+      };
+   }
+
+
+   /**
+    * Adapts a function and derivative which are the same for every problem
+    *
+    * @param	f	The function
+    * @param	df	The derivative of the function
+    *
+    * @return		The function as a batched function
+    *
+    * @since	1.1.0
+    */
+   public static DifferentiableBatchedFunction of(final DoubleUnaryOperator f, final DoubleUnaryOperator df)
+   {
+      return new DifferentiableBatchedFunction()
+      {
+         public void evaluate(int[] problems, double[] x, double[] fx, int count)
+         {
+            for(int k=0; k<count; k++)
+            {
+               fx[k] = f.applyAsDouble(x[k]);
+            }
+         }
+
+         public void evaluate(int[] problems, double[] x, double[] fx, double[] dfx, int count)
+         {
+            for(int k=0; k<count; k++)
+            {
+               fx[k] = f.applyAsDouble(x[k]);
+               dfx[k] = df.applyAsDouble(x[k]);
+            }
+         }
+      };
+   }
+
+
+   /**
+    * Adapts a function, with its derivative, which is the same for every
+    * problem
+    *
+    * @param	f	The function
+    *
+    * @return		The function as a batched function
+    *
+    * @since	1.1.0
+    */
+   public static DifferentiableBatchedFunction of(final Function f)
+   {
+      return new DifferentiableBatchedFunction()
+      {
+         public void evaluate(int[] problems, double[] x, double[] fx, int count)
+         {
+            for(int k=0; k<count; k++)
+            {
+               fx[k] = f.f(x[k]);
+            }
+         }
+
+         public void evaluate(int[] problems, double[] x, double[] fx, double[] dfx, int count)
+         {
+            for(int k=0; k<count; k++)
+            {
+               fx[k] = f.f(x[k]);
+               dfx[k] = f.df(x[k]);
+            }
+         }
+      };
+   }
+}
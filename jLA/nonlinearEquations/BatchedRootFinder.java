@@ -0,0 +1,629 @@
+/**
+ * A solver for many independent scalar nonlinear equations at once.
+ * <p>
+ * Solving millions of equations one call at a time, as
+ * {@link IntervalBisection}, {@link SecantMethod} and {@link NewtonsMethod}
+ * do, spends most of its time calling the function for a single point.  This
+ * solver instead advances every problem of a chunk in lockstep:  each
+ * iteration evaluates the function for all unconverged problems in one
+ * {@link BatchedFunction} call, updates them with the same few arithmetic
+ * operations, and then compacts the converged problems out of the arrays, so
+ * later iterations only touch the problems still being solved.  Chunks of
+ * problems are solved in parallel on the common fork/join pool when
+ * requested.
+ * <p>
+ * Three methods are available:
+ * <ul>
+ * <li>{@link #solveBracketed(double[], double[])}, the Illinois variant of
+ *     false position, which keeps a bracket of the root like bisection but
+ *     converges superlinearly;</li>
+ * <li>{@link #solveSecant(double[], double[])}, the secant method from two
+ *     initial guesses;  and</li>
+ * <li>{@link #solveNewton(DifferentiableBatchedFunction, double[])}, Newton's
+ *     method from one initial guess, for functions which provide their
+ *     derivatives.</li>
+ * </ul>
+ * A problem has converged when its step, or the width of its bracket, is at
+ * most the tolerance, or when |f(x)| is at most the function tolerance.
+ * Problems which fail, because the bracket does not contain a sign change,
+ * the derivative or secant vanishes, or the iteration limit is reached, are
+ * marked as unconverged and hold their latest estimate.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		BatchedFunction
+ */
+
+package jLA.nonlinearEquations;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+import jLA.core.Cancellation;
+
+public class BatchedRootFinder
+{
+   public static final double DEFAULT_TOLERANCE = 1e-12;
+   public static final int DEFAULT_MAX_ITERATIONS = 100;
+   public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+   private enum Method
+   {
+      BRACKETED,
+      SECANT,
+      NEWTON
+   }
+
+   private BatchedFunction f;
+
+   private double tolerance = DEFAULT_TOLERANCE;
+   private double functionTolerance = 0;
+   private int maxIterations = DEFAULT_MAX_ITERATIONS;
+   private int chunkSize = DEFAULT_CHUNK_SIZE;
+   private boolean parallel = false;
+
+   // The results of the most recent solve
+   private boolean[] converged = new boolean[0];
+   private LongAdder convergedCount = new LongAdder();
+   private LongAdder evaluations = new LongAdder();
+
+   /**
+    * Constructs the solver for the provided functions
+    *
+    * @param	f	The functions of the problems to solve with the
+    *			bracketed and secant methods
+    *
+    * @since	1.1.0
+    */
+   public BatchedRootFinder(BatchedFunction f)
+   {
+      this.f = f;
+   }
+
+
+   /**
+    * Sets the step, or bracket width, at which a problem has converged
+    *
+    * @param	tolerance	The largest acceptable step
+    *
+    * @since	1.1.0
+    */
+   public void setTolerance(double tolerance)
+   {
+      this.tolerance = tolerance;
+   }
+
+
+   /**
+    * Sets the function value at which a problem has converged
+    *
+    * @param	functionTolerance	The largest acceptable |f(x)|, which
+    *					is zero by default
+    *
+    * @since	1.1.0
+    */
+   public void setFunctionTolerance(double functionTolerance)
+   {
+      this.functionTolerance = functionTolerance;
+   }
+
+
+   /**
+    * Sets the largest number of iterations performed for each problem
+    *
+    * @param	maxIterations	The iteration limit
+    *
+    * @since	1.1.0
+    */
+   public void setMaxIterations(int maxIterations)
+   {
+      this.maxIterations = maxIterations;
+   }
+
+
+   /**
+    * Sets the number of problems solved in lockstep by one thread
+    *
+    * @param	chunkSize	The number of problems in a chunk
+    *
+    * @since	1.1.0
+    */
+   public void setChunkSize(int chunkSize)
+   {
+      this.chunkSize = Math.max(1, chunkSize);
+   }
+
+
+   /**
+    * Sets whether chunks are solved using several threads
+    * <p>
+    * The functions must then be safe to evaluate from several threads.
+    *
+    * @param	parallel	True to solve chunks in parallel
+    *
+    * @since	1.1.0
+    */
+   public void setParallel(boolean parallel)
+   {
+      this.parallel = parallel;
+   }
+
+
+   /**
+    * Finds a root of each problem within a bracket, using the Illinois
+    * method
+    * <p>
+    * The function of each problem must change sign between the ends of its
+    * bracket.
+    *
+    * @param	a	One end of the bracket of each problem
+    * @param	b	The other end of the bracket of each problem
+    *
+    * @return		The root of each problem, or NaN for a problem whose
+    *			bracket does not contain a sign change
+    *
+    * @throws	IllegalArgumentException	If a and b differ in length
+    *
+    * @since	1.1.0
+    */
+   public double[] solveBracketed(double[] a, double[] b)
+   {
+      if(a.length != b.length)
+      {
+         throw new IllegalArgumentException("Cannot solve " + a.length + " brackets with " + b.length + " ends.");
+      }
+
+      return run(Method.BRACKETED, null, a, b);
+   }
+
+
+   /**
+    * Finds a root of each problem using the secant method
+    *
+    * @param	x0	The first initial guess of each problem
+    * @param	x1	The second initial guess of each problem
+    *
+    * @return		The root of each problem
+    *
+    * @throws	IllegalArgumentException	If x0 and x1 differ in length
+    *
+    * @since	1.1.0
+    */
+   public double[] solveSecant(double[] x0, double[] x1)
+   {
+      if(x0.length != x1.length)
+      {
+         throw new IllegalArgumentException("Cannot solve " + x0.length + " problems with " + x1.length + " initial guesses.");
+      }
+
+      return run(Method.SECANT, null, x0, x1);
+   }
+
+
+   /**
+    * Finds a root of each problem using Newton's method
+    * <p>
+    * Newton's method also needs the derivatives of the functions, so the
+    * functions are given here, and are used in place of those the solver was
+    * constructed with.
+    *
+    * @param	df	The functions of the problems, with their derivatives
+    * @param	x0	The initial guess of each problem
+    *
+    * @return		The root of each problem
+    *
+    * @since	1.1.0
+    */
+   public double[] solveNewton(DifferentiableBatchedFunction df, double[] x0)
+   {
+      return run(Method.NEWTON, df, x0, null);
+   }
+
+
+   /**
+    * Gets whether a problem converged in the most recent solve
+    *
+    * @param	problem	The index of the problem
+    *
+    * @return		True if the problem converged
+    *
+    * @since	1.1.0
+    */
+   public boolean isConverged(int problem)
+   {
+      return this.converged[problem];
+   }
+
+
+   /**
+    * Gets the number of problems which converged in the most recent solve
+    *
+    * @return		The number of converged problems
+    *
+    * @since	1.1.0
+    */
+   public long getConvergedCount()
+   {
+      return this.convergedCount.sum();
+   }
+
+
+   /**
+    * Gets the number of function evaluations in the most recent solve
+    *
+    * @return		The total number of points at which a function was
+    *			evaluated, over every problem
+    *
+    * @since	1.1.0
+    */
+   public long getEvaluationCount()
+   {
+      return this.evaluations.sum();
+   }
+
+
+   /**
+    * Solves every problem with a method, splitting them into chunks
+    * <p>
+    * The functions with derivatives are only given for Newton's method.
+    *
+    * @since	1.1.0
+    */
+   private double[] run(Method method, DifferentiableBatchedFunction df, double[] first, double[] second)
+   {
+      int count = first.length;
+      double[] roots = new double[count];
+
+      this.converged = new boolean[count];
+      this.convergedCount = new LongAdder();
+      this.evaluations = new LongAdder();
+
+      if(this.parallel && count > this.chunkSize)
+      {
+         ForkJoinPool.commonPool().invoke(new ChunkTask(method, df, first, second, roots, 0, count));
+      }
+      else
+      {
+         for(int start=0; start<count; start+=this.chunkSize)
+         {
+            solveChunk(method, df, first, second, roots, start, Math.min(count, start + this.chunkSize));
+         }
+      }
+
+      return roots;
+   }
+
+
+   /**
+    * Solves the problems start to end-1 with a method
+    *
+    * @since	1.1.0
+    */
+   private void solveChunk(Method method, DifferentiableBatchedFunction df, double[] first, double[] second, double[] roots, int start, int end)
+   {
+      switch(method)
+      {
+         case BRACKETED:
+            bracketed(first, second, roots, start, end);
+            break;
+         case SECANT:
+            secant(first, second, roots, start, end);
+            break;
+         default:
+            newton(df, first, roots, start, end);
+            break;
+      }
+   }
+
+
+   /**
+    * Records the result of a problem
+    *
+    * @since	1.1.0
+    */
+   private void finish(double[] roots, int problem, double root, boolean success)
+   {
+      roots[problem] = root;
+      if(success)
+      {
+         this.converged[problem] = true;
+         this.convergedCount.increment();
+      }
+   }
+
+
+   /**
+    * Solves a chunk of problems with the Illinois method
+    * <p>
+    * Each step is the false position point of the bracket [a,b].  When the
+    * same end is kept twice in a row its function value is halved, which
+    * stops that end from stagnating and gives superlinear convergence.
+    *
+    * @since	1.1.0
+    */
+   private void bracketed(double[] aIn, double[] bIn, double[] roots, int start, int end)
+   {
+      int size = end - start;
+      int[] problems = new int[size];
+      double[] a = new double[size];
+      double[] b = new double[size];
+      double[] fa = new double[size];
+      double[] fb = new double[size];
+      double[] c = new double[size];
+      double[] fc = new double[size];
+      int[] side = new int[size];
+
+      for(int k=0; k<size; k++)
+      {
+         problems[k] = start + k;
+         a[k] = aIn[start + k];
+         b[k] = bIn[start + k];
+      }
+
+      this.f.evaluate(problems, a, fa, size);
+      this.f.evaluate(problems, b, fb, size);
+      this.evaluations.add(2L * size);
+
+      // Remove the problems which are already solved, or have no sign change
+      int active = 0;
+      for(int k=0; k<size; k++)
+      {
+         if(Math.abs(fa[k]) <= this.functionTolerance)
+         {
+            finish(roots, problems[k], a[k], true);
+         }
+         else if(Math.abs(fb[k]) <= this.functionTolerance)
+         {
+            finish(roots, problems[k], b[k], true);
+         }
+         else if(!(fa[k] * fb[k] < 0))
+         {
+            finish(roots, problems[k], Double.NaN, false);
+         }
+         else
+         {
+            problems[active] = problems[k];
+            a[active] = a[k];
+            b[active] = b[k];
+            fa[active] = fa[k];
+            fb[active] = fb[k];
+            active++;
+         }
+      }
+
+      for(int iteration=0; iteration<this.maxIterations && active>0; iteration++)
+      {
+         Cancellation.checkpoint();
+
+         for(int k=0; k<active; k++)
+         {
+            double ck = b[k] - fb[k] * (b[k] - a[k]) / (fb[k] - fa[k]);
+
+            // Rounding can place the point outside the bracket
+            double low = Math.min(a[k], b[k]);
+            double high = Math.max(a[k], b[k]);
+            if(!(ck > low && ck < high))
+            {
+               ck = low + (high - low) / 2;
+            }
+            c[k] = ck;
+         }
+
+         this.f.evaluate(problems, c, fc, active);
+         this.evaluations.add(active);
+
+         int remaining = 0;
+         for(int k=0; k<active; k++)
+         {
+            if(fc[k] * fb[k] > 0)
+            {
+               b[k] = c[k];
+               fb[k] = fc[k];
+               if(side[k] == -1)
+               {
+                  fa[k] *= 0.5;
+               }
+               side[k] = -1;
+            }
+            else
+            {
+               a[k] = b[k];
+               fa[k] = fb[k];
+               b[k] = c[k];
+               fb[k] = fc[k];
+               side[k] = 1;
+            }
+
+            if(Math.abs(fc[k]) <= this.functionTolerance || Math.abs(b[k] - a[k]) <= this.tolerance)
+            {
+               finish(roots, problems[k], c[k], true);
+            }
+            else
+            {
+               problems[remaining] = problems[k];
+               a[remaining] = a[k];
+               b[remaining] = b[k];
+               fa[remaining] = fa[k];
+               fb[remaining] = fb[k];
+               side[remaining] = side[k];
+               remaining++;
+            }
+         }
+         active = remaining;
+      }
+
+      for(int k=0; k<active; k++)
+      {
+         finish(roots, problems[k], b[k], false);
+      }
+   }
+
+
+   /**
+    * Solves a chunk of problems with the secant method
+    *
+    * @since	1.1.0
+    */
+   private void secant(double[] x0In, double[] x1In, double[] roots, int start, int end)
+   {
+      int size = end - start;
+      int[] problems = new int[size];
+      double[] x0 = new double[size];
+      double[] x1 = new double[size];
+      double[] f0 = new double[size];
+      double[] f1 = new double[size];
+
+      for(int k=0; k<size; k++)
+      {
+         problems[k] = start + k;
+         x0[k] = x0In[start + k];
+         x1[k] = x1In[start + k];
+      }
+
+      this.f.evaluate(problems, x0, f0, size);
+      this.evaluations.add(size);
+
+      int active = size;
+      for(int iteration=0; iteration<this.maxIterations && active>0; iteration++)
+      {
+         Cancellation.checkpoint();
+
+         this.f.evaluate(problems, x1, f1, active);
+         this.evaluations.add(active);
+
+         int remaining = 0;
+         for(int k=0; k<active; k++)
+         {
+            double step = f1[k] * (x1[k] - x0[k]) / (f1[k] - f0[k]);
+
+            if(Math.abs(f1[k]) <= this.functionTolerance)
+            {
+               finish(roots, problems[k], x1[k], true);
+            }
+            else if(!Double.isFinite(step))
+            {
+               finish(roots, problems[k], x1[k], false);
+            }
+            else if(Math.abs(step) <= this.tolerance)
+            {
+               finish(roots, problems[k], x1[k] - step, true);
+            }
+            else
+            {
+               problems[remaining] = problems[k];
+               x0[remaining] = x1[k];
+               f0[remaining] = f1[k];
+               x1[remaining] = x1[k] - step;
+               remaining++;
+            }
+         }
+         active = remaining;
+      }
+
+      for(int k=0; k<active; k++)
+      {
+         finish(roots, problems[k], x1[k], false);
+      }
+   }
+
+
+   /**
+    * Solves a chunk of problems with Newton's method
+    *
+    * @since	1.1.0
+    */
+   private void newton(DifferentiableBatchedFunction df, double[] x0In, double[] roots, int start, int end)
+   {
+      int size = end - start;
+      int[] problems = new int[size];
+      double[] x = new double[size];
+      double[] fx = new double[size];
+      double[] dfx = new double[size];
+
+      for(int k=0; k<size; k++)
+      {
+         problems[k] = start + k;
+         x[k] = x0In[start + k];
+      }
+
+      int active = size;
+      for(int iteration=0; iteration<this.maxIterations && active>0; iteration++)
+      {
+         Cancellation.checkpoint();
+
+         df.evaluate(problems, x, fx, dfx, active);
+         this.evaluations.add(active);
+
+         int remaining = 0;
+         for(int k=0; k<active; k++)
+         {
+            double step = fx[k] / dfx[k];
+
+            if(Math.abs(fx[k]) <= this.functionTolerance)
+            {
+               finish(roots, problems[k], x[k], true);
+            }
+            else if(!Double.isFinite(step))
+            {
+               finish(roots, problems[k], x[k], false);
+            }
+            else if(Math.abs(step) <= this.tolerance)
+            {
+               finish(roots, problems[k], x[k] - step, true);
+            }
+            else
+            {
+               problems[remaining] = problems[k];
+               x[remaining] = x[k] - step;
+               remaining++;
+            }
+         }
+         active = remaining;
+      }
+
+      for(int k=0; k<active; k++)
+      {
+         finish(roots, problems[k], x[k], false);
+      }
+   }
+
+
+   /**
+    * A task which splits the problems into chunks
+    */
+   private class ChunkTask extends RecursiveAction
+   {
+      private Method method;
+      private DifferentiableBatchedFunction df;
+      private double[] first, second, roots;
+      private int start, end;
+
+      ChunkTask(Method method, DifferentiableBatchedFunction df, double[] first, double[] second, double[] roots, int start, int end)
+      {
+         this.method = method;
+         this.df = df;
+         this.first = first;
+         this.second = second;
+         this.roots = roots;
+         this.start = start;
+         this.end = end;
+      }
+
+      protected void compute()
+      {
+         if(end - start > chunkSize)
+         {
+            // Split on a chunk boundary, so every chunk is full but the last
+            int chunks = (end - start + chunkSize - 1) / chunkSize;
+            int middle = start + (chunks / 2) * chunkSize;
+            invokeAll(new ChunkTask(method, df, first, second, roots, start, middle), new ChunkTask(method, df, first, second, roots, middle, end));
+         }
+         else
+         {
+            solveChunk(method, df, first, second, roots, start, end);
+         }
+      }
+   }
+}
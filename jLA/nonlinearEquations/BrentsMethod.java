@@ -0,0 +1,170 @@
+/**
+ * A solver for nonlinear equations which uses Brent's method
+ * <p>
+ * Like interval bisection, Brent's method (1973) keeps an interval on which
+ * the function changes sign, so it cannot diverge.  Rather than always
+ * bisecting, it steps by inverse quadratic interpolation through the last
+ * three points, or by the secant through the last two, and falls back on
+ * bisection only when the interpolated step leaves the interval or shrinks
+ * it too slowly.  It converges superlinearly for smooth functions near a
+ * simple root, taking far fewer evaluations than bisection.  Near a multiple
+ * root it may take more;  in the worst case the number of evaluations is
+ * about the square of the number bisection would take.
+ * <p>
+ * The solver stops when the interval is smaller than the x tolerance, when
+ * |f| is at most the f tolerance, or when the budget of function
+ * evaluations is spent.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		SafeguardedNewtonMethod
+ * @see		RootFindingResult
+ */
+
+package jLA.nonlinearEquations;
+
+import jLA.core.Function;
+
+public class BrentsMethod
+{
+   /**
+    * Determine where the function is zero
+    *
+    * @param 	f		The function to solve
+    * @param	a		One endpoint of the initial interval
+    * @param	b		The other endpoint of the initial interval
+    * @param	xTol		How small the final interval needs to be
+    * @param	fTol		How small |f| at the root needs to be
+    * @param	maxEvaluations	The largest number of evaluations of f
+    *
+    * @return		The root, with the number of iterations and evaluations
+    *
+    * @throws	IllegalArgumentException	If f does not change sign on
+    *						the interval
+    *
+    * @since	1.1.0
+    */
+   public static RootFindingResult solve(Function f, double a, double b, double xTol, double fTol, int maxEvaluations)
+   {
+      double fa = f.f(a);
+      double fb = f.f(b);
+      int evaluations = 2;
+
+      if(Math.abs(fa) <= fTol)
+      {
+         return new RootFindingResult(a, 0, evaluations, true);
+      }
+      if(Math.abs(fb) <= fTol)
+      {
+         return new RootFindingResult(b, 0, evaluations, true);
+      }
+      if(!(fa * fb < 0))
+      {
+         throw new IllegalArgumentException("Cannot find root on [" + a + ", " + b + "] without a sign change.");
+      }
+
+      // b is the best estimate, a the previous one, and c the other end of
+      // the interval;  d is the latest step and e the one before it
+      double c = a;
+      double fc = fa;
+      double d = b - a;
+      double e = d;
+      double epsilon = Math.ulp(1.0);
+
+      int iterations = 0;
+
+      while(true)
+      {
+         if((fb > 0) == (fc > 0))
+         {
+            c = a;
+            fc = fa;
+            d = b - a;
+            e = d;
+         }
+
+         // Keep the smaller function value at b
+         if(Math.abs(fc) < Math.abs(fb))
+         {
+            a = b;
+            b = c;
+            c = a;
+            fa = fb;
+            fb = fc;
+            fc = fa;
+         }
+
+         double tol = 2 * epsilon * Math.abs(b) + 0.5 * xTol;
+         double middle = 0.5 * (c - b);
+
+         if(Math.abs(middle) <= tol || Math.abs(fb) <= fTol)
+         {
+            return new RootFindingResult(b, iterations, evaluations, true);
+         }
+         if(evaluations >= maxEvaluations)
+         {
+            return new RootFindingResult(b, iterations, evaluations, false);
+         }
+
+         if(Math.abs(e) >= tol && Math.abs(fa) > Math.abs(fb))
+         {
+            // Interpolate, with the secant if only two points are distinct
+            double p, q;
+            double s = fb / fa;
+
+            if(a == c)
+            {
+               p = 2 * middle * s;
+               q = 1 - s;
+            }
+            else
+            {
+               double r = fb / fc;
+               q = fa / fc;
+               p = s * (2 * middle * q * (q - r) - (b - a) * (r - 1));
+               q = (q - 1) * (r - 1) * (s - 1);
+            }
+
+            if(p > 0)
+            {
+               q = -q;
+            }
+            p = Math.abs(p);
+
+            // Accept the interpolation only if it stays in the interval and
+            // shrinks the steps quickly enough
+            if(2 * p < Math.min(3 * middle * q - Math.abs(tol * q), Math.abs(e * q)))
+            {
+               e = d;
+               d = p / q;
+            }
+            else
+            {
+               d = middle;
+               e = d;
+            }
+         }
+         else
+         {
+            d = middle;
+            e = d;
+         }
+
+         a = b;
+         fa = fb;
+         if(Math.abs(d) > tol)
+         {
+            b += d;
+         }
+         else
+         {
+            b += (middle > 0) ? tol : -tol;
+         }
+
+         fb = f.f(b);
+         evaluations++;
+         iterations++;
+      }
+   }
+}
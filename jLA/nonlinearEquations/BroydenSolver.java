@@ -0,0 +1,466 @@
+/**
+ * A solver for systems of nonlinear equations F(x) = 0 which uses a
+ * limited-memory form of Broyden's method.
+ * <p>
+ * Broyden's method replaces the Jacobian of Newton's method with an
+ * approximation H of its inverse, updated after each step s, with
+ * y = F(x + s) - F(x), by the rank-one correction
+ * <pre>
+ *    H+ = H + (s - H y) (s^T H) / (s^T H y)
+ * </pre>
+ * so that H+ y = s.  No further Jacobians are evaluated or factored, and each
+ * step costs one evaluation of F and O(n m) operations, where m is the number
+ * of updates kept.
+ * <p>
+ * H is never formed.  It is stored as the initial approximation H0 plus the
+ * pairs of vectors of the updates, so memory is bounded by 2m vectors.  When
+ * m updates have been made, or an update would divide by nearly zero, the
+ * method restarts from H0.  By default H0 is the inverse of the Jacobian at
+ * the initial guess, factored once with {@link LUSolverPartialPivot} and
+ * reused for every restart;  otherwise H0 is the identity, which suits
+ * problems scaled so the Jacobian is close to the identity.
+ * <p>
+ * The Broyden direction need not reduce ||F||, so each step is found by a
+ * backtracking line search, halving the step until ||F|| decreases by a
+ * small fraction of the step length.  When the line search fails, the
+ * method restarts from H0, and stops if it fails again.
+ * <p>
+ * The iteration stops once ||F(x)|| is at most the residual tolerance times
+ * ||F(x0)||, or once a step is at most the step tolerance times ||x||.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		VectorFunction
+ * @see		NewtonSystemSolver
+ */
+
+package jLA.nonlinearEquations;
+
+import jLA.core.Cancellation;
+import jLA.solver.LUSolverPartialPivot;
+import jLA.solver.TransposableSolver;
+
+public class BroydenSolver
+{
+   public static final double DEFAULT_RESIDUAL_TOLERANCE = 1e-10;
+   public static final double DEFAULT_STEP_TOLERANCE = 1e-12;
+   public static final int DEFAULT_MAX_ITERATIONS = 200;
+   public static final int DEFAULT_MEMORY = 20;
+
+   // The sufficient decrease parameter and the largest number of halvings
+   // of the line search
+   private static final double ALPHA = 1e-4;
+   private static final int MAX_BACKTRACKS = 10;
+
+   private VectorFunction F;
+   private int n;
+
+   private double residualTolerance = DEFAULT_RESIDUAL_TOLERANCE;
+   private double stepTolerance = DEFAULT_STEP_TOLERANCE;
+   private int maxIterations = DEFAULT_MAX_ITERATIONS;
+   private int memory = DEFAULT_MEMORY;
+   private boolean initialJacobian = true;
+   private boolean lineSearch = true;
+
+   // The initial approximation, or null for the identity, and the updates
+   private TransposableSolver H0 = null;
+   private double[][] u, v;
+   private int updates = 0;
+
+   // The statistics of the most recent solve
+   private int iterations = 0;
+   private int evaluations = 0;
+   private int restarts = 0;
+   private double residualNorm = 0;
+   private boolean converged = false;
+
+   /**
+    * Constructs the solver for the provided function
+    *
+    * @param	F	The function whose root is found
+    *
+    * @since	1.1.0
+    */
+   public BroydenSolver(VectorFunction F)
+   {
+      this.F = F;
+      this.n = F.getSize();
+   }
+
+
+   /**
+    * Sets the tolerances at which the solver stops
+    *
+    * @param	residualTolerance	The largest acceptable
+    *					||F(x)|| / ||F(x0)||
+    * @param	stepTolerance		The largest acceptable step relative
+    *					to ||x||
+    *
+    * @since	1.1.0
+    */
+   public void setTolerances(double residualTolerance, double stepTolerance)
+   {
+      this.residualTolerance = residualTolerance;
+      this.stepTolerance = stepTolerance;
+   }
+
+
+   /**
+    * Sets the largest number of iterations performed by one solve
+    *
+    * @param	maxIterations	The iteration limit
+    *
+    * @since	1.1.0
+    */
+   public void setMaxIterations(int maxIterations)
+   {
+      this.maxIterations = maxIterations;
+   }
+
+
+   /**
+    * Sets the number of updates kept before restarting
+    *
+    * @param	memory	The number of rank-one updates m
+    *
+    * @since	1.1.0
+    */
+   public void setMemory(int memory)
+   {
+      this.memory = Math.max(1, memory);
+   }
+
+
+   /**
+    * Sets whether the initial approximation is the inverse of the Jacobian
+    * at the initial guess, or the identity
+    *
+    * @param	initialJacobian	True to evaluate and factor the Jacobian once
+    *
+    * @since	1.1.0
+    */
+   public void setInitialJacobian(boolean initialJacobian)
+   {
+      this.initialJacobian = initialJacobian;
+   }
+
+
+   /**
+    * Sets whether steps are chosen by a backtracking line search
+    *
+    * @param	lineSearch	True to search along each direction, false to
+    *				take every full step
+    *
+    * @since	1.1.0
+    */
+   public void setLineSearch(boolean lineSearch)
+   {
+      this.lineSearch = lineSearch;
+   }
+
+
+   /**
+    * Determine a root of the function
+    *
+    * @param	x	On entry the initial guess, on exit the solution
+    *
+    * @return		True if the solver converged
+    *
+    * @throws	IllegalArgumentException	If x has the wrong length
+    *
+    * @since	1.1.0
+    */
+   public boolean solve(double[] x)
+   {
+      int n = this.n;
+
+      if(x.length != n)
+      {
+         throw new IllegalArgumentException("Cannot solve system of " + n + " equations with " + x.length + " unknowns.");
+      }
+
+      this.iterations = 0;
+      this.evaluations = 0;
+      this.restarts = 0;
+      this.converged = false;
+
+      this.u = new double[this.memory][];
+      this.v = new double[this.memory][];
+      this.updates = 0;
+
+      double[] f = new double[n];
+      double[] fTrial = new double[n];
+      double[] direction = new double[n];
+      double[] trial = new double[n];
+      double[] y = new double[n];
+
+      this.F.evaluate(x, f);
+      this.evaluations++;
+      double normF = NewtonSystemSolver.norm(f);
+      this.residualNorm = normF;
+
+      double target = this.residualTolerance * normF;
+      if(normF == 0)
+      {
+         this.converged = true;
+         return true;
+      }
+
+      this.H0 = this.initialJacobian ? new LUSolverPartialPivot(this.F.jacobian(x, f)) : null;
+
+      while(this.iterations < this.maxIterations)
+      {
+         Cancellation.checkpoint();
+
+         // The Broyden direction d = -H F(x)
+         for(int i=0; i<n; i++)
+         {
+            direction[i] = -f[i];
+         }
+         applyInverse(direction);
+
+         // Search along the direction for a sufficient decrease of ||F||
+         double lambda = 1;
+         double normTrial = Double.NaN;
+         boolean accepted = false;
+
+         for(int backtrack=0; backtrack<=MAX_BACKTRACKS; backtrack++)
+         {
+            for(int i=0; i<n; i++)
+            {
+               trial[i] = x[i] + lambda * direction[i];
+            }
+            this.F.evaluate(trial, fTrial);
+            this.evaluations++;
+            normTrial = NewtonSystemSolver.norm(fTrial);
+
+            if(!this.lineSearch || normTrial <= (1 - ALPHA * lambda) * normF)
+            {
+               accepted = Double.isFinite(normTrial);
+               break;
+            }
+            lambda *= 0.5;
+         }
+
+         if(!accepted)
+         {
+            // Give up if the direction from H0 also fails
+            if(this.updates == 0)
+            {
+               return false;
+            }
+            restart();
+            continue;
+         }
+         this.iterations++;
+
+         // The step s and the change y in F
+         double normStep = 0;
+         for(int i=0; i<n; i++)
+         {
+            direction[i] *= lambda;
+            normStep += direction[i] * direction[i];
+            y[i] = fTrial[i] - f[i];
+         }
+         normStep = Math.sqrt(normStep);
+
+         System.arraycopy(trial, 0, x, 0, n);
+         System.arraycopy(fTrial, 0, f, 0, n);
+         normF = normTrial;
+         this.residualNorm = normF;
+
+         if(normF <= target || normStep <= this.stepTolerance * NewtonSystemSolver.norm(x))
+         {
+            this.converged = true;
+            return true;
+         }
+
+         update(direction, y);
+      }
+
+      return false;
+   }
+
+
+   /**
+    * Gets the number of iterations performed by the most recent solve
+    *
+    * @return		The number of accepted steps
+    *
+    * @since	1.1.0
+    */
+   public int getIterationCount()
+   {
+      return this.iterations;
+   }
+
+
+   /**
+    * Gets the number of evaluations of F by the most recent solve
+    * <p>
+    * Evaluations made to approximate the initial Jacobian are not included.
+    *
+    * @return		The number of evaluations
+    *
+    * @since	1.1.0
+    */
+   public int getEvaluationCount()
+   {
+      return this.evaluations;
+   }
+
+
+   /**
+    * Gets the number of restarts in the most recent solve
+    *
+    * @return		The number of times the updates were discarded
+    *
+    * @since	1.1.0
+    */
+   public int getRestartCount()
+   {
+      return this.restarts;
+   }
+
+
+   /**
+    * Gets the norm of F at the solution of the most recent solve
+    *
+    * @return		The residual norm ||F(x)||
+    *
+    * @since	1.1.0
+    */
+   public double getResidualNorm()
+   {
+      return this.residualNorm;
+   }
+
+
+   /**
+    * Gets whether the most recent solve converged
+    *
+    * @return		True if the solver converged
+    *
+    * @since	1.1.0
+    */
+   public boolean hasConverged()
+   {
+      return this.converged;
+   }
+
+
+   /**
+    * Adds the Broyden update for step s and change y, restarting when the
+    * memory is full or the update is ill-defined
+    *
+    * @since	1.1.0
+    */
+   private void update(double[] s, double[] y)
+   {
+      if(this.updates == this.memory)
+      {
+         restart();
+      }
+
+      // H y, and H^T s = H0^T s + sum v_i (u_i . s)
+      double[] Hy = y.clone();
+      applyInverse(Hy);
+
+      double[] HTs = s.clone();
+      if(this.H0 != null)
+      {
+         this.H0.solveTranspose(HTs);
+      }
+      for(int k=0; k<this.updates; k++)
+      {
+         double coefficient = dot(this.u[k], s);
+         double[] vk = this.v[k];
+         for(int i=0; i<this.n; i++)
+         {
+            HTs[i] += coefficient * vk[i];
+         }
+      }
+
+      double denominator = dot(s, Hy);
+      if(!(Math.abs(denominator) > Math.ulp(1.0) * NewtonSystemSolver.norm(s) * NewtonSystemSolver.norm(Hy)))
+      {
+         restart();
+         return;
+      }
+
+      double[] uNew = new double[this.n];
+      for(int i=0; i<this.n; i++)
+      {
+         uNew[i] = (s[i] - Hy[i]) / denominator;
+      }
+
+      this.u[this.updates] = uNew;
+      this.v[this.updates] = HTs;
+      this.updates++;
+   }
+
+
+   /**
+    * Discards the updates, so that H is H0 again
+    *
+    * @since	1.1.0
+    */
+   private void restart()
+   {
+      for(int k=0; k<this.updates; k++)
+      {
+         this.u[k] = null;
+         this.v[k] = null;
+      }
+      this.updates = 0;
+      this.restarts++;
+   }
+
+
+   /**
+    * Computes z = H z in place
+    *
+    * @since	1.1.0
+    */
+   private void applyInverse(double[] z)
+   {
+      // H z = H0 z + sum u_i (v_i . z), with every v_i . z from the original z
+      double[] coefficients = new double[this.updates];
+      for(int k=0; k<this.updates; k++)
+      {
+         coefficients[k] = dot(this.v[k], z);
+      }
+
+      if(this.H0 != null)
+      {
+         this.H0.solve(z);
+      }
+
+      for(int k=0; k<this.updates; k++)
+      {
+         double coefficient = coefficients[k];
+         double[] uk = this.u[k];
+         for(int i=0; i<this.n; i++)
+         {
+            z[i] += coefficient * uk[i];
+         }
+      }
+   }
+
+
+   /**
+    * Computes the dot product x^T y
+    *
+    * @since	1.1.0
+    */
+   private static double dot(double[] x, double[] y)
+   {
+      double sum = 0;
+      for(int i=0; i<x.length; i++)
+      {
+         sum += x[i] * y[i];
+      }
+      return sum;
+   }
+}
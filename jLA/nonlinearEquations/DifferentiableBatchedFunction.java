@@ -0,0 +1,33 @@
+/**
+ * An interface for a family of scalar functions, evaluated many at a time
+ * along with their derivatives.
+ * <p>
+ * Newton's method needs f_i'(x) as well as f_i(x), so
+ * {@link BatchedRootFinder#solveNewton(DifferentiableBatchedFunction, double[])}
+ * takes functions of this type rather than any {@link BatchedFunction}.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		BatchedFunction
+ * @see		BatchedRootFinder
+ */
+
+package jLA.nonlinearEquations;
+
+public interface DifferentiableBatchedFunction extends BatchedFunction
+{
+   /**
+    * Evaluates the functions of a batch of problems and their derivatives
+    *
+    * @param	problems	The index of each problem in the batch
+    * @param	x		The point at which to evaluate each problem
+    * @param	f		Overwritten with f_i(x) for each problem
+    * @param	df		Overwritten with f_i'(x) for each problem
+    * @param	count		The number of problems in the batch, which may
+    *				be less than the lengths of the arrays
+    *
+    * @since	1.1.0
+    */
+   public void evaluate(int[] problems, double[] x, double[] f, double[] df, int count);
+}
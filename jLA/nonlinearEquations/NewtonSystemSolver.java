@@ -0,0 +1,344 @@
+/**
+ * A solver for systems of nonlinear equations F(x) = 0 which uses Newton's
+ * method, reusing each factorization of the Jacobian for several steps.
+ * <p>
+ * Each Newton step solves J(x) s = -F(x).  Factoring the Jacobian costs
+ * O(n^3) operations, and evaluating it may cost n evaluations of F, while a
+ * solve with an existing factorization costs O(n^2).  The chord method keeps
+ * the first factorization for every step, and Shamanskii's method refactors
+ * every m steps;  both converge more slowly than Newton's method per step,
+ * but each step is far cheaper.
+ * <p>
+ * This solver keeps the {@link LUSolverPartialPivot} factorization for at
+ * most a given number of steps, and refactors sooner when convergence slows,
+ * i.e., when a step reduces ||F|| by less than the contraction factor.  A
+ * step with an old factorization which increases ||F|| is rejected, and
+ * retaken with a fresh Jacobian.  With the defaults, the Jacobian is
+ * refactored only when the steps stop reducing ||F|| by half, as suggested by
+ * Kelley (2003).
+ * <p>
+ * The iteration stops once ||F(x)|| is at most the residual tolerance times
+ * ||F(x0)||, or once a step is at most the step tolerance times ||x||.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		VectorFunction
+ */
+
+package jLA.nonlinearEquations;
+
+import jLA.core.Cancellation;
+import jLA.solver.LUSolverPartialPivot;
+
+public class NewtonSystemSolver
+{
+   public static final double DEFAULT_RESIDUAL_TOLERANCE = 1e-10;
+   public static final double DEFAULT_STEP_TOLERANCE = 1e-12;
+   public static final double DEFAULT_CONTRACTION = 0.5;
+   public static final int DEFAULT_MAX_ITERATIONS = 100;
+   public static final int DEFAULT_MAX_REUSE = 1000;
+
+   private VectorFunction F;
+   private int n;
+
+   private double residualTolerance = DEFAULT_RESIDUAL_TOLERANCE;
+   private double stepTolerance = DEFAULT_STEP_TOLERANCE;
+   private double contraction = DEFAULT_CONTRACTION;
+   private int maxIterations = DEFAULT_MAX_ITERATIONS;
+   private int maxReuse = DEFAULT_MAX_REUSE;
+
+   // The statistics of the most recent solve
+   private int iterations = 0;
+   private int evaluations = 0;
+   private int factorizations = 0;
+   private double residualNorm = 0;
+   private boolean converged = false;
+
+   /**
+    * Constructs the solver for the provided function
+    *
+    * @param	F	The function whose root is found
+    *
+    * @since	1.1.0
+    */
+   public NewtonSystemSolver(VectorFunction F)
+   {
+      this.F = F;
+      this.n = F.getSize();
+   }
+
+
+   /**
+    * Sets the tolerances at which the solver stops
+    *
+    * @param	residualTolerance	The largest acceptable
+    *					||F(x)|| / ||F(x0)||
+    * @param	stepTolerance		The largest acceptable step relative
+    *					to ||x||
+    *
+    * @since	1.1.0
+    */
+   public void setTolerances(double residualTolerance, double stepTolerance)
+   {
+      this.residualTolerance = residualTolerance;
+      this.stepTolerance = stepTolerance;
+   }
+
+
+   /**
+    * Sets the largest number of iterations performed by one solve
+    *
+    * @param	maxIterations	The iteration limit
+    *
+    * @since	1.1.0
+    */
+   public void setMaxIterations(int maxIterations)
+   {
+      this.maxIterations = maxIterations;
+   }
+
+
+   /**
+    * Sets the largest number of steps taken with one factorization
+    * <p>
+    * One gives Newton's method, m gives Shamanskii's method, and a large
+    * value gives the chord method.
+    *
+    * @param	maxReuse	The number of steps per factorization
+    *
+    * @since	1.1.0
+    */
+   public void setMaxReuse(int maxReuse)
+   {
+      this.maxReuse = Math.max(1, maxReuse);
+   }
+
+
+   /**
+    * Sets the reduction of ||F|| per step below which the Jacobian is
+    * refactored
+    *
+    * @param	contraction	The largest acceptable ratio of ||F|| after
+    *				a step to ||F|| before it, between 0 and 1
+    *
+    * @since	1.1.0
+    */
+   public void setContraction(double contraction)
+   {
+      this.contraction = contraction;
+   }
+
+
+   /**
+    * Determine a root of the function
+    *
+    * @param	x	On entry the initial guess, on exit the solution
+    *
+    * @return		True if the solver converged
+    *
+    * @throws	IllegalArgumentException	If x has the wrong length
+    *
+    * @since	1.1.0
+    */
+   public boolean solve(double[] x)
+   {
+      int n = this.n;
+
+      if(x.length != n)
+      {
+         throw new IllegalArgumentException("Cannot solve system of " + n + " equations with " + x.length + " unknowns.");
+      }
+
+      this.iterations = 0;
+      this.evaluations = 0;
+      this.factorizations = 0;
+      this.converged = false;
+
+      double[] f = new double[n];
+      double[] fTrial = new double[n];
+      double[] step = new double[n];
+      double[] trial = new double[n];
+
+      this.F.evaluate(x, f);
+      this.evaluations++;
+      double normF = norm(f);
+      this.residualNorm = normF;
+
+      double target = this.residualTolerance * normF;
+      if(normF == 0)
+      {
+         this.converged = true;
+         return true;
+      }
+
+      LUSolverPartialPivot solver = null;
+      int uses = 0;
+
+      while(this.iterations < this.maxIterations)
+      {
+         Cancellation.checkpoint();
+
+         if(solver == null || uses >= this.maxReuse)
+         {
+            solver = new LUSolverPartialPivot(this.F.jacobian(x, f));
+            this.factorizations++;
+            uses = 0;
+         }
+         boolean fresh = (uses == 0);
+
+         // Solve J s = -F(x) with the current factorization
+         for(int i=0; i<n; i++)
+         {
+            step[i] = -f[i];
+         }
+         solver.solve(step);
+         uses++;
+
+         for(int i=0; i<n; i++)
+         {
+            trial[i] = x[i] + step[i];
+         }
+         double normStep = norm(step);
+
+         double normTrial = Double.NaN;
+         if(Double.isFinite(normStep))
+         {
+            this.F.evaluate(trial, fTrial);
+            this.evaluations++;
+            normTrial = norm(fTrial);
+         }
+
+         // Reject a step from an old factorization which does not reduce
+         // ||F||, and retake it with a fresh Jacobian
+         if(!(normTrial < normF) && !fresh)
+         {
+            solver = null;
+            continue;
+         }
+         this.iterations++;
+
+         if(!Double.isFinite(normTrial))
+         {
+            // The Jacobian is singular, or the step left the domain of F
+            return false;
+         }
+
+         System.arraycopy(trial, 0, x, 0, n);
+         System.arraycopy(fTrial, 0, f, 0, n);
+         this.residualNorm = normTrial;
+
+         if(normTrial <= target || normStep <= this.stepTolerance * norm(x))
+         {
+            this.converged = true;
+            return true;
+         }
+
+         // Refactor when convergence slows
+         if(normTrial > this.contraction * normF)
+         {
+            solver = null;
+         }
+         normF = normTrial;
+      }
+
+      return false;
+   }
+
+
+   /**
+    * Gets the number of iterations performed by the most recent solve
+    *
+    * @return		The number of accepted steps
+    *
+    * @since	1.1.0
+    */
+   public int getIterationCount()
+   {
+      return this.iterations;
+   }
+
+
+   /**
+    * Gets the number of evaluations of F by the most recent solve
+    * <p>
+    * Evaluations made to approximate the Jacobian are not included.
+    *
+    * @return		The number of evaluations
+    *
+    * @since	1.1.0
+    */
+   public int getEvaluationCount()
+   {
+      return this.evaluations;
+   }
+
+
+   /**
+    * Gets the number of Jacobians factored by the most recent solve
+    *
+    * @return		The number of factorizations
+    *
+    * @since	1.1.0
+    */
+   public int getFactorizationCount()
+   {
+      return this.factorizations;
+   }
+
+
+   /**
+    * Gets the norm of F at the solution of the most recent solve
+    *
+    * @return		The residual norm ||F(x)||
+    *
+    * @since	1.1.0
+    */
+   public double getResidualNorm()
+   {
+      return this.residualNorm;
+   }
+
+
+   /**
+    * Gets whether the most recent solve converged
+    *
+    * @return		True if the solver converged
+    *
+    * @since	1.1.0
+    */
+   public boolean hasConverged()
+   {
+      return this.converged;
+   }
+
+
+   /**
+    * Computes the 2-norm of a vector, scaling to avoid overflow
+    * <p>
+    * Shared with the other solvers for nonlinear systems in this package.
+    *
+    * @since	1.1.0
+    */
+   static double norm(double[] v)
+   {
+      double largest = 0;
+      for(int i=0; i<v.length; i++)
+      {
+         largest = Math.max(largest, Math.abs(v[i]));
+      }
+      if(largest == 0 || !Double.isFinite(largest))
+      {
+         return largest;
+      }
+
+      double sum = 0;
+      for(int i=0; i<v.length; i++)
+      {
+         double value = v[i] / largest;
+         sum += value * value;
+      }
+
+      return largest * Math.sqrt(sum);
+   }
+}
@@ -0,0 +1,95 @@
+/**
+ * The result of finding a root of a scalar function.
+ * <p>
+ * Along with the root, the result records how much work the solver did, and
+ * whether it met a tolerance or ran out of function evaluations.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		BrentsMethod
+ * @see		SafeguardedNewtonMethod
+ */
+
+package jLA.nonlinearEquations;
+
+public class RootFindingResult
+{
+   private double root;
+   private int iterations;
+   private int evaluations;
+   private boolean converged;
+
+   /**
+    * Constructs a result
+    *
+    * @param	root		The root, or the best estimate of it
+    * @param	iterations	The number of iterations performed
+    * @param	evaluations	The number of function evaluations
+    * @param	converged	Whether a tolerance was met
+    *
+    * @since	1.1.0
+    */
+   RootFindingResult(double root, int iterations, int evaluations, boolean converged)
+   {
+      this.root = root;
+      this.iterations = iterations;
+      this.evaluations = evaluations;
+      this.converged = converged;
+   }
+
+
+   /**
+    * Gets the root
+    *
+    * @return		The root, or the best estimate of it if the solver
+    *			did not converge
+    *
+    * @since	1.1.0
+    */
+   public double getRoot()
+   {
+      return this.root;
+   }
+
+
+   /**
+    * Gets the number of iterations performed
+    *
+    * @return		The number of iterations
+    *
+    * @since	1.1.0
+    */
+   public int getIterationCount()
+   {
+      return this.iterations;
+   }
+
+
+   /**
+    * Gets the number of function evaluations
+    *
+    * @return		The number of points at which the function was
+    *			evaluated
+    *
+    * @since	1.1.0
+    */
+   public int getEvaluationCount()
+   {
+      return this.evaluations;
+   }
+
+
+   /**
+    * Gets whether the solver met a tolerance before exhausting its budget of
+    * evaluations
+    *
+    * @return		True if the solver converged
+    *
+    * @since	1.1.0
+    */
+   public boolean hasConverged()
+   {
+      return this.converged;
+   }
+}
@@ -0,0 +1,159 @@
+/**
+ * A solver for nonlinear equations which combines Newton's method with
+ * interval bisection
+ * <p>
+ * The solver keeps an interval on which the function changes sign, and
+ * shrinks it with every evaluation.  It takes a Newton step whenever the
+ * step stays inside the interval and is less than half as long as the step
+ * before last;  otherwise it bisects.  Near a simple root every step is a
+ * Newton step, so convergence is quadratic, while far from it the bisection
+ * steps guarantee convergence, unlike {@link NewtonsMethod}.
+ * <p>
+ * The solver stops when a step is smaller than the x tolerance, or than the
+ * rounding error in x, when |f| is at most the f tolerance, or when the
+ * budget of function evaluations is spent.  The derivative is evaluated at the same points as the function,
+ * and those evaluations are not counted separately.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		BrentsMethod
+ * @see		RootFindingResult
+ */
+
+package jLA.nonlinearEquations;
+
+import jLA.core.Function;
+
+public class SafeguardedNewtonMethod
+{
+   /**
+    * Determine where the function is zero, starting from the midpoint of the
+    * interval
+    *
+    * @param 	f		The function to solve
+    * @param	a		One endpoint of the initial interval
+    * @param	b		The other endpoint of the initial interval
+    * @param	xTol		How small the final step needs to be
+    * @param	fTol		How small |f| at the root needs to be
+    * @param	maxEvaluations	The largest number of evaluations of f
+    *
+    * @return		The root, with the number of iterations and evaluations
+    *
+    * @throws	IllegalArgumentException	If f does not change sign on
+    *						the interval
+    *
+    * @since	1.1.0
+    */
+   public static RootFindingResult solve(Function f, double a, double b, double xTol, double fTol, int maxEvaluations)
+   {
+      return solve(f, a, b, a + 0.5 * (b - a), xTol, fTol, maxEvaluations);
+   }
+
+
+   /**
+    * Determine where the function is zero, starting from an initial guess
+    *
+    * @param 	f		The function to solve
+    * @param	a		One endpoint of the initial interval
+    * @param	b		The other endpoint of the initial interval
+    * @param	initial		The initial guess, inside the interval
+    * @param	xTol		How small the final step needs to be
+    * @param	fTol		How small |f| at the root needs to be
+    * @param	maxEvaluations	The largest number of evaluations of f
+    *
+    * @return		The root, with the number of iterations and evaluations
+    *
+    * @throws	IllegalArgumentException	If f does not change sign on
+    *						the interval
+    *
+    * @since	1.1.0
+    */
+   public static RootFindingResult solve(Function f, double a, double b, double initial, double xTol, double fTol, int maxEvaluations)
+   {
+      double fa = f.f(a);
+      double fb = f.f(b);
+      int evaluations = 2;
+
+      if(Math.abs(fa) <= fTol)
+      {
+         return new RootFindingResult(a, 0, evaluations, true);
+      }
+      if(Math.abs(fb) <= fTol)
+      {
+         return new RootFindingResult(b, 0, evaluations, true);
+      }
+      if(!(fa * fb < 0))
+      {
+         throw new IllegalArgumentException("Cannot find root on [" + a + ", " + b + "] without a sign change.");
+      }
+
+      // Orient the interval so that f(low) < 0 < f(high)
+      double low = (fa < 0) ? a : b;
+      double high = (fa < 0) ? b : a;
+
+      double x = initial;
+      if(!(x > Math.min(a, b) && x < Math.max(a, b)))
+      {
+         x = a + 0.5 * (b - a);
+      }
+
+      double step = Math.abs(b - a);
+      double previousStep = step;
+      double fx = f.f(x);
+      double dfx = f.df(x);
+      evaluations++;
+
+      double epsilon = Math.ulp(1.0);
+      int iterations = 0;
+
+      while(Math.abs(fx) > fTol)
+      {
+         if(evaluations >= maxEvaluations)
+         {
+            return new RootFindingResult(x, iterations, evaluations, false);
+         }
+
+         double previous = x;
+
+         // Bisect if the Newton step leaves the interval, or if it would not
+         // shrink quickly enough
+         boolean outside = ((x - high) * dfx - fx) * ((x - low) * dfx - fx) > 0;
+         if(outside || Math.abs(2 * fx) > Math.abs(previousStep * dfx))
+         {
+            previousStep = step;
+            step = 0.5 * (high - low);
+            x = low + step;
+         }
+         else
+         {
+            previousStep = step;
+            step = fx / dfx;
+            x -= step;
+         }
+         iterations++;
+
+         // Stop once the step is lost in rounding, as in BrentsMethod
+         double tol = 2 * epsilon * Math.abs(x) + 0.5 * xTol;
+         if(Math.abs(step) <= tol || x == previous)
+         {
+            return new RootFindingResult(x, iterations, evaluations, true);
+         }
+
+         fx = f.f(x);
+         dfx = f.df(x);
+         evaluations++;
+
+         if(fx < 0)
+         {
+            low = x;
+         }
+         else
+         {
+            high = x;
+         }
+      }
+
+      return new RootFindingResult(x, iterations, evaluations, true);
+   }
+}
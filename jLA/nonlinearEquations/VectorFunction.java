@@ -0,0 +1,82 @@
+/**
+ * An interface for a vector-valued function F of a vector x, with as many
+ * components as unknowns, for solving nonlinear systems F(x) = 0.
+ * <p>
+ * The Jacobian J(x), whose entry (i,j) is the derivative of F_i with respect
+ * to x_j, is approximated by forward differences by default, at the cost of
+ * one evaluation of F per unknown.  Functions whose derivatives are known
+ * should override {@link #jacobian(double[], double[])}.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		NewtonSystemSolver
+ */
+
+package jLA.nonlinearEquations;
+
+import jLA.core.Matrix;
+
+public interface VectorFunction
+{
+   /**
+    * Gets the number of unknowns, which is also the number of components
+    *
+    * @return		The number of unknowns n
+    *
+    * @since	1.1.0
+    */
+   public int getSize();
+
+
+   /**
+    * Evaluates the function, i.e., computes f = F(x)
+    *
+    * @param	x	The point at which to evaluate F, which is not modified
+    * @param	f	Overwritten with F(x)
+    *
+    * @since	1.1.0
+    */
+   public void evaluate(double[] x, double[] f);
+
+
+   /**
+    * Evaluates the Jacobian of the function
+    * <p>
+    * By default column j is approximated by (F(x + h e_j) - F(x)) / h, with
+    * h the square root of the machine precision times max(|x_j|, 1).
+    *
+    * @param	x	The point at which to evaluate J, which is not modified
+    * @param	f	The value F(x), which is not modified
+    *
+    * @return		The n x n Jacobian J(x)
+    *
+    * @since	1.1.0
+    */
+   public default Matrix jacobian(double[] x, double[] f)
+   {
+      int n = getSize();
+      double root = Math.sqrt(Math.ulp(1.0));
+
+      Matrix J = new Matrix(n, n);
+      double[] shifted = x.clone();
+      double[] fShifted = new double[n];
+
+      for(int j=0; j<n; j++)
+      {
+         // Use the step actually represented in floating point
+         shifted[j] = x[j] + root * Math.max(Math.abs(x[j]), 1.0);
+         double h = shifted[j] - x[j];
+
+         evaluate(shifted, fShifted);
+         for(int i=0; i<n; i++)
+         {
+            J.set(i, j, (fShifted[i] - f[i]) / h);
+         }
+
+         shifted[j] = x[j];
+      }
+
+      return J;
+   }
+}
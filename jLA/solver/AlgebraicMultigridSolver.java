@@ -0,0 +1,807 @@
+/**
+ * A smoothed aggregation algebraic multigrid solver for sparse symmetric
+ * positive definite systems.
+ * <p>
+ * Smoothing iterations such as Gauss-Seidel quickly remove the parts of the
+ * error which vary rapidly between neighbouring unknowns, but make little
+ * progress on smooth error.  Multigrid represents the smooth error on a
+ * smaller, coarser system, where it is no longer smooth, and repeats this
+ * down a hierarchy of levels until the system is small enough to solve
+ * directly.  The number of V-cycles needed is then (nearly) independent of the
+ * size of the system.
+ * <p>
+ * The hierarchy is built from the matrix alone.  Strongly connected unknowns
+ * are grouped into aggregates, each of which becomes one coarse unknown.  The
+ * piecewise constant prolongation from the aggregates is smoothed with one
+ * damped Jacobi step, P = (I - w D^-1 A) T, and the coarse matrix is the
+ * Galerkin product P^T A P, so every level stays symmetric positive definite.
+ * <p>
+ * The solver can be used on its own, iterating V-cycles until the tolerance
+ * is reached, or as a {@link Preconditioner} for
+ * {@link ConjugateGradientSolver}, where each application is one V-cycle from
+ * a zero initial guess.  Both smoothers (symmetric Gauss-Seidel, and Chebyshev
+ * polynomials in the Jacobi preconditioned matrix) give a symmetric V-cycle,
+ * as the conjugate gradient method requires.  The Chebyshev smoother only
+ * needs matrix-vector products, and so suits matrices whose rows are ordered
+ * badly for Gauss-Seidel.
+ * <p>
+ * The levels hold work vectors used by each cycle, so one solver should not
+ * be used by several threads at once.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		IterativeSolver
+ * @see		Preconditioner
+ */
+
+package jLA.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import jLA.core.Matrix;
+import jLA.core.MatrixSizeMismatchException;
+import jLA.core.NotSquareMatrixException;
+import jLA.core.SingularMatrixException;
+import jLA.core.SparseMatrix;
+
+public class AlgebraicMultigridSolver extends IterativeSolver implements Preconditioner
+{
+   /**
+    * The smoothers available for the V-cycle.
+    *
+    * @since	1.1.0
+    */
+   public enum Smoother
+   {
+      GAUSS_SEIDEL,
+      CHEBYSHEV
+   }
+
+   public static final double DEFAULT_STRENGTH_THRESHOLD = 0.08;
+   public static final int DEFAULT_COARSE_SIZE = 400;
+
+   private static final int MAX_LEVELS = 25;
+
+   // Largest coarsest level solved with a dense factorization, and the number
+   // of smoothing sweeps used instead when coarsening stalls above it
+   private static final int DIRECT_LIMIT = 2000;
+   private static final int COARSE_SWEEPS = 20;
+
+   private Smoother smoother;
+   private int sweeps;
+   private double threshold;
+
+   private Level[] levels;
+   private LDLSolver coarseSolver = null;
+
+   /**
+    * Constructs the hierarchy for the provided matrix
+    * <p>
+    * One symmetric Gauss-Seidel sweep is used before and after each coarse
+    * correction.
+    *
+    * @param	A	The symmetric positive definite matrix to find
+    *			solutions from
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	SingularMatrixException		If A has a zero on its diagonal,
+    *						or its coarsest level is singular
+    *
+    * @since	1.1.0
+    */
+   public AlgebraicMultigridSolver(SparseMatrix A) throws NotSquareMatrixException, SingularMatrixException
+   {
+      this(A, Smoother.GAUSS_SEIDEL, 1, DEFAULT_STRENGTH_THRESHOLD);
+   }
+
+
+   /**
+    * Constructs the hierarchy for the provided matrix
+    *
+    * @param	A		The symmetric positive definite matrix to find
+    *				solutions from
+    * @param	smoother	The smoother used at each level
+    * @param	sweeps		The number of Gauss-Seidel sweeps, or the degree
+    *				of the Chebyshev polynomial, before and after
+    *				each coarse correction
+    * @param	threshold	The strength of connection threshold;  entry
+    *				(i,j) is strong if |a_ij| >= threshold *
+    *				sqrt(|a_ii a_jj|)
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	SingularMatrixException		If A has a zero on its diagonal,
+    *						or its coarsest level is singular
+    *
+    * @since	1.1.0
+    */
+   public AlgebraicMultigridSolver(SparseMatrix A, Smoother smoother, int sweeps, double threshold) throws NotSquareMatrixException, SingularMatrixException
+   {
+      super(A);
+
+      this.smoother = smoother;
+      this.sweeps = Math.max(1, sweeps);
+      this.threshold = threshold;
+
+      setup(A);
+   }
+
+
+   /**
+    * Gets the number of levels in the hierarchy
+    *
+    * @return		The number of levels, including the original system
+    *
+    * @since	1.1.0
+    */
+   public int getLevelCount()
+   {
+      return this.levels.length;
+   }
+
+
+   /**
+    * Gets the number of unknowns at a level of the hierarchy
+    *
+    * @param	level	The level, where 0 is the original system
+    *
+    * @return		The size of the system at that level
+    *
+    * @since	1.1.0
+    */
+   public int getLevelSize(int level)
+   {
+      return this.levels[level].n;
+   }
+
+
+   /**
+    * Gets the operator complexity of the hierarchy
+    * <p>
+    * This is the number of non-zeros in the matrices of every level, divided
+    * by the number of non-zeros in the original matrix, and measures both the
+    * memory and the work of a V-cycle relative to one matrix-vector product.
+    *
+    * @return		The operator complexity
+    *
+    * @since	1.1.0
+    */
+   public double getOperatorComplexity()
+   {
+      double total = 0;
+      for(Level level : this.levels)
+      {
+         total += level.rowStart[level.n];
+      }
+
+      return total / this.levels[0].rowStart[this.levels[0].n];
+   }
+
+
+   /**
+    * Solves Ax = b by V-cycles, improving an initial guess in place.
+    *
+    * @param	b	The vector b, which is not modified
+    * @param	x	On entry the initial guess, on exit the last iterate
+    *
+    * @return		True if the solver converged
+    *
+    * @since	1.1.0
+    */
+   public boolean solve(double[] b, double[] x)
+   {
+      Level fine = this.levels[0];
+
+      start();
+
+      System.arraycopy(b, 0, fine.b, 0, this.n);
+      System.arraycopy(x, 0, fine.x, 0, this.n);
+
+      double threshold = this.tolerance * norm(b);
+      fine.residual();
+      double residual = norm(fine.r);
+      record(residual);
+
+      boolean converged = residual <= threshold;
+      for(int k=0; k<this.maxIterations && !converged; k++)
+      {
+         cycle(0);
+
+         fine.residual();
+         residual = norm(fine.r);
+         record(residual);
+         converged = residual <= threshold;
+      }
+
+      System.arraycopy(fine.x, 0, x, 0, this.n);
+
+      return finish(converged);
+   }
+
+
+   /**
+    * Applies one V-cycle from a zero initial guess, for use as a preconditioner
+    *
+    * @param	r	The vector to precondition
+    * @param	z	Overwritten with the preconditioned vector
+    *
+    * @since	1.1.0
+    */
+   public void apply(double[] r, double[] z)
+   {
+      Level fine = this.levels[0];
+
+      System.arraycopy(r, 0, fine.b, 0, this.n);
+      Arrays.fill(fine.x, 0.0);
+
+      cycle(0);
+
+      System.arraycopy(fine.x, 0, z, 0, this.n);
+   }
+
+
+   /**
+    * Performs a V-cycle on the x and b vectors of a level
+    *
+    * @param	l	The level to start the cycle from
+    *
+    * @since	1.1.0
+    */
+   private void cycle(int l)
+   {
+      Level level = this.levels[l];
+
+      if(l == this.levels.length - 1)
+      {
+         if(this.coarseSolver != null)
+         {
+            System.arraycopy(level.b, 0, level.x, 0, level.n);
+            this.coarseSolver.solve(level.x);
+         }
+         else
+         {
+            for(int k=0; k<COARSE_SWEEPS; k++)
+            {
+               level.forwardGaussSeidel();
+               level.backwardGaussSeidel();
+            }
+         }
+         return;
+      }
+
+      smooth(level, true);
+
+      // Restrict the residual, and correct with the coarse solution
+      Level coarse = this.levels[l+1];
+      level.residual();
+      level.R.apply(level.r, coarse.b);
+      Arrays.fill(coarse.x, 0.0);
+
+      cycle(l+1);
+
+      level.P.apply(coarse.x, level.r);
+      for(int i=0; i<level.n; i++)
+      {
+         level.x[i] += level.r[i];
+      }
+
+      smooth(level, false);
+   }
+
+
+   /**
+    * Smooths the x vector of a level
+    *
+    * @param	level	The level to smooth
+    * @param	before	True before the coarse correction, false after
+    *
+    * @since	1.1.0
+    */
+   private void smooth(Level level, boolean before)
+   {
+      if(this.smoother == Smoother.CHEBYSHEV)
+      {
+         level.chebyshev(this.sweeps);
+         return;
+      }
+
+      // Sweeping forward before and backward after keeps the cycle symmetric
+      for(int k=0; k<this.sweeps; k++)
+      {
+         if(before)
+         {
+            level.forwardGaussSeidel();
+         }
+         else
+         {
+            level.backwardGaussSeidel();
+         }
+      }
+   }
+
+
+   /**
+    * Builds the levels of the hierarchy
+    *
+    * @throws	SingularMatrixException		If a level has a zero on its
+    *						diagonal, or the coarsest level
+    *						is singular
+    *
+    * @since	1.1.0
+    */
+   private void setup(SparseMatrix A) throws SingularMatrixException
+   {
+      ArrayList<Level> hierarchy = new ArrayList<Level>();
+      SparseMatrix current = A;
+
+      try
+      {
+         while(true)
+         {
+            Level level = new Level(current);
+            hierarchy.add(level);
+
+            if(level.n <= DEFAULT_COARSE_SIZE || hierarchy.size() == MAX_LEVELS)
+            {
+               break;
+            }
+
+            int[] aggregate = new int[level.n];
+            int count = aggregate(level, aggregate);
+
+            // Stop if coarsening has stalled
+            if(count == 0 || count > 0.9 * level.n)
+            {
+               break;
+            }
+
+            level.P = prolongator(current, level, aggregate, count);
+            level.R = level.P.transpose();
+            current = level.R.multiply(current.multiply(level.P));
+         }
+      }
+      catch(MatrixSizeMismatchException e)
+      {
+         // The prolongator is built to match the level, so this cannot happen
+         throw new IllegalStateException(e);
+      }
+
+      this.levels = hierarchy.toArray(new Level[hierarchy.size()]);
+
+      Level coarsest = this.levels[this.levels.length-1];
+      if(coarsest.n <= DIRECT_LIMIT)
+      {
+         try
+         {
+            this.coarseSolver = new LDLSolver(coarsest.toMatrix());
+         }
+         catch(NotSquareMatrixException e)
+         {
+            throw new IllegalStateException(e);
+         }
+      }
+   }
+
+
+   /**
+    * Groups the strongly connected unknowns of a level into aggregates
+    * <p>
+    * Unknowns with no strong connections are left out of every aggregate
+    * (marked -1), since the smoother alone removes their error.
+    *
+    * @param	level		The level to coarsen
+    * @param	aggregate	Filled with the aggregate of each unknown
+    *
+    * @return			The number of aggregates
+    *
+    * @since	1.1.0
+    */
+   private int aggregate(Level level, int[] aggregate)
+   {
+      final int UNASSIGNED = -2;
+      final int ISOLATED = -1;
+
+      int n = level.n;
+      int[] rowStart = level.rowStart;
+      int[] colIndex = level.colIndex;
+
+      boolean[] strong = strength(level);
+
+      Arrays.fill(aggregate, UNASSIGNED);
+      for(int i=0; i<n; i++)
+      {
+         aggregate[i] = ISOLATED;
+         for(int p=rowStart[i]; p<rowStart[i+1]; p++)
+         {
+            if(strong[p])
+            {
+               aggregate[i] = UNASSIGNED;
+               break;
+            }
+         }
+      }
+
+      // First pass:  unknowns whose strong neighbours are all free start an
+      // aggregate made of themselves and those neighbours
+      int count = 0;
+      for(int i=0; i<n; i++)
+      {
+         if(aggregate[i] != UNASSIGNED)
+         {
+            continue;
+         }
+
+         boolean free = true;
+         for(int p=rowStart[i]; p<rowStart[i+1] && free; p++)
+         {
+            free = !strong[p] || aggregate[colIndex[p]] == UNASSIGNED;
+         }
+
+         if(free)
+         {
+            aggregate[i] = count;
+            for(int p=rowStart[i]; p<rowStart[i+1]; p++)
+            {
+               if(strong[p])
+               {
+                  aggregate[colIndex[p]] = count;
+               }
+            }
+            count++;
+         }
+      }
+
+      // Second pass:  join the remaining unknowns to the aggregate of their
+      // strongest neighbour from the first pass
+      int[] firstPass = aggregate.clone();
+      for(int i=0; i<n; i++)
+      {
+         if(aggregate[i] != UNASSIGNED)
+         {
+            continue;
+         }
+
+         double largest = 0;
+         for(int p=rowStart[i]; p<rowStart[i+1]; p++)
+         {
+            int j = colIndex[p];
+            if(strong[p] && firstPass[j] >= 0 && Math.abs(level.values[p]) > largest)
+            {
+               largest = Math.abs(level.values[p]);
+               aggregate[i] = firstPass[j];
+            }
+         }
+      }
+
+      // Anything left over (only possible for unsymmetric strength) becomes
+      // an aggregate of its own
+      for(int i=0; i<n; i++)
+      {
+         if(aggregate[i] == UNASSIGNED)
+         {
+            aggregate[i] = count++;
+         }
+      }
+
+      return count;
+   }
+
+
+   /**
+    * Finds the strong off-diagonal entries of a level
+    *
+    * @param	level	The level to measure
+    *
+    * @return		Whether each stored entry is a strong connection
+    *
+    * @since	1.1.0
+    */
+   private boolean[] strength(Level level)
+   {
+      int[] rowStart = level.rowStart;
+      int[] colIndex = level.colIndex;
+      double[] values = level.values;
+      double[] inverse = level.inverseDiagonal;
+
+      boolean[] strong = new boolean[rowStart[level.n]];
+      double threshold2 = this.threshold * this.threshold;
+
+      for(int i=0; i<level.n; i++)
+      {
+         for(int p=rowStart[i]; p<rowStart[i+1]; p++)
+         {
+            int j = colIndex[p];
+            // |a_ij|^2 >= threshold^2 |a_ii a_jj|
+            strong[p] = (j != i) && values[p]*values[p] * Math.abs(inverse[i]*inverse[j]) >= threshold2;
+         }
+      }
+
+      return strong;
+   }
+
+
+   /**
+    * Builds the smoothed prolongator P = (I - w D^-1 A) T of a level
+    * <p>
+    * Column a of the tentative prolongator T is the normalized indicator of
+    * aggregate a.  The damping w = 4 / (3 lambda) uses an upper bound lambda
+    * on the spectral radius of D^-1 A.
+    *
+    * @param	A		The matrix of the level, by columns
+    * @param	level		The level
+    * @param	aggregate	The aggregate of each unknown, or -1
+    * @param	count		The number of aggregates
+    *
+    * @return			The prolongator from the aggregates to the level
+    *
+    * @since	1.1.0
+    */
+   private static SparseMatrix prolongator(SparseMatrix A, Level level, int[] aggregate, int count)
+   {
+      int n = level.n;
+      double omega = 4.0 / (3.0 * level.lambdaMax);
+
+      // List the members of each aggregate
+      int[] start = new int[count+1];
+      for(int i=0; i<n; i++)
+      {
+         if(aggregate[i] >= 0)
+         {
+            start[aggregate[i]+1]++;
+         }
+      }
+      for(int a=0; a<count; a++)
+      {
+         start[a+1] += start[a];
+      }
+      int[] members = new int[start[count]];
+      int[] next = Arrays.copyOf(start, count);
+      for(int i=0; i<n; i++)
+      {
+         if(aggregate[i] >= 0)
+         {
+            members[next[aggregate[i]]++] = i;
+         }
+      }
+
+      SparseMatrix P = new SparseMatrix(n, count);
+      double[] work = new double[n];
+      int[] mark = new int[n];
+      int[] pattern = new int[n];
+      double[] value = new double[n];
+      Arrays.fill(mark, -1);
+
+      for(int a=0; a<count; a++)
+      {
+         double t = 1.0 / Math.sqrt(start[a+1] - start[a]);
+         int size = 0;
+
+         // work = A T_a, over the pattern of the columns of the members
+         for(int q=start[a]; q<start[a+1]; q++)
+         {
+            int k = members[q];
+            int[] rowIndex = A.getColumnRowIndices(k);
+            double[] columnValue = A.getColumnValues(k);
+
+            for(int p=0; p<A.getColumnNonZeroCount(k); p++)
+            {
+               int i = rowIndex[p];
+               if(mark[i] != a)
+               {
+                  mark[i] = a;
+                  pattern[size++] = i;
+                  work[i] = 0;
+               }
+               work[i] += columnValue[p] * t;
+            }
+         }
+
+         for(int p=0; p<size; p++)
+         {
+            int i = pattern[p];
+            value[p] = -omega * level.inverseDiagonal[i] * work[i];
+            if(aggregate[i] == a)
+            {
+               value[p] += t;
+            }
+         }
+
+         P.setColumn(a, pattern, value, size);
+      }
+
+      return P;
+   }
+
+
+   /**
+    * One level of the hierarchy:  its matrix by rows, the transfer operators
+    * to the next level, and work vectors.
+    *
+    * @since	1.1.0
+    */
+   private static class Level
+   {
+      private int n;
+      private int[] rowStart, colIndex;
+      private double[] values, inverseDiagonal;
+      private double lambdaMax;
+
+      private SparseMatrix P = null, R = null;
+      private double[] x, b, r, d;
+
+      /**
+       * Copies a matrix into compressed rows, and checks its diagonal
+       *
+       * @throws	SingularMatrixException		If a diagonal entry is zero
+       */
+      Level(SparseMatrix A) throws SingularMatrixException
+      {
+         CompressedRows rows = new CompressedRows(A);
+
+         this.n = rows.n;
+         this.rowStart = rows.rowStart;
+         this.colIndex = rows.colIndex;
+         this.values = rows.values;
+         this.inverseDiagonal = new double[this.n];
+         this.lambdaMax = 0;
+
+         for(int i=0; i<this.n; i++)
+         {
+            double diagonal = rows.getDiagonal(i);
+            if(diagonal == 0)
+            {
+               throw new SingularMatrixException("Diagonal entry " + i + " is zero.");
+            }
+            this.inverseDiagonal[i] = 1.0 / diagonal;
+
+            // Gershgorin bound on the spectral radius of D^-1 A
+            double rowSum = 0;
+            for(int p=this.rowStart[i]; p<this.rowStart[i+1]; p++)
+            {
+               rowSum += Math.abs(this.values[p]);
+            }
+            this.lambdaMax = Math.max(this.lambdaMax, rowSum / Math.abs(diagonal));
+         }
+
+         this.x = new double[this.n];
+         this.b = new double[this.n];
+         this.r = new double[this.n];
+      }
+
+
+      /**
+       * Computes r = b - Ax
+       */
+      void residual()
+      {
+         for(int i=0; i<this.n; i++)
+         {
+            double sum = this.b[i];
+            for(int p=this.rowStart[i]; p<this.rowStart[i+1]; p++)
+            {
+               sum -= this.values[p] * this.x[this.colIndex[p]];
+            }
+            this.r[i] = sum;
+         }
+      }
+
+
+      /**
+       * Performs one Gauss-Seidel sweep in increasing row order
+       */
+      void forwardGaussSeidel()
+      {
+         for(int i=0; i<this.n; i++)
+         {
+            relax(i);
+         }
+      }
+
+
+      /**
+       * Performs one Gauss-Seidel sweep in decreasing row order
+       */
+      void backwardGaussSeidel()
+      {
+         for(int i=this.n-1; i>=0; i--)
+         {
+            relax(i);
+         }
+      }
+
+
+      /**
+       * Solves row i for x_i, using the current values of the other unknowns
+       */
+      private void relax(int i)
+      {
+         double sum = this.b[i];
+         for(int p=this.rowStart[i]; p<this.rowStart[i+1]; p++)
+         {
+            sum -= this.values[p] * this.x[this.colIndex[p]];
+         }
+         this.x[i] += sum * this.inverseDiagonal[i];
+      }
+
+
+      /**
+       * Applies a Chebyshev polynomial in D^-1 A to the error
+       * <p>
+       * The polynomial is smallest over the upper part of the spectrum of
+       * D^-1 A, [lambdaMax / 30, lambdaMax], which holds the rapidly varying
+       * error.
+       *
+       * @param	degree	The degree of the polynomial
+       */
+      void chebyshev(int degree)
+      {
+         if(this.d == null)
+         {
+            this.d = new double[this.n];
+         }
+
+         double upper = this.lambdaMax;
+         double lower = upper / 30.0;
+         double theta = 0.5 * (upper + lower);
+         double delta = 0.5 * (upper - lower);
+         double sigma = theta / delta;
+         double rho = 1.0 / sigma;
+
+         residual();
+         for(int i=0; i<this.n; i++)
+         {
+            this.d[i] = this.inverseDiagonal[i] * this.r[i] / theta;
+         }
+
+         for(int k=0; k<degree; k++)
+         {
+            for(int i=0; i<this.n; i++)
+            {
+               this.x[i] += this.d[i];
+            }
+
+            if(k == degree-1)
+            {
+               break;
+            }
+
+            // r = r - A d
+            for(int i=0; i<this.n; i++)
+            {
+               double sum = 0;
+               for(int p=this.rowStart[i]; p<this.rowStart[i+1]; p++)
+               {
+                  sum += this.values[p] * this.d[this.colIndex[p]];
+               }
+               this.r[i] -= sum;
+            }
+
+            double rhoNext = 1.0 / (2.0*sigma - rho);
+            for(int i=0; i<this.n; i++)
+            {
+               this.d[i] = rhoNext*rho*this.d[i] + (2.0*rhoNext/delta) * this.inverseDiagonal[i] * this.r[i];
+            }
+            rho = rhoNext;
+         }
+      }
+
+
+      /**
+       * Copies the matrix of the level into a dense matrix
+       */
+      Matrix toMatrix()
+      {
+         Matrix A = new Matrix(this.n, this.n);
+         for(int i=0; i<this.n; i++)
+         {
+            for(int p=this.rowStart[i]; p<this.rowStart[i+1]; p++)
+            {
+               A.set(i, this.colIndex[p], this.values[p]);
+            }
+         }
+
+         return A;
+      }
+   }
+}
@@ -0,0 +1,343 @@
+/**
+ * An asynchronous facade for the factorizations and solvers.
+ * <p>
+ * Factoring a large matrix takes seconds to minutes of CPU time.  Running it
+ * directly on a request handler thread (in particular on a virtual thread,
+ * whose carrier thread is then held for the whole computation) starves the
+ * other requests.  This class instead runs the computations on its own
+ * bounded pool of platform threads, sized to the number of processors by
+ * default, and returns a CompletableFuture for each.  Callers can compose the
+ * futures, or wait on them;  a virtual thread waiting on a future parks
+ * without holding a carrier thread.
+ * <p>
+ * Each request may have a timeout, after which its future completes
+ * exceptionally with a TimeoutException.  Cancelling a future, or its
+ * timeout expiring, interrupts the pool thread running the computation, and
+ * the factorizations and iterative solvers stop at their next cancellation
+ * checkpoint (see {@link Cancellation}), typically within one column of work.
+ * Requests still waiting in the queue are never started.
+ * <p>
+ * The pool threads are daemon threads, but clients should {@link #close()}
+ * the solver once they are finished with it.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		Cancellation
+ */
+
+package jLA.solver;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import jLA.core.Cancellation;
+import jLA.core.Matrix;
+import jLA.linearLeastSquares.NormalEquationSolver;
+
+public class AsyncSolver implements AutoCloseable
+{
+   private static final AtomicInteger poolNumber = new AtomicInteger();
+
+   private ExecutorService pool;
+   private ScheduledExecutorService timer;
+
+   /**
+    * Creates a solver with one pool thread per available processor
+    *
+    * @since	1.1.0
+    */
+   public AsyncSolver()
+   {
+      this(Runtime.getRuntime().availableProcessors());
+   }
+
+
+   /**
+    * Creates a solver with a fixed number of pool threads
+    *
+    * @param	threads	The largest number of computations run at once
+    *
+    * @since	1.1.0
+    */
+   public AsyncSolver(int threads)
+   {
+      String prefix = "jLA-compute-" + poolNumber.incrementAndGet() + "-";
+
+      this.pool = Executors.newFixedThreadPool(Math.max(1, threads), new DaemonThreadFactory(prefix));
+      this.timer = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory(prefix + "timer-"));
+   }
+
+
+   /**
+    * Factors a matrix with partial pivoting
+    *
+    * @param	A	The matrix to find solutions from
+    *
+    * @return		A future for the solver of A
+    *
+    * @since	1.1.0
+    */
+   public CompletableFuture<LUSolverPartialPivot> factor(Matrix A)
+   {
+      return factor(A, 0, TimeUnit.MILLISECONDS);
+   }
+
+
+   /**
+    * Factors a matrix with partial pivoting, within a time limit
+    *
+    * @param	A	The matrix to find solutions from
+    * @param	timeout	The time limit, or 0 for none
+    * @param	unit	The unit of the time limit
+    *
+    * @return		A future for the solver of A
+    *
+    * @since	1.1.0
+    */
+   public CompletableFuture<LUSolverPartialPivot> factor(final Matrix A, long timeout, TimeUnit unit)
+   {
+      return submit(new Callable<LUSolverPartialPivot>()
+      {
+         public LUSolverPartialPivot call()
+         {
+            return new LUSolverPartialPivot(A);
+         }
+      }, timeout, unit);
+   }
+
+
+   /**
+    * Determine the solution of the system of equations Ax = b
+    *
+    * @param	A	The matrix A in the system Ax = b
+    * @param	b	The vector b in the system Ax = b
+    *
+    * @return		A future for the vector x which satisfies Ax = b
+    *
+    * @since	1.1.0
+    */
+   public CompletableFuture<Matrix> solve(Matrix A, Matrix b)
+   {
+      return solve(A, b, 0, TimeUnit.MILLISECONDS);
+   }
+
+
+   /**
+    * Determine the solution of the system of equations Ax = b, within a
+    * time limit
+    *
+    * @param	A	The matrix A in the system Ax = b
+    * @param	b	The vector b in the system Ax = b
+    * @param	timeout	The time limit, or 0 for none
+    * @param	unit	The unit of the time limit
+    *
+    * @return		A future for the vector x which satisfies Ax = b
+    *
+    * @since	1.1.0
+    */
+   public CompletableFuture<Matrix> solve(final Matrix A, final Matrix b, long timeout, TimeUnit unit)
+   {
+      return submit(new Callable<Matrix>()
+      {
+         public Matrix call()
+         {
+            return new LUSolverPartialPivot(A).solve(b);
+         }
+      }, timeout, unit);
+   }
+
+
+   /**
+    * Solves with an existing solver
+    *
+    * @param	solver	The solver to find solutions with
+    * @param	b	The vector b in the system Ax = b
+    *
+    * @return		A future for the vector x which satisfies Ax = b
+    *
+    * @since	1.1.0
+    */
+   public CompletableFuture<Matrix> solve(final LUSolverPartialPivot solver, final Matrix b)
+   {
+      return submit(new Callable<Matrix>()
+      {
+         public Matrix call()
+         {
+            return solver.solve(b);
+         }
+      }, 0, TimeUnit.MILLISECONDS);
+   }
+
+
+   /**
+    * Determine the least squares solution of Ax = b, within a time limit
+    *
+    * @param	A	The matrix A in the system Ax = b
+    * @param	b	The vector b in the system Ax = b
+    * @param	timeout	The time limit, or 0 for none
+    * @param	unit	The unit of the time limit
+    *
+    * @return		A future for the least squares solution x
+    *
+    * @see		NormalEquationSolver
+    *
+    * @since	1.1.0
+    */
+   public CompletableFuture<Matrix> leastSquares(final Matrix A, final Matrix b, long timeout, TimeUnit unit)
+   {
+      return submit(new Callable<Matrix>()
+      {
+         public Matrix call() throws Exception
+         {
+            return NormalEquationSolver.solve(A, b);
+         }
+      }, timeout, unit);
+   }
+
+
+   /**
+    * Runs any computation on the pool, within a time limit
+    * <p>
+    * The future completes with the result of the computation, or
+    * exceptionally with the exception it threw.  Long computations should
+    * call {@link Cancellation#checkpoint()} regularly, so that they can be
+    * cancelled.
+    *
+    * @param	task	The computation to run
+    * @param	timeout	The time limit, or 0 for none
+    * @param	unit	The unit of the time limit
+    *
+    * @return		A future for the result of the computation
+    *
+    * @since	1.1.0
+    */
+   public <T> CompletableFuture<T> submit(Callable<T> task, final long timeout, final TimeUnit unit)
+   {
+      final CompletableFuture<T> result = new CompletableFuture<T>();
+      final FutureTask<T> work = new ForwardingTask<T>(task, result);
+
+      final ScheduledFuture<?> deadline;
+      if(timeout > 0)
+      {
+         deadline = this.timer.schedule(new Runnable()
+         {
+            public void run()
+            {
+               result.completeExceptionally(new TimeoutException("Computation did not finish within " + timeout + " " + unit.toString().toLowerCase() + "."));
+            }
+         }, timeout, unit);
+      }
+      else
+      {
+         deadline = null;
+      }
+
+      // If the future completes before the computation (cancelled, or timed
+      // out), interrupt the computation
+      result.whenComplete(new BiConsumer<T, Throwable>()
+      {
+         public void accept(T value, Throwable error)
+         {
+            if(!work.isDone())
+            {
+               work.cancel(true);
+            }
+            if(deadline != null)
+            {
+               deadline.cancel(false);
+            }
+         }
+      });
+
+      this.pool.execute(work);
+
+      return result;
+   }
+
+
+   /**
+    * Stops the pool, interrupting any computations still running
+    *
+    * @since	1.1.0
+    */
+   public void close()
+   {
+      this.pool.shutdownNow();
+      this.timer.shutdownNow();
+   }
+
+
+   /**
+    * Runs a computation, and passes its outcome on to a CompletableFuture.
+    *
+    * @since	1.1.0
+    */
+   private static class ForwardingTask<T> extends FutureTask<T>
+   {
+      private CompletableFuture<T> result;
+
+      ForwardingTask(Callable<T> task, CompletableFuture<T> result)
+      {
+         super(task);
+         this.result = result;
+      }
+
+      protected void done()
+      {
+         try
+         {
+            this.result.complete(get());
+         }
+         catch(CancellationException e)
+         {
+            this.result.cancel(false);
+         }
+         catch(ExecutionException e)
+         {
+            this.result.completeExceptionally(e.getCause());
+         }
+         catch(InterruptedException e)
+         {
+            // The task is done, so get() does not wait
+            Thread.currentThread().interrupt();
+         }
+      }
+   }
+
+
+   /**
+    * Creates named daemon threads for the pool.
+    *
+    * @since	1.1.0
+    */
+   private static class DaemonThreadFactory implements ThreadFactory
+   {
+      private String prefix;
+      private AtomicInteger count = new AtomicInteger();
+
+      DaemonThreadFactory(String prefix)
+      {
+         this.prefix = prefix;
+      }
+
+      public Thread newThread(Runnable task)
+      {
+         Thread thread = new Thread(task, this.prefix + this.count.incrementAndGet());
+         thread.setDaemon(true);
+         return thread;
+      }
+   }
+}
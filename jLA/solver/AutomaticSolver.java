@@ -0,0 +1,287 @@
+/**
+ * A solver which chooses its factorization from the structure of the matrix.
+ * <p>
+ * Many systems have structure which a general LU factorization ignores:
+ * diagonal and triangular matrices need no factorization at all, banded
+ * matrices can be factored within their band, sparse matrices within their
+ * non-zeros, and symmetric positive definite matrices with Cholesky
+ * factorization at half the cost of LU.  This solver scans the matrix once
+ * when it is constructed, recording its bandwidths, symmetry, sign of the
+ * diagonal and number of non-zeros, and then uses the cheapest applicable
+ * strategy.  The scan costs O(n^2) operations, and stops early once the
+ * matrix is known to be dense, unsymmetric and unbanded.
+ * <p>
+ * Symmetric matrices with a positive diagonal are only candidates for being
+ * positive definite;  if the Cholesky factorization fails, the solver falls
+ * back to LU factorization with partial pivoting.  The strategy finally used
+ * can be read with {@link #getStrategy()}.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ */
+
+package jLA.solver;
+
+import jLA.core.Matrix;
+import jLA.core.MatrixSizeMismatchException;
+import jLA.core.NotPositiveDefiniteException;
+import jLA.core.NotSquareMatrixException;
+import jLA.core.SingularMatrixException;
+import jLA.core.SparseMatrix;
+
+public class AutomaticSolver
+{
+   /**
+    * The strategies the solver can choose from.
+    *
+    * @since	1.1.0
+    */
+   public enum Strategy
+   {
+      DIAGONAL,
+      LOWER_TRIANGULAR,
+      UPPER_TRIANGULAR,
+      BANDED,
+      SPARSE_CHOLESKY,
+      SPARSE_LU,
+      CHOLESKY,
+      LU
+   }
+
+   // Matrices with at most this fraction of non-zeros are treated as sparse
+   private static final double SPARSE_DENSITY = 0.1;
+
+   // Smaller matrices are always factored densely
+   private static final int SPARSE_MIN_SIZE = 64;
+
+   private Strategy strategy;
+   private int n;
+
+   private Matrix A = null;
+   private double[] inverseDiagonal = null;
+   private BandedSolver banded = null;
+   private SparseCholeskySolver sparseCholesky = null;
+   private SparseLUSolver sparseLU = null;
+   private CholeskySolver cholesky = null;
+   private LUSolverPartialPivot LU = null;
+
+   /**
+    * Constructs the solver for the provided matrix
+    *
+    * @param	A	The matrix to find solutions from
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	SingularMatrixException		If A is detected to be singular
+    *
+    * @since	1.1.0
+    */
+   public AutomaticSolver(Matrix A) throws NotSquareMatrixException, SingularMatrixException
+   {
+      if(!A.isSquare())
+      {
+         String msg = "Cannot solve " + A.getSize()[0] + "x" + A.getSize()[1] + " system.";
+         throw new NotSquareMatrixException(msg);
+      }
+
+      int n = A.getSize()[0];
+      this.n = n;
+
+      // Scan the matrix once for its structure
+      int kl = 0;
+      int ku = 0;
+      long nonZeros = 0;
+      boolean symmetric = true;
+      boolean positiveDiagonal = true;
+      boolean zeroDiagonal = false;
+
+      long sparseLimit = (long) (SPARSE_DENSITY * n * n);
+      int bandLimit = bandLimit(n);
+
+      for(int i=0; i<n; i++)
+      {
+         for(int j=0; j<n; j++)
+         {
+            double value = A.get(i,j);
+            if(value != 0)
+            {
+               nonZeros++;
+               kl = Math.max(kl, i-j);
+               ku = Math.max(ku, j-i);
+            }
+            if(symmetric && j < i && value != A.get(j,i))
+            {
+               symmetric = false;
+            }
+            if(i == j)
+            {
+               positiveDiagonal = positiveDiagonal && value > 0;
+               zeroDiagonal = zeroDiagonal || value == 0;
+            }
+         }
+
+         // Nothing but general LU applies to what is left
+         if(!symmetric && nonZeros > sparseLimit && kl + ku > bandLimit && kl > 0 && ku > 0)
+         {
+            this.strategy = Strategy.LU;
+            this.LU = new LUSolverPartialPivot(A);
+            return;
+         }
+      }
+
+      boolean triangular = (kl == 0 || ku == 0);
+      if(triangular && zeroDiagonal)
+      {
+         throw new SingularMatrixException("Triangular matrix has a zero on its diagonal.");
+      }
+
+      if(kl == 0 && ku == 0)
+      {
+         this.strategy = Strategy.DIAGONAL;
+         this.inverseDiagonal = new double[n];
+         for(int i=0; i<n; i++)
+         {
+            this.inverseDiagonal[i] = 1.0 / A.get(i,i);
+         }
+      }
+      else if(ku == 0)
+      {
+         this.strategy = Strategy.LOWER_TRIANGULAR;
+         this.A = A;
+      }
+      else if(kl == 0)
+      {
+         this.strategy = Strategy.UPPER_TRIANGULAR;
+         this.A = A;
+      }
+      else if(kl + ku <= bandLimit)
+      {
+         this.strategy = Strategy.BANDED;
+         this.banded = new BandedSolver(A, kl, ku);
+      }
+      else if(nonZeros <= sparseLimit && n >= SPARSE_MIN_SIZE)
+      {
+         SparseMatrix S = SparseMatrix.fromMatrix(A);
+         if(symmetric && positiveDiagonal)
+         {
+            try
+            {
+               this.sparseCholesky = new SparseCholeskySolver(S);
+               this.strategy = Strategy.SPARSE_CHOLESKY;
+            }
+            catch(NotPositiveDefiniteException e)
+            {
+               this.sparseCholesky = null;
+            }
+         }
+         if(this.sparseCholesky == null)
+         {
+            this.strategy = Strategy.SPARSE_LU;
+            this.sparseLU = new SparseLUSolver(S);
+         }
+      }
+      else
+      {
+         if(symmetric && positiveDiagonal)
+         {
+            try
+            {
+               this.cholesky = new CholeskySolver(A);
+               this.strategy = Strategy.CHOLESKY;
+            }
+            catch(NotPositiveDefiniteException e)
+            {
+               this.cholesky = null;
+            }
+         }
+         if(this.cholesky == null)
+         {
+            this.strategy = Strategy.LU;
+            this.LU = new LUSolverPartialPivot(A);
+         }
+      }
+   }
+
+
+   /**
+    * Gets the strategy chosen for the matrix
+    *
+    * @return		The strategy used to solve
+    *
+    * @since	1.1.0
+    */
+   public Strategy getStrategy()
+   {
+      return this.strategy;
+   }
+
+
+   /**
+    * Determine the solution of the system of equations Ax = b
+    *
+    * @param	b	The vector b in the system Ax = b, or a matrix with
+    *			one right-hand side per column
+    *
+    * @return		The vector x which satisfies Ax = b
+    *
+    * @throws	MatrixSizeMismatchException	If b has the wrong number of rows
+    *
+    * @since	1.1.0
+    */
+   public Matrix solve(Matrix b) throws MatrixSizeMismatchException
+   {
+      if(b.getSize()[0] != this.n)
+      {
+         String msg = "Cannot solve " + this.n + "x" + this.n + " system with " + b.getSize()[0] + "x" + b.getSize()[1] + " right-hand side.";
+         throw new MatrixSizeMismatchException(msg);
+      }
+
+      switch(this.strategy)
+      {
+         case DIAGONAL:
+            Matrix x = new Matrix(this.n, b.getSize()[1]);
+            for(int i=0; i<this.n; i++)
+            {
+               for(int c=0; c<b.getSize()[1]; c++)
+               {
+                  x.set(i, c, b.get(i,c) * this.inverseDiagonal[i]);
+               }
+            }
+            return x;
+
+         case LOWER_TRIANGULAR:
+            return ForwardSubstitution.solve(this.A, b);
+
+         case UPPER_TRIANGULAR:
+            return BackwardSubstitution.solve(this.A, b);
+
+         case BANDED:
+            return this.banded.solve(b);
+
+         case SPARSE_CHOLESKY:
+            return this.sparseCholesky.solve(b);
+
+         case SPARSE_LU:
+            return this.sparseLU.solve(b);
+
+         case CHOLESKY:
+            return this.cholesky.solve(b);
+
+         default:
+            return this.LU.solve(b);
+      }
+   }
+
+
+   /**
+    * Gets the widest band (kl + ku) worth factoring as a band
+    * <p>
+    * Band LU with fill takes about n kl (kl + ku) operations, so the band is
+    * used while it is narrow compared to the matrix.
+    *
+    * @since	1.1.0
+    */
+   private static int bandLimit(int n)
+   {
+      return n / 8;
+   }
+}
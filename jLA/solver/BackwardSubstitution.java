@@ -4,27 +4,63 @@
  * Backward substitution can be used when the provided system of equations form
  * an upper triangular matrix.  In other words, it solves the system Ux = b, 
  * where U is upper triangular.
+ * <p>
+ * Several right-hand sides can be solved at once by passing a matrix b with
+ * one column per right-hand side.  The rows of U are processed in tiles, and
+ * each tile is applied to a whole block of columns of b before moving on, so
+ * U is read from memory once per block of columns rather than once per
+ * column.  Blocks of columns are independent, and can be solved in parallel.
  *
  * @author	Dana Hughes	dana.hughes@colorado.edu
- * @version	1.0.0
+ * @version	1.1.0
  */
 package jLA.solver;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 import jLA.core.Matrix;
 
 public class BackwardSubstitution
 {
+   // Number of rows / columns of A in a tile
+   private static final int TILE_SIZE = 64;
+
+   // Number of right-hand sides solved together
+   private static final int COLUMN_BLOCK = 64;
+
    /**
     * Solve the system of equations.
     *
     * @param 	A	The upper-triangular matrix
-    * @param	b	The solution vector
+    * @param	b	The solution vector, or a matrix with one right-hand
+    *			side per column
     *
     * @return		The solution vector x for the system Ax=b
     *
     * @since	1.0.0
     */
    public static Matrix solve(Matrix A, Matrix b)
+   {
+      return solve(A, b, false);
+   }
+
+
+   /**
+    * Solve the system of equations for several right-hand sides.
+    * <p>
+    * The columns of b are split into blocks, and when parallel is true the
+    * blocks are solved concurrently on the common fork/join pool.
+    *
+    * @param 	A		The upper-triangular matrix
+    * @param	b		A matrix with one right-hand side per column
+    * @param	parallel	Whether to solve blocks of columns in parallel
+    *
+    * @return		The solution matrix X for the system AX=b
+    *
+    * @since	1.1.0
+    */
+   public static Matrix solve(Matrix A, Matrix b, boolean parallel)
    {
       // Check that the matrices match the necessary conditions
 
@@ -33,34 +69,190 @@ public class BackwardSubstitution
          // Throw an exception
       }
 
-      // Make sure b is a vector
-      if(b.getSize()[1] != 1)
+      int n = b.getSize()[0];
+      int k = b.getSize()[1];
+
+      // Work on a copy of b, one array per row
+      double[][] x = new double[n][k];
+      for(int i=0; i<n; i++)
       {
-         // Throw an exception
+         for(int c=0; c<k; c++)
+         {
+            x[i][c] = b.get(i,c);
+         }
+      }
+
+      if(parallel && k > COLUMN_BLOCK)
+      {
+         ForkJoinPool.commonPool().invoke(new ColumnTask(A, x, 0, k));
+      }
+      else
+      {
+         for(int c0=0; c0<k; c0+=COLUMN_BLOCK)
+         {
+            solveColumns(A, x, c0, Math.min(k, c0+COLUMN_BLOCK));
+         }
+      }
+
+      Matrix solution = new Matrix(n, k);
+      for(int i=0; i<n; i++)
+      {
+         for(int c=0; c<k; c++)
+         {
+            solution.set(i, c, x[i][c]);
+         }
+      }
+
+      return solution;
+   }
+
+
+   /**
+    * Solves the system of equations Ax = b in place.
+    *
+    * @param 	A	The upper-triangular matrix
+    * @param	b	On entry the vector b, on exit the solution x
+    *
+    * @since	1.1.0
+    */
+   public static void solve(Matrix A, double[] b)
+   {
+      int n = b.length;
+
+      for(int i=n-1; i>=0; i--)
+      {
+         double sum = b[i];
+         for(int j=i+1; j<n; j++)
+         {
+            sum -= A.get(i,j) * b[j];
+         }
+         b[i] = sum / A.get(i,i);
       }
+   }
 
-      Matrix x = new Matrix(b.getSize()[0], b.getSize()[1]);
-      Matrix bCopy = b.copy();
 
-      // Loop backwards over columns
-      for(int j=A.getSize()[1]-1; j>=0; j--)
+   /**
+    * Solves the system of equations A^T x = b in place.
+    * <p>
+    * The transpose of the lower-triangular matrix A is upper triangular, so
+    * the system is solved from the last row up without forming A^T.
+    *
+    * @param 	A	The lower-triangular matrix
+    * @param	b	On entry the vector b, on exit the solution x
+    *
+    * @since	1.1.0
+    */
+   public static void solveTranspose(Matrix A, double[] b)
+   {
+      int n = b.length;
+
+      for(int i=n-1; i>=0; i--)
       {
-         // Stop if the matrix is singular
-         if(A.get(j, j) == 0)
-         { 
-            // Matrix is singular, throw an error
+         double sum = b[i];
+         for(int j=i+1; j<n; j++)
+         {
+            sum -= A.get(j,i) * b[j];
          }
+         b[i] = sum / A.get(i,i);
+      }
+   }
+
+
+   /**
+    * Solves in place for the columns c0 to c1-1 of x.
+    *
+    * @param	A	The upper-triangular matrix
+    * @param	x	The right-hand sides, overwritten by the solution
+    * @param	c0	The first column to solve for
+    * @param	c1	One past the last column to solve for
+    *
+    * @since	1.1.0
+    */
+   private static void solveColumns(Matrix A, double[][] x, int c0, int c1)
+   {
+      int n = x.length;
 
-         // Compute solution component
-         x.set(j, 0, bCopy.get(j,0)/A.get(j,j));
+      // Rows of U are handled one tile at a time, from the bottom up, and
+      // each tile is applied to every column in [c0, c1) while it is in cache
+      int lastTile = ((n-1) / TILE_SIZE) * TILE_SIZE;
+      for(int ib=lastTile; ib>=0; ib-=TILE_SIZE)
+      {
+         int ie = Math.min(n, ib+TILE_SIZE);
 
-         // Update right-hand side
-         for(int i=0; i<j; i++)
+         for(int jb=lastTile; jb>=ib; jb-=TILE_SIZE)
          {
-            bCopy.set(i, 0, bCopy.get(i,0) - A.get(i,j) * x.get(j,0));
+            int je = Math.min(n, jb+TILE_SIZE);
+
+            for(int i=ie-1; i>=ib; i--)
+            {
+               double[] xi = x[i];
+               int jStart = Math.max(jb, i+1);
+
+               for(int j=jStart; j<je; j++)
+               {
+                  double aij = A.get(i,j);
+                  if(aij != 0)
+                  {
+                     double[] xj = x[j];
+                     for(int c=c0; c<c1; c++)
+                     {
+                        xi[c] -= aij * xj[c];
+                     }
+                  }
+               }
+
+               // The diagonal tile comes last, so row i is now complete
+               if(jb == ib)
+               {
+                  // Stop if the matrix is singular
+                  if(A.get(i, i) == 0)
+                  { 
+                     // Matrix is singular, throw an error
+                  }
+
+                  double aii = A.get(i,i);
+                  for(int c=c0; c<c1; c++)
+                  {
+                     xi[c] = xi[c] / aii;
+                  }
+               }
+            }
          }
       }
+   }
+
+
+   /**
+    * Splits the columns of the right-hand side between fork/join tasks.
+    *
+    * @since	1.1.0
+    */
+   private static class ColumnTask extends RecursiveAction
+   {
+      private Matrix A;
+      private double[][] x;
+      private int c0, c1;
+
+      ColumnTask(Matrix A, double[][] x, int c0, int c1)
+      {
+         this.A = A;
+         this.x = x;
+         this.c0 = c0;
+         this.c1 = c1;
+      }
 
-      return x;
+      protected void compute()
+      {
+         if(c1 - c0 <= COLUMN_BLOCK)
+         {
+            solveColumns(A, x, c0, c1);
+         }
+         else
+         {
+            int middle = c0 + ((c1 - c0) / COLUMN_BLOCK / 2) * COLUMN_BLOCK;
+            middle = Math.max(middle, c0 + COLUMN_BLOCK);
+            invokeAll(new ColumnTask(A, x, c0, middle), new ColumnTask(A, x, middle, c1));
+         }
+      }
    }
 }
@@ -0,0 +1,261 @@
+/**
+ * A solver for use with banded matrices.
+ * <p>
+ * A matrix has lower bandwidth kl and upper bandwidth ku if every non-zero
+ * entry (i,j) satisfies -kl <= j - i <= ku, as with tridiagonal matrices
+ * (kl = ku = 1) or the matrices of one-dimensional finite differences.  LU
+ * factorization with partial pivoting keeps L within the band, and widens U
+ * by at most kl diagonals, so only the band needs to be stored and factored.
+ * This takes O(n kl (kl + ku)) operations rather than O(n^3).
+ * <p>
+ * The band is stored row by row, in the layout of the LAPACK band routines:
+ * row i holds columns i-kl to i+ku+kl, the last kl of which receive the fill
+ * from row interchanges.  Once the factorization has been performed, it is
+ * possible to reuse the factorization to solve for multiple values of b.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ */
+
+package jLA.solver;
+
+import jLA.core.Matrix;
+import jLA.core.MatrixSizeMismatchException;
+import jLA.core.NotSquareMatrixException;
+import jLA.core.SingularMatrixException;
+
+public class BandedSolver
+{
+   private int n, kl, ku;
+
+   // Entry (i,j) of the factors is band[i][j - i + kl]
+   private double[][] band;
+   private int[] pivots;
+
+   /**
+    * Constructs the solver for the provided matrix
+    * <p>
+    * Entries of A outside of the band are ignored.
+    *
+    * @param	A	The banded matrix to find solutions from
+    * @param	kl	The lower bandwidth of A
+    * @param	ku	The upper bandwidth of A
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	SingularMatrixException		If A is singular
+    *
+    * @since	1.1.0
+    */
+   public BandedSolver(Matrix A, int kl, int ku) throws NotSquareMatrixException, SingularMatrixException
+   {
+      if(!A.isSquare())
+      {
+         String msg = "Cannot factor " + A.getSize()[0] + "x" + A.getSize()[1] + " matrix.";
+         throw new NotSquareMatrixException(msg);
+      }
+
+      this.n = A.getSize()[0];
+      this.kl = kl;
+      this.ku = ku;
+      this.band = new double[this.n][2*kl + ku + 1];
+      this.pivots = new int[this.n];
+
+      for(int i=0; i<this.n; i++)
+      {
+         for(int j=Math.max(0, i-kl); j<=Math.min(this.n-1, i+ku); j++)
+         {
+            this.band[i][j - i + kl] = A.get(i,j);
+         }
+      }
+
+      factor();
+   }
+
+
+   /**
+    * Gets the lower bandwidth of the matrix
+    *
+    * @return		The number of non-zero diagonals below the diagonal
+    *
+    * @since	1.1.0
+    */
+   public int getLowerBandwidth()
+   {
+      return this.kl;
+   }
+
+
+   /**
+    * Gets the upper bandwidth of the matrix
+    *
+    * @return		The number of non-zero diagonals above the diagonal
+    *
+    * @since	1.1.0
+    */
+   public int getUpperBandwidth()
+   {
+      return this.ku;
+   }
+
+
+   /**
+    * Determine the solution of the system of equations Ax = b
+    * <p>
+    * Each column of b is solved for separately, so b may hold several
+    * right-hand sides.
+    *
+    * @param	b	The vector b in the system Ax = b
+    *
+    * @return		The vector x which satisfies Ax = b
+    *
+    * @throws	MatrixSizeMismatchException	If b has the wrong number of rows
+    *
+    * @since	1.1.0
+    */
+   public Matrix solve(Matrix b) throws MatrixSizeMismatchException
+   {
+      int n = this.n;
+
+      if(b.getSize()[0] != n)
+      {
+         String msg = "Cannot solve " + n + "x" + n + " system with " + b.getSize()[0] + "x" + b.getSize()[1] + " right-hand side.";
+         throw new MatrixSizeMismatchException(msg);
+      }
+
+      Matrix x = new Matrix(n, b.getSize()[1]);
+      double[] work = new double[n];
+
+      for(int c=0; c<b.getSize()[1]; c++)
+      {
+         for(int i=0; i<n; i++)
+         {
+            work[i] = b.get(i,c);
+         }
+
+         solve(work);
+
+         for(int i=0; i<n; i++)
+         {
+            x.set(i, c, work[i]);
+         }
+      }
+
+      return x;
+   }
+
+
+   /**
+    * Solves Ax = b in place.
+    *
+    * @param	b	On entry the vector b, on exit the solution x
+    *
+    * @since	1.1.0
+    */
+   public void solve(double[] b)
+   {
+      int n = this.n;
+      int kl = this.kl;
+      double[][] band = this.band;
+
+      // Apply the interchanges and L, in the order they were performed
+      for(int k=0; k<n; k++)
+      {
+         int p = this.pivots[k];
+         if(p != k)
+         {
+            double tmp = b[k];
+            b[k] = b[p];
+            b[p] = tmp;
+         }
+
+         double bk = b[k];
+         if(bk != 0)
+         {
+            for(int i=k+1; i<=Math.min(n-1, k+kl); i++)
+            {
+               b[i] -= band[i][k - i + kl] * bk;
+            }
+         }
+      }
+
+      // Backward substitution with U, which has ku + kl upper diagonals
+      for(int i=n-1; i>=0; i--)
+      {
+         double sum = b[i];
+         double[] row = band[i];
+         for(int j=i+1; j<=Math.min(n-1, i+this.ku+kl); j++)
+         {
+            sum -= row[j - i + kl] * b[j];
+         }
+         b[i] = sum / row[kl];
+      }
+   }
+
+
+   /**
+    * Factors the band in place with partial pivoting
+    *
+    * @throws	SingularMatrixException		If A is singular
+    *
+    * @since	1.1.0
+    */
+   private void factor() throws SingularMatrixException
+   {
+      int n = this.n;
+      int kl = this.kl;
+      double[][] band = this.band;
+
+      for(int k=0; k<n; k++)
+      {
+         int last = Math.min(n-1, k+kl);
+         int lastCol = Math.min(n-1, k+this.ku+kl);
+
+         // Find the largest entry of column k on or below the diagonal
+         int p = k;
+         double largest = Math.abs(band[k][kl]);
+         for(int i=k+1; i<=last; i++)
+         {
+            double value = Math.abs(band[i][k - i + kl]);
+            if(value > largest)
+            {
+               largest = value;
+               p = i;
+            }
+         }
+
+         if(largest == 0)
+         {
+            throw new SingularMatrixException("Column " + k + " has no non-zero pivot.");
+         }
+
+         this.pivots[k] = p;
+         if(p != k)
+         {
+            for(int j=k; j<=lastCol; j++)
+            {
+               double tmp = band[k][j - k + kl];
+               band[k][j - k + kl] = band[p][j - p + kl];
+               band[p][j - p + kl] = tmp;
+            }
+         }
+
+         // Eliminate below the pivot, storing the multipliers in column k
+         double[] pivotRow = band[k];
+         double pivot = pivotRow[kl];
+         for(int i=k+1; i<=last; i++)
+         {
+            double[] row = band[i];
+            double multiplier = row[k - i + kl] / pivot;
+            row[k - i + kl] = multiplier;
+
+            if(multiplier != 0)
+            {
+               for(int j=k+1; j<=lastCol; j++)
+               {
+                  row[j - i + kl] -= multiplier * pivotRow[j - k + kl];
+               }
+            }
+         }
+      }
+   }
+}
@@ -0,0 +1,327 @@
+/**
+ * A solver for many small, independent systems of the same size.
+ * <p>
+ * Creating an {@link LUSolverPartialPivot} for each of millions of small
+ * systems spends more time allocating matrices than doing arithmetic.  This
+ * solver instead works on a single buffer holding every system of the batch,
+ * and performs LU factorization with partial pivoting and forward / backward
+ * substitution on all of them in lockstep, without allocating anything per
+ * system.
+ * <p>
+ * The buffers are interleaved (struct-of-arrays):  entry (i,j) of system s is
+ * stored at index (i*n + j)*count + s of the matrix buffer, and entry i of
+ * the right-hand side of system s is stored at index i*count + s.  The inner
+ * loops of the kernels therefore run over systems, with unit stride, which
+ * lets the JIT compiler fill the SIMD lanes.  Only the row interchanges are
+ * done one system at a time, since each system pivots differently.
+ * <p>
+ * The batch is split into chunks of systems which are small enough to stay in
+ * cache, and the chunks are solved in parallel on the common fork/join pool.
+ * <p>
+ * Singular systems are not detected;  their solutions will contain infinite
+ * or NaN entries, which clients can check for.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		LUSolverPartialPivot
+ */
+
+package jLA.solver;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import jLA.core.MatrixSizeMismatchException;
+
+public class BatchedLUSolver
+{
+   // Approximate number of matrix entries handled by one chunk of systems
+   private static final int CHUNK_ENTRIES = 32768;
+
+   /**
+    * Factors and solves every system of the batch in place.
+    * <p>
+    * On return, the matrix buffer holds the LU factors of each system, and
+    * the right-hand side buffer holds the solutions.
+    *
+    * @param	A	The interleaved matrices, overwritten by their factors
+    * @param	b	The interleaved right-hand sides, overwritten by the
+    *			solutions
+    * @param	n	The number of rows / columns of each system
+    * @param	count	The number of systems in the batch
+    *
+    * @throws	MatrixSizeMismatchException	If the buffers are too small
+    *
+    * @since	1.1.0
+    */
+   public static void solve(double[] A, double[] b, int n, int count) throws MatrixSizeMismatchException
+   {
+      int[] pivots = new int[n*count];
+      checkSizes(A, pivots, b, n, count);
+
+      ForkJoinPool.commonPool().invoke(new BatchTask(A, pivots, b, n, count, 0, count, true));
+   }
+
+
+   /**
+    * Factors every matrix of the batch in place.
+    * <p>
+    * Entry k*count + s of the pivots holds the row which was interchanged
+    * with row k of system s.  The factors and pivots can be passed to
+    * {@link #solve(double[], int[], double[], int, int)} any number of times.
+    *
+    * @param	A	The interleaved matrices, overwritten by their factors
+    * @param	pivots	Filled with the interleaved row interchanges, at
+    *			least n*count entries long
+    * @param	n	The number of rows / columns of each system
+    * @param	count	The number of systems in the batch
+    *
+    * @throws	MatrixSizeMismatchException	If the buffers are too small
+    *
+    * @since	1.1.0
+    */
+   public static void factor(double[] A, int[] pivots, int n, int count) throws MatrixSizeMismatchException
+   {
+      checkSizes(A, pivots, null, n, count);
+
+      ForkJoinPool.commonPool().invoke(new BatchTask(A, pivots, null, n, count, 0, count, true));
+   }
+
+
+   /**
+    * Solves every system of the batch using existing factors.
+    *
+    * @param	LU	The interleaved factors from
+    *			{@link #factor(double[], int[], int, int)}
+    * @param	pivots	The interleaved row interchanges
+    * @param	b	The interleaved right-hand sides, overwritten by the
+    *			solutions
+    * @param	n	The number of rows / columns of each system
+    * @param	count	The number of systems in the batch
+    *
+    * @throws	MatrixSizeMismatchException	If the buffers are too small
+    *
+    * @since	1.1.0
+    */
+   public static void solve(double[] LU, int[] pivots, double[] b, int n, int count) throws MatrixSizeMismatchException
+   {
+      checkSizes(LU, pivots, b, n, count);
+
+      ForkJoinPool.commonPool().invoke(new BatchTask(LU, pivots, b, n, count, 0, count, false));
+   }
+
+
+   /**
+    * Makes sure the buffers can hold the whole batch
+    *
+    * @throws	MatrixSizeMismatchException	If a buffer is too small
+    *
+    * @since	1.1.0
+    */
+   private static void checkSizes(double[] A, int[] pivots, double[] b, int n, int count) throws MatrixSizeMismatchException
+   {
+      long entries = (long) n * n * count;
+
+      if(A.length < entries || pivots.length < (long) n * count || (b != null && b.length < (long) n * count))
+      {
+         String msg = "Buffers are too small for " + count + " systems of size " + n + "x" + n + ".";
+         throw new MatrixSizeMismatchException(msg);
+      }
+   }
+
+
+   /**
+    * Factors the systems s0 to s1-1 with partial pivoting.
+    *
+    * @param	A	The interleaved matrices
+    * @param	pivots	The interleaved row interchanges
+    * @param	n	The number of rows / columns of each system
+    * @param	count	The number of systems in the batch (the stride)
+    * @param	s0	The first system to factor
+    * @param	s1	One past the last system to factor
+    * @param	largest	Work space, at least s1-s0 entries long
+    * @param	pivotRow	Work space, at least s1-s0 entries long
+    *
+    * @since	1.1.0
+    */
+   static void factorChunk(double[] A, int[] pivots, int n, int count, int s0, int s1, double[] largest, int[] pivotRow)
+   {
+      for(int k=0; k<n; k++)
+      {
+         int kk = (k*n + k)*count;
+
+         // Find the largest entry on or below the diagonal of each system
+         for(int s=s0; s<s1; s++)
+         {
+            largest[s-s0] = Math.abs(A[kk + s]);
+            pivotRow[s-s0] = k;
+         }
+         for(int i=k+1; i<n; i++)
+         {
+            int ik = (i*n + k)*count;
+            for(int s=s0; s<s1; s++)
+            {
+               double value = Math.abs(A[ik + s]);
+               if(value > largest[s-s0])
+               {
+                  largest[s-s0] = value;
+                  pivotRow[s-s0] = i;
+               }
+            }
+         }
+
+         // Interchange rows, one system at a time
+         for(int s=s0; s<s1; s++)
+         {
+            int p = pivotRow[s-s0];
+            pivots[k*count + s] = p;
+            if(p != k)
+            {
+               for(int j=0; j<n; j++)
+               {
+                  int kj = (k*n + j)*count + s;
+                  int pj = (p*n + j)*count + s;
+                  double tmp = A[kj];
+                  A[kj] = A[pj];
+                  A[pj] = tmp;
+               }
+            }
+         }
+
+         // Eliminate below the pivot in every system at once
+         for(int i=k+1; i<n; i++)
+         {
+            int ik = (i*n + k)*count;
+            for(int s=s0; s<s1; s++)
+            {
+               A[ik + s] = A[ik + s] / A[kk + s];
+            }
+
+            for(int j=k+1; j<n; j++)
+            {
+               int ij = (i*n + j)*count;
+               int kj = (k*n + j)*count;
+               for(int s=s0; s<s1; s++)
+               {
+                  A[ij + s] -= A[ik + s] * A[kj + s];
+               }
+            }
+         }
+      }
+   }
+
+
+   /**
+    * Solves the systems s0 to s1-1 using their factors.
+    *
+    * @param	LU	The interleaved factors
+    * @param	pivots	The interleaved row interchanges
+    * @param	b	The interleaved right-hand sides
+    * @param	n	The number of rows / columns of each system
+    * @param	count	The number of systems in the batch (the stride)
+    * @param	s0	The first system to solve
+    * @param	s1	One past the last system to solve
+    *
+    * @since	1.1.0
+    */
+   static void solveChunk(double[] LU, int[] pivots, double[] b, int n, int count, int s0, int s1)
+   {
+      // Apply the row interchanges
+      for(int k=0; k<n; k++)
+      {
+         for(int s=s0; s<s1; s++)
+         {
+            int p = pivots[k*count + s];
+            if(p != k)
+            {
+               double tmp = b[k*count + s];
+               b[k*count + s] = b[p*count + s];
+               b[p*count + s] = tmp;
+            }
+         }
+      }
+
+      // Forward substitution with the unit lower triangular factor
+      for(int i=1; i<n; i++)
+      {
+         for(int j=0; j<i; j++)
+         {
+            int ij = (i*n + j)*count;
+            for(int s=s0; s<s1; s++)
+            {
+               b[i*count + s] -= LU[ij + s] * b[j*count + s];
+            }
+         }
+      }
+
+      // Backward substitution with the upper triangular factor
+      for(int i=n-1; i>=0; i--)
+      {
+         for(int j=i+1; j<n; j++)
+         {
+            int ij = (i*n + j)*count;
+            for(int s=s0; s<s1; s++)
+            {
+               b[i*count + s] -= LU[ij + s] * b[j*count + s];
+            }
+         }
+
+         int ii = (i*n + i)*count;
+         for(int s=s0; s<s1; s++)
+         {
+            b[i*count + s] = b[i*count + s] / LU[ii + s];
+         }
+      }
+   }
+
+
+   /**
+    * Splits a batch into cache-sized chunks of systems for the fork/join pool.
+    *
+    * @since	1.1.0
+    */
+   private static class BatchTask extends RecursiveAction
+   {
+      private double[] A, b;
+      private int[] pivots;
+      private int n, count, s0, s1;
+      private boolean factor;
+
+      BatchTask(double[] A, int[] pivots, double[] b, int n, int count, int s0, int s1, boolean factor)
+      {
+         this.A = A;
+         this.pivots = pivots;
+         this.b = b;
+         this.n = n;
+         this.count = count;
+         this.s0 = s0;
+         this.s1 = s1;
+         this.factor = factor;
+      }
+
+      protected void compute()
+      {
+         // Keep a multiple of 8 systems per chunk, so the SIMD lanes stay full
+         int chunk = Math.max(8, (CHUNK_ENTRIES / Math.max(1, n*n)) & ~7);
+
+         if(s1 - s0 > chunk)
+         {
+            int middle = s0 + (((s1 - s0) / chunk) / 2) * chunk;
+            middle = Math.max(middle, s0 + chunk);
+            invokeAll(new BatchTask(A, pivots, b, n, count, s0, middle, factor),
+                      new BatchTask(A, pivots, b, n, count, middle, s1, factor));
+            return;
+         }
+
+         if(factor)
+         {
+            factorChunk(A, pivots, n, count, s0, s1, new double[s1-s0], new int[s1-s0]);
+         }
+         if(b != null)
+         {
+            solveChunk(A, pivots, b, n, count, s0, s1);
+         }
+      }
+   }
+}
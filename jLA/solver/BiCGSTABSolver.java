@@ -0,0 +1,187 @@
+/**
+ * A BiCGSTAB solver for general square systems.
+ * <p>
+ * BiCGSTAB (stabilized bi-conjugate gradients) applies to non-symmetric
+ * matrices using a fixed amount of memory, O(n), no matter how many
+ * iterations are performed, and needs two multiplications by A per
+ * iteration.  Unlike GMRES its residual is not guaranteed to decrease at every
+ * iteration, and the method can break down (stop making progress) on some
+ * systems, in which case the solve reports that it did not converge.
+ * <p>
+ * The preconditioner is applied on the right, so the recorded residuals are
+ * those of the original system.  The work vectors are allocated when the
+ * solver is constructed, so the iterations themselves allocate nothing.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		IterativeSolver
+ */
+
+package jLA.solver;
+
+import jLA.core.LinearOperator;
+import jLA.core.NotSquareMatrixException;
+
+public class BiCGSTABSolver extends IterativeSolver
+{
+   private double[] r, rHat, p, v, s, t, pHat, sHat;
+
+   /**
+    * Constructs the solver for the provided operator
+    *
+    * @param	A	The operator to find solutions from
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    *
+    * @since	1.1.0
+    */
+   public BiCGSTABSolver(LinearOperator A) throws NotSquareMatrixException
+   {
+      super(A);
+
+      this.r = new double[this.n];
+      this.rHat = new double[this.n];
+      this.p = new double[this.n];
+      this.v = new double[this.n];
+      this.s = new double[this.n];
+      this.t = new double[this.n];
+      this.pHat = new double[this.n];
+      this.sHat = new double[this.n];
+   }
+
+
+   /**
+    * Constructs a preconditioned solver for the provided operator
+    *
+    * @param	A		The operator to find solutions from
+    * @param	preconditioner	The preconditioner, applied on the right
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    *
+    * @since	1.1.0
+    */
+   public BiCGSTABSolver(LinearOperator A, Preconditioner preconditioner) throws NotSquareMatrixException
+   {
+      this(A);
+      this.preconditioner = preconditioner;
+   }
+
+
+   /**
+    * Solves Ax = b, improving an initial guess in place.
+    *
+    * @param	b	The vector b, which is not modified
+    * @param	x	On entry the initial guess, on exit the last iterate
+    *
+    * @return		True if the solver converged
+    *
+    * @since	1.1.0
+    */
+   public boolean solve(double[] b, double[] x)
+   {
+      double[] r = this.r;
+      double[] rHat = this.rHat;
+      double[] p = this.p;
+      double[] v = this.v;
+      double[] s = this.s;
+      double[] t = this.t;
+      double[] pHat = this.pHat;
+      double[] sHat = this.sHat;
+      int n = this.n;
+
+      start();
+
+      // r = b - Ax, and the shadow residual is fixed to the first r
+      applyOperator(x, t);
+      for(int i=0; i<n; i++)
+      {
+         r[i] = b[i] - t[i];
+      }
+      System.arraycopy(r, 0, rHat, 0, n);
+
+      double threshold = this.tolerance * norm(b);
+      double residual = norm(r);
+      record(residual);
+
+      if(residual <= threshold)
+      {
+         return finish(true);
+      }
+
+      double rho = 1.0;
+      double alpha = 1.0;
+      double omega = 1.0;
+
+      for(int k=0; k<this.maxIterations; k++)
+      {
+         double rhoNext = dot(rHat, r);
+         if(rhoNext == 0)
+         {
+            return finish(false);
+         }
+
+         if(k == 0)
+         {
+            System.arraycopy(r, 0, p, 0, n);
+         }
+         else
+         {
+            double beta = (rhoNext / rho) * (alpha / omega);
+            for(int i=0; i<n; i++)
+            {
+               p[i] = r[i] + beta * (p[i] - omega * v[i]);
+            }
+         }
+         rho = rhoNext;
+
+         applyPreconditioner(p, pHat);
+         applyOperator(pHat, v);
+         alpha = rho / dot(rHat, v);
+
+         for(int i=0; i<n; i++)
+         {
+            s[i] = r[i] - alpha * v[i];
+         }
+
+         // Half way through the iteration the residual may already be small
+         double sNorm = norm(s);
+         if(sNorm <= threshold)
+         {
+            for(int i=0; i<n; i++)
+            {
+               x[i] += alpha * pHat[i];
+            }
+            record(sNorm);
+            return finish(true);
+         }
+
+         applyPreconditioner(s, sHat);
+         applyOperator(sHat, t);
+         double tt = dot(t, t);
+         omega = (tt == 0) ? 0.0 : dot(t, s) / tt;
+
+         double rr = 0;
+         for(int i=0; i<n; i++)
+         {
+            x[i] += alpha * pHat[i] + omega * sHat[i];
+            r[i] = s[i] - omega * t[i];
+            rr += r[i] * r[i];
+         }
+
+         residual = Math.sqrt(rr);
+         record(residual);
+
+         if(residual <= threshold)
+         {
+            return finish(true);
+         }
+         if(omega == 0 || Double.isNaN(residual))
+         {
+            return finish(false);
+         }
+      }
+
+      return finish(false);
+   }
+}
@@ -0,0 +1,219 @@
+/**
+ * A block Jacobi preconditioner.
+ * <p>
+ * The matrix is split into square blocks of a fixed size along its diagonal,
+ * and the preconditioner is the block diagonal matrix made of those blocks.
+ * Each block is factored once with partial pivoting, so applying the
+ * preconditioner solves one small dense system per block.  Larger blocks
+ * capture more of the coupling between unknowns, at O(n b^2) cost to apply
+ * and O(n b) memory for blocks of size b.
+ * <p>
+ * The blocks are factored and solved in lockstep using the interleaved
+ * kernels of {@link BatchedLUSolver}.  The last block is padded with the
+ * identity when the block size does not divide the size of the matrix.
+ * <p>
+ * Applying the preconditioner uses a work vector held by the preconditioner,
+ * so one preconditioner should not be used by several threads at once.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		Preconditioner
+ * @see		BatchedLUSolver
+ */
+
+package jLA.solver;
+
+import jLA.core.Matrix;
+import jLA.core.NotSquareMatrixException;
+import jLA.core.SingularMatrixException;
+import jLA.core.SparseMatrix;
+
+public class BlockJacobiPreconditioner implements Preconditioner
+{
+   private int n, blockSize, count;
+
+   // Interleaved LU factors and pivots of the blocks, as in BatchedLUSolver
+   private double[] LU;
+   private int[] pivots;
+   private double[] work;
+
+   /**
+    * Constructs the preconditioner for a dense matrix
+    *
+    * @param	A		The matrix to precondition
+    * @param	blockSize	The number of rows / columns of each block
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	SingularMatrixException		If a diagonal block is singular
+    *
+    * @since	1.1.0
+    */
+   public BlockJacobiPreconditioner(Matrix A, int blockSize) throws NotSquareMatrixException, SingularMatrixException
+   {
+      allocate(A.getSize(), blockSize);
+
+      int bs = this.blockSize;
+      for(int s=0; s<this.count; s++)
+      {
+         int first = s*bs;
+         int last = Math.min(first + bs, this.n);
+         for(int i=first; i<last; i++)
+         {
+            for(int j=first; j<last; j++)
+            {
+               this.LU[((i-first)*bs + (j-first))*this.count + s] = A.get(i,j);
+            }
+         }
+      }
+
+      factor();
+   }
+
+
+   /**
+    * Constructs the preconditioner for a sparse matrix
+    *
+    * @param	A		The matrix to precondition
+    * @param	blockSize	The number of rows / columns of each block
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	SingularMatrixException		If a diagonal block is singular
+    *
+    * @since	1.1.0
+    */
+   public BlockJacobiPreconditioner(SparseMatrix A, int blockSize) throws NotSquareMatrixException, SingularMatrixException
+   {
+      allocate(A.getSize(), blockSize);
+
+      int bs = this.blockSize;
+      for(int j=0; j<this.n; j++)
+      {
+         int s = j / bs;
+         int first = s*bs;
+         int[] rowIndex = A.getColumnRowIndices(j);
+         double[] value = A.getColumnValues(j);
+
+         for(int p=0; p<A.getColumnNonZeroCount(j); p++)
+         {
+            int i = rowIndex[p];
+            if(i >= first && i < first + bs)
+            {
+               this.LU[((i-first)*bs + (j-first))*this.count + s] = value[p];
+            }
+         }
+      }
+
+      factor();
+   }
+
+
+   /**
+    * Gets the number of rows / columns of each block
+    *
+    * @return		The block size
+    *
+    * @since	1.1.0
+    */
+   public int getBlockSize()
+   {
+      return this.blockSize;
+   }
+
+
+   /**
+    * Applies the preconditioner, i.e., solves each diagonal block
+    *
+    * @param	r	The vector to precondition
+    * @param	z	Overwritten with the preconditioned vector
+    *
+    * @since	1.1.0
+    */
+   public void apply(double[] r, double[] z)
+   {
+      int bs = this.blockSize;
+      int count = this.count;
+      double[] work = this.work;
+
+      for(int s=0; s<count; s++)
+      {
+         for(int i=0; i<bs; i++)
+         {
+            int row = s*bs + i;
+            work[i*count + s] = (row < this.n) ? r[row] : 0.0;
+         }
+      }
+
+      BatchedLUSolver.solveChunk(this.LU, this.pivots, work, bs, count, 0, count);
+
+      for(int s=0; s<count; s++)
+      {
+         for(int i=0; i<bs; i++)
+         {
+            int row = s*bs + i;
+            if(row < this.n)
+            {
+               z[row] = work[i*count + s];
+            }
+         }
+      }
+   }
+
+
+   /**
+    * Allocates the block storage, padding the last block with the identity
+    *
+    * @throws	NotSquareMatrixException	If the matrix is not square
+    *
+    * @since	1.1.0
+    */
+   private void allocate(int[] size, int blockSize) throws NotSquareMatrixException
+   {
+      if(size[0] != size[1])
+      {
+         String msg = "Cannot precondition " + size[0] + "x" + size[1] + " matrix.";
+         throw new NotSquareMatrixException(msg);
+      }
+
+      this.n = size[0];
+      this.blockSize = Math.max(1, Math.min(blockSize, this.n));
+      this.count = (this.n + this.blockSize - 1) / this.blockSize;
+
+      int bs = this.blockSize;
+      this.LU = new double[bs*bs*this.count];
+      this.pivots = new int[bs*this.count];
+      this.work = new double[bs*this.count];
+
+      for(int i=this.n - (this.count-1)*bs; i<bs; i++)
+      {
+         this.LU[(i*bs + i)*this.count + this.count-1] = 1.0;
+      }
+   }
+
+
+   /**
+    * Factors the blocks, and checks that none of them are singular
+    *
+    * @throws	SingularMatrixException		If a diagonal block is singular
+    *
+    * @since	1.1.0
+    */
+   private void factor() throws SingularMatrixException
+   {
+      int bs = this.blockSize;
+      int count = this.count;
+
+      BatchedLUSolver.factorChunk(this.LU, this.pivots, bs, count, 0, count, new double[count], new int[count]);
+
+      for(int s=0; s<count; s++)
+      {
+         for(int k=0; k<bs; k++)
+         {
+            if(this.LU[(k*bs + k)*count + s] == 0)
+            {
+               throw new SingularMatrixException("Diagonal block " + s + " is singular.");
+            }
+         }
+      }
+   }
+}
@@ -0,0 +1,143 @@
+/**
+ * A solver for use with symmetric positive definite matrices.
+ * <p>
+ * Cholesky solving can be used with any symmetric positive definite matrix.
+ * It solves the system of equations Ax = b by first factoring A = LL^T, then
+ * performing forward substitution with L and backward substitution with L^T.
+ * The factorization takes half the operations of LU factorization, and needs
+ * no pivoting.
+ * <p>
+ * Once the factorization has been performed, it is possible to reuse the
+ * factorization to solve for multiple values of b.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		CholeskyFactorization
+ */
+
+package jLA.solver;
+
+import jLA.factorization.CholeskyFactorization;
+import jLA.core.Matrix;
+import jLA.core.MatrixSizeMismatchException;
+import jLA.core.NotPositiveDefiniteException;
+
+public class CholeskySolver implements TransposableSolver
+{
+   private Matrix L = null;
+   private Matrix Lt = null;
+
+   // The 1-norm of A, for estimating its condition number
+   private double norm1;
+
+   /**
+    * Constructs the solver for the provided matrix
+    *
+    * @param	A	The symmetric positive definite matrix to find
+    *			solutions from
+    *
+    * @throws	NotPositiveDefiniteException	If A is not positive definite
+    *
+    * @since	1.1.0
+    */
+   public CholeskySolver(Matrix A) throws NotPositiveDefiniteException
+   {
+      this.norm1 = A.norm1();
+      this.L = CholeskyFactorization.factor(A);
+      this.Lt = this.L.transpose();
+   }
+
+
+   /**
+    * Gets the Cholesky factor used by this solver
+    *
+    * @return		The lower triangular factor L, with A = LL^T
+    *
+    * @since	1.1.0
+    */
+   public Matrix getL()
+   {
+      return this.L;
+   }
+
+
+   /**
+    * Determine the solution of the system of equations Ax = b
+    *
+    * @param	b	The vector b in the system Ax = b, or a matrix with
+    *			one right-hand side per column
+    *
+    * @return		The vector x which satisfies Ax = b
+    *
+    * @throws	MatrixSizeMismatchException	If b has the wrong number of rows
+    *
+    * @since	1.1.0
+    */
+   public Matrix solve(Matrix b) throws MatrixSizeMismatchException
+   {
+      int n = this.L.getSize()[0];
+
+      if(b.getSize()[0] != n)
+      {
+         String msg = "Cannot solve " + n + "x" + n + " system with " + b.getSize()[0] + "x" + b.getSize()[1] + " right-hand side.";
+         throw new MatrixSizeMismatchException(msg);
+      }
+
+      Matrix y = ForwardSubstitution.solve(this.L, b);
+      return BackwardSubstitution.solve(this.Lt, y);
+   }
+
+   /**
+    * Gets the number of rows (and columns) of the factored matrix
+    *
+    * @return		The size of the system
+    *
+    * @since	1.1.0
+    */
+   public int getSize()
+   {
+      return this.L.getSize()[0];
+   }
+
+
+   /**
+    * Solves Ax = b in place.
+    *
+    * @param	b	On entry the vector b, on exit the solution x
+    *
+    * @since	1.1.0
+    */
+   public void solve(double[] b)
+   {
+      ForwardSubstitution.solve(this.L, b);
+      BackwardSubstitution.solve(this.Lt, b);
+   }
+
+
+   /**
+    * Solves A^T x = b in place, which is the same system as Ax = b since A
+    * is symmetric.
+    *
+    * @param	b	On entry the vector b, on exit the solution x
+    *
+    * @since	1.1.0
+    */
+   public void solveTranspose(double[] b)
+   {
+      solve(b);
+   }
+
+
+   /**
+    * Estimates the 1-norm condition number of the matrix from its factors.
+    *
+    * @return		An estimate of ||A||_1 ||A^-1||_1
+    *
+    * @since	1.1.0
+    */
+   public double estimateConditionNumber()
+   {
+      return ConditionEstimator.estimate(this, this.norm1);
+   }
+}
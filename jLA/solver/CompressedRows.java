@@ -0,0 +1,140 @@
+/**
+ * A square matrix copied into compressed sparse rows.
+ * <p>
+ * The stationary solvers, ILU(0) and algebraic multigrid all sweep over the
+ * rows of their matrix, so each copies it into this form once, from either a
+ * dense or a sparse matrix.  Row i holds entries rowStart[i] to
+ * rowStart[i+1]-1, in increasing column order, and diagonal[i] is the
+ * position of entry (i,i), or -1 if that entry is not stored.
+ * <p>
+ * The arrays belong to the client which made the copy, and may be modified
+ * in place (e.g., by a factorization).
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ */
+
+package jLA.solver;
+
+import java.util.Arrays;
+
+import jLA.core.Matrix;
+import jLA.core.SparseMatrix;
+
+final class CompressedRows
+{
+   final int n;
+   final int[] rowStart, colIndex, diagonal;
+   final double[] values;
+
+   /**
+    * Copies the non-zero entries of a square dense matrix
+    *
+    * @param	A	The matrix to copy
+    *
+    * @since	1.1.0
+    */
+   CompressedRows(Matrix A)
+   {
+      int n = A.getSize()[0];
+      int count = 0;
+      for(int i=0; i<n; i++)
+      {
+         for(int j=0; j<n; j++)
+         {
+            if(A.get(i,j) != 0)
+            {
+               count++;
+            }
+         }
+      }
+
+      this.n = n;
+      this.rowStart = new int[n+1];
+      this.colIndex = new int[count];
+      this.values = new double[count];
+      this.diagonal = new int[n];
+
+      count = 0;
+      for(int i=0; i<n; i++)
+      {
+         for(int j=0; j<n; j++)
+         {
+            double value = A.get(i,j);
+            if(value != 0)
+            {
+               this.colIndex[count] = j;
+               this.values[count] = value;
+               count++;
+            }
+         }
+         this.rowStart[i+1] = count;
+      }
+
+      findDiagonal();
+   }
+
+
+   /**
+    * Copies the stored entries of a square sparse matrix
+    *
+    * @param	A	The matrix to copy
+    *
+    * @since	1.1.0
+    */
+   CompressedRows(SparseMatrix A)
+   {
+      int n = A.getSize()[0];
+
+      // The columns of the transpose are the (sorted) rows of A
+      SparseMatrix rows = A.transpose();
+
+      this.n = n;
+      this.rowStart = new int[n+1];
+      this.colIndex = new int[A.nonZeroCount()];
+      this.values = new double[A.nonZeroCount()];
+      this.diagonal = new int[n];
+
+      int next = 0;
+      for(int i=0; i<n; i++)
+      {
+         int count = rows.getColumnNonZeroCount(i);
+         System.arraycopy(rows.getColumnRowIndices(i), 0, this.colIndex, next, count);
+         System.arraycopy(rows.getColumnValues(i), 0, this.values, next, count);
+         next += count;
+         this.rowStart[i+1] = next;
+      }
+
+      findDiagonal();
+   }
+
+
+   /**
+    * Gets entry (i,i), which is zero if it is not stored
+    *
+    * @param	i	The row of the entry
+    *
+    * @return		The diagonal entry of row i
+    *
+    * @since	1.1.0
+    */
+   double getDiagonal(int i)
+   {
+      return (this.diagonal[i] < 0) ? 0 : this.values[this.diagonal[i]];
+   }
+
+
+   /**
+    * Finds the position of the diagonal entry of each row
+    *
+    * @since	1.1.0
+    */
+   private void findDiagonal()
+   {
+      for(int i=0; i<this.n; i++)
+      {
+         int p = Arrays.binarySearch(this.colIndex, this.rowStart[i], this.rowStart[i+1], i);
+         this.diagonal[i] = (p < 0) ? -1 : p;
+      }
+   }
+}
@@ -0,0 +1,149 @@
+/**
+ * A conjugate gradient solver for symmetric positive definite systems.
+ * <p>
+ * The conjugate gradient method finds the solution of Ax = b, for symmetric
+ * positive definite A, using one multiplication by A per iteration, and
+ * converges in a number of iterations which grows with the square root of the
+ * condition number of A.  A symmetric positive definite preconditioner can
+ * be provided to reduce the condition number of the system.
+ * <p>
+ * The work vectors are allocated when the solver is constructed, so the
+ * iterations themselves allocate nothing.  The matrix is never factored, and
+ * only needs to be available as a {@link LinearOperator}.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		IterativeSolver
+ */
+
+package jLA.solver;
+
+import jLA.core.LinearOperator;
+import jLA.core.NotSquareMatrixException;
+
+public class ConjugateGradientSolver extends IterativeSolver
+{
+   private double[] r, z, p, q;
+
+   /**
+    * Constructs the solver for the provided operator
+    *
+    * @param	A	The symmetric positive definite operator to find
+    *			solutions from
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    *
+    * @since	1.1.0
+    */
+   public ConjugateGradientSolver(LinearOperator A) throws NotSquareMatrixException
+   {
+      super(A);
+
+      this.r = new double[this.n];
+      this.z = new double[this.n];
+      this.p = new double[this.n];
+      this.q = new double[this.n];
+   }
+
+
+   /**
+    * Constructs a preconditioned solver for the provided operator
+    *
+    * @param	A		The symmetric positive definite operator to find
+    *				solutions from
+    * @param	preconditioner	A symmetric positive definite preconditioner
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    *
+    * @since	1.1.0
+    */
+   public ConjugateGradientSolver(LinearOperator A, Preconditioner preconditioner) throws NotSquareMatrixException
+   {
+      this(A);
+      this.preconditioner = preconditioner;
+   }
+
+
+   /**
+    * Solves Ax = b, improving an initial guess in place.
+    *
+    * @param	b	The vector b, which is not modified
+    * @param	x	On entry the initial guess, on exit the last iterate
+    *
+    * @return		True if the solver converged
+    *
+    * @since	1.1.0
+    */
+   public boolean solve(double[] b, double[] x)
+   {
+      double[] r = this.r;
+      double[] z = this.z;
+      double[] p = this.p;
+      double[] q = this.q;
+      int n = this.n;
+
+      start();
+
+      // r = b - Ax
+      applyOperator(x, q);
+      for(int i=0; i<n; i++)
+      {
+         r[i] = b[i] - q[i];
+      }
+
+      double threshold = this.tolerance * norm(b);
+      double residual = norm(r);
+      record(residual);
+
+      if(residual <= threshold)
+      {
+         return finish(true);
+      }
+
+      applyPreconditioner(r, z);
+      System.arraycopy(z, 0, p, 0, n);
+      double rz = dot(r, z);
+
+      for(int k=0; k<this.maxIterations; k++)
+      {
+         applyOperator(p, q);
+         double pq = dot(p, q);
+
+         // A (or the preconditioner) is not positive definite
+         if(!(pq > 0))
+         {
+            return finish(false);
+         }
+
+         double alpha = rz / pq;
+         double rr = 0;
+         for(int i=0; i<n; i++)
+         {
+            x[i] += alpha * p[i];
+            r[i] -= alpha * q[i];
+            rr += r[i] * r[i];
+         }
+
+         residual = Math.sqrt(rr);
+         record(residual);
+
+         if(residual <= threshold)
+         {
+            return finish(true);
+         }
+
+         applyPreconditioner(r, z);
+         double rzNext = dot(r, z);
+         double beta = rzNext / rz;
+         rz = rzNext;
+
+         for(int i=0; i<n; i++)
+         {
+            p[i] = z[i] + beta * p[i];
+         }
+      }
+
+      return finish(false);
+   }
+}
@@ -0,0 +1,398 @@
+/**
+ * A thread-safe cache of LU factorizations.
+ * <p>
+ * Constructing an {@link LUSolverPartialPivot} costs O(n^3) operations, so
+ * clients which solve with the same matrix from many places should share one
+ * solver rather than factoring the matrix again each time.  This cache hands
+ * out shared solvers, keyed either by the contents of the matrix or by an
+ * explicit token supplied by the client (e.g., a version number, or the
+ * object the matrix was built from).  The solvers are never modified after
+ * they are constructed, so they may be used from several threads at once.
+ * <p>
+ * Content keys are a 64-bit fingerprint of the entries of the matrix, which
+ * costs O(n^2) to compute.  A hit is not checked against the matrix, so two
+ * different matrices with the same fingerprint would share a factorization.
+ * This is unlikely for matrices which are not chosen to collide, but clients
+ * which cannot tolerate a wrong solution should use token keys.  Token keys
+ * cost nothing to compute, but it is up to the client to use a new token
+ * whenever the matrix changes.
+ * <p>
+ * The cache holds at most a given number of bytes of factorizations, and
+ * evicts the least recently used ones to stay within it.  If several threads
+ * ask for the same key at once, only one of them factors the matrix, and the
+ * others wait for its result.  If that thread is interrupted, only it is
+ * cancelled;  the threads waiting for it factor the matrix again.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		LUSolverPartialPivot
+ */
+
+package jLA.solver;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import jLA.core.Matrix;
+
+public class FactorizationCache
+{
+   private long maxBytes;
+   private long bytes = 0;
+
+   private long hits = 0;
+   private long misses = 0;
+   private long evictions = 0;
+
+   // Entries in access order, so the eldest entry is the least recently used
+   private LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+
+
+   /**
+    * Creates an empty cache.
+    *
+    * @param	maxBytes	The (approximate) largest number of bytes of
+    *				factorizations to hold
+    *
+    * @since	1.1.0
+    */
+   public FactorizationCache(long maxBytes)
+   {
+      this.maxBytes = maxBytes;
+   }
+
+
+   /**
+    * Gets a solver for the provided matrix, keyed by its contents.
+    *
+    * @param	A	The matrix to find solutions from
+    *
+    * @return		A (possibly shared) solver for A
+    *
+    * @since	1.1.0
+    */
+   public LUSolverPartialPivot get(Matrix A)
+   {
+      return get(new Key(null, fingerprint(A), A.getSize()[0], A.getSize()[1]), A);
+   }
+
+
+   /**
+    * Gets a solver for the provided matrix, keyed by a client token.
+    * <p>
+    * The token is compared with equals(), and A is only factored if no solver
+    * is cached for the token.
+    *
+    * @param	token	An identity or version token for A
+    * @param	A	The matrix to find solutions from
+    *
+    * @return		A (possibly shared) solver for A
+    *
+    * @since	1.1.0
+    */
+   public LUSolverPartialPivot get(Object token, Matrix A)
+   {
+      return get(new Key(token, 0, A.getSize()[0], A.getSize()[1]), A);
+   }
+
+
+   /**
+    * Removes every entry from the cache.
+    *
+    * @since	1.1.0
+    */
+   public synchronized void clear()
+   {
+      this.entries.clear();
+      this.bytes = 0;
+   }
+
+
+   /**
+    * Gets the number of requests which found a cached solver
+    *
+    * @return		The number of cache hits
+    *
+    * @since	1.1.0
+    */
+   public synchronized long getHitCount()
+   {
+      return this.hits;
+   }
+
+
+   /**
+    * Gets the number of requests which had to factor the matrix
+    *
+    * @return		The number of cache misses
+    *
+    * @since	1.1.0
+    */
+   public synchronized long getMissCount()
+   {
+      return this.misses;
+   }
+
+
+   /**
+    * Gets the number of solvers removed to stay within the size limit
+    *
+    * @return		The number of evictions
+    *
+    * @since	1.1.0
+    */
+   public synchronized long getEvictionCount()
+   {
+      return this.evictions;
+   }
+
+
+   /**
+    * Gets the (approximate) number of bytes held by the cache
+    *
+    * @return		The size of the cached factorizations in bytes
+    *
+    * @since	1.1.0
+    */
+   public synchronized long getSizeInBytes()
+   {
+      return this.bytes;
+   }
+
+
+   /**
+    * Gets the number of solvers held by the cache
+    *
+    * @return		The number of entries
+    *
+    * @since	1.1.0
+    */
+   public synchronized int getEntryCount()
+   {
+      return this.entries.size();
+   }
+
+
+   /**
+    * Computes a 64-bit fingerprint of the contents of a matrix
+    * <p>
+    * The fingerprint is not a cryptographic hash, so different matrices may
+    * be constructed to share one.
+    *
+    * @param	A	The matrix to fingerprint
+    *
+    * @return		A hash of the size and entries of A
+    *
+    * @since	1.1.0
+    */
+   public static long fingerprint(Matrix A)
+   {
+      int m = A.getSize()[0];
+      int n = A.getSize()[1];
+
+      long hash = 0x9E3779B97F4A7C15L ^ ((long) m << 32 | n);
+      for(int i=0; i<m; i++)
+      {
+         for(int j=0; j<n; j++)
+         {
+            hash = (hash ^ Double.doubleToLongBits(A.get(i,j))) * 0x100000001B3L;
+            hash ^= hash >>> 29;
+         }
+      }
+
+      return hash;
+   }
+
+
+   /**
+    * Looks up a key, factoring the matrix if it is not cached.
+    *
+    * @param	key	The key of the matrix
+    * @param	A	The matrix to find solutions from
+    *
+    * @return		A (possibly shared) solver for A
+    *
+    * @since	1.1.0
+    */
+   private LUSolverPartialPivot get(Key key, final Matrix A)
+   {
+      while(true)
+      {
+         Entry entry;
+         boolean owner = false;
+
+         synchronized(this)
+         {
+            entry = this.entries.get(key);
+            if(entry == null)
+            {
+               // Register the entry before factoring, so concurrent requests
+               // for the same key wait for this factorization
+               FutureTask<LUSolverPartialPivot> task = new FutureTask<LUSolverPartialPivot>(new Callable<LUSolverPartialPivot>()
+               {
+                  public LUSolverPartialPivot call()
+                  {
+                     return new LUSolverPartialPivot(A);
+                  }
+               });
+
+               entry = new Entry(task, estimateBytes(A.getSize()[0]));
+               this.entries.put(key, entry);
+               this.bytes += entry.bytes;
+               this.misses++;
+               owner = true;
+               evict(key);
+            }
+            else
+            {
+               this.hits++;
+            }
+         }
+
+         if(owner)
+         {
+            // Factor outside of the lock, so other keys are not held up
+            entry.task.run();
+         }
+
+         try
+         {
+            return entry.task.get();
+         }
+         catch(ExecutionException e)
+         {
+            // Do not keep failed factorizations around
+            synchronized(this)
+            {
+               if(this.entries.get(key) == entry)
+               {
+                  this.entries.remove(key);
+                  this.bytes -= entry.bytes;
+               }
+            }
+
+            // The owner was interrupted part-way through factoring.  Only
+            // the owner should see that, so waiting threads factor again.
+            Throwable cause = e.getCause();
+            if(cause instanceof CancellationException && !owner && !Thread.currentThread().isInterrupted())
+            {
+               continue;
+            }
+
+            if(cause instanceof RuntimeException)
+            {
+               throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+         }
+         catch(InterruptedException e)
+         {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for a factorization.");
+         }
+      }
+   }
+
+
+   /**
+    * Removes the least recently used entries until the cache fits.
+    * <p>
+    * The entry just added is never removed.  Threads still waiting on an
+    * evicted entry receive its result as usual.
+    *
+    * @param	newest	The key of the entry just added
+    *
+    * @since	1.1.0
+    */
+   private void evict(Key newest)
+   {
+      Iterator<Map.Entry<Key, Entry>> it = this.entries.entrySet().iterator();
+
+      while(this.bytes > this.maxBytes && it.hasNext())
+      {
+         Map.Entry<Key, Entry> eldest = it.next();
+         if(!eldest.getKey().equals(newest))
+         {
+            this.bytes -= eldest.getValue().bytes;
+            it.remove();
+            this.evictions++;
+         }
+      }
+   }
+
+
+   /**
+    * Estimates the memory held by the solver of an n x n matrix
+    *
+    * @since	1.1.0
+    */
+   private static long estimateBytes(int n)
+   {
+      // L, U and P, each an array of n rows of n doubles, and the permutation
+      return 3L * (8L*n*n + 16L*n) + 4L*n;
+   }
+
+
+   /**
+    * A key for the cache:  either a client token, or a content fingerprint.
+    *
+    * @since	1.1.0
+    */
+   private static final class Key
+   {
+      private Object token;
+      private long fingerprint;
+      private int rows, cols;
+
+      Key(Object token, long fingerprint, int rows, int cols)
+      {
+         this.token = token;
+         this.fingerprint = fingerprint;
+         this.rows = rows;
+         this.cols = cols;
+      }
+
+      public boolean equals(Object other)
+      {
+         if(!(other instanceof Key))
+         {
+            return false;
+         }
+
+         Key key = (Key) other;
+         boolean sameToken = (this.token == null) ? (key.token == null) : this.token.equals(key.token);
+         return sameToken && this.fingerprint == key.fingerprint && this.rows == key.rows && this.cols == key.cols;
+      }
+
+      public int hashCode()
+      {
+         int hash = (this.token == null) ? 0 : this.token.hashCode();
+         hash = 31*hash + (int) (this.fingerprint ^ (this.fingerprint >>> 32));
+         return 31*(31*hash + this.rows) + this.cols;
+      }
+   }
+
+
+   /**
+    * A cached (or in progress) factorization and its size.
+    *
+    * @since	1.1.0
+    */
+   private static final class Entry
+   {
+      private FutureTask<LUSolverPartialPivot> task;
+      private long bytes;
+
+      Entry(FutureTask<LUSolverPartialPivot> task, long bytes)
+      {
+         this.task = task;
+         this.bytes = bytes;
+      }
+   }
+}
@@ -0,0 +1,292 @@
+/**
+ * A restarted GMRES solver for general square systems.
+ * <p>
+ * GMRES finds, at each iteration, the vector minimizing the residual
+ * ||b - Ax|| over a growing Krylov subspace, so its residual never increases
+ * and it applies to non-symmetric and indefinite matrices.  The basis of the
+ * subspace grows by one vector per iteration, so the method is restarted from
+ * the current iterate every m iterations, keeping memory at O(mn).  Larger
+ * restart lengths converge in fewer iterations, but cost more memory and
+ * orthogonalization work.
+ * <p>
+ * The preconditioner is applied on the right, so the residual minimized (and
+ * recorded in the residual history) is the residual of the original system.
+ * Within a cycle the recorded residuals come from the least-squares
+ * recurrence;  the true residual is computed at each restart.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		IterativeSolver
+ */
+
+package jLA.solver;
+
+import java.util.Arrays;
+
+import jLA.core.LinearOperator;
+import jLA.core.NotSquareMatrixException;
+
+public class GMRESSolver extends IterativeSolver
+{
+   public static final int DEFAULT_RESTART = 30;
+
+   private int restart;
+
+   // Krylov basis, Hessenberg matrix, Givens rotations and work vectors
+   private double[][] V, H;
+   private double[] cs, sn, g, y;
+   private double[] w, z;
+
+   /**
+    * Constructs the solver for the provided operator
+    *
+    * @param	A	The operator to find solutions from
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    *
+    * @since	1.1.0
+    */
+   public GMRESSolver(LinearOperator A) throws NotSquareMatrixException
+   {
+      this(A, DEFAULT_RESTART);
+   }
+
+
+   /**
+    * Constructs the solver for the provided operator
+    *
+    * @param	A	The operator to find solutions from
+    * @param	restart	The number of iterations between restarts
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    *
+    * @since	1.1.0
+    */
+   public GMRESSolver(LinearOperator A, int restart) throws NotSquareMatrixException
+   {
+      super(A);
+
+      this.w = new double[this.n];
+      this.z = new double[this.n];
+      setRestart(restart);
+   }
+
+
+   /**
+    * Constructs a preconditioned solver for the provided operator
+    *
+    * @param	A		The operator to find solutions from
+    * @param	restart		The number of iterations between restarts
+    * @param	preconditioner	The preconditioner, applied on the right
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    *
+    * @since	1.1.0
+    */
+   public GMRESSolver(LinearOperator A, int restart, Preconditioner preconditioner) throws NotSquareMatrixException
+   {
+      this(A, restart);
+      this.preconditioner = preconditioner;
+   }
+
+
+   /**
+    * Sets the number of iterations between restarts
+    *
+    * @param	restart	The restart length m
+    *
+    * @since	1.1.0
+    */
+   public void setRestart(int restart)
+   {
+      this.restart = Math.max(1, restart);
+
+      int m = this.restart;
+      this.V = new double[m+1][this.n];
+      this.H = new double[m+1][m];
+      this.cs = new double[m];
+      this.sn = new double[m];
+      this.g = new double[m+1];
+      this.y = new double[m];
+   }
+
+
+   /**
+    * Gets the number of iterations between restarts
+    *
+    * @return		The restart length m
+    *
+    * @since	1.1.0
+    */
+   public int getRestart()
+   {
+      return this.restart;
+   }
+
+
+   /**
+    * Solves Ax = b, improving an initial guess in place.
+    *
+    * @param	b	The vector b, which is not modified
+    * @param	x	On entry the initial guess, on exit the last iterate
+    *
+    * @return		True if the solver converged
+    *
+    * @since	1.1.0
+    */
+   public boolean solve(double[] b, double[] x)
+   {
+      double[][] V = this.V;
+      double[][] H = this.H;
+      double[] cs = this.cs;
+      double[] sn = this.sn;
+      double[] g = this.g;
+      double[] w = this.w;
+      double[] z = this.z;
+      int n = this.n;
+      int m = this.restart;
+
+      start();
+
+      double threshold = this.tolerance * norm(b);
+      int iterations = 0;
+
+      while(true)
+      {
+         // Start a cycle from the true residual r = b - Ax
+         applyOperator(x, w);
+         for(int i=0; i<n; i++)
+         {
+            V[0][i] = b[i] - w[i];
+         }
+
+         double beta = norm(V[0]);
+         if(iterations == 0)
+         {
+            record(beta);
+         }
+
+         if(beta <= threshold)
+         {
+            return finish(true);
+         }
+         if(iterations >= this.maxIterations)
+         {
+            return finish(false);
+         }
+
+         for(int i=0; i<n; i++)
+         {
+            V[0][i] /= beta;
+         }
+         g[0] = beta;
+
+         int j = 0;
+         while(j < m && iterations < this.maxIterations)
+         {
+            // Extend the basis with M^-1 A v_j, orthogonalized by modified
+            // Gram-Schmidt
+            applyPreconditioner(V[j], z);
+            applyOperator(z, w);
+
+            for(int i=0; i<=j; i++)
+            {
+               double h = dot(w, V[i]);
+               H[i][j] = h;
+               for(int l=0; l<n; l++)
+               {
+                  w[l] -= h * V[i][l];
+               }
+            }
+
+            double h = norm(w);
+            H[j+1][j] = h;
+            if(h != 0)
+            {
+               for(int l=0; l<n; l++)
+               {
+                  V[j+1][l] = w[l] / h;
+               }
+            }
+
+            // Reduce the new column of H to upper triangular form
+            for(int i=0; i<j; i++)
+            {
+               double temp = cs[i]*H[i][j] + sn[i]*H[i+1][j];
+               H[i+1][j] = -sn[i]*H[i][j] + cs[i]*H[i+1][j];
+               H[i][j] = temp;
+            }
+
+            double radius = Math.hypot(H[j][j], H[j+1][j]);
+            cs[j] = (radius == 0) ? 1.0 : H[j][j] / radius;
+            sn[j] = (radius == 0) ? 0.0 : H[j+1][j] / radius;
+            H[j][j] = radius;
+            H[j+1][j] = 0;
+
+            g[j+1] = -sn[j] * g[j];
+            g[j] = cs[j] * g[j];
+
+            j++;
+            iterations++;
+            record(Math.abs(g[j]));
+
+            // Stop the cycle early if converged, or if the subspace is
+            // invariant (the exact solution is in it)
+            if(Math.abs(g[j]) <= threshold || h == 0)
+            {
+               break;
+            }
+         }
+
+         update(x, j);
+      }
+   }
+
+
+   /**
+    * Adds the minimizer of the current cycle to the iterate
+    *
+    * @param	x	The iterate to update
+    * @param	k	The number of basis vectors in the cycle
+    *
+    * @since	1.1.0
+    */
+   private void update(double[] x, int k)
+   {
+      double[][] V = this.V;
+      double[][] H = this.H;
+      double[] y = this.y;
+      double[] w = this.w;
+      double[] z = this.z;
+
+      // Solve the triangular system H y = g
+      for(int i=k-1; i>=0; i--)
+      {
+         double sum = this.g[i];
+         for(int l=i+1; l<k; l++)
+         {
+            sum -= H[i][l] * y[l];
+         }
+         y[i] = (H[i][i] == 0) ? 0.0 : sum / H[i][i];
+      }
+
+      // x = x + M^-1 V y
+      Arrays.fill(w, 0.0);
+      for(int i=0; i<k; i++)
+      {
+         double yi = y[i];
+         double[] v = V[i];
+         for(int l=0; l<this.n; l++)
+         {
+            w[l] += yi * v[l];
+         }
+      }
+
+      applyPreconditioner(w, z);
+      for(int l=0; l<this.n; l++)
+      {
+         x[l] += z[l];
+      }
+   }
+}
@@ -0,0 +1,299 @@
+/**
+ * A Gauss-Seidel solver.
+ * <p>
+ * Each sweep solves the rows for their own unknowns in turn, using the values
+ * already updated earlier in the sweep, which typically halves the number of
+ * sweeps needed by the Jacobi method.  The method converges for symmetric
+ * positive definite and for strictly diagonally dominant matrices.
+ * <p>
+ * In the natural ordering each row depends on the rows before it, so a sweep
+ * is sequential.  A multicolor ordering instead colors the unknowns so that
+ * no two coupled unknowns share a color, and sweeps over one color at a time;
+ * the rows of a color are independent and are split between threads.  For the
+ * 5-point stencil of a grid the greedy coloring used here is the red-black
+ * (checkerboard) ordering.  The multicolor ordering is used whenever the
+ * solver runs in parallel, and can also be selected for sequential sweeps.
+ * The two orderings give different (but equally valid) iterates.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		StationarySolver
+ */
+
+package jLA.solver;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import jLA.core.Matrix;
+import jLA.core.NotSquareMatrixException;
+import jLA.core.SingularMatrixException;
+import jLA.core.SparseMatrix;
+
+public class GaussSeidelSolver extends StationarySolver
+{
+   // Relaxation factor, 1 for Gauss-Seidel itself
+   protected double omega = 1.0;
+
+   private boolean multicolor = false;
+
+   // The rows of color c are colorRows[colorStart[c]] to
+   // colorRows[colorStart[c+1]-1], built the first time they are needed
+   private int[] colorStart = null;
+   private int[] colorRows = null;
+
+   /**
+    * Constructs the solver for a dense matrix
+    *
+    * @param	A	The matrix to find solutions from
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	SingularMatrixException		If a diagonal entry of A is zero
+    *
+    * @since	1.1.0
+    */
+   public GaussSeidelSolver(Matrix A) throws NotSquareMatrixException, SingularMatrixException
+   {
+      super(A);
+   }
+
+
+   /**
+    * Constructs the solver for a sparse matrix
+    *
+    * @param	A	The matrix to find solutions from
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	SingularMatrixException		If a diagonal entry of A is zero
+    *
+    * @since	1.1.0
+    */
+   public GaussSeidelSolver(SparseMatrix A) throws NotSquareMatrixException, SingularMatrixException
+   {
+      super(A);
+   }
+
+
+   /**
+    * Sets whether sequential sweeps use the multicolor ordering
+    * <p>
+    * Parallel sweeps always use the multicolor ordering.
+    *
+    * @param	multicolor	True to sweep one color at a time
+    *
+    * @since	1.1.0
+    */
+   public void setMulticolor(boolean multicolor)
+   {
+      this.multicolor = multicolor;
+   }
+
+
+   /**
+    * Gets the number of colors of the multicolor ordering
+    *
+    * @return		The number of colors
+    *
+    * @since	1.1.0
+    */
+   public int getColorCount()
+   {
+      color();
+      return this.colorStart.length - 1;
+   }
+
+
+   /**
+    * Performs one Gauss-Seidel sweep
+    *
+    * @param	b	The vector b, which is not modified
+    * @param	x	The iterate, improved in place
+    *
+    * @since	1.1.0
+    */
+   protected void sweep(double[] b, double[] x)
+   {
+      if(!this.multicolor && !this.parallel)
+      {
+         for(int i=0; i<this.n; i++)
+         {
+            relax(b, x, i);
+         }
+         return;
+      }
+
+      color();
+
+      for(int c=0; c<this.colorStart.length-1; c++)
+      {
+         int first = this.colorStart[c];
+         int last = this.colorStart[c+1];
+
+         if(this.parallel && last - first > PARALLEL_ROWS)
+         {
+            ForkJoinPool.commonPool().invoke(new ColorTask(b, x, first, last));
+         }
+         else
+         {
+            relaxColor(b, x, first, last);
+         }
+      }
+   }
+
+
+   /**
+    * Solves row i for x_i, and relaxes toward that value
+    *
+    * @since	1.1.0
+    */
+   private void relax(double[] b, double[] x, int i)
+   {
+      double sum = b[i];
+      for(int p=this.rowStart[i]; p<this.rowStart[i+1]; p++)
+      {
+         sum -= this.values[p] * x[this.colIndex[p]];
+      }
+      x[i] += this.omega * sum * this.inverseDiagonal[i];
+   }
+
+
+   /**
+    * Relaxes the rows colorRows[first] to colorRows[last-1]
+    *
+    * @since	1.1.0
+    */
+   private void relaxColor(double[] b, double[] x, int first, int last)
+   {
+      for(int k=first; k<last; k++)
+      {
+         relax(b, x, this.colorRows[k]);
+      }
+   }
+
+
+   /**
+    * Builds the multicolor ordering, if it has not been built yet
+    * <p>
+    * The unknowns are colored greedily in increasing order, each taking the
+    * smallest color not used by any unknown coupled to it in either
+    * direction (a_ij or a_ji non-zero).
+    *
+    * @since	1.1.0
+    */
+   private void color()
+   {
+      if(this.colorStart != null)
+      {
+         return;
+      }
+
+      int n = this.n;
+
+      // The pattern of the transpose, to find the rows coupled through a_ji
+      int[] colStart = new int[n+1];
+      for(int p=0; p<this.rowStart[n]; p++)
+      {
+         colStart[this.colIndex[p]+1]++;
+      }
+      for(int j=0; j<n; j++)
+      {
+         colStart[j+1] += colStart[j];
+      }
+      int[] rowIndex = new int[this.rowStart[n]];
+      int[] next = new int[n];
+      System.arraycopy(colStart, 0, next, 0, n);
+      for(int i=0; i<n; i++)
+      {
+         for(int p=this.rowStart[i]; p<this.rowStart[i+1]; p++)
+         {
+            rowIndex[next[this.colIndex[p]]++] = i;
+         }
+      }
+
+      int[] colors = new int[n];
+      int[] used = new int[n+1];
+      Arrays.fill(used, -1);
+      int numColors = 0;
+
+      for(int i=0; i<n; i++)
+      {
+         // Mark the colors of the neighbours colored so far
+         for(int p=this.rowStart[i]; p<this.rowStart[i+1]; p++)
+         {
+            int j = this.colIndex[p];
+            if(j < i)
+            {
+               used[colors[j]] = i;
+            }
+         }
+         for(int p=colStart[i]; p<colStart[i+1]; p++)
+         {
+            int j = rowIndex[p];
+            if(j < i)
+            {
+               used[colors[j]] = i;
+            }
+         }
+
+         int c = 0;
+         while(used[c] == i)
+         {
+            c++;
+         }
+         colors[i] = c;
+         numColors = Math.max(numColors, c+1);
+      }
+
+      // Group the rows by color, keeping increasing order within a color
+      this.colorStart = new int[numColors+1];
+      for(int i=0; i<n; i++)
+      {
+         this.colorStart[colors[i]+1]++;
+      }
+      for(int c=0; c<numColors; c++)
+      {
+         this.colorStart[c+1] += this.colorStart[c];
+      }
+      this.colorRows = new int[n];
+      next = new int[numColors];
+      System.arraycopy(this.colorStart, 0, next, 0, numColors);
+      for(int i=0; i<n; i++)
+      {
+         this.colorRows[next[colors[i]]++] = i;
+      }
+   }
+
+
+   /**
+    * Splits the rows of one color between fork/join tasks.
+    *
+    * @since	1.1.0
+    */
+   private class ColorTask extends RecursiveAction
+   {
+      private double[] b, x;
+      private int first, last;
+
+      ColorTask(double[] b, double[] x, int first, int last)
+      {
+         this.b = b;
+         this.x = x;
+         this.first = first;
+         this.last = last;
+      }
+
+      protected void compute()
+      {
+         if(last - first > PARALLEL_ROWS)
+         {
+            int middle = (first + last) >>> 1;
+            invokeAll(new ColorTask(b, x, first, middle), new ColorTask(b, x, middle, last));
+            return;
+         }
+
+         relaxColor(b, x, first, last);
+      }
+   }
+}
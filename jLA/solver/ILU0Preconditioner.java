@@ -0,0 +1,180 @@
+/**
+ * An incomplete LU preconditioner with no fill-in, ILU(0).
+ * <p>
+ * Gaussian elimination is performed on the matrix, but every update to an
+ * entry outside the non-zero pattern of the matrix is dropped.  The factors
+ * L and U therefore share the pattern of A, and take O(nnz) memory and
+ * operations to build and to apply, while approximating A much more closely
+ * than its diagonal.
+ * <p>
+ * The factors are stored row by row (compressed sparse rows), so both the
+ * factorization and the triangular solves walk contiguous memory.  Only the
+ * pivots on the diagonal are used, so matrices needing row interchanges for
+ * stability (or with zeros on the diagonal) are not suited to ILU(0).
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		Preconditioner
+ */
+
+package jLA.solver;
+
+import java.util.Arrays;
+
+import jLA.core.NotSquareMatrixException;
+import jLA.core.SingularMatrixException;
+import jLA.core.SparseMatrix;
+
+public class ILU0Preconditioner implements Preconditioner
+{
+   private int n;
+
+   // Row i holds entries rowStart[i] to rowStart[i+1]-1, in increasing
+   // column order;  diagonal[i] is the position of entry (i,i)
+   private int[] rowStart, colIndex, diagonal;
+   private double[] values;
+
+   /**
+    * Constructs the preconditioner for a sparse matrix
+    *
+    * @param	A	The matrix to precondition
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	SingularMatrixException		If a pivot is missing or zero
+    *
+    * @since	1.1.0
+    */
+   public ILU0Preconditioner(SparseMatrix A) throws NotSquareMatrixException, SingularMatrixException
+   {
+      if(!A.isSquare())
+      {
+         String msg = "Cannot precondition " + A.getSize()[0] + "x" + A.getSize()[1] + " matrix.";
+         throw new NotSquareMatrixException(msg);
+      }
+
+      this.n = A.getSize()[0];
+      compress(A);
+      factor();
+   }
+
+
+   /**
+    * Applies the preconditioner, i.e., solves LUz = r
+    *
+    * @param	r	The vector to precondition
+    * @param	z	Overwritten with the preconditioned vector
+    *
+    * @since	1.1.0
+    */
+   public void apply(double[] r, double[] z)
+   {
+      int[] rowStart = this.rowStart;
+      int[] colIndex = this.colIndex;
+      int[] diagonal = this.diagonal;
+      double[] values = this.values;
+
+      // Forward substitution with the unit lower triangular factor
+      for(int i=0; i<this.n; i++)
+      {
+         double sum = r[i];
+         for(int p=rowStart[i]; p<diagonal[i]; p++)
+         {
+            sum -= values[p] * z[colIndex[p]];
+         }
+         z[i] = sum;
+      }
+
+      // Backward substitution with the upper triangular factor
+      for(int i=this.n-1; i>=0; i--)
+      {
+         double sum = z[i];
+         for(int p=diagonal[i]+1; p<rowStart[i+1]; p++)
+         {
+            sum -= values[p] * z[colIndex[p]];
+         }
+         z[i] = sum / values[diagonal[i]];
+      }
+   }
+
+
+   /**
+    * Copies the matrix into compressed sparse rows
+    *
+    * @throws	SingularMatrixException		If a diagonal entry is missing
+    *
+    * @since	1.1.0
+    */
+   private void compress(SparseMatrix A) throws SingularMatrixException
+   {
+      CompressedRows rows = new CompressedRows(A);
+
+      for(int i=0; i<this.n; i++)
+      {
+         if(rows.diagonal[i] < 0)
+         {
+            throw new SingularMatrixException("Diagonal entry " + i + " is zero.");
+         }
+      }
+
+      this.rowStart = rows.rowStart;
+      this.colIndex = rows.colIndex;
+      this.values = rows.values;
+      this.diagonal = rows.diagonal;
+   }
+
+
+   /**
+    * Factors the rows in place, dropping fill outside the pattern
+    *
+    * @throws	SingularMatrixException		If a pivot becomes zero
+    *
+    * @since	1.1.0
+    */
+   private void factor() throws SingularMatrixException
+   {
+      int[] rowStart = this.rowStart;
+      int[] colIndex = this.colIndex;
+      int[] diagonal = this.diagonal;
+      double[] values = this.values;
+
+      // position[j] is where column j sits in the current row, or -1
+      int[] position = new int[this.n];
+      Arrays.fill(position, -1);
+
+      for(int i=0; i<this.n; i++)
+      {
+         for(int p=rowStart[i]; p<rowStart[i+1]; p++)
+         {
+            position[colIndex[p]] = p;
+         }
+
+         // Eliminate with each earlier row k, in increasing order
+         for(int p=rowStart[i]; p<diagonal[i]; p++)
+         {
+            int k = colIndex[p];
+            double multiplier = values[p] / values[diagonal[k]];
+            values[p] = multiplier;
+
+            for(int q=diagonal[k]+1; q<rowStart[k+1]; q++)
+            {
+               int target = position[colIndex[q]];
+               if(target >= 0)
+               {
+                  values[target] -= multiplier * values[q];
+               }
+            }
+         }
+
+         if(values[diagonal[i]] == 0)
+         {
+            throw new SingularMatrixException("Pivot " + i + " is zero.");
+         }
+
+         for(int p=rowStart[i]; p<rowStart[i+1]; p++)
+         {
+            position[colIndex[p]] = -1;
+         }
+      }
+   }
+}
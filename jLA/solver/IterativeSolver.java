@@ -0,0 +1,402 @@
+/**
+ * A base class for iterative solvers of square systems of equations.
+ * <p>
+ * Iterative solvers only need to multiply vectors by the matrix of the
+ * system, so the matrix can be any {@link LinearOperator}, including sparse
+ * matrices and operators which are never formed.  Starting from an initial
+ * guess, the solution is improved until the residual ||b - Ax|| falls below
+ * the tolerance times ||b||, or the iteration limit is reached.
+ * <p>
+ * The norm of the residual after each iteration is recorded, and can be read
+ * after solving along with the number of iterations performed and whether the
+ * solver converged.  Since these statistics belong to the most recent solve,
+ * a solver should not be shared between threads.
+ * <p>
+ * Every iteration is a cancellation checkpoint:  interrupting the thread
+ * running a solve abandons it with a CancellationException.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ */
+
+package jLA.solver;
+
+import java.util.Arrays;
+
+import jLA.core.Cancellation;
+import jLA.core.LinearOperator;
+import jLA.core.Matrix;
+import jLA.core.MatrixSizeMismatchException;
+import jLA.core.NotSquareMatrixException;
+
+public abstract class IterativeSolver
+{
+   public static final double DEFAULT_TOLERANCE = 1e-8;
+   public static final int DEFAULT_MAX_ITERATIONS = 1000;
+
+   protected LinearOperator A = null;
+   protected Preconditioner preconditioner = null;
+   protected int n;
+
+   protected double tolerance = DEFAULT_TOLERANCE;
+   protected int maxIterations = DEFAULT_MAX_ITERATIONS;
+   protected boolean parallel = false;
+
+   private double[] history = new double[0];
+   private int historyLength = 0;
+   private int iterations = 0;
+   private boolean converged = false;
+
+   /**
+    * Constructs the solver for the provided operator
+    *
+    * @param	A	The operator to find solutions from
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    *
+    * @since	1.1.0
+    */
+   protected IterativeSolver(LinearOperator A) throws NotSquareMatrixException
+   {
+      int[] size = A.getSize();
+
+      if(size[0] != size[1])
+      {
+         String msg = "Cannot solve " + size[0] + "x" + size[1] + " system iteratively.";
+         throw new NotSquareMatrixException(msg);
+      }
+
+      this.A = A;
+      this.n = size[0];
+   }
+
+
+   /**
+    * Sets the preconditioner used by the solver
+    *
+    * @param	preconditioner	The preconditioner, or null for none
+    *
+    * @since	1.1.0
+    */
+   public void setPreconditioner(Preconditioner preconditioner)
+   {
+      this.preconditioner = preconditioner;
+   }
+
+
+   /**
+    * Sets the relative residual at which the solver stops
+    *
+    * @param	tolerance	The largest acceptable ||b - Ax|| / ||b||
+    *
+    * @since	1.1.0
+    */
+   public void setTolerance(double tolerance)
+   {
+      this.tolerance = tolerance;
+   }
+
+
+   /**
+    * Sets the largest number of iterations performed by one solve
+    *
+    * @param	maxIterations	The iteration limit
+    *
+    * @since	1.1.0
+    */
+   public void setMaxIterations(int maxIterations)
+   {
+      this.maxIterations = maxIterations;
+   }
+
+
+   /**
+    * Sets whether the operator is applied using several threads
+    *
+    * @param	parallel	True to use
+    *				{@link LinearOperator#applyParallel(double[], double[])}
+    *
+    * @since	1.1.0
+    */
+   public void setParallel(boolean parallel)
+   {
+      this.parallel = parallel;
+   }
+
+
+   /**
+    * Gets the preconditioner used by the solver
+    *
+    * @return		The preconditioner, or null if there is none
+    *
+    * @since	1.1.0
+    */
+   public Preconditioner getPreconditioner()
+   {
+      return this.preconditioner;
+   }
+
+
+   /**
+    * Gets the relative residual at which the solver stops
+    *
+    * @return		The tolerance
+    *
+    * @since	1.1.0
+    */
+   public double getTolerance()
+   {
+      return this.tolerance;
+   }
+
+
+   /**
+    * Gets the largest number of iterations performed by one solve
+    *
+    * @return		The iteration limit
+    *
+    * @since	1.1.0
+    */
+   public int getMaxIterations()
+   {
+      return this.maxIterations;
+   }
+
+
+   /**
+    * Gets the number of iterations performed by the last solve
+    *
+    * @return		The number of iterations
+    *
+    * @since	1.1.0
+    */
+   public int getIterationCount()
+   {
+      return this.iterations;
+   }
+
+
+   /**
+    * Gets whether the last solve reached the tolerance
+    *
+    * @return		True if the last solve converged
+    *
+    * @since	1.1.0
+    */
+   public boolean hasConverged()
+   {
+      return this.converged;
+   }
+
+
+   /**
+    * Gets the norms of the residuals of the last solve
+    * <p>
+    * Entry 0 is the norm of the initial residual, and entry k the norm after
+    * k iterations.  Solvers which do not form the residual explicitly record
+    * the norm of their recurrence for it instead, and solvers which only
+    * check the residual every few iterations record one entry per check.
+    * When several right-hand sides are solved at once, the history belongs to
+    * the last one.
+    *
+    * @return		The residual history
+    *
+    * @since	1.1.0
+    */
+   public double[] getResidualHistory()
+   {
+      return Arrays.copyOf(this.history, this.historyLength);
+   }
+
+
+   /**
+    * Determine the solution of the system of equations Ax = b
+    * <p>
+    * Each column of b is solved for separately, starting from a zero initial
+    * guess, so b may hold several right-hand sides.  Columns which do not
+    * converge hold the last iterate.
+    *
+    * @param	b	The vector b in the system Ax = b
+    *
+    * @return		The vector x which approximately satisfies Ax = b
+    *
+    * @throws	MatrixSizeMismatchException	If b has the wrong number of rows
+    *
+    * @since	1.1.0
+    */
+   public Matrix solve(Matrix b) throws MatrixSizeMismatchException
+   {
+      if(b.getSize()[0] != this.n)
+      {
+         String msg = "Cannot solve " + this.n + "x" + this.n + " system with " + b.getSize()[0] + "x" + b.getSize()[1] + " right-hand side.";
+         throw new MatrixSizeMismatchException(msg);
+      }
+
+      Matrix x = new Matrix(this.n, b.getSize()[1]);
+      double[] bWork = new double[this.n];
+      double[] xWork = new double[this.n];
+
+      for(int c=0; c<b.getSize()[1]; c++)
+      {
+         for(int i=0; i<this.n; i++)
+         {
+            bWork[i] = b.get(i,c);
+         }
+         Arrays.fill(xWork, 0.0);
+
+         solve(bWork, xWork);
+
+         for(int i=0; i<this.n; i++)
+         {
+            x.set(i, c, xWork[i]);
+         }
+      }
+
+      return x;
+   }
+
+
+   /**
+    * Solves Ax = b, improving an initial guess in place.
+    *
+    * @param	b	The vector b, which is not modified
+    * @param	x	On entry the initial guess, on exit the last iterate
+    *
+    * @return		True if the solver converged
+    *
+    * @since	1.1.0
+    */
+   public abstract boolean solve(double[] b, double[] x);
+
+
+   /**
+    * Clears the statistics at the start of a solve
+    *
+    * @since	1.1.0
+    */
+   protected void start()
+   {
+      if(this.history.length < this.maxIterations + 1)
+      {
+         this.history = new double[this.maxIterations + 1];
+      }
+      this.historyLength = 0;
+      this.iterations = 0;
+      this.converged = false;
+   }
+
+
+   /**
+    * Records the norm of the residual after an iteration
+    *
+    * @param	residual	The norm of the residual
+    *
+    * @since	1.1.0
+    */
+   protected void record(double residual)
+   {
+      Cancellation.checkpoint();
+
+      if(this.historyLength == this.history.length)
+      {
+         this.history = Arrays.copyOf(this.history, 2*this.history.length + 1);
+      }
+      this.history[this.historyLength++] = residual;
+      this.iterations = this.historyLength - 1;
+   }
+
+
+   /**
+    * Records the norm of the residual, checked after several iterations
+    *
+    * @param	residual	The norm of the residual
+    * @param	iterations	The number of iterations performed so far
+    *
+    * @since	1.1.0
+    */
+   protected void record(double residual, int iterations)
+   {
+      record(residual);
+      this.iterations = iterations;
+   }
+
+
+   /**
+    * Records the result at the end of a solve
+    *
+    * @param	converged	Whether the tolerance was reached
+    *
+    * @return		converged
+    *
+    * @since	1.1.0
+    */
+   protected boolean finish(boolean converged)
+   {
+      this.converged = converged;
+      return converged;
+   }
+
+
+   /**
+    * Computes y = Ax, in parallel if requested
+    *
+    * @since	1.1.0
+    */
+   protected void applyOperator(double[] x, double[] y)
+   {
+      if(this.parallel)
+      {
+         this.A.applyParallel(x, y);
+      }
+      else
+      {
+         this.A.apply(x, y);
+      }
+   }
+
+
+   /**
+    * Computes z = M^-1 r, or copies r if there is no preconditioner
+    *
+    * @since	1.1.0
+    */
+   protected void applyPreconditioner(double[] r, double[] z)
+   {
+      if(this.preconditioner == null)
+      {
+         System.arraycopy(r, 0, z, 0, this.n);
+      }
+      else
+      {
+         this.preconditioner.apply(r, z);
+      }
+   }
+
+
+   /**
+    * Computes the dot product of two vectors
+    *
+    * @since	1.1.0
+    */
+   protected static double dot(double[] x, double[] y)
+   {
+      double sum = 0;
+      for(int i=0; i<x.length; i++)
+      {
+         sum += x[i] * y[i];
+      }
+
+      return sum;
+   }
+
+
+   /**
+    * Computes the Euclidean norm of a vector
+    *
+    * @since	1.1.0
+    */
+   protected static double norm(double[] x)
+   {
+      return Math.sqrt(dot(x, x));
+   }
+}
@@ -0,0 +1,124 @@
+/**
+ * A Jacobi (diagonal) preconditioner.
+ * <p>
+ * The preconditioner is the diagonal of the matrix, so applying it divides
+ * each entry of a vector by the corresponding diagonal entry.  It costs O(n)
+ * to build and to apply, and helps most with matrices whose rows are badly
+ * scaled relative to each other.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		Preconditioner
+ */
+
+package jLA.solver;
+
+import jLA.core.Matrix;
+import jLA.core.NotSquareMatrixException;
+import jLA.core.SingularMatrixException;
+import jLA.core.SparseMatrix;
+
+public class JacobiPreconditioner implements Preconditioner
+{
+   private double[] inverseDiagonal = null;
+
+   /**
+    * Constructs the preconditioner for a dense matrix
+    *
+    * @param	A	The matrix to precondition
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	SingularMatrixException		If a diagonal entry of A is zero
+    *
+    * @since	1.1.0
+    */
+   public JacobiPreconditioner(Matrix A) throws NotSquareMatrixException, SingularMatrixException
+   {
+      int n = A.getSize()[0];
+
+      if(A.getSize()[1] != n)
+      {
+         String msg = "Cannot precondition " + n + "x" + A.getSize()[1] + " matrix.";
+         throw new NotSquareMatrixException(msg);
+      }
+
+      double[] diagonal = new double[n];
+      for(int i=0; i<n; i++)
+      {
+         diagonal[i] = A.get(i,i);
+      }
+
+      invert(diagonal);
+   }
+
+
+   /**
+    * Constructs the preconditioner for a sparse matrix
+    *
+    * @param	A	The matrix to precondition
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	SingularMatrixException		If a diagonal entry of A is zero
+    *
+    * @since	1.1.0
+    */
+   public JacobiPreconditioner(SparseMatrix A) throws NotSquareMatrixException, SingularMatrixException
+   {
+      int n = A.getSize()[0];
+
+      if(!A.isSquare())
+      {
+         String msg = "Cannot precondition " + n + "x" + A.getSize()[1] + " matrix.";
+         throw new NotSquareMatrixException(msg);
+      }
+
+      double[] diagonal = new double[n];
+      for(int i=0; i<n; i++)
+      {
+         diagonal[i] = A.get(i,i);
+      }
+
+      invert(diagonal);
+   }
+
+
+   /**
+    * Applies the preconditioner, i.e., solves Dz = r
+    *
+    * @param	r	The vector to precondition
+    * @param	z	Overwritten with the preconditioned vector
+    *
+    * @since	1.1.0
+    */
+   public void apply(double[] r, double[] z)
+   {
+      double[] inverse = this.inverseDiagonal;
+      for(int i=0; i<inverse.length; i++)
+      {
+         z[i] = r[i] * inverse[i];
+      }
+   }
+
+
+   /**
+    * Keeps the reciprocals of the diagonal, so applying only multiplies
+    *
+    * @throws	SingularMatrixException		If a diagonal entry is zero
+    *
+    * @since	1.1.0
+    */
+   private void invert(double[] diagonal) throws SingularMatrixException
+   {
+      for(int i=0; i<diagonal.length; i++)
+      {
+         if(diagonal[i] == 0)
+         {
+            throw new SingularMatrixException("Diagonal entry " + i + " is zero.");
+         }
+         diagonal[i] = 1.0 / diagonal[i];
+      }
+
+      this.inverseDiagonal = diagonal;
+   }
+}
@@ -0,0 +1,196 @@
+/**
+ * A (weighted) Jacobi solver.
+ * <p>
+ * Each sweep solves every row for its own unknown using only the values of
+ * the previous iterate, x' = x + w D^-1 (b - Ax), so the rows are independent
+ * and can be split freely between threads.  The plain method (w = 1)
+ * converges for strictly diagonally dominant matrices;  a weight below 1
+ * (commonly 2/3) damps the rapidly varying error, which makes weighted Jacobi
+ * a good smoother.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		StationarySolver
+ */
+
+package jLA.solver;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import jLA.core.Matrix;
+import jLA.core.NotSquareMatrixException;
+import jLA.core.SingularMatrixException;
+import jLA.core.SparseMatrix;
+
+public class JacobiSolver extends StationarySolver
+{
+   private double weight;
+   private double[] correction;
+
+   /**
+    * Constructs the solver for a dense matrix
+    *
+    * @param	A	The matrix to find solutions from
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	SingularMatrixException		If a diagonal entry of A is zero
+    *
+    * @since	1.1.0
+    */
+   public JacobiSolver(Matrix A) throws NotSquareMatrixException, SingularMatrixException
+   {
+      this(A, 1.0);
+   }
+
+
+   /**
+    * Constructs a weighted solver for a dense matrix
+    *
+    * @param	A	The matrix to find solutions from
+    * @param	weight	The weight w of each correction
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	SingularMatrixException		If a diagonal entry of A is zero
+    *
+    * @since	1.1.0
+    */
+   public JacobiSolver(Matrix A, double weight) throws NotSquareMatrixException, SingularMatrixException
+   {
+      super(A);
+      this.weight = weight;
+      this.correction = new double[this.n];
+   }
+
+
+   /**
+    * Constructs the solver for a sparse matrix
+    *
+    * @param	A	The matrix to find solutions from
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	SingularMatrixException		If a diagonal entry of A is zero
+    *
+    * @since	1.1.0
+    */
+   public JacobiSolver(SparseMatrix A) throws NotSquareMatrixException, SingularMatrixException
+   {
+      this(A, 1.0);
+   }
+
+
+   /**
+    * Constructs a weighted solver for a sparse matrix
+    *
+    * @param	A	The matrix to find solutions from
+    * @param	weight	The weight w of each correction
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	SingularMatrixException		If a diagonal entry of A is zero
+    *
+    * @since	1.1.0
+    */
+   public JacobiSolver(SparseMatrix A, double weight) throws NotSquareMatrixException, SingularMatrixException
+   {
+      super(A);
+      this.weight = weight;
+      this.correction = new double[this.n];
+   }
+
+
+   /**
+    * Gets the weight of each correction
+    *
+    * @return		The weight w
+    *
+    * @since	1.1.0
+    */
+   public double getWeight()
+   {
+      return this.weight;
+   }
+
+
+   /**
+    * Performs one Jacobi sweep
+    *
+    * @param	b	The vector b, which is not modified
+    * @param	x	The iterate, improved in place
+    *
+    * @since	1.1.0
+    */
+   protected void sweep(double[] b, double[] x)
+   {
+      if(this.parallel && this.n > PARALLEL_ROWS)
+      {
+         ForkJoinPool.commonPool().invoke(new SweepTask(b, x, 0, this.n));
+      }
+      else
+      {
+         corrections(b, x, 0, this.n);
+      }
+
+      // Only update x once every row has read the previous iterate
+      double[] correction = this.correction;
+      for(int i=0; i<this.n; i++)
+      {
+         x[i] += correction[i];
+      }
+   }
+
+
+   /**
+    * Computes the corrections of rows first to last-1
+    *
+    * @since	1.1.0
+    */
+   private void corrections(double[] b, double[] x, int first, int last)
+   {
+      int[] rowStart = this.rowStart;
+      int[] colIndex = this.colIndex;
+      double[] values = this.values;
+
+      for(int i=first; i<last; i++)
+      {
+         double sum = b[i];
+         for(int p=rowStart[i]; p<rowStart[i+1]; p++)
+         {
+            sum -= values[p] * x[colIndex[p]];
+         }
+         this.correction[i] = this.weight * sum * this.inverseDiagonal[i];
+      }
+   }
+
+
+   /**
+    * Splits the rows of a sweep between fork/join tasks.
+    *
+    * @since	1.1.0
+    */
+   private class SweepTask extends RecursiveAction
+   {
+      private double[] b, x;
+      private int first, last;
+
+      SweepTask(double[] b, double[] x, int first, int last)
+      {
+         this.b = b;
+         this.x = x;
+         this.first = first;
+         this.last = last;
+      }
+
+      protected void compute()
+      {
+         if(last - first > PARALLEL_ROWS)
+         {
+            int middle = (first + last) >>> 1;
+            invokeAll(new SweepTask(b, x, first, middle), new SweepTask(b, x, middle, last));
+            return;
+         }
+
+         corrections(b, x, first, last);
+      }
+   }
+}
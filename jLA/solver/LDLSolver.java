@@ -0,0 +1,207 @@
+/**
+ * A solver for use with symmetric matrices.
+ * <p>
+ * LDL^T solving can be used with any non-singular symmetric matrix, including
+ * indefinite ones.  It solves the system of equations Ax = b by first
+ * factoring P A P^T = L D L^T, then solving with L, D and L^T in turn, while
+ * applying the interchanges recorded in P.
+ * <p>
+ * Once the factorization has been performed, it is possible to reuse the
+ * factorization to solve for multiple values of b.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		LDLFactorization
+ */
+
+package jLA.solver;
+
+import jLA.factorization.LDLFactorization;
+import jLA.core.Matrix;
+import jLA.core.MatrixSizeMismatchException;
+import jLA.core.NotSquareMatrixException;
+import jLA.core.SingularMatrixException;
+
+public class LDLSolver
+{
+   private LDLFactorization LDL = null;
+
+   /**
+    * Constructs the solver for the provided matrix
+    * <p>
+    * Only the lower triangle of A is used.
+    *
+    * @param	A	The symmetric matrix to find solutions from
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	SingularMatrixException		If A is singular
+    *
+    * @since	1.1.0
+    */
+   public LDLSolver(Matrix A) throws NotSquareMatrixException, SingularMatrixException
+   {
+      this.LDL = new LDLFactorization(A);
+   }
+
+
+   /**
+    * Constructs the solver from an existing factorization
+    *
+    * @param	LDL	The factorization of the matrix to find solutions from
+    *
+    * @since	1.1.0
+    */
+   public LDLSolver(LDLFactorization LDL)
+   {
+      this.LDL = LDL;
+   }
+
+
+   /**
+    * Determine the solution of the system of equations Ax = b
+    * <p>
+    * Each column of b is solved for separately, so b may hold several
+    * right-hand sides.
+    *
+    * @param	b	The vector b in the system Ax = b
+    *
+    * @return		The vector x which satisfies Ax = b
+    *
+    * @throws	MatrixSizeMismatchException	If b has the wrong number of rows
+    *
+    * @since	1.1.0
+    */
+   public Matrix solve(Matrix b) throws MatrixSizeMismatchException
+   {
+      int n = this.LDL.getSize();
+
+      if(b.getSize()[0] != n)
+      {
+         String msg = "Cannot solve " + n + "x" + n + " system with " + b.getSize()[0] + "x" + b.getSize()[1] + " right-hand side.";
+         throw new MatrixSizeMismatchException(msg);
+      }
+
+      Matrix x = new Matrix(n, b.getSize()[1]);
+      double[] work = new double[n];
+
+      for(int c=0; c<b.getSize()[1]; c++)
+      {
+         for(int i=0; i<n; i++)
+         {
+            work[i] = b.get(i,c);
+         }
+
+         solve(work);
+
+         for(int i=0; i<n; i++)
+         {
+            x.set(i, c, work[i]);
+         }
+      }
+
+      return x;
+   }
+
+
+   /**
+    * Solves Ax = b in place.
+    *
+    * @param	b	On entry the vector b, on exit the solution x
+    *
+    * @since	1.1.0
+    */
+   public void solve(double[] b)
+   {
+      double[][] a = this.LDL.getFactors();
+      int[] pivots = this.LDL.getPivots();
+      int n = b.length;
+
+      // Solve L D y = P b, interchanging rows as they were during factoring
+      int k = 0;
+      while(k < n)
+      {
+         if(pivots[k] >= 0)
+         {
+            swap(b, k, pivots[k]);
+
+            double bk = b[k];
+            if(bk != 0)
+            {
+               for(int i=k+1; i<n; i++)
+               {
+                  b[i] -= a[i][k] * bk;
+               }
+            }
+            b[k] = bk / a[k][k];
+            k += 1;
+         }
+         else
+         {
+            swap(b, k+1, -pivots[k]-1);
+
+            double bk = b[k];
+            double bk1 = b[k+1];
+            for(int i=k+2; i<n; i++)
+            {
+               b[i] -= a[i][k]*bk + a[i][k+1]*bk1;
+            }
+
+            // Solve with the 2x2 block of D
+            double d21 = a[k+1][k];
+            double d11 = a[k][k] / d21;
+            double d22 = a[k+1][k+1] / d21;
+            double denom = d11*d22 - 1.0;
+            bk = bk / d21;
+            bk1 = bk1 / d21;
+            b[k] = (d22*bk - bk1) / denom;
+            b[k+1] = (d11*bk1 - bk) / denom;
+            k += 2;
+         }
+      }
+
+      // Solve L^T x = y, undoing the interchanges in reverse order
+      k = n-1;
+      while(k >= 0)
+      {
+         if(pivots[k] >= 0)
+         {
+            double sum = b[k];
+            for(int i=k+1; i<n; i++)
+            {
+               sum -= a[i][k] * b[i];
+            }
+            b[k] = sum;
+            swap(b, k, pivots[k]);
+            k -= 1;
+         }
+         else
+         {
+            double sum = b[k];
+            double sum1 = b[k-1];
+            for(int i=k+1; i<n; i++)
+            {
+               sum -= a[i][k] * b[i];
+               sum1 -= a[i][k-1] * b[i];
+            }
+            b[k] = sum;
+            b[k-1] = sum1;
+            swap(b, k, -pivots[k]-1);
+            k -= 2;
+         }
+      }
+   }
+
+
+   /**
+    * Swaps two entries of a vector
+    *
+    * @since	1.1.0
+    */
+   private static void swap(double[] b, int i, int j)
+   {
+      double tmp = b[i];
+      b[i] = b[j];
+      b[j] = tmp;
+   }
+}
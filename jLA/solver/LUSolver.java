@@ -7,10 +7,11 @@
  * solves the system LUx = b by first solving Ly = b, then solving Ux = y.
  * <p>
  * Once the LU factorization has been performed, it is possible to reuse the
- * factorization to solve for multiple values of b.
+ * factorization to solve for multiple values of b.  Several values of b can
+ * also be solved for at once by passing them as the columns of one matrix.
  *
  * @author	Dana Hughes	dana.hughes@colorado.edu
- * @version	1.0.0
+ * @version	1.1.0
  */
 
 package jLA.solver;
@@ -18,11 +19,14 @@ package jLA.solver;
 import jLA.factorization.LUFactorization;
 import jLA.core.Matrix;
 
-public class LUSolver
+public class LUSolver implements TransposableSolver
 {
    private Matrix L = null;
    private Matrix U = null;
 
+   // The 1-norm of A, for estimating its condition number
+   private double norm1;
+
    /**
     * Constructs the solver for the provided matrix
     * <p>
@@ -35,6 +39,8 @@ public class LUSolver
     */
    public LUSolver(Matrix A)
    {
+      this.norm1 = A.norm1();
+
       // Split A into L and U
       Matrix[] LU = LUFactorization.factor(A);
       this.L = LU[0];
@@ -47,13 +53,33 @@ public class LUSolver
     * This method uses the LU factorization calculated in the constructor to
     * determine the vector x which satisfies Ax = b.
     * 
-    * @param	b	The vector b in the system Ax = b
+    * @param	b	The vector b in the system Ax = b, or a matrix with
+    *			one right-hand side per column
     *
     * @return		The vector x which satisfies Ax = b
     *
     * @since	1.0.0
     */
    public Matrix solve(Matrix b)
+   {
+      return solve(b, false);
+   }
+
+
+   /**
+    * Determine the solution of the system of equations AX = B
+    * <p>
+    * All of the columns of B are solved for together, with the blocked
+    * forward and backward substitution.
+    * 
+    * @param	b		The matrix B in the system AX = B
+    * @param	parallel	Whether to solve blocks of columns in parallel
+    *
+    * @return		The matrix X which satisfies AX = B
+    *
+    * @since	1.1.0
+    */
+   public Matrix solve(Matrix b, boolean parallel)
    {
       // Check that the matrices match the necessary conditions
       if(b.getSize()[0] != L.getSize()[0])      
@@ -65,8 +91,8 @@ public class LUSolver
       // Perform forward-backward substitution to get x
       try 
       {
-         Matrix y = ForwardSubstitution.solve(this.L, b);
-         x = BackwardSubstitution.solve(this.U, y);
+         Matrix y = ForwardSubstitution.solve(this.L, b, parallel);
+         x = BackwardSubstitution.solve(this.U, y, parallel);
       }
       catch (Exception e)
       {
@@ -75,4 +101,60 @@ public class LUSolver
 
       return x;
    }
+
+   /**
+    * Gets the number of rows (and columns) of the factored matrix
+    *
+    * @return		The size of the system
+    *
+    * @since	1.1.0
+    */
+   public int getSize()
+   {
+      return this.L.getSize()[0];
+   }
+
+
+   /**
+    * Solves Ax = b in place.
+    *
+    * @param	b	On entry the vector b, on exit the solution x
+    *
+    * @since	1.1.0
+    */
+   public void solve(double[] b)
+   {
+      ForwardSubstitution.solve(this.L, b);
+      BackwardSubstitution.solve(this.U, b);
+   }
+
+
+   /**
+    * Solves A^T x = b in place.
+    * <p>
+    * Since A^T = U^T L^T, this is forward substitution with U^T followed by
+    * backward substitution with L^T.
+    *
+    * @param	b	On entry the vector b, on exit the solution x
+    *
+    * @since	1.1.0
+    */
+   public void solveTranspose(double[] b)
+   {
+      ForwardSubstitution.solveTranspose(this.U, b);
+      BackwardSubstitution.solveTranspose(this.L, b);
+   }
+
+
+   /**
+    * Estimates the 1-norm condition number of the matrix from its factors.
+    *
+    * @return		An estimate of ||A||_1 ||A^-1||_1
+    *
+    * @since	1.1.0
+    */
+   public double estimateConditionNumber()
+   {
+      return ConditionEstimator.estimate(this, this.norm1);
+   }
 }
@@ -11,9 +11,12 @@
  * <p>
  * Partial pivoting is used to provide more stable solutions, requiring only
  * the use of a pivot matrix when determining a solution to a given set of 
+ * <p>
+ * Several values of b can also be solved for at once by passing them as the
+ * columns of one matrix.
  *
  * @author	Dana Hughes	dana.hughes@colorado.edu
- * @version	1.0.0
+ * @version	1.1.0
  */
 
 package jLA.solver;
@@ -21,12 +24,18 @@ package jLA.solver;
 import jLA.factorization.LUFactorization;
 import jLA.core.Matrix;
 
-public class LUSolverPartialPivot
+public class LUSolverPartialPivot implements TransposableSolver
 {
    private Matrix L = null;
    private Matrix U = null;
    private Matrix P = null;
 
+   // Row k of P b is row permutation[k] of b
+   private int[] permutation = null;
+
+   // The 1-norm of A, for estimating its condition number
+   private double norm1;
+
    /**
     * Constructs the solver for the provided matrix
     * <p>
@@ -40,11 +49,28 @@ public class LUSolverPartialPivot
 
    public LUSolverPartialPivot(Matrix A)
    {
+      this.norm1 = A.norm1();
+
       // Split A into L and U
       Matrix[] LU = LUFactorization.factorWithPartialPivot(A);
       this.L = LU[0];
       this.U = LU[1];
       this.P = LU[2];
+
+      // Keep the pivot matrix as a permutation, so it can be applied in
+      // O(n) rather than O(n^2) operations per column
+      int N = this.P.getSize()[0];
+      this.permutation = new int[N];
+      for(int k=0; k<N; k++)
+      {
+         for(int j=0; j<N; j++)
+         {
+            if(this.P.get(k,j) != 0)
+            {
+               this.permutation[k] = j;
+            }
+         }
+      }
    }
 
    /**
@@ -55,13 +81,33 @@ public class LUSolverPartialPivot
     * included since pivoting was performed when determining the matrices L and
     * U.
     * 
-    * @param	b	The vector b in the system Ax = b
+    * @param	b	The vector b in the system Ax = b, or a matrix with
+    *			one right-hand side per column
     *
     * @return		The vector x which satisfies Ax = b
     *
     * @since	1.0.0
     */
    public Matrix solve(Matrix b)
+   {
+      return solve(b, false);
+   }
+
+
+   /**
+    * Determine the solution of the system of equations AX = B
+    * <p>
+    * All of the columns of B are solved for together, with the blocked
+    * forward and backward substitution.
+    * 
+    * @param	b		The matrix B in the system AX = B
+    * @param	parallel	Whether to solve blocks of columns in parallel
+    *
+    * @return		The matrix X which satisfies AX = B
+    *
+    * @since	1.1.0
+    */
+   public Matrix solve(Matrix b, boolean parallel)
    {
       // Check that the matrices match the necessary conditions
       if(b.getSize()[0] != L.getSize()[0])      
@@ -73,9 +119,9 @@ public class LUSolverPartialPivot
       // Perform forward-backward substitution to get x
       try 
       {
-         Matrix bPermuted = P.multiply(b);
-         Matrix y = ForwardSubstitution.solve(this.L, bPermuted);
-         x = BackwardSubstitution.solve(this.U, y);
+         Matrix bPermuted = permute(b);
+         Matrix y = ForwardSubstitution.solve(this.L, bPermuted, parallel);
+         x = BackwardSubstitution.solve(this.U, y, parallel);
       }
       catch (Exception e)
       {
@@ -84,4 +130,102 @@ public class LUSolverPartialPivot
 
       return x;
    }
+
+
+   /**
+    * Gets the number of rows (and columns) of the factored matrix
+    *
+    * @return		The size of the system
+    *
+    * @since	1.1.0
+    */
+   public int getSize()
+   {
+      return this.L.getSize()[0];
+   }
+
+
+   /**
+    * Solves Ax = b in place.
+    *
+    * @param	b	On entry the vector b, on exit the solution x
+    *
+    * @since	1.1.0
+    */
+   public void solve(double[] b)
+   {
+      double[] bPermuted = new double[b.length];
+      for(int k=0; k<b.length; k++)
+      {
+         bPermuted[k] = b[this.permutation[k]];
+      }
+
+      ForwardSubstitution.solve(this.L, bPermuted);
+      BackwardSubstitution.solve(this.U, bPermuted);
+      System.arraycopy(bPermuted, 0, b, 0, b.length);
+   }
+
+
+   /**
+    * Solves A^T x = b in place.
+    * <p>
+    * Since PA = LU, A^T = U^T L^T P, so this is forward substitution with
+    * U^T, backward substitution with L^T, and finally the inverse
+    * permutation.
+    *
+    * @param	b	On entry the vector b, on exit the solution x
+    *
+    * @since	1.1.0
+    */
+   public void solveTranspose(double[] b)
+   {
+      double[] v = b.clone();
+      ForwardSubstitution.solveTranspose(this.U, v);
+      BackwardSubstitution.solveTranspose(this.L, v);
+
+      for(int k=0; k<b.length; k++)
+      {
+         b[this.permutation[k]] = v[k];
+      }
+   }
+
+
+   /**
+    * Estimates the 1-norm condition number of the matrix from its factors.
+    *
+    * @return		An estimate of ||A||_1 ||A^-1||_1
+    *
+    * @since	1.1.0
+    */
+   public double estimateConditionNumber()
+   {
+      return ConditionEstimator.estimate(this, this.norm1);
+   }
+
+
+   /**
+    * Applies the pivot matrix to b
+    *
+    * @param	b	The matrix to permute
+    *
+    * @return		The product Pb
+    *
+    * @since	1.1.0
+    */
+   private Matrix permute(Matrix b)
+   {
+      int n = b.getSize()[0];
+      int k = b.getSize()[1];
+      Matrix bPermuted = new Matrix(n, k);
+
+      for(int i=0; i<n; i++)
+      {
+         for(int c=0; c<k; c++)
+         {
+            bPermuted.set(i, c, b.get(this.permutation[i], c));
+         }
+      }
+
+      return bPermuted;
+   }
 }
@@ -0,0 +1,31 @@
+/**
+ * An interface for preconditioners of the iterative solvers.
+ * <p>
+ * A preconditioner M approximates the matrix A of a system, in such a way
+ * that systems Mz = r are cheap to solve.  Iterative solvers converge in fewer
+ * iterations on the preconditioned system, at the cost of one application of
+ * the preconditioner per iteration.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		IterativeSolver
+ */
+
+package jLA.solver;
+
+public interface Preconditioner
+{
+   /**
+    * Applies the preconditioner, i.e., solves Mz = r
+    * <p>
+    * Implementations must not modify r, and are called with different
+    * arrays for r and z.
+    *
+    * @param	r	The vector to precondition
+    * @param	z	Overwritten with the preconditioned vector
+    *
+    * @since	1.1.0
+    */
+   public void apply(double[] r, double[] z);
+}
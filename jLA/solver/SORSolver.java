@@ -0,0 +1,76 @@
+/**
+ * A successive over-relaxation (SOR) solver.
+ * <p>
+ * SOR performs Gauss-Seidel sweeps, but moves each unknown w times as far as
+ * Gauss-Seidel would.  For 1 < w < 2 this over-relaxation can reduce the
+ * number of sweeps by an order of magnitude on grid problems;  for the
+ * Poisson equation on an m x m grid the best factor is close to
+ * 2 / (1 + sin(pi / (m+1))).  The method converges for symmetric positive
+ * definite matrices whenever 0 < w < 2.
+ * <p>
+ * The orderings (natural, or multicolor for parallel sweeps) are those of
+ * {@link GaussSeidelSolver}.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		GaussSeidelSolver
+ */
+
+package jLA.solver;
+
+import jLA.core.Matrix;
+import jLA.core.NotSquareMatrixException;
+import jLA.core.SingularMatrixException;
+import jLA.core.SparseMatrix;
+
+public class SORSolver extends GaussSeidelSolver
+{
+   /**
+    * Constructs the solver for a dense matrix
+    *
+    * @param	A	The matrix to find solutions from
+    * @param	omega	The relaxation factor w
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	SingularMatrixException		If a diagonal entry of A is zero
+    *
+    * @since	1.1.0
+    */
+   public SORSolver(Matrix A, double omega) throws NotSquareMatrixException, SingularMatrixException
+   {
+      super(A);
+      this.omega = omega;
+   }
+
+
+   /**
+    * Constructs the solver for a sparse matrix
+    *
+    * @param	A	The matrix to find solutions from
+    * @param	omega	The relaxation factor w
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	SingularMatrixException		If a diagonal entry of A is zero
+    *
+    * @since	1.1.0
+    */
+   public SORSolver(SparseMatrix A, double omega) throws NotSquareMatrixException, SingularMatrixException
+   {
+      super(A);
+      this.omega = omega;
+   }
+
+
+   /**
+    * Gets the relaxation factor
+    *
+    * @return		The relaxation factor w
+    *
+    * @since	1.1.0
+    */
+   public double getRelaxationFactor()
+   {
+      return this.omega;
+   }
+}
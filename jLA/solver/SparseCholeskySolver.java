@@ -0,0 +1,210 @@
+/**
+ * A solver for use with sparse symmetric positive definite matrices.
+ * <p>
+ * The matrix is factored as P A P^T = L L^T using a supernodal sparse Cholesky
+ * factorization when the solver is constructed.  The system Ax = b is then
+ * solved by permuting b, solving L y = P b and L^T z = y one supernode at a
+ * time, and permuting z back.
+ * <p>
+ * Once the factorization has been performed, it is possible to reuse the
+ * factorization to solve for multiple values of b.  When the values (but not
+ * the pattern) of A change, {@link #refactor(SparseMatrix)} reuses the symbolic
+ * analysis and only repeats the numeric factorization.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		SparseCholeskyFactorization
+ */
+
+package jLA.solver;
+
+import jLA.factorization.SparseCholeskyFactorization;
+import jLA.factorization.SparseCholeskySymbolic;
+import jLA.core.Matrix;
+import jLA.core.SparseMatrix;
+import jLA.core.MatrixSizeMismatchException;
+import jLA.core.NotPositiveDefiniteException;
+import jLA.core.NotSquareMatrixException;
+
+public class SparseCholeskySolver
+{
+   private SparseCholeskyFactorization LLt = null;
+
+   /**
+    * Constructs the solver for the provided matrix
+    * <p>
+    * A may be stored as its lower triangle, its upper triangle, or in full.
+    *
+    * @param	A	The matrix to find solutions from
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	NotPositiveDefiniteException	If A is not positive definite
+    *
+    * @since	1.1.0
+    */
+   public SparseCholeskySolver(SparseMatrix A) throws NotSquareMatrixException, NotPositiveDefiniteException
+   {
+      this.LLt = new SparseCholeskyFactorization(A);
+   }
+
+
+   /**
+    * Constructs the solver reusing an existing symbolic analysis
+    *
+    * @param	symbolic	The analysis of a matrix with the same pattern
+    * @param	A		The matrix to find solutions from
+    *
+    * @throws	MatrixSizeMismatchException	If A does not match the analysis
+    * @throws	NotPositiveDefiniteException	If A is not positive definite
+    *
+    * @since	1.1.0
+    */
+   public SparseCholeskySolver(SparseCholeskySymbolic symbolic, SparseMatrix A) throws MatrixSizeMismatchException, NotPositiveDefiniteException
+   {
+      this.LLt = new SparseCholeskyFactorization(symbolic, A);
+   }
+
+
+   /**
+    * Refactors the solver for a matrix with the same pattern
+    *
+    * @param	A	The new matrix to find solutions from
+    *
+    * @throws	MatrixSizeMismatchException	If A does not match the analysis
+    * @throws	NotPositiveDefiniteException	If A is not positive definite
+    *
+    * @since	1.1.0
+    */
+   public void refactor(SparseMatrix A) throws MatrixSizeMismatchException, NotPositiveDefiniteException
+   {
+      this.LLt.refactor(A);
+   }
+
+
+   /**
+    * Gets the factorization used by this solver
+    *
+    * @return		The sparse Cholesky factorization of the matrix
+    *
+    * @since	1.1.0
+    */
+   public SparseCholeskyFactorization getFactorization()
+   {
+      return this.LLt;
+   }
+
+
+   /**
+    * Determine the solution of the system of equations Ax = b
+    * <p>
+    * Each column of b is solved for separately, so b may hold several
+    * right-hand sides.
+    *
+    * @param	b	The vector b in the system Ax = b
+    *
+    * @return		The vector x which satisfies Ax = b
+    *
+    * @throws	MatrixSizeMismatchException	If b has the wrong number of rows
+    *
+    * @since	1.1.0
+    */
+   public Matrix solve(Matrix b) throws MatrixSizeMismatchException
+   {
+      int n = this.LLt.getSymbolic().getSize();
+
+      if(b.getSize()[0] != n)
+      {
+         String msg = "Cannot solve " + n + "x" + n + " system with " + b.getSize()[0] + "x" + b.getSize()[1] + " right-hand side.";
+         throw new MatrixSizeMismatchException(msg);
+      }
+
+      Matrix x = new Matrix(n, b.getSize()[1]);
+      double[] work = new double[n];
+
+      for(int c=0; c<b.getSize()[1]; c++)
+      {
+         for(int i=0; i<n; i++)
+         {
+            work[i] = b.get(i,c);
+         }
+
+         solve(work);
+
+         for(int i=0; i<n; i++)
+         {
+            x.set(i, c, work[i]);
+         }
+      }
+
+      return x;
+   }
+
+
+   /**
+    * Solves Ax = b in place.
+    *
+    * @param	b	On entry the vector b, on exit the solution x
+    *
+    * @since	1.1.0
+    */
+   public void solve(double[] b)
+   {
+      SparseCholeskySymbolic S = this.LLt.getSymbolic();
+      int[] perm = S.getPermutation();
+      int n = b.length;
+
+      double[] y = new double[n];
+      for(int k=0; k<n; k++)
+      {
+         y[k] = b[perm[k]];
+      }
+
+      // Forward substitution L y = P b, one supernode at a time
+      for(int s=0; s<S.getSupernodeCount(); s++)
+      {
+         int first = S.getSupernodeStart(s);
+         int width = S.getSupernodeStart(s+1) - first;
+         int[] rows = S.getSupernodeRows(s);
+         int height = rows.length;
+         double[] block = this.LLt.getSupernodeBlock(s);
+
+         for(int c=0; c<width; c++)
+         {
+            int offset = c*height;
+            double yc = y[first + c] / block[offset + c];
+            y[first + c] = yc;
+            for(int r=c+1; r<height; r++)
+            {
+               y[rows[r]] -= block[offset + r] * yc;
+            }
+         }
+      }
+
+      // Backward substitution L^T z = y, in reverse
+      for(int s=S.getSupernodeCount()-1; s>=0; s--)
+      {
+         int first = S.getSupernodeStart(s);
+         int width = S.getSupernodeStart(s+1) - first;
+         int[] rows = S.getSupernodeRows(s);
+         int height = rows.length;
+         double[] block = this.LLt.getSupernodeBlock(s);
+
+         for(int c=width-1; c>=0; c--)
+         {
+            int offset = c*height;
+            double sum = y[first + c];
+            for(int r=c+1; r<height; r++)
+            {
+               sum -= block[offset + r] * y[rows[r]];
+            }
+            y[first + c] = sum / block[offset + c];
+         }
+      }
+
+      for(int k=0; k<n; k++)
+      {
+         b[perm[k]] = y[k];
+      }
+   }
+}
@@ -0,0 +1,190 @@
+/**
+ * A solver for use with sparse square matrices.
+ * <p>
+ * This is the sparse counterpart of {@link LUSolver}.  It factors the matrix
+ * into sparse factors L U = P A Q when constructed, then solves the system
+ * Ax = b by permuting b, performing sparse forward and backward substitution,
+ * and permuting the result back.  Only the non-zeros of L and U are touched,
+ * so memory and time stay proportional to the size of the factors.
+ * <p>
+ * Once the factorization has been performed, it is possible to reuse the
+ * factorization to solve for multiple values of b.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		SparseLUFactorization
+ */
+
+package jLA.solver;
+
+import jLA.factorization.SparseLUFactorization;
+import jLA.core.Matrix;
+import jLA.core.SparseMatrix;
+import jLA.core.MatrixSizeMismatchException;
+import jLA.core.NotSquareMatrixException;
+import jLA.core.SingularMatrixException;
+
+public class SparseLUSolver
+{
+   private SparseLUFactorization LU = null;
+
+   /**
+    * Constructs the solver for the provided matrix
+    * <p>
+    * When a solver is created, it performs sparse LU factorization on the
+    * given matrix for use later.
+    *
+    * @param	A	The matrix to find solutions from
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	SingularMatrixException		If A is singular
+    *
+    * @since	1.1.0
+    */
+   public SparseLUSolver(SparseMatrix A) throws NotSquareMatrixException, SingularMatrixException
+   {
+      this.LU = new SparseLUFactorization(A);
+   }
+
+
+   /**
+    * Constructs the solver for the provided matrix with a pivot threshold
+    *
+    * @param	A		The matrix to find solutions from
+    * @param	threshold	The pivot threshold, between 0 and 1
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	SingularMatrixException		If A is singular
+    *
+    * @since	1.1.0
+    */
+   public SparseLUSolver(SparseMatrix A, double threshold) throws NotSquareMatrixException, SingularMatrixException
+   {
+      this.LU = new SparseLUFactorization(A, threshold);
+   }
+
+
+   /**
+    * Gets the factorization used by this solver
+    *
+    * @return		The sparse LU factorization of the matrix
+    *
+    * @since	1.1.0
+    */
+   public SparseLUFactorization getFactorization()
+   {
+      return this.LU;
+   }
+
+
+   /**
+    * Determine the solution of the system of equations Ax = b
+    * <p>
+    * Each column of b is solved for separately, so b may hold several
+    * right-hand sides.
+    *
+    * @param	b	The vector b in the system Ax = b
+    *
+    * @return		The vector x which satisfies Ax = b
+    *
+    * @throws	MatrixSizeMismatchException	If b has the wrong number of rows
+    *
+    * @since	1.1.0
+    */
+   public Matrix solve(Matrix b) throws MatrixSizeMismatchException
+   {
+      int n = this.LU.getL().getSize()[0];
+
+      if(b.getSize()[0] != n)
+      {
+         String msg = "Cannot solve " + n + "x" + n + " system with " + b.getSize()[0] + "x" + b.getSize()[1] + " right-hand side.";
+         throw new MatrixSizeMismatchException(msg);
+      }
+
+      Matrix x = new Matrix(n, b.getSize()[1]);
+      double[] work = new double[n];
+
+      for(int c=0; c<b.getSize()[1]; c++)
+      {
+         for(int i=0; i<n; i++)
+         {
+            work[i] = b.get(i,c);
+         }
+
+         solve(work);
+
+         for(int i=0; i<n; i++)
+         {
+            x.set(i, c, work[i]);
+         }
+      }
+
+      return x;
+   }
+
+
+   /**
+    * Solves Ax = b in place.
+    *
+    * @param	b	On entry the vector b, on exit the solution x
+    *
+    * @since	1.1.0
+    */
+   public void solve(double[] b)
+   {
+      SparseMatrix L = this.LU.getL();
+      SparseMatrix U = this.LU.getU();
+      int[] pinv = this.LU.getRowPermutation();
+      int[] q = this.LU.getColumnPermutation();
+      int n = b.length;
+
+      // y = P b
+      double[] y = new double[n];
+      for(int i=0; i<n; i++)
+      {
+         y[pinv[i]] = b[i];
+      }
+
+      // Forward substitution with the unit lower triangular L
+      for(int j=0; j<n; j++)
+      {
+         int[] rows = L.getColumnRowIndices(j);
+         double[] values = L.getColumnValues(j);
+         double yj = y[j];
+         if(yj != 0)
+         {
+            // The first entry of each column is the unit diagonal
+            for(int p=1; p<L.getColumnNonZeroCount(j); p++)
+            {
+               y[rows[p]] -= values[p] * yj;
+            }
+         }
+      }
+
+      // Backward substitution with U, whose last entry in each column is the
+      // diagonal
+      for(int j=n-1; j>=0; j--)
+      {
+         int[] rows = U.getColumnRowIndices(j);
+         double[] values = U.getColumnValues(j);
+         int count = U.getColumnNonZeroCount(j);
+
+         y[j] = y[j] / values[count-1];
+         double yj = y[j];
+         if(yj != 0)
+         {
+            for(int p=0; p<count-1; p++)
+            {
+               y[rows[p]] -= values[p] * yj;
+            }
+         }
+      }
+
+      // x = Q y
+      for(int k=0; k<n; k++)
+      {
+         b[q[k]] = y[k];
+      }
+   }
+}
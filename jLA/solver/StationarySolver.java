@@ -0,0 +1,259 @@
+/**
+ * A base class for stationary iterative solvers.
+ * <p>
+ * Stationary methods (Jacobi, Gauss-Seidel, SOR) improve the iterate by
+ * sweeping over the rows of the matrix, solving each row for its own unknown.
+ * Each sweep costs one pass over the non-zeros of the matrix and allocates
+ * nothing, which makes these methods cheap smoothers and good solvers for
+ * diagonally dominant systems, such as implicit time steps of the heat
+ * equation.
+ * <p>
+ * The matrix is copied into compressed sparse rows when the solver is
+ * constructed, from either a dense or a sparse matrix.  Computing the norm of
+ * the residual costs as much as a sweep, and is a reduction over all of the
+ * rows, so the residual is only checked every few sweeps;  the iteration
+ * limit counts sweeps, and every sweep is a cancellation checkpoint.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		IterativeSolver
+ */
+
+package jLA.solver;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import jLA.core.Cancellation;
+import jLA.core.Matrix;
+import jLA.core.NotSquareMatrixException;
+import jLA.core.SingularMatrixException;
+import jLA.core.SparseMatrix;
+
+public abstract class StationarySolver extends IterativeSolver
+{
+   public static final int DEFAULT_CHECK_INTERVAL = 10;
+
+   // Smallest number of rows handed to a thread when sweeping in parallel
+   static final int PARALLEL_ROWS = 2048;
+
+   // Row i holds entries rowStart[i] to rowStart[i+1]-1, in increasing
+   // column order
+   protected int[] rowStart, colIndex;
+   protected double[] values, inverseDiagonal;
+
+   protected int checkInterval = DEFAULT_CHECK_INTERVAL;
+
+   private double[] r;
+
+   /**
+    * Constructs the solver for a dense matrix
+    *
+    * @param	A	The matrix to find solutions from
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	SingularMatrixException		If a diagonal entry of A is zero
+    *
+    * @since	1.1.0
+    */
+   protected StationarySolver(Matrix A) throws NotSquareMatrixException, SingularMatrixException
+   {
+      super(A);
+      compress(new CompressedRows(A));
+   }
+
+
+   /**
+    * Constructs the solver for a sparse matrix
+    *
+    * @param	A	The matrix to find solutions from
+    *
+    * @throws	NotSquareMatrixException	If A is not square
+    * @throws	SingularMatrixException		If a diagonal entry of A is zero
+    *
+    * @since	1.1.0
+    */
+   protected StationarySolver(SparseMatrix A) throws NotSquareMatrixException, SingularMatrixException
+   {
+      super(A);
+      compress(new CompressedRows(A));
+   }
+
+
+   /**
+    * Sets how many sweeps are performed between residual checks
+    *
+    * @param	checkInterval	The number of sweeps between checks
+    *
+    * @since	1.1.0
+    */
+   public void setCheckInterval(int checkInterval)
+   {
+      this.checkInterval = Math.max(1, checkInterval);
+   }
+
+
+   /**
+    * Gets how many sweeps are performed between residual checks
+    *
+    * @return		The number of sweeps between checks
+    *
+    * @since	1.1.0
+    */
+   public int getCheckInterval()
+   {
+      return this.checkInterval;
+   }
+
+
+   /**
+    * Solves Ax = b, improving an initial guess in place.
+    *
+    * @param	b	The vector b, which is not modified
+    * @param	x	On entry the initial guess, on exit the last iterate
+    *
+    * @return		True if the solver converged
+    *
+    * @since	1.1.0
+    */
+   public boolean solve(double[] b, double[] x)
+   {
+      start();
+
+      double threshold = this.tolerance * norm(b);
+      double residual = residualNorm(b, x);
+      record(residual, 0);
+
+      int sweeps = 0;
+      while(residual > threshold && sweeps < this.maxIterations)
+      {
+         int count = Math.min(this.checkInterval, this.maxIterations - sweeps);
+         for(int k=0; k<count; k++)
+         {
+            Cancellation.checkpoint();
+            sweep(b, x);
+         }
+         sweeps += count;
+
+         residual = residualNorm(b, x);
+         record(residual, sweeps);
+      }
+
+      return finish(residual <= threshold);
+   }
+
+
+   /**
+    * Performs one sweep of the method
+    *
+    * @param	b	The vector b, which is not modified
+    * @param	x	The iterate, improved in place
+    *
+    * @since	1.1.0
+    */
+   protected abstract void sweep(double[] b, double[] x);
+
+
+   /**
+    * Computes ||b - Ax||, splitting the rows between threads if requested
+    *
+    * @since	1.1.0
+    */
+   protected double residualNorm(double[] b, double[] x)
+   {
+      if(this.r == null)
+      {
+         this.r = new double[this.n];
+      }
+
+      if(this.parallel && this.n > PARALLEL_ROWS)
+      {
+         ForkJoinPool.commonPool().invoke(new ResidualTask(b, x, 0, this.n));
+      }
+      else
+      {
+         residual(b, x, 0, this.n);
+      }
+
+      return norm(this.r);
+   }
+
+
+   /**
+    * Computes rows first to last-1 of r = b - Ax
+    *
+    * @since	1.1.0
+    */
+   private void residual(double[] b, double[] x, int first, int last)
+   {
+      for(int i=first; i<last; i++)
+      {
+         double sum = b[i];
+         for(int p=this.rowStart[i]; p<this.rowStart[i+1]; p++)
+         {
+            sum -= this.values[p] * x[this.colIndex[p]];
+         }
+         this.r[i] = sum;
+      }
+   }
+
+
+   /**
+    * Keeps the rows of the matrix, and the reciprocals of its diagonal
+    * entries
+    *
+    * @throws	SingularMatrixException		If a diagonal entry is zero
+    *
+    * @since	1.1.0
+    */
+   private void compress(CompressedRows rows) throws SingularMatrixException
+   {
+      this.rowStart = rows.rowStart;
+      this.colIndex = rows.colIndex;
+      this.values = rows.values;
+      this.inverseDiagonal = new double[this.n];
+
+      for(int i=0; i<this.n; i++)
+      {
+         double diagonal = rows.getDiagonal(i);
+         if(diagonal == 0)
+         {
+            throw new SingularMatrixException("Diagonal entry " + i + " is zero.");
+         }
+         this.inverseDiagonal[i] = 1.0 / diagonal;
+      }
+   }
+
+
+   /**
+    * Splits the rows of a residual between fork/join tasks.
+    *
+    * @since	1.1.0
+    */
+   private class ResidualTask extends RecursiveAction
+   {
+      private double[] b, x;
+      private int first, last;
+
+      ResidualTask(double[] b, double[] x, int first, int last)
+      {
+         this.b = b;
+         this.x = x;
+         this.first = first;
+         this.last = last;
+      }
+
+      protected void compute()
+      {
+         if(last - first > PARALLEL_ROWS)
+         {
+            int middle = (first + last) >>> 1;
+            invokeAll(new ResidualTask(b, x, first, middle), new ResidualTask(b, x, middle, last));
+            return;
+         }
+
+         residual(b, x, first, last);
+      }
+   }
+}
@@ -0,0 +1,63 @@
+/**
+ * A factored square system which can be solved with its matrix or the
+ * transpose of its matrix.
+ * <p>
+ * Once A has been factored, systems with A and with A^T each take O(n^2)
+ * operations, which is all the {@link ConditionEstimator} needs to estimate
+ * the condition number of A.
+ *
+ * @author	Dana Hughes	dana.hughes@colorado.edu
+ * @version	1.1.0
+ *
+ * @see		ConditionEstimator
+ */
+
+package jLA.solver;
+
+public interface TransposableSolver
+{
+   /**
+    * Gets the number of rows (and columns) of the matrix A
+    *
+    * @return		The size of the system
+    *
+    * @since	1.1.0
+    */
+   int getSize();
+
+
+   /**
+    * Solves Ax = b in place.
+    *
+    * @param	b	On entry the vector b, on exit the solution x
+    *
+    * @since	1.1.0
+    */
+   void solve(double[] b);
+
+
+   /**
+    * Solves A^T x = b in place.
+    *
+    * @param	b	On entry the vector b, on exit the solution x
+    *
+    * @since	1.1.0
+    */
+   void solveTranspose(double[] b);
+
+
+   /**
+    * Estimates the 1-norm condition number of the matrix
+    * <p>
+    * The estimate reuses the factorization, and takes O(n^2) operations.  It
+    * never exceeds the true condition number, and is almost always within a
+    * factor of three of it.
+    *
+    * @return		An estimate of ||A||_1 ||A^-1||_1
+    *
+    * @see		ConditionEstimator
+    *
+    * @since	1.1.0
+    */
+   double estimateConditionNumber();
+}